@@ -0,0 +1,174 @@
+/*
+ * Copyright 2026, Andrew Lindesay
+ * Distributed under the terms of the MIT License.
+ */
+
+package org.haiku.haikudepotserver.pkg.job;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.io.CountingOutputStream;
+import org.haiku.haikudepotserver.config.ObjectMapperFactory;
+import org.haiku.haikudepotserver.pkg.model.dumpexport.DumpExportPkg;
+import org.haiku.haikudepotserver.pkg.model.dumpexport.DumpExportPkgCategory;
+import org.haiku.haikudepotserver.pkg.model.dumpexport.DumpExportPkgScreenshot;
+import org.haiku.haikudepotserver.pkg.model.dumpexport.DumpExportPkgVersion;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * <p>Writes synthetic packages to a JSON stream in the same way as the {@link PkgDumpExportJobRunner} so that
+ * the cost of the serialization and compression can be seen separately from the cost of loading the data from
+ * the database. The size of the output is returned so that it is not optimized away.</p>
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class PkgDumpExportSerializationBenchmark {
+
+    private final static long SEED = 20260101L;
+
+    private final static String[] WORDS = new String[] {
+            "audio", "video", "editor", "image", "viewer", "network", "browser", "game", "library", "terminal",
+            "archive", "font", "paint", "vector", "music", "player", "mail", "client", "server", "utility"
+    };
+
+    private final static String[] PKG_CATEGORY_CODES = new String[] {
+            "audio", "business", "development", "games", "graphics", "internetandnetwork", "productivity",
+            "scienceandmathematics", "systemandutilities", "video"
+    };
+
+    @Param({ "1000", "10000" })
+    public int pkgCount;
+
+    @Param({ "true", "false" })
+    public boolean gzip;
+
+    private final ObjectMapper objectMapper = new ObjectMapperFactory().getObject();
+
+    private List<DumpExportPkg> pkgs;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(SEED);
+        pkgs = IntStream.range(0, pkgCount)
+                .mapToObj(i -> createPkg(random, i))
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public long write() throws IOException {
+        CountingOutputStream countingOutputStream = new CountingOutputStream(OutputStream.nullOutputStream());
+
+        try (
+                OutputStream outputStream = gzip ? new GZIPOutputStream(countingOutputStream) : countingOutputStream;
+                JsonGenerator jsonGenerator = objectMapper.getFactory().createGenerator(outputStream)
+        ) {
+            jsonGenerator.writeStartObject();
+            jsonGenerator.writeFieldName("items");
+            jsonGenerator.writeStartArray();
+
+            for (DumpExportPkg pkg : pkgs) {
+                objectMapper.writeValue(jsonGenerator, pkg);
+            }
+
+            jsonGenerator.writeEndArray();
+            jsonGenerator.writeEndObject();
+        }
+
+        return countingOutputStream.getCount();
+    }
+
+    private static DumpExportPkg createPkg(Random random, int index) {
+        DumpExportPkg pkg = new DumpExportPkg();
+        pkg.setName(String.format("%s_%s%d", createWord(random), createWord(random), index));
+        pkg.setCreateTimestamp(1_600_000_000_000L + random.nextInt(Integer.MAX_VALUE));
+        pkg.setModifyTimestamp(pkg.getCreateTimestamp() + random.nextInt(Integer.MAX_VALUE));
+        pkg.setIsDesktop(random.nextBoolean());
+        pkg.setIsNativeDesktop(random.nextBoolean());
+        pkg.setHasChangelog(random.nextInt(4) == 0);
+        pkg.setProminenceOrdering((long) (1 + random.nextInt(4)) * 100);
+        pkg.setDerivedRatingSampleSize((long) random.nextInt(20));
+
+        if (pkg.getDerivedRatingSampleSize() > 0) {
+            pkg.setDerivedRating(random.nextInt(500) / 100.0);
+        }
+
+        pkg.setPkgCategories(IntStream.range(0, random.nextInt(3))
+                .mapToObj(i -> {
+                    DumpExportPkgCategory pkgCategory = new DumpExportPkgCategory();
+                    pkgCategory.setCode(PKG_CATEGORY_CODES[random.nextInt(PKG_CATEGORY_CODES.length)]);
+                    return pkgCategory;
+                })
+                .collect(Collectors.toList()));
+
+        pkg.setPkgScreenshots(IntStream.range(0, random.nextInt(4))
+                .mapToObj(i -> {
+                    DumpExportPkgScreenshot pkgScreenshot = new DumpExportPkgScreenshot();
+                    pkgScreenshot.setCode(Long.toHexString(random.nextLong()));
+                    pkgScreenshot.setWidth(640L + random.nextInt(640));
+                    pkgScreenshot.setHeight(480L + random.nextInt(480));
+                    pkgScreenshot.setLength(10_000L + random.nextInt(200_000));
+                    pkgScreenshot.setOrdering((long) i);
+                    return pkgScreenshot;
+                })
+                .collect(Collectors.toList()));
+
+        List<DumpExportPkgVersion> pkgVersions = new ArrayList<>();
+
+        for (int i = 0; i < 1 + random.nextInt(2); i++) {
+            DumpExportPkgVersion pkgVersion = new DumpExportPkgVersion();
+            pkgVersion.setCreateTimestamp(pkg.getCreateTimestamp());
+            pkgVersion.setModifyTimestamp(pkg.getModifyTimestamp());
+            pkgVersion.setMajor(Integer.toString(random.nextInt(10)));
+            pkgVersion.setMinor(Integer.toString(random.nextInt(30)));
+            pkgVersion.setMicro(random.nextBoolean() ? Integer.toString(random.nextInt(10)) : null);
+            pkgVersion.setRevision((long) (1 + random.nextInt(5)));
+            pkgVersion.setArchitectureCode(0 == i ? "x86_64" : "x86_gcc2");
+            pkgVersion.setPayloadLength(10_000L + random.nextInt(50_000_000));
+            pkgVersion.setTitle(createSentence(random, 3));
+            pkgVersion.setSummary(createSentence(random, 8));
+            pkgVersion.setDescription(createSentence(random, 60 + random.nextInt(120)));
+            pkgVersions.add(pkgVersion);
+        }
+
+        pkg.setPkgVersions(pkgVersions);
+
+        return pkg;
+    }
+
+    private static String createWord(Random random) {
+        return WORDS[random.nextInt(WORDS.length)];
+    }
+
+    private static String createSentence(Random random, int words) {
+        return IntStream.range(0, words)
+                .mapToObj(i -> createWord(random))
+                .collect(Collectors.joining(" "));
+    }
+
+}
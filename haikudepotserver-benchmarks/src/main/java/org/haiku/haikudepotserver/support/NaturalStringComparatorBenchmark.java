@@ -0,0 +1,57 @@
+/*
+ * Copyright 2026, Andrew Lindesay
+ * Distributed under the terms of the MIT License.
+ */
+
+package org.haiku.haikudepotserver.support;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Sorts synthetic version components; this is the comparison that underlies each of the components of a
+ * version. The comparator is not public and so this benchmark is in the same package.</p>
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class NaturalStringComparatorBenchmark {
+
+    @Param({ "100", "10000" })
+    public int count;
+
+    private List<String> components;
+
+    private final NaturalStringComparator comparator = new NaturalStringComparator();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        components = SyntheticVersions.createComponents(count);
+    }
+
+    @Benchmark
+    public List<String> sort() {
+        List<String> result = new ArrayList<>(components);
+        result.sort(comparator);
+        return result;
+    }
+
+}
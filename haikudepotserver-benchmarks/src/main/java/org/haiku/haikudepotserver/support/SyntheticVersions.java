@@ -0,0 +1,64 @@
+/*
+ * Copyright 2026, Andrew Lindesay
+ * Distributed under the terms of the MIT License.
+ */
+
+package org.haiku.haikudepotserver.support;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * <p>Produces version data that resembles the versions found in the Haiku repositories; mostly small
+ * numbers but also dates, letters and underscores. The data is produced from a fixed seed so that the same
+ * data is used for each run.</p>
+ */
+
+final class SyntheticVersions {
+
+    private final static long SEED = 20260101L;
+
+    private final static String[] PRE_RELEASES = new String[] { "alpha1", "beta2", "rc1", "pre20250601", "git" };
+
+    private SyntheticVersions() {
+    }
+
+    static List<VersionCoordinates> createVersionCoordinates(int count) {
+        Random random = new Random(SEED);
+        List<VersionCoordinates> result = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            result.add(new VersionCoordinates(
+                    createComponent(random),
+                    random.nextInt(8) == 0 ? null : createComponent(random),
+                    random.nextInt(3) == 0 ? null : createComponent(random),
+                    random.nextInt(6) == 0 ? PRE_RELEASES[random.nextInt(PRE_RELEASES.length)] : null,
+                    random.nextInt(10) == 0 ? null : 1 + random.nextInt(12)));
+        }
+
+        return result;
+    }
+
+    static List<String> createComponents(int count) {
+        Random random = new Random(SEED);
+        List<String> result = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            result.add(createComponent(random));
+        }
+
+        return result;
+    }
+
+    private static String createComponent(Random random) {
+        return switch (random.nextInt(10)) {
+            case 0 -> Integer.toString(20100101 + random.nextInt(160000));
+            case 1 -> random.nextInt(20) + "_" + random.nextInt(100);
+            case 2 -> "r" + random.nextInt(100) + "a" + random.nextInt(10);
+            case 3 -> random.nextInt(10) + "git" + Integer.toHexString(random.nextInt());
+            default -> Integer.toString(random.nextInt(random.nextBoolean() ? 10 : 1000));
+        };
+    }
+
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2026, Andrew Lindesay
+ * Distributed under the terms of the MIT License.
+ */
+
+package org.haiku.haikudepotserver.support;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Sorts synthetic versions as happens when the latest version of each package is determined during an
+ * import and when the user ratings are derived.</p>
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class VersionCoordinatesComparatorBenchmark {
+
+    @Param({ "100", "10000" })
+    public int count;
+
+    @Param({ "false", "true" })
+    public boolean ignorePrereleaseAndRevision;
+
+    private List<VersionCoordinates> versionCoordinates;
+
+    private VersionCoordinatesComparator comparator;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        versionCoordinates = SyntheticVersions.createVersionCoordinates(count);
+        comparator = new VersionCoordinatesComparator(ignorePrereleaseAndRevision);
+    }
+
+    @Benchmark
+    public List<VersionCoordinates> sort() {
+        List<VersionCoordinates> result = new ArrayList<>(versionCoordinates);
+        result.sort(comparator);
+        return result;
+    }
+
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2026, Andrew Lindesay
+ * Distributed under the terms of the MIT License.
+ */
+
+package org.haiku.pkg;
+
+import com.google.common.base.Preconditions;
+import com.google.common.io.Resources;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.Files;
+
+/**
+ * <p>The sample HPKR and HPKG files are bundled into the benchmarks as classpath resources but the extractors
+ * need to work with a file so that they are able to seek within it.</p>
+ */
+
+final class BenchmarkFixtures {
+
+    private final static String PREFIX_RESOURCE = "fixtures/";
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * <p>Copies the named fixture into a temporary file. The caller should delete the file once it is no longer
+     * required.</p>
+     */
+
+    static File copyToTemporaryFile(String name) throws IOException {
+        Preconditions.checkArgument(null != name, "the name of the fixture must be supplied");
+        URL url = Resources.getResource(PREFIX_RESOURCE + name);
+        File file = Files.createTempFile("hds-benchmark-", "-" + name).toFile();
+        file.deleteOnExit();
+        Files.write(file.toPath(), Resources.toByteArray(url));
+        return file;
+    }
+
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2026, Andrew Lindesay
+ * Distributed under the terms of the MIT License.
+ */
+
+package org.haiku.pkg;
+
+import org.haiku.pkg.heap.AbstractHpkHeapReader;
+import org.haiku.pkg.heap.HpkHeapReaderFactory;
+import org.haiku.pkg.heap.HpkHeapReaderType;
+import org.haiku.pkg.model.Attribute;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Reads the package attributes and the table of contents from sample package files as happens when a
+ * package is uploaded or its icons and metadata are extracted.</p>
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class HpkgFileExtractorBenchmark {
+
+    @Param({ "tipster-1.1.1-1-x86_64.hpkg", "artificial-1.0.0-any.hpkg" })
+    public String fixture;
+
+    @Param({ "MAPPED", "RANDOM_ACCESS_FILE" })
+    public HpkHeapReaderType heapReaderType;
+
+    private File file;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        file = BenchmarkFixtures.copyToTemporaryFile(fixture);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (null != file && !file.delete()) {
+            file.deleteOnExit();
+        }
+    }
+
+    private HpkgFileExtractor createExtractor() throws IOException {
+        return new HpkgFileExtractor(
+                file,
+                new HpkHeapReaderFactory(heapReaderType, AbstractHpkHeapReader.DEFAULT_CHUNK_CACHE_SIZE));
+    }
+
+    @Benchmark
+    public void iteratePackageAttributes(Blackhole blackhole) throws IOException {
+        try (HpkgFileExtractor extractor = createExtractor()) {
+            AttributeContext context = extractor.getPackageAttributeContext();
+            AttributeIterator attributeIterator = extractor.getPackageAttributesIterator();
+
+            while (attributeIterator.hasNext()) {
+                HpkrFileExtractorBenchmark.consumeAttribute(blackhole, context, attributeIterator.next());
+            }
+        }
+    }
+
+    @Benchmark
+    public void iterateToc(Blackhole blackhole) throws IOException {
+        try (HpkgFileExtractor extractor = createExtractor()) {
+            AttributeContext context = extractor.getTocContext();
+
+            for (Attribute attribute : extractor.getToc()) {
+                HpkrFileExtractorBenchmark.consumeAttribute(blackhole, context, attribute);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2026, Andrew Lindesay
+ * Distributed under the terms of the MIT License.
+ */
+
+package org.haiku.pkg;
+
+import org.haiku.pkg.heap.HpkHeapReaderFactory;
+import org.haiku.pkg.heap.HpkHeapReaderType;
+import org.haiku.pkg.model.Attribute;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Reads all of the packages from a sample repository file as happens when a repository is imported. Each
+ * invocation opens the file afresh so that the cost of reading the header and the string table is included.</p>
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class HpkrFileExtractorBenchmark {
+
+    @Param({ "repo.hpkr" })
+    public String fixture;
+
+    @Param({ "MAPPED", "RANDOM_ACCESS_FILE" })
+    public HpkHeapReaderType heapReaderType;
+
+    @Param({ "3", "16" })
+    public int chunkCacheSize;
+
+    private File file;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        file = BenchmarkFixtures.copyToTemporaryFile(fixture);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (null != file && !file.delete()) {
+            file.deleteOnExit();
+        }
+    }
+
+    private HpkrFileExtractor createExtractor() throws IOException {
+        return new HpkrFileExtractor(file, new HpkHeapReaderFactory(heapReaderType, chunkCacheSize));
+    }
+
+    /**
+     * <p>Iterates the raw attributes and resolves every value so that the strings and data are read from the
+     * heap.</p>
+     */
+
+    @Benchmark
+    public void iterateAttributes(Blackhole blackhole) throws IOException {
+        try (HpkrFileExtractor extractor = createExtractor()) {
+            AttributeContext context = extractor.getAttributeContext();
+            AttributeIterator attributeIterator = extractor.getPackageAttributesIterator();
+
+            while (attributeIterator.hasNext()) {
+                consumeAttribute(blackhole, context, attributeIterator.next());
+            }
+        }
+    }
+
+    /**
+     * <p>Iterates the packages as the repository import does.</p>
+     */
+
+    @Benchmark
+    public void iteratePkgs(Blackhole blackhole) throws IOException {
+        try (HpkrFileExtractor extractor = createExtractor()) {
+            PkgIterator pkgIterator = new PkgIterator(extractor.getPackageAttributesIterator());
+
+            while (pkgIterator.hasNext()) {
+                blackhole.consume(pkgIterator.next());
+            }
+        }
+    }
+
+    static void consumeAttribute(Blackhole blackhole, AttributeContext context, Attribute attribute) {
+        blackhole.consume(attribute.getValue(context));
+
+        if (attribute.hasChildAttributes()) {
+            for (Attribute childAttribute : attribute.getChildAttributes()) {
+                consumeAttribute(blackhole, context, childAttribute);
+            }
+        }
+    }
+
+}
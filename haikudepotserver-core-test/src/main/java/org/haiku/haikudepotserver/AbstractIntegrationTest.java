@@ -17,10 +17,14 @@ import org.apache.cayenne.map.DbEntity;
 import org.apache.cayenne.map.ObjEntity;
 import org.haiku.haikudepotserver.dataobjects.User;
 import org.haiku.haikudepotserver.dataobjects.UserUsageConditions;
+import org.haiku.haikudepotserver.feed.model.FeedInvalidationEvent;
 import org.haiku.haikudepotserver.job.model.JobService;
 import org.haiku.haikudepotserver.naturallanguage.model.NaturalLanguageService;
+import org.haiku.haikudepotserver.pkg.model.PkgLocalizationInvalidationEvent;
 import org.haiku.haikudepotserver.security.UserAuthentication;
+import org.haiku.haikudepotserver.security.model.UserAuthenticationInvalidationEvent;
 import org.haiku.haikudepotserver.security.model.UserAuthenticationService;
+import org.haiku.haikudepotserver.security.model.UserAuthorizationInvalidationEvent;
 import org.haiku.haikudepotserver.support.TestDatabase;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Assertions;
@@ -179,6 +183,15 @@ public abstract class AbstractIntegrationTest {
     protected void clearCaches() {
         serverRuntime.getDataDomain().getQueryCache().clear();
         serverRuntime.getDataDomain().getSharedSnapshotCache().clear();
+
+        // the database is about to be cleared so anything held about its data in memory also has to go; an
+        // invalidation with no names discards everything in the cache that it is for.
+
+        applicationContext.publishEvent(new UserAuthenticationInvalidationEvent(Set.of()));
+        applicationContext.publishEvent(new UserAuthorizationInvalidationEvent(Set.of()));
+        applicationContext.publishEvent(new FeedInvalidationEvent(Set.of()));
+        applicationContext.publishEvent(new PkgLocalizationInvalidationEvent(Set.of()));
+
         LOGGER.debug("prep; have cleared out caches");
     }
 
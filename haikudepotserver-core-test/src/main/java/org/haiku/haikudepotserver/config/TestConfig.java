@@ -55,7 +55,8 @@ public class TestConfig {
 
     @Bean
     public DataStorageService dataStorageService(DataSource dataSource, MeterRegistry meterRegistry) {
-        return new PgDataStorageServiceImpl(dataSource, meterRegistry, 262144);
+        return new PgDataStorageServiceImpl(
+                dataSource, meterRegistry, 262144, PgDataStorageServiceImpl.BufferType.MEMORY);
     }
 
 }
@@ -48,6 +48,7 @@ public class TestNumberedLinesJobRunner extends AbstractJobRunner<TestNumberedLi
                 writer.append('\n');
                 Uninterruptibles.sleepUninterruptibly(specification.getDelayPerLineMillis(), TimeUnit.MILLISECONDS);
             }
+            jobDataWithByteSink.getByteSink().commit();
         }
 
     }
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2026, Andrew Lindesay
+ * Distributed under the terms of the MIT License.
+ */
+
+package org.haiku.haikudepotserver.support;
+
+import org.apache.cayenne.DataChannel;
+import org.apache.cayenne.DataChannelFilter;
+import org.apache.cayenne.DataChannelFilterChain;
+import org.apache.cayenne.ObjectContext;
+import org.apache.cayenne.QueryResponse;
+import org.apache.cayenne.graph.GraphDiff;
+import org.apache.cayenne.query.Query;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>Counts the queries that pass through the data domain while an operation is run. The data domain is shared
+ * by the tests in the same Spring context so the test that adds this filter should remove it again once it is
+ * done.</p>
+ */
+
+public class QueryCountingDataChannelFilter implements DataChannelFilter {
+
+    private final AtomicInteger queryCount = new AtomicInteger();
+
+    private volatile boolean counting = false;
+
+    public int count(Runnable runnable) {
+        queryCount.set(0);
+        counting = true;
+
+        try {
+            runnable.run();
+        } finally {
+            counting = false;
+        }
+
+        return queryCount.get();
+    }
+
+    @Override
+    public void init(DataChannel channel) {
+    }
+
+    @Override
+    public QueryResponse onQuery(ObjectContext originatingContext, Query query, DataChannelFilterChain filterChain) {
+        if (counting) {
+            queryCount.incrementAndGet();
+        }
+
+        return filterChain.onQuery(originatingContext, query);
+    }
+
+    @Override
+    public GraphDiff onSync(ObjectContext originatingContext, GraphDiff changes, int syncType, DataChannelFilterChain filterChain) {
+        return filterChain.onSync(originatingContext, changes, syncType);
+    }
+
+}
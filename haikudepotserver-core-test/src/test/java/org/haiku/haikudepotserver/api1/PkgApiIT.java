@@ -1,5 +1,5 @@
 /*
- * Copyright 2018-2023, Andrew Lindesay
+ * Copyright 2018-2026, Andrew Lindesay
  * Distributed under the terms of the MIT License.
  */
 
@@ -17,6 +17,7 @@ import org.haiku.haikudepotserver.dataobjects.Architecture;
 import org.haiku.haikudepotserver.dataobjects.Pkg;
 import org.haiku.haikudepotserver.dataobjects.PkgVersion;
 import org.haiku.haikudepotserver.dataobjects.RepositorySource;
+import org.haiku.haikudepotserver.pkg.model.PkgVersionViewCounterService;
 import org.haiku.haikudepotserver.support.VersionCoordinates;
 import org.junit.jupiter.api.Test;
 import org.springframework.test.context.ContextConfiguration;
@@ -29,6 +30,9 @@ public class PkgApiIT extends AbstractIntegrationTest {
     @Resource
     private PkgApi pkgApi;
 
+    @Resource
+    private PkgVersionViewCounterService pkgVersionViewCounterService;
+
     @Test
     public void testGetPkgChangelog() {
         integrationTestSupportService.createStandardTestData();
@@ -57,6 +61,7 @@ public class PkgApiIT extends AbstractIntegrationTest {
 
         // ------------------------------------
         IncrementViewCounterResult result = pkgApi.incrementViewCounter(request);
+        pkgVersionViewCounterService.flush();
         // ------------------------------------
 
         Assertions.assertThat(result).isNotNull();
@@ -1,5 +1,5 @@
 /*
- * Copyright 2018-2024, Andrew Lindesay
+ * Copyright 2018-2026, Andrew Lindesay
  * Distributed under the terms of the MIT License.
  */
 
@@ -21,6 +21,8 @@ import org.haiku.haikudepotserver.dataobjects.Architecture;
 import org.haiku.haikudepotserver.dataobjects.PkgCategory;
 import org.haiku.haikudepotserver.naturallanguage.model.NaturalLanguageCoded;
 import org.haiku.haikudepotserver.naturallanguage.model.NaturalLanguageCoordinates;
+import org.haiku.haikudepotserver.pkg.model.PkgVersionViewCounterService;
+import org.haiku.haikudepotserver.support.QueryCountingDataChannelFilter;
 import org.haiku.haikudepotserver.support.VersionCoordinates;
 import org.haiku.haikudepotserver.support.exception.BadPkgIconException;
 import org.haiku.haikudepotserver.support.exception.ObjectNotFoundException;
@@ -41,6 +43,9 @@ public class PkgApiServiceIT extends AbstractIntegrationTest {
     @Resource
     private PkgApiService pkgApiService;
 
+    @Resource
+    private PkgVersionViewCounterService pkgVersionViewCounterService;
+
     @Test
     public void testUpdatePkgCategories() {
 
@@ -126,6 +131,99 @@ public class PkgApiServiceIT extends AbstractIntegrationTest {
         Assertions.assertThat(result.getItems().get(1).getName()).isEqualTo("pkg2");
     }
 
+    /**
+     * <p>The data related to each package in the search results is loaded for the whole page at once so the
+     * number of queries used to present a page of results should not grow with the size of the page.</p>
+     */
+
+    @Test
+    public void searchPkgsTest_queryCountIndependentOfPageSize() {
+        integrationTestSupportService.createStandardTestData();
+
+        {
+            ObjectContext context = serverRuntime.newContext();
+            Architecture x86_64 = Architecture.getByCode(context, "x86_64");
+            RepositorySource repositorySource = RepositorySource.getByCode(context, "testreposrc_xyz");
+
+            for (int i = 0; i < 60; i++) {
+                PkgVersion pkgVersion = context.newObject(PkgVersion.class);
+                pkgVersion.setActive(Boolean.TRUE);
+                pkgVersion.setArchitecture(x86_64);
+                pkgVersion.setMajor("1");
+                pkgVersion.setRevision(1);
+                pkgVersion.setIsLatest(true);
+                pkgVersion.setPkg(integrationTestSupportService.createPkg(context, String.format("querycount%02d", i)));
+                pkgVersion.setRepositorySource(repositorySource);
+            }
+
+            context.commitChanges();
+        }
+
+        QueryCountingDataChannelFilter filter = new QueryCountingDataChannelFilter();
+        serverRuntime.getDataDomain().addFilter(filter);
+
+        try {
+            for (String expression : new String[] { null, "querycount" }) {
+
+                // ------------------------------------
+                int smallPageQueryCount = filter.count(() -> Assertions.assertThat(
+                        pkgApiService.searchPkgs(createQueryCountSearchPkgsRequest(expression, 5)).getItems())
+                        .hasSize(5));
+                int largePageQueryCount = filter.count(() -> Assertions.assertThat(
+                        pkgApiService.searchPkgs(createQueryCountSearchPkgsRequest(expression, 50)).getItems())
+                        .hasSize(50));
+                // ------------------------------------
+
+                Assertions.assertThat(largePageQueryCount).isEqualTo(smallPageQueryCount);
+            }
+        } finally {
+            serverRuntime.getDataDomain().removeFilter(filter);
+        }
+    }
+
+    /**
+     * <p>When searching with an expression, a package with no localization at all should have no title rather
+     * than having the title fall back to the name of the package.</p>
+     */
+
+    @Test
+    public void searchPkgsTest_noLocalization_noTitle() {
+        integrationTestSupportService.createStandardTestData();
+
+        {
+            ObjectContext context = serverRuntime.newContext();
+            PkgVersion pkgVersion = context.newObject(PkgVersion.class);
+            pkgVersion.setActive(Boolean.TRUE);
+            pkgVersion.setArchitecture(Architecture.getByCode(context, "x86_64"));
+            pkgVersion.setMajor("1");
+            pkgVersion.setRevision(1);
+            pkgVersion.setIsLatest(true);
+            pkgVersion.setPkg(integrationTestSupportService.createPkg(context, "untitledpkg"));
+            pkgVersion.setRepositorySource(RepositorySource.getByCode(context, "testreposrc_xyz"));
+            context.commitChanges();
+        }
+
+        // ------------------------------------
+        SearchPkgsResult result = pkgApiService.searchPkgs(createQueryCountSearchPkgsRequest("untitled", 2));
+        // ------------------------------------
+
+        Assertions.assertThat(result.getItems().size()).isEqualTo(1);
+        Assertions.assertThat(result.getItems().get(0).getName()).isEqualTo("untitledpkg");
+        Assertions.assertThat(result.getItems().get(0).getVersions().get(0).getTitle()).isNull();
+        Assertions.assertThat(result.getItems().get(0).getVersions().get(0).getSummary()).isNull();
+    }
+
+    private SearchPkgsRequestEnvelope createQueryCountSearchPkgsRequest(String expression, int limit) {
+        return new SearchPkgsRequestEnvelope()
+                .architectureCode("x86_64")
+                .naturalLanguageCode("de")
+                .repositoryCodes(List.of("testrepo"))
+                .expression(expression)
+                .expressionType(SearchPkgsRequestEnvelope.ExpressionTypeEnum.CONTAINS)
+                .limit(limit)
+                .offset(0);
+    }
+
     /**
      * <p>This test will check that the search is able to find text in the content of the package
      * version localization where the localization is a specific language other than english.
@@ -924,6 +1022,7 @@ das Zimmer"""
 
         // ------------------------------------
         pkgApiService.incrementViewCounter(request);
+        pkgVersionViewCounterService.flush();
         // ------------------------------------
 
         {
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2026, Andrew Lindesay
+ * Distributed under the terms of the MIT License.
+ */
+package org.haiku.haikudepotserver.captcha;
+
+import org.fest.assertions.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+public class InMemoryCaptchaRepositoryTest {
+
+    private final MutableClock clock = new MutableClock();
+
+    private final InMemoryCaptchaRepository repository = new InMemoryCaptchaRepository(clock, 120L, 1000L);
+
+    @Test
+    public void testGet_onlyOnce() {
+        repository.store("TOKEN", "RESPONSE");
+
+        // ---------------------------------
+        String first = repository.get("TOKEN");
+        String second = repository.get("TOKEN");
+        // ---------------------------------
+
+        Assertions.assertThat(first).isEqualTo("RESPONSE");
+        Assertions.assertThat(second).isNull();
+    }
+
+    @Test
+    public void testGet_expired() {
+        repository.store("TOKEN", "RESPONSE");
+        clock.advance(TimeUnit.SECONDS.toMillis(121));
+
+        // ---------------------------------
+        String result = repository.get("TOKEN");
+        // ---------------------------------
+
+        Assertions.assertThat(result).isNull();
+    }
+
+    @Test
+    public void testPurgeExpired() {
+        repository.store("TOKEN1", "RESPONSE1");
+        clock.advance(TimeUnit.SECONDS.toMillis(100));
+        repository.store("TOKEN2", "RESPONSE2");
+        clock.advance(TimeUnit.SECONDS.toMillis(30));
+
+        // ---------------------------------
+        repository.purgeExpired();
+        // ---------------------------------
+
+        Assertions.assertThat(repository.delete("TOKEN1")).isFalse();
+        Assertions.assertThat(repository.delete("TOKEN2")).isTrue();
+    }
+
+    /**
+     * <p>A client generating a great many captchas should not cause more than the maximum to be held.</p>
+     */
+
+    @Test
+    public void testStore_bounded() {
+        InMemoryCaptchaRepository boundedRepository = new InMemoryCaptchaRepository(clock, 120L, 10L);
+
+        // ---------------------------------
+        IntStream.range(0, 100).forEach(i -> boundedRepository.store("TOKEN" + i, "RESPONSE" + i));
+        // ---------------------------------
+
+        long retained = IntStream.range(0, 100)
+                .filter(i -> null != boundedRepository.get("TOKEN" + i))
+                .count();
+        Assertions.assertThat(retained).isLessThanOrEqualTo(10L);
+    }
+
+    private static class MutableClock extends Clock {
+
+        private long millis = 1_000_000L;
+
+        void advance(long deltaMillis) {
+            millis += deltaMillis;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+
+    }
+
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2026, Andrew Lindesay
+ * Distributed under the terms of the MIT License.
+ */
+
+package org.haiku.haikudepotserver.feed;
+
+import org.apache.cayenne.ObjectContext;
+import org.fest.assertions.Assertions;
+import org.haiku.haikudepotserver.AbstractIntegrationTest;
+import org.haiku.haikudepotserver.IntegrationTestSupportService;
+import org.haiku.haikudepotserver.config.TestConfig;
+import org.haiku.haikudepotserver.dataobjects.PkgVersion;
+import org.haiku.haikudepotserver.feed.model.FeedRenderingService;
+import org.haiku.haikudepotserver.feed.model.FeedSpecification;
+import org.haiku.haikudepotserver.feed.model.RenderedFeed;
+import org.haiku.haikudepotserver.naturallanguage.model.NaturalLanguageCoordinates;
+import org.haiku.haikudepotserver.support.cayenne.AbstractInvalidationTriggerListener;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.context.ContextConfiguration;
+
+import jakarta.annotation.Resource;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.IntStream;
+
+@ContextConfiguration(classes = TestConfig.class)
+public class FeedRenderingServiceImplIT extends AbstractIntegrationTest {
+
+    @Resource
+    private IntegrationTestSupportService integrationTestSupportService;
+
+    @Resource
+    private FeedRenderingService feedRenderingService;
+
+    @Test
+    public void testRender() {
+        integrationTestSupportService.createStandardTestData();
+
+        // ------------------------------------
+        RenderedFeed renderedFeed = feedRenderingService.render(createSpecification("pkg1"));
+        // ------------------------------------
+
+        String xml = new String(renderedFeed.data(), StandardCharsets.UTF_8);
+        Assertions.assertThat(xml).contains("pkg1");
+        Assertions.assertThat(renderedFeed.eTag()).startsWith("\"");
+        Assertions.assertThat(renderedFeed.contentType()).isEqualTo(FeedSpecification.FeedType.ATOM.getContentType());
+    }
+
+    /**
+     * <p>Changing a package version should cause feeds that may include that package to be rendered again while
+     * feeds for other packages are retained.</p>
+     */
+
+    @Test
+    public void testRender_invalidatedByChange() {
+        IntegrationTestSupportService.StandardTestData data = integrationTestSupportService.createStandardTestData();
+
+        RenderedFeed pkg1Feed = feedRenderingService.render(createSpecification("pkg1"));
+        RenderedFeed pkg2Feed = feedRenderingService.render(createSpecification("pkg2"));
+        RenderedFeed allFeed = feedRenderingService.render(createSpecification(null));
+        Assertions.assertThat(feedRenderingService.render(createSpecification("pkg1"))).isSameAs(pkg1Feed);
+
+        {
+            ObjectContext context = serverRuntime.newContext();
+            PkgVersion pkgVersion = context.localObject(data.pkg1Version2x86_64);
+            pkgVersion.setPayloadLength(1234L);
+            context.commitChanges();
+        }
+
+        // ------------------------------------
+        RenderedFeed pkg1FeedAfter = feedRenderingService.render(createSpecification("pkg1"));
+        RenderedFeed pkg2FeedAfter = feedRenderingService.render(createSpecification("pkg2"));
+        RenderedFeed allFeedAfter = feedRenderingService.render(createSpecification(null));
+        // ------------------------------------
+
+        Assertions.assertThat(pkg1FeedAfter).isNotSameAs(pkg1Feed);
+        Assertions.assertThat(pkg2FeedAfter).isSameAs(pkg2Feed);
+        Assertions.assertThat(allFeedAfter).isNotSameAs(allFeed);
+    }
+
+    /**
+     * <p>When a great many packages are changed together, all of the feeds should be rendered again.</p>
+     */
+
+    @Test
+    public void testRender_invalidatedByLargeChange() {
+        integrationTestSupportService.createStandardTestData();
+
+        RenderedFeed pkg2Feed = feedRenderingService.render(createSpecification("pkg2"));
+        Assertions.assertThat(feedRenderingService.render(createSpecification("pkg2"))).isSameAs(pkg2Feed);
+
+        {
+            ObjectContext context = serverRuntime.newContext();
+            IntStream.rangeClosed(0, AbstractInvalidationTriggerListener.MAX_NAMES)
+                    .forEach(i -> integrationTestSupportService.createPkg(context, "largechange" + i));
+            context.commitChanges();
+        }
+
+        // ------------------------------------
+        RenderedFeed pkg2FeedAfter = feedRenderingService.render(createSpecification("pkg2"));
+        // ------------------------------------
+
+        Assertions.assertThat(pkg2FeedAfter).isNotSameAs(pkg2Feed);
+    }
+
+    private FeedSpecification createSpecification(String pkgName) {
+        FeedSpecification specification = new FeedSpecification();
+        specification.setFeedType(FeedSpecification.FeedType.ATOM);
+        specification.setLimit(10);
+        specification.setNaturalLanguageCoordinates(NaturalLanguageCoordinates.english());
+        specification.setSupplierTypes(List.of(FeedSpecification.SupplierType.values()));
+        specification.setPkgNames(null == pkgName ? null : List.of(pkgName));
+        return specification;
+    }
+
+}
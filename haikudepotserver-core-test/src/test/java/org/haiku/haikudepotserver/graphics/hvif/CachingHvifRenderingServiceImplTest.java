@@ -0,0 +1,107 @@
+/*
+ * Copyright 2026, Andrew Lindesay
+ * Distributed under the terms of the MIT License.
+ */
+package org.haiku.haikudepotserver.graphics.hvif;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.haiku.haikudepotserver.metrics.MetricsConstants;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class CachingHvifRenderingServiceImplTest {
+
+    @TempDir
+    private Path directory;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    /**
+     * <p>The second render of the same image should be read from the directory.</p>
+     */
+
+    @Test
+    public void testRender_cached() throws Exception {
+        CountingHvifRenderingService delegate = new CountingHvifRenderingService();
+        CachingHvifRenderingServiceImpl service = new CachingHvifRenderingServiceImpl(
+                delegate, directory, 1024 * 1024, meterRegistry);
+        byte[] hvif = new byte[] { 1, 2, 3 };
+
+        // ---------------------------------
+        byte[] png1 = service.render(32, hvif);
+        byte[] png2 = service.render(32, hvif);
+        // ---------------------------------
+
+        Assertions.assertThat(png1).isEqualTo(png2);
+        Assertions.assertThat(delegate.getRenders()).isEqualTo(1);
+        Assertions.assertThat(countResult("hit")).isEqualTo(1.0);
+        Assertions.assertThat(countResult("miss")).isEqualTo(1.0);
+    }
+
+    @Test
+    public void testRender_differentSize() throws Exception {
+        CountingHvifRenderingService delegate = new CountingHvifRenderingService();
+        CachingHvifRenderingServiceImpl service = new CachingHvifRenderingServiceImpl(
+                delegate, directory, 1024 * 1024, meterRegistry);
+        byte[] hvif = new byte[] { 1, 2, 3 };
+
+        // ---------------------------------
+        byte[] png16 = service.render(16, hvif);
+        byte[] png32 = service.render(32, hvif);
+        // ---------------------------------
+
+        Assertions.assertThat(png16).isNotEqualTo(png32);
+        Assertions.assertThat(delegate.getRenders()).isEqualTo(2);
+    }
+
+    /**
+     * <p>The cache is small enough that only a couple of images are able to be stored.</p>
+     */
+    @Test
+    public void testRender_trimmed() throws Exception {
+        CountingHvifRenderingService delegate = new CountingHvifRenderingService();
+        CachingHvifRenderingServiceImpl service = new CachingHvifRenderingServiceImpl(
+                delegate, directory, 100, meterRegistry);
+
+        for (int i = 0; i < 10; i++) {
+            service.render(40, new byte[] { (byte) i });
+        }
+
+        Assertions.assertThat(meterRegistry.get(MetricsConstants.GUAGE_HVIF_RENDER_CACHE_BYTES).gauge().value())
+                .isLessThanOrEqualTo(100.0);
+    }
+
+    private double countResult(String result) {
+        return meterRegistry.get(MetricsConstants.COUNTER_NAME_HVIF_RENDER_CACHE)
+                .tag(MetricsConstants.TAG_NAME_RESULT, result)
+                .counter()
+                .count();
+    }
+
+    /**
+     * <p>Produces some fake data of the size requested and counts the renders.</p>
+     */
+
+    private static class CountingHvifRenderingService implements HvifRenderingService {
+
+        private final AtomicInteger renders = new AtomicInteger();
+
+        @Override
+        public byte[] render(int size, byte[] input) {
+            renders.incrementAndGet();
+            byte[] result = new byte[size];
+            result[0] = input[0];
+            return result;
+        }
+
+        int getRenders() {
+            return renders.get();
+        }
+
+    }
+
+}
@@ -506,9 +506,8 @@ class DbDistributedJob2HelperIT extends AbstractIntegrationTest {
             Assertions.assertThat(jobOptional1.isPresent()).isTrue();
             Assertions.assertThat(jobOptional1.get()).isEqualTo(jobCode);
 
-            // In this case the job is not marked as "started" and so it will be found again.
-            // This is an intentional part of the test. It will try to acquire the lock a few
-            // times and fail.
+            // In this case the job is not marked as "started" and so it would be found again
+            // except that it is locked by the first connection and so it is skipped.
 
             try (Connection connection2 = dataSource.getConnection()) {
 
@@ -523,6 +522,74 @@ class DbDistributedJob2HelperIT extends AbstractIntegrationTest {
         }
     }
 
+    /**
+     * <p>Two workers claiming jobs at the same time should each get a different job.</p>
+     */
+    @Test
+    public void testTryClaimNextAvailableJob_concurrentWorkers() throws SQLException {
+        Instant now = Clock.systemUTC().instant();
+        String code1 = createAnyJob("orange", JobSnapshot.Status.QUEUED, now, now.minus(Duration.ofMinutes(2)));
+        String code2 = createAnyJob("orange", JobSnapshot.Status.QUEUED, now, now.minus(Duration.ofMinutes(1)));
+
+        try (Connection connection1 = dataSource.getConnection(); Connection connection2 = dataSource.getConnection()) {
+            connection1.setAutoCommit(false);
+            connection2.setAutoCommit(false);
+
+            // -------------------------
+            Optional<DbDistributedJob2Helper.ClaimedJob> claimedJob1 = DbDistributedJob2Helper.tryClaimNextAvailableJob(
+                    connection1, DbDistributedJob2Helper.JobClaimCriteria.ANY);
+            Optional<DbDistributedJob2Helper.ClaimedJob> claimedJob2 = DbDistributedJob2Helper.tryClaimNextAvailableJob(
+                    connection2, DbDistributedJob2Helper.JobClaimCriteria.ANY);
+            // -------------------------
+
+            Assertions.assertThat(claimedJob1.map(DbDistributedJob2Helper.ClaimedJob::code).orElse(null)).isEqualTo(code1);
+            Assertions.assertThat(claimedJob1.map(DbDistributedJob2Helper.ClaimedJob::jobTypeCode).orElse(null)).isEqualTo("orange");
+            Assertions.assertThat(claimedJob2.map(DbDistributedJob2Helper.ClaimedJob::code).orElse(null)).isEqualTo(code2);
+        }
+    }
+
+    /**
+     * <p>Checks that the job types are included, excluded and prioritized as specified in the criteria.</p>
+     */
+    @Test
+    public void testTryClaimNextAvailableJob_criteria() throws SQLException {
+        Instant now = Clock.systemUTC().instant();
+        String orangeCode = createAnyJob("orange", JobSnapshot.Status.QUEUED, now, now.minus(Duration.ofMinutes(3)));
+        String appleCode = createAnyJob("apple", JobSnapshot.Status.QUEUED, now, now.minus(Duration.ofMinutes(2)));
+        String pearCode = createAnyJob("pear", JobSnapshot.Status.QUEUED, now, now.minus(Duration.ofMinutes(1)));
+
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+
+            // priority jobs come first even though they were queued later.
+            Assertions.assertThat(tryClaimNextAvailableJobCode(
+                    connection,
+                    new DbDistributedJob2Helper.JobClaimCriteria(null, Set.of(), Set.of("pear"))))
+                    .isEqualTo(pearCode);
+            connection.rollback();
+
+            // excluded jobs are not claimed.
+            Assertions.assertThat(tryClaimNextAvailableJobCode(
+                    connection,
+                    new DbDistributedJob2Helper.JobClaimCriteria(null, Set.of("orange"), Set.of())))
+                    .isEqualTo(appleCode);
+            connection.rollback();
+
+            // only included jobs are claimed.
+            Assertions.assertThat(tryClaimNextAvailableJobCode(
+                    connection,
+                    new DbDistributedJob2Helper.JobClaimCriteria(Set.of("orange", "pear"), Set.of("pear"), Set.of("pear"))))
+                    .isEqualTo(orangeCode);
+            connection.rollback();
+
+            Assertions.assertThat(tryClaimNextAvailableJobCode(
+                    connection,
+                    new DbDistributedJob2Helper.JobClaimCriteria(Set.of("banana"), Set.of(), Set.of())))
+                    .isNull();
+            connection.rollback();
+        }
+    }
+
     /**
      * <p>Creates a number of jobs. One of the started ones will be locked by another thread. Get
      * the danging started jobs' codes. This should not include the one that is locked by the other
@@ -773,6 +840,14 @@ class DbDistributedJob2HelperIT extends AbstractIntegrationTest {
         return jobDataCode;
     }
 
+    private String tryClaimNextAvailableJobCode(
+            Connection connection,
+            DbDistributedJob2Helper.JobClaimCriteria criteria) {
+        return DbDistributedJob2Helper.tryClaimNextAvailableJob(connection, criteria)
+                .map(DbDistributedJob2Helper.ClaimedJob::code)
+                .orElse(null);
+    }
+
     private String createAnyJob(JobSnapshot.Status jobStatus) throws SQLException {
         return createAnyJob("orange", jobStatus, Clock.systemUTC().instant(), Clock.systemUTC().instant());
     }
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2026, Andrew Lindesay
+ * Distributed under the terms of the MIT License.
+ */
+package org.haiku.haikudepotserver.job;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.util.concurrent.Uninterruptibles;
+import jakarta.annotation.Resource;
+import org.fest.assertions.Assertions;
+import org.haiku.haikudepotserver.AbstractIntegrationTest;
+import org.haiku.haikudepotserver.config.TestConfig;
+import org.haiku.haikudepotserver.job.model.JobAvailableEvent;
+import org.haiku.haikudepotserver.job.model.JobService;
+import org.haiku.haikudepotserver.job.model.JobSnapshot;
+import org.haiku.haikudepotserver.storage.model.DataStorageService;
+import org.haiku.haikudepotserver.support.eventing.InterProcessEventPgConfig;
+import org.haiku.haikudepotserver.support.eventing.InterProcessEventPgListenService;
+import org.haiku.haikudepotserver.support.eventing.InterProcessEventPgNotifyService;
+import org.haiku.haikudepotserver.support.eventing.model.InterProcessEvent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.parallel.Execution;
+import org.junit.jupiter.api.parallel.ExecutionMode;
+import org.springframework.test.context.ContextConfiguration;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Checks that a job queued on one node wakes the workers of another node rather than waiting for the
+ * other node to poll for jobs. The node that queues the job is an instance of the job service that has not been
+ * started so that it has no workers. It has its own notify service and configuration so that its events are
+ * relayed through Postgres with a different source identifier, but are not delivered to the application
+ * context directly. It also has its own listen service. The node that runs the job is the job service of the
+ * application context which is only able to learn of the job through the listen service of the application
+ * context.</p>
+ */
+
+@Execution(ExecutionMode.SAME_THREAD)
+@ContextConfiguration(classes = TestConfig.class)
+public class DbDistributedJob2ServiceImplIT extends AbstractIntegrationTest {
+
+    /**
+     * <p>This is far less than the delay after which the workers poll for jobs.</p>
+     */
+
+    private final static Duration TIMEOUT_WAKE = Duration.ofSeconds(30);
+
+    @Resource
+    private ObjectMapper objectMapper;
+
+    @Resource
+    private DataSource dataSource;
+
+    @Resource
+    private DataStorageService dataStorageService;
+
+    @Resource
+    private TestNumberedLinesJobRunner testNumberedLinesJobRunner;
+
+    @Test
+    public void testSubmit_wakesWorkerOnOtherNode() {
+        InterProcessEventPgConfig otherNodeConfig = new InterProcessEventPgConfig();
+        InterProcessEventPgNotifyService otherNodeNotifyService = new InterProcessEventPgNotifyService(
+                objectMapper, dataSource, otherNodeConfig);
+        List<InterProcessEvent> otherNodeReceivedEvents = new CopyOnWriteArrayList<>();
+        InterProcessEventPgListenService otherNodeListenService = new InterProcessEventPgListenService(
+                objectMapper, dataSource, otherNodeConfig, otherNodeReceivedEvents::add);
+        JobService otherNodeJobService = new DbDistributedJob2ServiceImpl(
+                serverRuntime,
+                objectMapper,
+                dataStorageService,
+                List.of(testNumberedLinesJobRunner),
+                event -> {
+                    if (event instanceof InterProcessEvent interProcessEvent) {
+                        otherNodeNotifyService.onApplicationEvent(interProcessEvent);
+                    }
+                });
+
+        otherNodeListenService.init();
+
+        try {
+            // allow the workers of the application context to complete their check for jobs from the set-up
+            // of the test so that they are waiting to be woken.
+
+            Uninterruptibles.sleepUninterruptibly(2, TimeUnit.SECONDS);
+
+            // ---------------------------------
+            String guid = otherNodeJobService.submit(
+                    new TestNumberedLinesJobSpecification(3, 100L),
+                    JobSnapshot.COALESCE_STATUSES_NONE);
+            boolean finished = jobService.awaitJobFinishedUninterruptibly(guid, TIMEOUT_WAKE.toMillis());
+            // ---------------------------------
+
+            Assertions.assertThat(finished).isTrue();
+            Assertions.assertThat(jobService.tryGetJob(guid).orElseThrow().getStatus())
+                    .isEqualTo(JobSnapshot.Status.FINISHED);
+
+            // the node that queued the job should not have been sent its own event back.
+            Assertions.assertThat(otherNodeReceivedEvents.stream().filter(e -> e instanceof JobAvailableEvent).toList())
+                    .isEmpty();
+        }
+        finally {
+            otherNodeListenService.tearDown();
+        }
+    }
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2018-2025, Andrew Lindesay
+ * Copyright 2018-2026, Andrew Lindesay
  * Distributed under the terms of the MIT License.
  */
 
@@ -158,6 +158,66 @@ public class PkgImportServiceImplIT extends AbstractIntegrationTest {
 
     }
 
+    /**
+     * <p>When a batch of packages is imported together, the packages that are created earlier in the batch should
+     * be visible to those later in the batch so that the supplement is shared and the latest version is correctly
+     * determined.</p>
+     */
+
+    @Test
+    public void testImport_batch() {
+
+        integrationTestSupportService.createStandardTestData();
+
+        Pkg importDevelPkg = new Pkg(
+                "testpkg" + PkgServiceImpl.SUFFIX_PKG_DEVELOPMENT,
+                new PkgVersion("1", "2", "3", "4", 5),
+                PkgArchitecture.X86_64,
+                null,
+                Collections.emptyList(),
+                Collections.emptyList(),
+                "test-summary-en",
+                "test-description-en",
+                null);
+
+        {
+            ObjectContext context = serverRuntime.newContext();
+            ObjectId repositorySourceObjectId = RepositorySource.getByCode(context, "testreposrc_xyz").getObjectId();
+
+            // ---------------------------------
+
+            pkgImportService.importFrom(
+                    context,
+                    repositorySourceObjectId,
+                    List.of(createPkg("2"), importDevelPkg, createPkg("3")),
+                    false);
+
+            // ---------------------------------
+
+            context.commitChanges();
+        }
+
+        {
+            ObjectContext context = serverRuntime.newContext();
+            org.haiku.haikudepotserver.dataobjects.Pkg persistedPkg =
+                    org.haiku.haikudepotserver.dataobjects.Pkg.getByName(context, "testpkg");
+            org.haiku.haikudepotserver.dataobjects.Pkg persistedDevelPkg =
+                    org.haiku.haikudepotserver.dataobjects.Pkg.getByName(context, importDevelPkg.getName());
+
+            Assertions.assertThat(persistedDevelPkg.getPkgSupplement()).isEqualTo(persistedPkg.getPkgSupplement());
+
+            List<org.haiku.haikudepotserver.dataobjects.PkgVersion> pkgVersions =
+                    org.haiku.haikudepotserver.dataobjects.PkgVersion.findForPkg(context, persistedPkg, true);
+            Assertions.assertThat(pkgVersions.size()).isEqualTo(2);
+
+            for (org.haiku.haikudepotserver.dataobjects.PkgVersion pkgVersion : pkgVersions) {
+                Assertions.assertThat(pkgVersion.getActive()).isTrue();
+                Assertions.assertThat(pkgVersion.getIsLatest()).isEqualTo(pkgVersion.getMinor().equals("3"));
+                Assertions.assertThat(pkgVersion.getImportTimestamp()).isNotNull();
+            }
+        }
+    }
+
     /**
      * <P>During the import process, it is possible that the system is able to check the length of the
      * package.  This test will check that this mechanism is working.</P>
@@ -1,36 +1,62 @@
 /*
- * Copyright 2018-2024, Andrew Lindesay
+ * Copyright 2018-2026, Andrew Lindesay
  * Distributed under the terms of the MIT License.
  */
 
 package org.haiku.haikudepotserver.pkg;
 
 import org.apache.cayenne.ObjectContext;
+import org.apache.cayenne.ObjectId;
 import org.apache.cayenne.query.ObjectSelect;
 import org.apache.cayenne.query.SortOrder;
 import org.fest.assertions.Assertions;
 import org.haiku.haikudepotserver.AbstractIntegrationTest;
+import org.haiku.haikudepotserver.IntegrationTestSupportService;
 import org.haiku.haikudepotserver.config.TestConfig;
+import org.haiku.haikudepotserver.dataobjects.Architecture;
 import org.haiku.haikudepotserver.dataobjects.NaturalLanguage;
 import org.haiku.haikudepotserver.dataobjects.PkgLocalization;
 import org.haiku.haikudepotserver.dataobjects.PkgSupplement;
 import org.haiku.haikudepotserver.dataobjects.PkgSupplementModification;
+import org.haiku.haikudepotserver.dataobjects.PkgVersion;
+import org.haiku.haikudepotserver.dataobjects.RepositorySource;
 import org.haiku.haikudepotserver.pkg.model.NonUserPkgSupplementModificationAgent;
 import org.haiku.haikudepotserver.pkg.model.PkgLocalizationService;
+import org.haiku.haikudepotserver.pkg.model.ResolvedPkgVersionLocalization;
 import org.haiku.haikudepotserver.naturallanguage.model.NaturalLanguageCoordinates;
+import org.haiku.haikudepotserver.support.cayenne.AbstractInvalidationTriggerListener;
 import org.junit.jupiter.api.Test;
 import org.springframework.test.context.ContextConfiguration;
 
 import jakarta.annotation.Resource;
 
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.stream.Stream;
 
 @ContextConfiguration(classes = TestConfig.class)
 public class PkgLocalizationServiceImplIT extends AbstractIntegrationTest {
 
+    private final static int COUNT_PKGS = 24;
+
+    private final static int COUNT_PKG_VERSIONS_PER_PKG = 2;
+
+    private final static List<String> FIELDS = List.of("title", "summary", "description");
+
     @Resource
     private PkgLocalizationService pkgLocalizationService;
 
+    @Resource
+    private DataSource dataSource;
+
     /**
      * <p>When a "_devel" package exists and an update is made to the localization of the parent
      * package then the localization should flow down to the "_devel" package too.</p>
@@ -106,4 +132,251 @@ description: [description_kokako]""");
 
     }
 
+    /**
+     * <p>Each package and package version is given a random selection of localized fields in both German and
+     * English.  Resolving the localizations, both in bulk and one at a time as well as from the cache, should
+     * yield the same outcome as a simple model of the fallback rules; the first non-empty value in the
+     * order of the package version in German, the package in German, the package version in English and
+     * then the package in English.</p>
+     */
+
+    @Test
+    public void testResolveAll_matchesFallbackRules() {
+        integrationTestSupportService.createStandardTestData();
+        Random random = new Random(20261017L);
+        Map<String, ResolvedPkgVersionLocalization> expected = new HashMap<>();
+
+        {
+            ObjectContext context = serverRuntime.newContext();
+            NaturalLanguage german = NaturalLanguage.getByCode(context, NaturalLanguageCoordinates.LANGUAGE_CODE_GERMAN);
+            NaturalLanguage english = NaturalLanguage.getEnglish(context);
+            Architecture architecture = Architecture.getByCode(context, "x86_64");
+            RepositorySource repositorySource = RepositorySource.getByCode(context, "testreposrc_xyz");
+
+            for (int p = 0; p < COUNT_PKGS; p++) {
+                org.haiku.haikudepotserver.dataobjects.Pkg pkg =
+                        integrationTestSupportService.createPkg(context, "pkgloc" + p);
+                String[] pkgGerman = createRandomFields(random, pkg.getName() + "_p_de");
+                String[] pkgEnglish = createRandomFields(random, pkg.getName() + "_p_en");
+                updatePkgLocalization(context, pkg.getPkgSupplement(), german, pkgGerman);
+                updatePkgLocalization(context, pkg.getPkgSupplement(), english, pkgEnglish);
+
+                for (int v = 0; v < COUNT_PKG_VERSIONS_PER_PKG; v++) {
+                    PkgVersion pkgVersion = context.newObject(PkgVersion.class);
+                    pkgVersion.setActive(Boolean.TRUE);
+                    pkgVersion.setArchitecture(architecture);
+                    pkgVersion.setMajor(Integer.toString(v + 1));
+                    pkgVersion.setIsLatest(v == COUNT_PKG_VERSIONS_PER_PKG - 1);
+                    pkgVersion.setPkg(pkg);
+                    pkgVersion.setRepositorySource(repositorySource);
+
+                    String[] pkgVersionGerman = createRandomFields(random, pkg.getName() + "_pv" + v + "_de");
+                    String[] pkgVersionEnglish = createRandomFields(random, pkg.getName() + "_pv" + v + "_en");
+                    updatePkgVersionLocalization(context, pkgVersion, german, pkgVersionGerman);
+                    updatePkgVersionLocalization(context, pkgVersion, english, pkgVersionEnglish);
+
+                    expected.put(
+                            pkg.getName() + "/" + pkgVersion.getMajor(),
+                            resolveModel(List.of(pkgVersionGerman, pkgGerman, pkgVersionEnglish, pkgEnglish)));
+                }
+            }
+
+            context.commitChanges();
+        }
+
+        ObjectContext context = serverRuntime.newContext();
+        NaturalLanguage german = NaturalLanguage.getByCode(context, NaturalLanguageCoordinates.LANGUAGE_CODE_GERMAN);
+        List<PkgVersion> pkgVersions = ObjectSelect.query(PkgVersion.class)
+                .where(PkgVersion.PKG.dot(org.haiku.haikudepotserver.dataobjects.Pkg.NAME).startsWith("pkgloc"))
+                .select(context);
+        Assertions.assertThat(pkgVersions.size()).isEqualTo(COUNT_PKGS * COUNT_PKG_VERSIONS_PER_PKG);
+
+        // resolve a few first so that the bulk resolution is a mixture of cached and uncached.
+
+        pkgVersions.subList(0, 5).forEach(pv -> pkgLocalizationService.resolvePkgVersionLocalization(
+                context, pv, null, german));
+
+        // ---------------------------------
+        Map<ObjectId, ResolvedPkgVersionLocalization> resolvedAll = pkgLocalizationService.resolveAll(
+                context, pkgVersions, german);
+        Map<ObjectId, ResolvedPkgVersionLocalization> resolvedAllCached = pkgLocalizationService.resolveAll(
+                context, pkgVersions, german);
+        // ---------------------------------
+
+        Assertions.assertThat(resolvedAll.size()).isEqualTo(pkgVersions.size());
+
+        for (PkgVersion pkgVersion : pkgVersions) {
+            ResolvedPkgVersionLocalization expectedResolved =
+                    expected.get(pkgVersion.getPkg().getName() + "/" + pkgVersion.getMajor());
+            assertResolvedEquals(resolvedAll.get(pkgVersion.getObjectId()), expectedResolved);
+            assertResolvedEquals(resolvedAllCached.get(pkgVersion.getObjectId()), expectedResolved);
+            assertResolvedEquals(
+                    pkgLocalizationService.resolvePkgVersionLocalization(context, pkgVersion, null, german),
+                    expectedResolved);
+        }
+    }
+
+    /**
+     * <p>After the localization of a package has been changed, the resolved localization should reflect
+     * the change rather than the previously held resolution.</p>
+     */
+
+    @Test
+    public void testResolveAll_invalidatedByChange() {
+        IntegrationTestSupportService.StandardTestData data = integrationTestSupportService.createStandardTestData();
+
+        {
+            ObjectContext context = serverRuntime.newContext();
+            NaturalLanguage german = NaturalLanguage.getByCode(context, NaturalLanguageCoordinates.LANGUAGE_CODE_GERMAN);
+            PkgVersion pkgVersion = context.localObject(data.pkg2Version1);
+            ResolvedPkgVersionLocalization resolved = pkgLocalizationService.resolveAll(
+                    context, List.of(pkgVersion), german).get(pkgVersion.getObjectId());
+            Assertions.assertThat(resolved.getTitle()).isEqualTo("sample title pkg2");
+        }
+
+        {
+            ObjectContext context = serverRuntime.newContext();
+            NaturalLanguage german = NaturalLanguage.getByCode(context, NaturalLanguageCoordinates.LANGUAGE_CODE_GERMAN);
+            updatePkgLocalization(
+                    context,
+                    context.localObject(data.pkg2).getPkgSupplement(),
+                    german,
+                    new String[] { "title_tui", null, null });
+            context.commitChanges();
+        }
+
+        ObjectContext context = serverRuntime.newContext();
+        NaturalLanguage german = NaturalLanguage.getByCode(context, NaturalLanguageCoordinates.LANGUAGE_CODE_GERMAN);
+        PkgVersion pkgVersion = context.localObject(data.pkg2Version1);
+
+        // ---------------------------------
+        ResolvedPkgVersionLocalization resolved = pkgLocalizationService.resolveAll(
+                context, List.of(pkgVersion), german).get(pkgVersion.getObjectId());
+        // ---------------------------------
+
+        Assertions.assertThat(resolved.getTitle()).isEqualTo("title_tui");
+        Assertions.assertThat(resolved.getSummary()).isEqualTo("sample summary pkg2");
+    }
+
+    /**
+     * <p>When the localizations of a great many packages are changed together, all of the resolved
+     * localizations should be discarded. The title of the resolved package is changed outside of Cayenne so
+     * that it would only be seen if its resolution were discarded as well.</p>
+     */
+
+    @Test
+    public void testResolveAll_invalidatedByLargeChange() {
+        IntegrationTestSupportService.StandardTestData data = integrationTestSupportService.createStandardTestData();
+
+        {
+            ObjectContext context = serverRuntime.newContext();
+            PkgVersion pkgVersion = context.localObject(data.pkg2Version1);
+            ResolvedPkgVersionLocalization resolved = pkgLocalizationService.resolveAll(
+                    context, List.of(pkgVersion), NaturalLanguage.getEnglish(context)).get(pkgVersion.getObjectId());
+            Assertions.assertThat(resolved.getTitle()).isEqualTo("sample title pkg2");
+        }
+
+        setPkgVersionTitleContent("pkg2", "title_kea");
+
+        {
+            ObjectContext context = serverRuntime.newContext();
+            NaturalLanguage english = NaturalLanguage.getEnglish(context);
+
+            for (int p = 0; p <= AbstractInvalidationTriggerListener.MAX_NAMES; p++) {
+                org.haiku.haikudepotserver.dataobjects.Pkg pkg =
+                        integrationTestSupportService.createPkg(context, "pkglarge" + p);
+                updatePkgLocalization(context, pkg.getPkgSupplement(), english,
+                        new String[] { "title_" + p, null, null });
+            }
+
+            context.commitChanges();
+        }
+
+        ObjectContext context = serverRuntime.newContext();
+        PkgVersion pkgVersion = context.localObject(data.pkg2Version1);
+
+        // ---------------------------------
+        ResolvedPkgVersionLocalization resolved = pkgLocalizationService.resolveAll(
+                context, List.of(pkgVersion), NaturalLanguage.getEnglish(context)).get(pkgVersion.getObjectId());
+        // ---------------------------------
+
+        Assertions.assertThat(resolved.getTitle()).isEqualTo("title_kea");
+    }
+
+    /**
+     * <p>This has to be done outside of Cayenne so that no invalidation is triggered.</p>
+     */
+
+    private void setPkgVersionTitleContent(String pkgName, String title) {
+        try (
+                Connection connection = dataSource.getConnection();
+                PreparedStatement statement = connection.prepareStatement("""
+                        UPDATE haikudepot.localization_content SET content = ? WHERE id IN (
+                            SELECT pvl.title_localization_content_id FROM haikudepot.pkg_version_localization pvl
+                            JOIN haikudepot.pkg_version pv ON pv.id = pvl.pkg_version_id
+                            JOIN haikudepot.pkg p ON p.id = pv.pkg_id
+                            WHERE p.name = ?)""")
+        ) {
+            statement.setString(1, title);
+            statement.setString(2, pkgName);
+            Assertions.assertThat(statement.executeUpdate()).isGreaterThan(0);
+        } catch (SQLException se) {
+            throw new RuntimeException("unable to set the title of a package version", se);
+        }
+    }
+
+    private void updatePkgLocalization(
+            ObjectContext context,
+            PkgSupplement pkgSupplement,
+            NaturalLanguage naturalLanguage,
+            String[] fields) {
+        pkgLocalizationService.updatePkgLocalization(
+                context,
+                new NonUserPkgSupplementModificationAgent("cyril", "test"),
+                pkgSupplement,
+                naturalLanguage,
+                fields[0], fields[1], fields[2]);
+    }
+
+    private void updatePkgVersionLocalization(
+            ObjectContext context,
+            PkgVersion pkgVersion,
+            NaturalLanguage naturalLanguage,
+            String[] fields) {
+        pkgLocalizationService.updatePkgVersionLocalization(
+                context, pkgVersion, naturalLanguage, fields[0], fields[1], fields[2]);
+    }
+
+    /**
+     * <p>Each of the title, summary and description is present about half of the time.</p>
+     */
+
+    private static String[] createRandomFields(Random random, String prefix) {
+        return FIELDS.stream()
+                .map(f -> random.nextBoolean() ? prefix + "_" + f : null)
+                .toArray(String[]::new);
+    }
+
+    private static ResolvedPkgVersionLocalization resolveModel(List<String[]> layers) {
+        List<String> values = new ArrayList<>();
+
+        for (int f = 0; f < FIELDS.size(); f++) {
+            final int fieldIndex = f;
+            values.add(layers.stream()
+                    .map(l -> l[fieldIndex])
+                    .filter(Objects::nonNull)
+                    .findFirst()
+                    .orElse(null));
+        }
+
+        return new ResolvedPkgVersionLocalization(values.get(0), values.get(1), values.get(2));
+    }
+
+    private static void assertResolvedEquals(
+            ResolvedPkgVersionLocalization actual,
+            ResolvedPkgVersionLocalization expected) {
+        Assertions.assertThat(Stream.of(actual.getTitle(), actual.getSummary(), actual.getDescription()).toList())
+                .isEqualTo(Stream.of(expected.getTitle(), expected.getSummary(), expected.getDescription()).toList());
+    }
+
 }
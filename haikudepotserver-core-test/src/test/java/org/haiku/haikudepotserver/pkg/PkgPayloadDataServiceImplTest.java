@@ -0,0 +1,176 @@
+/*
+ * Copyright 2026, Andrew Lindesay
+ * Distributed under the terms of the MIT License.
+ */
+package org.haiku.haikudepotserver.pkg;
+
+import com.google.common.io.Files;
+import com.google.common.io.Resources;
+import org.fest.assertions.Assertions;
+import org.haiku.haikudepotserver.pkg.model.PkgPayloadData;
+import org.haiku.haikudepotserver.support.URLHelperService;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+public class PkgPayloadDataServiceImplTest {
+
+    private static final String RESOURCE_TEST = "tipster-1.1.1-1-x86_64.hpkg";
+
+    @Test
+    public void testFetchPayloadData_parsed() throws Exception {
+        StubURLHelperService urlHelperService = new StubURLHelperService();
+        PkgPayloadDataServiceImpl service = new PkgPayloadDataServiceImpl(urlHelperService, 4, 4);
+        URI uri = URI.create("http://host0/tipster.hpkg");
+
+        // ---------------------------------
+        Map<URI, PkgPayloadData> result = service.fetchPayloadData(List.of(uri));
+        // ---------------------------------
+
+        PkgPayloadData data = result.get(uri);
+        Assertions.assertThat(data.isParsed()).isTrue();
+        Assertions.assertThat(data.isDesktop()).isTrue();
+        Assertions.assertThat(data.length()).isEqualTo(Resources.toByteArray(Resources.getResource(RESOURCE_TEST)).length);
+        Assertions.assertThat(data.iconData()).hasSize(544);
+    }
+
+    /**
+     * <p>The payloads are from many hosts so only the overall limit should apply.</p>
+     */
+
+    @Test
+    public void testFetchPayloadData_parallelismBounded() {
+        StubURLHelperService urlHelperService = new StubURLHelperService();
+        PkgPayloadDataServiceImpl service = new PkgPayloadDataServiceImpl(urlHelperService, 3, 10);
+        List<URI> uris = IntStream.range(0, 20)
+                .mapToObj(i -> URI.create("http://host" + i + "/tipster.hpkg"))
+                .toList();
+
+        // ---------------------------------
+        Map<URI, PkgPayloadData> result = service.fetchPayloadData(uris);
+        // ---------------------------------
+
+        Assertions.assertThat(result.size()).isEqualTo(20);
+        Assertions.assertThat(urlHelperService.getMaxInFlight()).isEqualTo(3);
+    }
+
+    /**
+     * <p>The payloads are from only two hosts so the limit for each host should apply.</p>
+     */
+
+    @Test
+    public void testFetchPayloadData_perHostParallelismBounded() {
+        StubURLHelperService urlHelperService = new StubURLHelperService();
+        PkgPayloadDataServiceImpl service = new PkgPayloadDataServiceImpl(urlHelperService, 10, 2);
+        List<URI> uris = IntStream.range(0, 12)
+                .mapToObj(i -> URI.create("http://host" + (i % 2) + "/tipster" + i + ".hpkg"))
+                .toList();
+
+        // ---------------------------------
+        Map<URI, PkgPayloadData> result = service.fetchPayloadData(uris);
+        // ---------------------------------
+
+        Assertions.assertThat(result.size()).isEqualTo(12);
+        Assertions.assertThat(urlHelperService.getMaxInFlight("host0")).isEqualTo(2);
+        Assertions.assertThat(urlHelperService.getMaxInFlight("host1")).isEqualTo(2);
+        Assertions.assertThat(urlHelperService.getMaxInFlight()).isLessThanOrEqualTo(4);
+    }
+
+    /**
+     * <p>A payload that could not be downloaded or that failed unexpectedly should be absent from the result
+     * and one that could not be parsed should only have a length.  None of these should prevent the other
+     * payloads from being processed.</p>
+     */
+
+    @Test
+    public void testFetchPayloadData_failures() {
+        StubURLHelperService urlHelperService = new StubURLHelperService();
+        PkgPayloadDataServiceImpl service = new PkgPayloadDataServiceImpl(urlHelperService, 2, 2);
+        URI missingUri = URI.create("http://host0/missing.hpkg");
+        URI brokenUri = URI.create("http://host0/broken.hpkg");
+        URI garbageUri = URI.create("http://host0/garbage.hpkg");
+        URI goodUri = URI.create("http://host0/tipster.hpkg");
+
+        // ---------------------------------
+        Map<URI, PkgPayloadData> result = service.fetchPayloadData(
+                List.of(missingUri, brokenUri, garbageUri, goodUri));
+        // ---------------------------------
+
+        Assertions.assertThat(result.keySet()).containsOnly(garbageUri, goodUri);
+        Assertions.assertThat(result.get(garbageUri).isParsed()).isFalse();
+        Assertions.assertThat(result.get(garbageUri).length()).isEqualTo(StubURLHelperService.GARBAGE.length);
+        Assertions.assertThat(result.get(garbageUri).iconData()).isNull();
+        Assertions.assertThat(result.get(goodUri).isParsed()).isTrue();
+    }
+
+    /**
+     * <p>Rather than downloading, this writes a payload to the file depending on the name of the file in the
+     * URI and records how many transfers are in flight at once.</p>
+     */
+
+    private static class StubURLHelperService extends URLHelperService {
+
+        private final static byte[] GARBAGE = new byte[] { 1, 2, 3, 4, 5, 6, 7, 8 };
+
+        private final AtomicInteger inFlight = new AtomicInteger();
+
+        private final AtomicInteger maxInFlight = new AtomicInteger();
+
+        private final ConcurrentMap<String, AtomicInteger> hostInFlight = new ConcurrentHashMap<>();
+
+        private final ConcurrentMap<String, AtomicInteger> hostMaxInFlight = new ConcurrentHashMap<>();
+
+        int getMaxInFlight() {
+            return maxInFlight.get();
+        }
+
+        int getMaxInFlight(String host) {
+            return hostMaxInFlight.get(host).get();
+        }
+
+        @Override
+        public void transferPayloadToFile(URI uri, File targetFile) throws IOException {
+            AtomicInteger currentHostInFlight = hostInFlight.computeIfAbsent(uri.getHost(), h -> new AtomicInteger());
+            AtomicInteger currentHostMaxInFlight = hostMaxInFlight.computeIfAbsent(uri.getHost(), h -> new AtomicInteger());
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            currentHostMaxInFlight.accumulateAndGet(currentHostInFlight.incrementAndGet(), Math::max);
+
+            try {
+                // hold on to the transfer for long enough that the other tasks will be waiting on it.
+                Thread.sleep(100);
+
+                String leafname = uri.getPath().substring(1);
+
+                if (leafname.startsWith("missing")) {
+                    throw new IOException("unable to download [" + uri + "]");
+                }
+
+                if (leafname.startsWith("broken")) {
+                    throw new IllegalStateException("unexpected failure downloading [" + uri + "]");
+                }
+
+                if (leafname.startsWith("garbage")) {
+                    Files.write(GARBAGE, targetFile);
+                } else {
+                    Resources.asByteSource(Resources.getResource(RESOURCE_TEST)).copyTo(Files.asByteSink(targetFile));
+                }
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                throw new IOException("interrupted", ie);
+            } finally {
+                currentHostInFlight.decrementAndGet();
+                inFlight.decrementAndGet();
+            }
+        }
+
+    }
+
+}
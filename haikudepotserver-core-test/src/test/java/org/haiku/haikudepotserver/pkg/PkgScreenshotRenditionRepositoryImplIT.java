@@ -0,0 +1,143 @@
+/*
+ * Copyright 2026, Andrew Lindesay
+ * Distributed under the terms of the MIT License.
+ */
+
+package org.haiku.haikudepotserver.pkg;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.cayenne.ObjectContext;
+import org.fest.assertions.Assertions;
+import org.haiku.haikudepotserver.AbstractIntegrationTest;
+import org.haiku.haikudepotserver.IntegrationTestSupportService;
+import org.haiku.haikudepotserver.config.TestConfig;
+import org.haiku.haikudepotserver.dataobjects.PkgScreenshot;
+import org.haiku.haikudepotserver.graphics.bitmap.FallbackThumbnailServiceImpl;
+import org.haiku.haikudepotserver.graphics.bitmap.PngThumbnailService;
+import org.haiku.haikudepotserver.pkg.model.PkgScreenshotRendition;
+import org.haiku.haikudepotserver.pkg.model.PkgScreenshotRenditionMetadata;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.context.ContextConfiguration;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@ContextConfiguration(classes = TestConfig.class)
+public class PkgScreenshotRenditionRepositoryImplIT extends AbstractIntegrationTest {
+
+    @Test
+    public void testToSizeBucket() {
+        Assertions.assertThat(PkgScreenshotRenditionRepositoryImpl.toSizeBucket(5)).isEqualTo(5);
+        Assertions.assertThat(PkgScreenshotRenditionRepositoryImpl.toSizeBucket(120)).isEqualTo(120);
+        Assertions.assertThat(PkgScreenshotRenditionRepositoryImpl.toSizeBucket(127)).isEqualTo(120);
+        Assertions.assertThat(PkgScreenshotRenditionRepositoryImpl.toSizeBucket(1500)).isEqualTo(1496);
+    }
+
+    /**
+     * <p>Sizes in the same bucket share a rendition which fits within the requested size.</p>
+     */
+
+    @Test
+    public void testGet_bucketed() throws Exception {
+        String code = createScreenshotCode();
+        CountingPngThumbnailService pngThumbnailService = new CountingPngThumbnailService();
+        PkgScreenshotRenditionRepository repository = createRepository(pngThumbnailService);
+        ObjectContext context = serverRuntime.newContext();
+        PkgScreenshot screenshot = PkgScreenshot.getByCode(context, code);
+
+        // ---------------------------------
+        PkgScreenshotRendition rendition1 = repository.get(context, screenshot, 160, 120);
+        PkgScreenshotRendition rendition2 = repository.get(context, screenshot, 165, 127);
+        // ---------------------------------
+
+        Assertions.assertThat(pngThumbnailService.getRenders()).isEqualTo(1);
+        Assertions.assertThat(rendition2.data()).isEqualTo(rendition1.data());
+        Assertions.assertThat(rendition1.metadata().width()).isEqualTo(160);
+        Assertions.assertThat(rendition1.metadata().height()).isEqualTo(120);
+        Assertions.assertThat(rendition1.metadata().length()).isEqualTo(rendition1.data().length);
+        Assertions.assertThat(rendition1.metadata().eTag())
+                .isEqualTo("\"" + screenshot.getHashSha256() + "-160x120\"");
+        Assertions.assertThat(repository.deriveETag(screenshot, 165, 127))
+                .isEqualTo(rendition1.metadata().eTag());
+    }
+
+    /**
+     * <p>Once the rendition has been rendered, the metadata is available without rendering again.</p>
+     */
+
+    @Test
+    public void testGetMetadata_afterGet() throws Exception {
+        String code = createScreenshotCode();
+        CountingPngThumbnailService pngThumbnailService = new CountingPngThumbnailService();
+        PkgScreenshotRenditionRepository repository = createRepository(pngThumbnailService);
+        ObjectContext context = serverRuntime.newContext();
+        PkgScreenshot screenshot = PkgScreenshot.getByCode(context, code);
+
+        // ---------------------------------
+        PkgScreenshotRenditionMetadata metadata1 = repository.getMetadata(context, screenshot, 200, 100);
+        PkgScreenshotRenditionMetadata metadata2 = repository.getMetadata(context, screenshot, 200, 100);
+        PkgScreenshotRendition rendition = repository.get(context, screenshot, 200, 100);
+        // ---------------------------------
+
+        Assertions.assertThat(pngThumbnailService.getRenders()).isEqualTo(1);
+        Assertions.assertThat(metadata2).isEqualTo(metadata1);
+        Assertions.assertThat(rendition.metadata()).isEqualTo(metadata1);
+    }
+
+    /**
+     * <p>Sizes in different buckets have different entity tags.</p>
+     */
+
+    @Test
+    public void testDeriveETag_differentBucket() throws Exception {
+        String code = createScreenshotCode();
+        PkgScreenshotRenditionRepository repository = createRepository(new CountingPngThumbnailService());
+        PkgScreenshot screenshot = PkgScreenshot.getByCode(serverRuntime.newContext(), code);
+
+        // ---------------------------------
+        String eTag1 = repository.deriveETag(screenshot, 160, 120);
+        String eTag2 = repository.deriveETag(screenshot, 168, 120);
+        // ---------------------------------
+
+        Assertions.assertThat(eTag1).isNotEqualTo(eTag2);
+    }
+
+    private String createScreenshotCode() {
+        IntegrationTestSupportService.StandardTestData data = integrationTestSupportService.createStandardTestData();
+        return data.pkg1.getPkgSupplement().getSortedPkgScreenshots().getFirst().getCode();
+    }
+
+    private PkgScreenshotRenditionRepository createRepository(PngThumbnailService pngThumbnailService) {
+        return new PkgScreenshotRenditionRepositoryImpl(
+                pngThumbnailService,
+                1024 * 1024,
+                null,
+                1024 * 1024,
+                new SimpleMeterRegistry());
+    }
+
+    /**
+     * <p>Produces placeholder images and counts the renders.</p>
+     */
+
+    private static class CountingPngThumbnailService implements PngThumbnailService {
+
+        private final PngThumbnailService delegate = new FallbackThumbnailServiceImpl();
+
+        private final AtomicInteger renders = new AtomicInteger();
+
+        @Override
+        public void thumbnail(InputStream input, OutputStream output, int width, int height) throws IOException {
+            renders.incrementAndGet();
+            delegate.thumbnail(input, output, width, height);
+        }
+
+        int getRenders() {
+            return renders.get();
+        }
+
+    }
+
+}
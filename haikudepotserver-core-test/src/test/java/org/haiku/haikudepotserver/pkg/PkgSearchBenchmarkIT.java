@@ -0,0 +1,219 @@
+/*
+ * Copyright 2026, Andrew Lindesay
+ * Distributed under the terms of the MIT License.
+ */
+
+package org.haiku.haikudepotserver.pkg;
+
+import jakarta.annotation.Resource;
+import org.apache.cayenne.Cayenne;
+import org.apache.cayenne.ObjectContext;
+import org.fest.assertions.Assertions;
+import org.haiku.haikudepotserver.AbstractIntegrationTest;
+import org.haiku.haikudepotserver.config.TestConfig;
+import org.haiku.haikudepotserver.dataobjects.Architecture;
+import org.haiku.haikudepotserver.dataobjects.NaturalLanguage;
+import org.haiku.haikudepotserver.dataobjects.Pkg;
+import org.haiku.haikudepotserver.dataobjects.PkgVersion;
+import org.haiku.haikudepotserver.dataobjects.Repository;
+import org.haiku.haikudepotserver.dataobjects.RepositorySource;
+import org.haiku.haikudepotserver.pkg.model.PkgLocalizationService;
+import org.haiku.haikudepotserver.pkg.model.PkgSearchSpecification;
+import org.haiku.haikudepotserver.pkg.model.PkgService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.test.context.ContextConfiguration;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * <p>Compares the time taken to search a synthetic catalogue of packages using the search index against the
+ * time taken with the <code>LIKE</code> based query that was used before the search index was introduced. This
+ * test takes some time to run and so is only run when the system property <code>hds.benchmark</code> is set
+ * to <code>true</code>.</p>
+ */
+
+@ContextConfiguration(classes = TestConfig.class)
+@EnabledIfSystemProperty(named = "hds.benchmark", matches = "true")
+public class PkgSearchBenchmarkIT extends AbstractIntegrationTest {
+
+    protected final static Logger LOGGER = LoggerFactory.getLogger(PkgSearchBenchmarkIT.class);
+
+    private final static int PKG_COUNT = 5000;
+
+    private final static int ITERATIONS = 25;
+
+    private final static String REPOSITORY_CODE = "testrepo";
+
+    private final static String ARCHITECTURE_CODE = "x86_64";
+
+    private final static String[] WORDS = new String[] {
+            "audio", "video", "editor", "image", "viewer", "network", "browser", "game", "puzzle", "chess",
+            "library", "terminal", "shell", "archive", "compress", "font", "paint", "vector", "music", "player",
+            "mail", "client", "server", "database", "calendar", "spreadsheet", "document", "office", "science",
+            "math", "physics", "astronomy", "language", "compiler", "debugger", "monitor", "system", "utility"
+    };
+
+    /**
+     * <p>This is the filtering logic from the query before the search index was introduced with the same
+     * repository and architecture filters as are applied by the search specification.</p>
+     */
+
+    private final static String SQL_LEGACY_TOTAL = """
+            SELECT COUNT(DISTINCT pv.id) FROM haikudepot.pkg_version pv
+            JOIN haikudepot.pkg p ON p.id = pv.pkg_id
+            JOIN haikudepot.repository_source rs ON pv.repository_source_id = rs.id
+            JOIN haikudepot.repository r ON rs.repository_id = r.id
+            JOIN haikudepot.architecture a ON a.id = rs.architecture_id
+            LEFT JOIN haikudepot.pkg_localization pl_en ON pl_en.pkg_supplement_id = p.pkg_supplement_id
+                AND pl_en.natural_language_id = ?
+            LEFT JOIN haikudepot.pkg_version_localization pvl_en ON pvl_en.pkg_version_id = pv.id
+                AND pvl_en.natural_language_id = ?
+            LEFT JOIN haikudepot.localization_content pvl_en_summary_lc ON pvl_en_summary_lc.id = pvl_en.summary_localization_content_id
+            LEFT JOIN haikudepot.localization_content pvl_en_description_lc ON pvl_en_description_lc.id = pvl_en.description_localization_content_id
+            LEFT JOIN haikudepot.localization_content pvl_en_title_lc ON pvl_en_title_lc.id = pvl_en.title_localization_content_id
+            WHERE pv.is_latest = true AND p.active = true AND pv.active = true
+            AND r.code = ? AND a.code = ?
+            AND (
+               LOWER(COALESCE(pvl_en_summary_lc.content,pl_en.summary)) LIKE ? ESCAPE '|'
+            OR LOWER(COALESCE(pvl_en_description_lc.content,pl_en.description)) LIKE ? ESCAPE '|'
+            OR LOWER(COALESCE(pvl_en_title_lc.content,pl_en.title)) LIKE ? ESCAPE '|'
+            OR LOWER(p.name) LIKE ? ESCAPE '|'
+            )""";
+
+    @Resource
+    private PkgService pkgService;
+
+    @Resource
+    private PkgLocalizationService pkgLocalizationService;
+
+    @Resource
+    private DataSource dataSource;
+
+    @Test
+    public void testSearch_benchmark() {
+        createSyntheticCatalogue();
+
+        ObjectContext context = serverRuntime.newContext();
+        long englishId = Cayenne.longPKForObject(NaturalLanguage.getEnglish(context));
+
+        for (String expression : List.of("spreadsheet", "astro", "zzz")) {
+            PkgSearchSpecification specification = new PkgSearchSpecification();
+            specification.setNaturalLanguage(NaturalLanguage.getEnglish(context));
+            specification.setExpression(expression);
+            specification.setExpressionType(PkgSearchSpecification.ExpressionType.CONTAINS);
+            specification.setArchitecture(Architecture.getByCode(context, ARCHITECTURE_CODE));
+            specification.setRepositories(List.of(Repository.getByCode(context, REPOSITORY_CODE)));
+            specification.setLimit(50);
+
+            long legacyTotal = legacyTotal(englishId, specification.getExpressionAsSqlLike());
+            long indexedTotal = pkgService.total(context, specification);
+
+            Assertions.assertThat(indexedTotal).isEqualTo(legacyTotal);
+
+            double legacyMillis = time(() -> legacyTotal(englishId, specification.getExpressionAsSqlLike()));
+            double indexedMillis = time(() -> pkgService.total(context, specification));
+
+            LOGGER.info("search [{}] found {} of {} pkgs; legacy {}ms, indexed {}ms",
+                    expression, indexedTotal, PKG_COUNT,
+                    String.format("%.2f", legacyMillis), String.format("%.2f", indexedMillis));
+        }
+    }
+
+    /**
+     * <p>Returns the median time in milliseconds to run the supplied operation.</p>
+     */
+
+    private double time(LongSupplier operation) {
+        IntStream.range(0, 3).forEach(i -> operation.getAsLong()); // warm up
+
+        double[] millis = IntStream.range(0, ITERATIONS)
+                .mapToDouble(i -> {
+                    long start = System.nanoTime();
+                    operation.getAsLong();
+                    return (System.nanoTime() - start) / 1_000_000.0;
+                })
+                .sorted()
+                .toArray();
+
+        return millis[millis.length / 2];
+    }
+
+    private long legacyTotal(long naturalLanguageId, String like) {
+        try (
+                Connection connection = dataSource.getConnection();
+                PreparedStatement statement = connection.prepareStatement(SQL_LEGACY_TOTAL)) {
+            statement.setLong(1, naturalLanguageId);
+            statement.setLong(2, naturalLanguageId);
+            statement.setString(3, REPOSITORY_CODE);
+            statement.setString(4, ARCHITECTURE_CODE);
+
+            for (int i = 5; i <= 8; i++) {
+                statement.setString(i, like);
+            }
+
+            try (ResultSet resultSet = statement.executeQuery()) {
+                resultSet.next();
+                return resultSet.getLong(1);
+            }
+        } catch (SQLException se) {
+            throw new IllegalStateException("unable to run the legacy search", se);
+        }
+    }
+
+    private void createSyntheticCatalogue() {
+        integrationTestSupportService.createStandardTestData();
+
+        ObjectContext context = serverRuntime.newContext();
+        Random random = new Random(1234L);
+        NaturalLanguage english = NaturalLanguage.getEnglish(context);
+        Architecture x86_64 = Architecture.getByCode(context, ARCHITECTURE_CODE);
+        RepositorySource repositorySource = RepositorySource.getByCode(context, "testreposrc_xyz");
+
+        for (int i = 0; i < PKG_COUNT; i++) {
+            Pkg pkg = integrationTestSupportService.createPkg(context, "synthetic" + i);
+            PkgVersion pkgVersion = context.newObject(PkgVersion.class);
+            pkgVersion.setActive(Boolean.TRUE);
+            pkgVersion.setArchitecture(x86_64);
+            pkgVersion.setMajor("1");
+            pkgVersion.setRevision(1);
+            pkgVersion.setIsLatest(true);
+            pkgVersion.setPkg(pkg);
+            pkgVersion.setRepositorySource(repositorySource);
+
+            pkgLocalizationService.updatePkgVersionLocalization(
+                    context,
+                    pkgVersion,
+                    english,
+                    randomWords(random, 2),
+                    randomWords(random, 6),
+                    randomWords(random, 40));
+
+            if (0 == i % 500) {
+                context.commitChanges();
+            }
+        }
+
+        context.commitChanges();
+        LOGGER.info("did create synthetic catalogue of {} pkgs", PKG_COUNT);
+    }
+
+    private static String randomWords(Random random, int count) {
+        return Arrays.stream(random.ints(count, 0, WORDS.length).toArray())
+                .mapToObj(i -> WORDS[i])
+                .collect(Collectors.joining(" "));
+    }
+
+}
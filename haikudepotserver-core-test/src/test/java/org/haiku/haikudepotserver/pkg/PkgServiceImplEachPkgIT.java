@@ -0,0 +1,164 @@
+/*
+ * Copyright 2026, Andrew Lindesay
+ * Distributed under the terms of the MIT License.
+ */
+
+package org.haiku.haikudepotserver.pkg;
+
+import jakarta.annotation.Resource;
+import org.apache.cayenne.ObjectContext;
+import org.apache.cayenne.query.PrefetchTreeNode;
+import org.fest.assertions.Assertions;
+import org.haiku.haikudepotserver.AbstractIntegrationTest;
+import org.haiku.haikudepotserver.config.TestConfig;
+import org.haiku.haikudepotserver.dataobjects.Architecture;
+import org.haiku.haikudepotserver.dataobjects.Pkg;
+import org.haiku.haikudepotserver.dataobjects.PkgSupplement;
+import org.haiku.haikudepotserver.dataobjects.PkgVersion;
+import org.haiku.haikudepotserver.dataobjects.RepositorySource;
+import org.haiku.haikudepotserver.pkg.model.PkgService;
+import org.haiku.haikudepotserver.support.QueryCountingDataChannelFilter;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.context.ContextConfiguration;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+@ContextConfiguration(classes = TestConfig.class)
+public class PkgServiceImplEachPkgIT extends AbstractIntegrationTest {
+
+    private final static int PKG_COUNT = 2500;
+
+    @Resource
+    private PkgService pkgService;
+
+    /**
+     * <p>Each package should be visited exactly once and in order of name. Each batch should take one query for
+     * the names and one for the packages; the last batch is short so there is no further query.</p>
+     */
+
+    @Test
+    public void testEachPkg_visitsEachPkgOnce() {
+        integrationTestSupportService.createStandardTestData();
+        createPkgs("eachpkg", PKG_COUNT);
+        long total = pkgService.totalPkg(serverRuntime.newContext(), false);
+        int batchSize = 300;
+        List<String> visitedPkgNames = new ArrayList<>();
+        QueryCountingDataChannelFilter filter = new QueryCountingDataChannelFilter();
+        serverRuntime.getDataDomain().addFilter(filter);
+
+        try {
+            // ---------------------------------
+            int queryCount = filter.count(() -> Assertions.assertThat(
+                    pkgService.eachPkg(serverRuntime.newContext(), false, batchSize, null, pkg -> {
+                        visitedPkgNames.add(pkg.getName());
+                        return true;
+                    })).isEqualTo(total));
+            // ---------------------------------
+
+            Assertions.assertThat(total).isGreaterThan(PKG_COUNT);
+            Assertions.assertThat((long) visitedPkgNames.size()).isEqualTo(total);
+            Assertions.assertThat((long) new HashSet<>(visitedPkgNames).size()).isEqualTo(total);
+            Assertions.assertThat(visitedPkgNames).isEqualTo(visitedPkgNames.stream().sorted().toList());
+
+            long batches = (total + batchSize - 1) / batchSize;
+            long expectedQueryCount = (batches * 2) + (0 == total % batchSize ? 1 : 0);
+            Assertions.assertThat((long) queryCount).isEqualTo(expectedQueryCount);
+        } finally {
+            serverRuntime.getDataDomain().removeFilter(filter);
+        }
+    }
+
+    /**
+     * <p>The related objects in the prefetch tree should be loaded with each batch so that navigating to them
+     * from the callback does not cause any further queries.</p>
+     */
+
+    @Test
+    public void testEachPkg_withPrefetchTree() {
+        integrationTestSupportService.createStandardTestData();
+        createPkgs("eachpkg", PKG_COUNT);
+        long total = pkgService.totalPkg(serverRuntime.newContext(), false);
+        int batchSize = 1000;
+        QueryCountingDataChannelFilter filter = new QueryCountingDataChannelFilter();
+        serverRuntime.getDataDomain().addFilter(filter);
+
+        try {
+            PrefetchTreeNode prefetchTree = Pkg.PKG_SUPPLEMENT.joint();
+            prefetchTree.merge(Pkg.PKG_SUPPLEMENT.dot(PkgSupplement.PKG_ICONS).disjoint());
+
+            // ---------------------------------
+            int queryCount = filter.count(() -> pkgService.eachPkg(
+                    serverRuntime.newContext(), false, batchSize, prefetchTree, pkg -> {
+                        Assertions.assertThat(pkg.getPkgSupplement().getPkgIcons()).isNotNull();
+                        return true;
+                    }));
+            // ---------------------------------
+
+            long batches = (total + batchSize - 1) / batchSize;
+            long expectedQueryCount = (batches * 3) + (0 == total % batchSize ? 1 : 0);
+            Assertions.assertThat((long) queryCount).isEqualTo(expectedQueryCount);
+        } finally {
+            serverRuntime.getDataDomain().removeFilter(filter);
+        }
+    }
+
+    /**
+     * <p>Packages are created part way through the iteration as might happen when a repository is imported at
+     * the same time. The packages that existed beforehand should still be visited exactly once; a package with
+     * a name before the position of the iteration is not visited and one with a name after it is.</p>
+     */
+
+    @Test
+    public void testEachPkg_pkgsCreatedDuringIteration() {
+        integrationTestSupportService.createStandardTestData();
+        createPkgs("eachpkg", PKG_COUNT);
+        Set<String> existingPkgNames = new HashSet<>();
+        pkgService.eachPkg(serverRuntime.newContext(), false, pkg -> existingPkgNames.add(pkg.getName()));
+        List<String> visitedPkgNames = new ArrayList<>();
+
+        // ---------------------------------
+        pkgService.eachPkg(serverRuntime.newContext(), false, 100, null, pkg -> {
+            visitedPkgNames.add(pkg.getName());
+
+            if (pkg.getName().equals("eachpkg01000")) {
+                createPkgs("eachpkg00000x", 5);
+                createPkgs("eachpkg02000x", 5);
+            }
+
+            return true;
+        });
+        // ---------------------------------
+
+        Set<String> expectedPkgNames = new HashSet<>(existingPkgNames);
+
+        for (int i = 0; i < 5; i++) {
+            expectedPkgNames.add(String.format("eachpkg02000x%05d", i));
+        }
+
+        Assertions.assertThat(new HashSet<>(visitedPkgNames).size()).isEqualTo(visitedPkgNames.size());
+        Assertions.assertThat(new HashSet<>(visitedPkgNames)).isEqualTo(expectedPkgNames);
+    }
+
+    private void createPkgs(String prefix, int count) {
+        ObjectContext context = serverRuntime.newContext();
+        Architecture x86_64 = Architecture.getByCode(context, "x86_64");
+        RepositorySource repositorySource = RepositorySource.getByCode(context, "testreposrc_xyz");
+
+        for (int i = 0; i < count; i++) {
+            PkgVersion pkgVersion = context.newObject(PkgVersion.class);
+            pkgVersion.setActive(Boolean.TRUE);
+            pkgVersion.setArchitecture(x86_64);
+            pkgVersion.setMajor("1");
+            pkgVersion.setRevision(1);
+            pkgVersion.setIsLatest(true);
+            pkgVersion.setPkg(integrationTestSupportService.createPkg(context, String.format("%s%05d", prefix, i)));
+            pkgVersion.setRepositorySource(repositorySource);
+        }
+
+        context.commitChanges();
+    }
+
+}
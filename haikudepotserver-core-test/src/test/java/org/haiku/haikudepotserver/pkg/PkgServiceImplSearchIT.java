@@ -0,0 +1,379 @@
+/*
+ * Copyright 2026, Andrew Lindesay
+ * Distributed under the terms of the MIT License.
+ */
+
+package org.haiku.haikudepotserver.pkg;
+
+import jakarta.annotation.Resource;
+import org.apache.cayenne.ObjectContext;
+import org.fest.assertions.Assertions;
+import org.haiku.haikudepotserver.AbstractIntegrationTest;
+import org.haiku.haikudepotserver.config.TestConfig;
+import org.haiku.haikudepotserver.dataobjects.Architecture;
+import org.haiku.haikudepotserver.dataobjects.NaturalLanguage;
+import org.haiku.haikudepotserver.dataobjects.Pkg;
+import org.haiku.haikudepotserver.dataobjects.PkgVersion;
+import org.haiku.haikudepotserver.dataobjects.Repository;
+import org.haiku.haikudepotserver.dataobjects.RepositorySource;
+import org.haiku.haikudepotserver.naturallanguage.model.NaturalLanguageCoordinates;
+import org.haiku.haikudepotserver.pkg.model.NonUserPkgSupplementModificationAgent;
+import org.haiku.haikudepotserver.pkg.model.PkgLocalizationService;
+import org.haiku.haikudepotserver.pkg.model.PkgSearchCursor;
+import org.haiku.haikudepotserver.pkg.model.PkgSearchResult;
+import org.haiku.haikudepotserver.pkg.model.PkgSearchSpecification;
+import org.haiku.haikudepotserver.pkg.model.PkgService;
+import org.haiku.haikudepotserver.support.QueryCountingDataChannelFilter;
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.context.ContextConfiguration;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * <p>Checks the search of packages which uses the search index that is maintained in the database.</p>
+ */
+
+@ContextConfiguration(classes = TestConfig.class)
+public class PkgServiceImplSearchIT extends AbstractIntegrationTest {
+
+    @Resource
+    private PkgService pkgService;
+
+    @Resource
+    private PkgLocalizationService pkgLocalizationService;
+
+    /**
+     * <p>The terms are in different parts of the text and so would not be found by a simple substring match.</p>
+     */
+
+    @Test
+    public void testSearch_prefixTerms() {
+        integrationTestSupportService.createStandardTestData();
+        ObjectContext context = serverRuntime.newContext();
+        PkgSearchSpecification specification = createSpecification(
+                context, NaturalLanguageCoordinates.LANGUAGE_CODE_ENGLISH, "persim rockmel");
+
+        // ---------------------------------
+        List<PkgVersion> pkgVersions = pkgService.search(context, specification);
+        long total = pkgService.total(context, specification);
+        // ---------------------------------
+
+        Assertions.assertThat(total).isEqualTo(1L);
+        Assertions.assertThat(toPkgNames(pkgVersions)).containsOnly("pkg1");
+    }
+
+    /**
+     * <p>Only the latest version of a package is indexed; this text only appears on an older version.</p>
+     */
+
+    @Test
+    public void testSearch_notLatest() {
+        integrationTestSupportService.createStandardTestData();
+        ObjectContext context = serverRuntime.newContext();
+        PkgSearchSpecification specification = createSpecification(
+                context, NaturalLanguageCoordinates.LANGUAGE_CODE_ENGLISH, "sample title pkg1");
+
+        // ---------------------------------
+        long total = pkgService.total(context, specification);
+        // ---------------------------------
+
+        Assertions.assertThat(total).isEqualTo(0L);
+    }
+
+    /**
+     * <p>When the localization is changed, the search index should reflect the change.</p>
+     */
+
+    @Test
+    public void testSearch_afterLocalizationChange() {
+        integrationTestSupportService.createStandardTestData();
+
+        {
+            ObjectContext context = serverRuntime.newContext();
+            Pkg pkg1 = Pkg.getByName(context, "pkg1");
+            pkgLocalizationService.updatePkgLocalization(
+                    context,
+                    new NonUserPkgSupplementModificationAgent("cyril", "test"),
+                    pkg1.getPkgSupplement(),
+                    NaturalLanguage.getByCode(context, NaturalLanguageCoordinates.LANGUAGE_CODE_GERMAN),
+                    "title_kokako",
+                    "summary_kokako",
+                    "description_kokako");
+            context.commitChanges();
+        }
+
+        ObjectContext context = serverRuntime.newContext();
+
+        // ---------------------------------
+        long totalGerman = pkgService.total(context, createSpecification(
+                context, NaturalLanguageCoordinates.LANGUAGE_CODE_GERMAN, "kokako"));
+        long totalFrench = pkgService.total(context, createSpecification(
+                context, NaturalLanguageCoordinates.LANGUAGE_CODE_FRENCH, "kokako"));
+        // ---------------------------------
+
+        Assertions.assertThat(totalGerman).isEqualTo(1L);
+        Assertions.assertThat(totalFrench).isEqualTo(0L);
+    }
+
+    /**
+     * <p>The expression spans the end of the title and the start of the summary; it should not match because
+     * the fields are separate.</p>
+     */
+
+    @Test
+    public void testSearch_notAcrossFields() {
+        integrationTestSupportService.createStandardTestData();
+
+        {
+            ObjectContext context = serverRuntime.newContext();
+            RepositorySource repositorySource = RepositorySource.getByCode(context, "testreposrc_xyz");
+            PkgVersion pkg2Version = pkgService.getLatestPkgVersionForPkg(
+                    context, Pkg.getByName(context, "pkg2"), repositorySource).orElseThrow();
+            pkgLocalizationService.updatePkgVersionLocalization(
+                    context, pkg2Version, NaturalLanguage.getEnglish(context),
+                    "Zxqgrapefr", "Uitzxq stand", "Holds fruit");
+            context.commitChanges();
+        }
+
+        ObjectContext context = serverRuntime.newContext();
+
+        // ---------------------------------
+        long totalAcross = pkgService.total(context, createSpecification(
+                context, NaturalLanguageCoordinates.LANGUAGE_CODE_ENGLISH, "grapefr uitzxq"));
+        long totalWithin = pkgService.total(context, createSpecification(
+                context, NaturalLanguageCoordinates.LANGUAGE_CODE_ENGLISH, "uitzxq st"));
+        // ---------------------------------
+
+        Assertions.assertThat(totalAcross).isEqualTo(0L);
+        Assertions.assertThat(totalWithin).isEqualTo(1L);
+    }
+
+    /**
+     * <p>The package with the term in the title should rank above the package with the term only in the
+     * description.</p>
+     */
+
+    @Test
+    public void testSearch_relevance() {
+        integrationTestSupportService.createStandardTestData();
+
+        {
+            ObjectContext context = serverRuntime.newContext();
+            NaturalLanguage english = NaturalLanguage.getEnglish(context);
+            RepositorySource repositorySource = RepositorySource.getByCode(context, "testreposrc_xyz");
+            PkgVersion pkg2Version = pkgService.getLatestPkgVersionForPkg(
+                    context, Pkg.getByName(context, "pkg2"), repositorySource).orElseThrow();
+            PkgVersion pkg3Version = pkgService.getLatestPkgVersionForPkg(
+                    context, Pkg.getByName(context, "pkg3"), repositorySource).orElseThrow();
+            pkgLocalizationService.updatePkgVersionLocalization(
+                    context, pkg2Version, english,
+                    "Basket", "Holds fruit", "There is a kiwifruit in the basket");
+            pkgLocalizationService.updatePkgVersionLocalization(
+                    context, pkg3Version, english,
+                    "Kiwifruit Viewer", "Views a kiwifruit", "Shows a kiwifruit");
+            context.commitChanges();
+        }
+
+        ObjectContext context = serverRuntime.newContext();
+        PkgSearchSpecification specification = createSpecification(
+                context, NaturalLanguageCoordinates.LANGUAGE_CODE_ENGLISH, "kiwi");
+        specification.setSortOrdering(PkgSearchSpecification.SortOrdering.RELEVANCE);
+
+        // ---------------------------------
+        List<PkgVersion> pkgVersions = pkgService.search(context, specification);
+        // ---------------------------------
+
+        Assertions.assertThat(toPkgNames(pkgVersions)).isEqualTo(List.of("pkg3", "pkg2"));
+    }
+
+    /**
+     * <p>Pages through all of the results using cursors for each of the orderings that support cursors and
+     * checks that the results are the same as obtaining all of the results at once.</p>
+     */
+
+    @Test
+    public void testSearchWithTotal_cursor() {
+        integrationTestSupportService.createStandardTestData();
+        ObjectContext context = serverRuntime.newContext();
+
+        for (PkgSearchSpecification.SortOrdering sortOrdering : List.of(
+                PkgSearchSpecification.SortOrdering.NAME,
+                PkgSearchSpecification.SortOrdering.PROMINENCE,
+                PkgSearchSpecification.SortOrdering.VERSIONCREATETIMESTAMP,
+                PkgSearchSpecification.SortOrdering.VERSIONVIEWCOUNTER)) {
+
+            PkgSearchSpecification allSpecification = createSpecification(
+                    context, NaturalLanguageCoordinates.LANGUAGE_CODE_ENGLISH, null);
+            allSpecification.setSortOrdering(sortOrdering);
+            List<String> allPkgNames = toPkgNames(pkgService.search(context, allSpecification));
+            long expectedTotal = pkgService.total(context, allSpecification);
+
+            PkgSearchSpecification specification = createSpecification(
+                    context, NaturalLanguageCoordinates.LANGUAGE_CODE_ENGLISH, null);
+            specification.setSortOrdering(sortOrdering);
+            specification.setLimit(1);
+            List<String> pagedPkgNames = new ArrayList<>();
+
+            // ---------------------------------
+            while (true) {
+                PkgSearchResult result = pkgService.searchWithTotal(context, specification);
+                Assertions.assertThat(result.total()).isEqualTo(expectedTotal);
+                pagedPkgNames.addAll(toPkgNames(result.pkgVersions()));
+
+                if (result.tryGetNextCursor().isEmpty()) {
+                    break;
+                }
+
+                specification.setCursor(result.nextCursor());
+            }
+            // ---------------------------------
+
+            Assertions.assertThat(allPkgNames.size()).isGreaterThan(1);
+            Assertions.assertThat(pagedPkgNames).isEqualTo(allPkgNames);
+        }
+    }
+
+    /**
+     * <p>A later page should not count the total again but should take the total that was counted for the first
+     * page from the cursor and so should need no more queries than the first page.</p>
+     */
+
+    @Test
+    public void testSearchWithTotal_cursorQueryCount() {
+        integrationTestSupportService.createStandardTestData();
+        ObjectContext context = serverRuntime.newContext();
+        PkgSearchSpecification specification = createSpecification(
+                context, NaturalLanguageCoordinates.LANGUAGE_CODE_ENGLISH, null);
+        specification.setSortOrdering(PkgSearchSpecification.SortOrdering.NAME);
+        specification.setLimit(1);
+        AtomicReference<PkgSearchResult> firstResult = new AtomicReference<>();
+        AtomicReference<PkgSearchResult> secondResult = new AtomicReference<>();
+        QueryCountingDataChannelFilter filter = new QueryCountingDataChannelFilter();
+        serverRuntime.getDataDomain().addFilter(filter);
+
+        try {
+            int firstQueryCount = filter.count(() -> firstResult.set(
+                    pkgService.searchWithTotal(serverRuntime.newContext(), specification)));
+            specification.setCursor(firstResult.get().nextCursor());
+
+            // ---------------------------------
+            int secondQueryCount = filter.count(() -> secondResult.set(
+                    pkgService.searchWithTotal(serverRuntime.newContext(), specification)));
+            // ---------------------------------
+
+            Assertions.assertThat(firstResult.get().nextCursor()).isNotNull();
+            Assertions.assertThat(secondResult.get().pkgVersions()).hasSize(1);
+            Assertions.assertThat(secondResult.get().total()).isEqualTo(firstResult.get().total());
+            Assertions.assertThat(secondQueryCount).isEqualTo(firstQueryCount);
+        } finally {
+            serverRuntime.getDataDomain().removeFilter(filter);
+        }
+    }
+
+    /**
+     * <p>A cursor which has had its total altered should not be accepted because the total is included in the
+     * hash.</p>
+     */
+
+    @Test
+    public void testSearchWithTotal_cursorWithAlteredTotal() {
+        integrationTestSupportService.createStandardTestData();
+        ObjectContext context = serverRuntime.newContext();
+        PkgSearchSpecification specification = createSpecification(
+                context, NaturalLanguageCoordinates.LANGUAGE_CODE_ENGLISH, null);
+        specification.setSortOrdering(PkgSearchSpecification.SortOrdering.NAME);
+        specification.setLimit(1);
+        PkgSearchCursor cursor = pkgService.searchWithTotal(context, specification).nextCursor();
+        Assertions.assertThat(cursor).isNotNull();
+        specification.setCursor(new PkgSearchCursor(
+                cursor.sortOrdering(),
+                cursor.sortValue(),
+                cursor.sortTitle(),
+                cursor.pkgVersionId(),
+                cursor.total() + 1,
+                cursor.specificationHash()));
+
+        // ---------------------------------
+        IllegalStateException ise = Assert.assertThrows(
+                IllegalStateException.class,
+                () -> pkgService.searchWithTotal(context, specification));
+        // ---------------------------------
+
+        Assertions.assertThat(ise.getMessage()).isEqualTo("the cursor is for a different search");
+    }
+
+    /**
+     * <p>A cursor from one search should not be accepted for a search with a different specification because the
+     * position that it describes has no meaning in the other results.</p>
+     */
+
+    @Test
+    public void testSearchWithTotal_cursorForDifferentSearch() {
+        integrationTestSupportService.createStandardTestData();
+        ObjectContext context = serverRuntime.newContext();
+        PkgSearchSpecification specification = createSpecification(
+                context, NaturalLanguageCoordinates.LANGUAGE_CODE_ENGLISH, null);
+        specification.setSortOrdering(PkgSearchSpecification.SortOrdering.NAME);
+        specification.setLimit(1);
+        PkgSearchCursor cursor = pkgService.searchWithTotal(context, specification).nextCursor();
+        Assertions.assertThat(cursor).isNotNull();
+
+        PkgSearchSpecification otherSpecification = createSpecification(
+                context, NaturalLanguageCoordinates.LANGUAGE_CODE_ENGLISH, "pkg");
+        otherSpecification.setSortOrdering(PkgSearchSpecification.SortOrdering.NAME);
+        otherSpecification.setLimit(1);
+        otherSpecification.setCursor(PkgSearchCursor.tryFromToken(cursor.toToken()).orElseThrow());
+
+        // ---------------------------------
+        IllegalStateException ise = Assert.assertThrows(
+                IllegalStateException.class,
+                () -> pkgService.searchWithTotal(context, otherSpecification));
+        // ---------------------------------
+
+        Assertions.assertThat(ise.getMessage()).isEqualTo("the cursor is for a different search");
+    }
+
+    /**
+     * <p>If the offset is beyond the end of the results then the total should still be provided.</p>
+     */
+
+    @Test
+    public void testSearchWithTotal_offsetBeyondEnd() {
+        integrationTestSupportService.createStandardTestData();
+        ObjectContext context = serverRuntime.newContext();
+        PkgSearchSpecification specification = createSpecification(
+                context, NaturalLanguageCoordinates.LANGUAGE_CODE_ENGLISH, null);
+        specification.setOffset(100);
+
+        // ---------------------------------
+        PkgSearchResult result = pkgService.searchWithTotal(context, specification);
+        // ---------------------------------
+
+        Assertions.assertThat(result.pkgVersions()).isEmpty();
+        Assertions.assertThat(result.total()).isEqualTo(pkgService.total(context, specification));
+        Assertions.assertThat(result.total()).isGreaterThan(0L);
+    }
+
+    private PkgSearchSpecification createSpecification(
+            ObjectContext context,
+            String naturalLanguageCode,
+            String expression) {
+        PkgSearchSpecification specification = new PkgSearchSpecification();
+        specification.setNaturalLanguage(NaturalLanguage.getByCode(context, naturalLanguageCode));
+        specification.setExpression(expression);
+        specification.setExpressionType(PkgSearchSpecification.ExpressionType.CONTAINS);
+        specification.setArchitecture(Architecture.getByCode(context, "x86_64"));
+        specification.setRepositories(List.of(Repository.getByCode(context, "testrepo")));
+        specification.setSortOrdering(PkgSearchSpecification.SortOrdering.NAME);
+        specification.setLimit(10);
+        return specification;
+    }
+
+    private static List<String> toPkgNames(List<PkgVersion> pkgVersions) {
+        return pkgVersions.stream().map(pv -> pv.getPkg().getName()).toList();
+    }
+
+}
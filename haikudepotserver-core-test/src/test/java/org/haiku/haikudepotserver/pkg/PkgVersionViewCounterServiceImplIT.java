@@ -0,0 +1,105 @@
+/*
+ * Copyright 2026, Andrew Lindesay
+ * Distributed under the terms of the MIT License.
+ */
+
+package org.haiku.haikudepotserver.pkg;
+
+import jakarta.annotation.Resource;
+import org.apache.cayenne.ObjectContext;
+import org.apache.cayenne.ObjectId;
+import org.fest.assertions.Assertions;
+import org.haiku.haikudepotserver.AbstractIntegrationTest;
+import org.haiku.haikudepotserver.config.TestConfig;
+import org.haiku.haikudepotserver.dataobjects.Architecture;
+import org.haiku.haikudepotserver.dataobjects.Pkg;
+import org.haiku.haikudepotserver.dataobjects.PkgVersion;
+import org.haiku.haikudepotserver.dataobjects.RepositorySource;
+import org.haiku.haikudepotserver.pkg.model.PkgVersionViewCounterService;
+import org.haiku.haikudepotserver.support.VersionCoordinates;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.context.ContextConfiguration;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@ContextConfiguration(classes = TestConfig.class)
+public class PkgVersionViewCounterServiceImplIT extends AbstractIntegrationTest {
+
+    private final static VersionCoordinates VERSION_COORDINATES = new VersionCoordinates("1", null, "2", null, 3);
+
+    @Resource
+    private PkgVersionViewCounterService pkgVersionViewCounterService;
+
+    /**
+     * <p>Views are recorded concurrently on two nodes, each of which is flushing at the same time as the views
+     * are recorded. No views should be lost.</p>
+     */
+
+    @Test
+    public void testFlush_concurrentAcrossNodes() throws Exception {
+        integrationTestSupportService.createStandardTestData();
+        ObjectId pkgVersionOid = getPkgVersion(serverRuntime.newContext()).getObjectId();
+        PkgVersionViewCounterService otherNodeService = new PkgVersionViewCounterServiceImpl(serverRuntime);
+        List<PkgVersionViewCounterService> services = List.of(pkgVersionViewCounterService, otherNodeService);
+
+        // ---------------------------------
+        try (ExecutorService executorService = Executors.newFixedThreadPool(4)) {
+            List<CompletableFuture<Void>> futures = new ArrayList<>();
+
+            for (int i = 0; i < 4; i++) {
+                PkgVersionViewCounterService service = services.get(i % services.size());
+                futures.add(CompletableFuture.runAsync(() -> {
+                    for (int v = 0; v < 500; v++) {
+                        service.recordView(pkgVersionOid);
+
+                        if (0 == v % 100) {
+                            service.flush();
+                        }
+                    }
+                }, executorService));
+            }
+
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get();
+        }
+
+        services.forEach(PkgVersionViewCounterService::flush);
+        // ---------------------------------
+
+        Assertions.assertThat(getPkgVersion(serverRuntime.newContext()).getViewCounter()).isEqualTo(2000L);
+    }
+
+    /**
+     * <p>Views that are recorded are not visible until they are flushed.</p>
+     */
+
+    @Test
+    public void testFlush_writeBehind() {
+        integrationTestSupportService.createStandardTestData();
+        ObjectId pkgVersionOid = getPkgVersion(serverRuntime.newContext()).getObjectId();
+
+        // ---------------------------------
+        pkgVersionViewCounterService.recordView(pkgVersionOid);
+        pkgVersionViewCounterService.recordView(pkgVersionOid);
+        long viewCounterBeforeFlush = getPkgVersion(serverRuntime.newContext()).getViewCounter();
+        int flushed = pkgVersionViewCounterService.flush();
+        // ---------------------------------
+
+        Assertions.assertThat(viewCounterBeforeFlush).isEqualTo(0L);
+        Assertions.assertThat(flushed).isEqualTo(1);
+        Assertions.assertThat(getPkgVersion(serverRuntime.newContext()).getViewCounter()).isEqualTo(2L);
+    }
+
+    private PkgVersion getPkgVersion(ObjectContext context) {
+        return PkgVersion.getForPkg(
+                context,
+                Pkg.getByName(context, "pkg1"),
+                RepositorySource.getByCode(context, "testreposrc_xyz"),
+                Architecture.getByCode(context, "x86_64"),
+                VERSION_COORDINATES);
+    }
+
+}
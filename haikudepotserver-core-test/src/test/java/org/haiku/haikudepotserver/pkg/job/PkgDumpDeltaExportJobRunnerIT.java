@@ -0,0 +1,235 @@
+/*
+ * Copyright 2026, Andrew Lindesay
+ * Distributed under the terms of the MIT License.
+ */
+
+package org.haiku.haikudepotserver.pkg.job;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.fest.assertions.Assertions;
+import org.haiku.haikudepotserver.AbstractIntegrationTest;
+import org.haiku.haikudepotserver.IntegrationTestSupportService;
+import org.haiku.haikudepotserver.config.TestConfig;
+import org.haiku.haikudepotserver.job.model.JobDataWithByteSource;
+import org.haiku.haikudepotserver.job.model.JobService;
+import org.haiku.haikudepotserver.job.model.JobSnapshot;
+import org.haiku.haikudepotserver.pkg.model.PkgDumpDeltaExportJobSpecification;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.context.ContextConfiguration;
+
+import jakarta.annotation.Resource;
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+@ContextConfiguration(classes = TestConfig.class)
+public class PkgDumpDeltaExportJobRunnerIT extends AbstractIntegrationTest {
+
+    @Resource
+    private IntegrationTestSupportService integrationTestSupportService;
+
+    @Resource
+    private JobService jobService;
+
+    @Resource
+    private ObjectMapper objectMapper;
+
+    @Resource
+    private DataSource dataSource;
+
+    /**
+     * <p>All of the test data is created after the since timestamp so all of the packages should be
+     * present and the inactive version of pkg1 should be tombstoned.</p>
+     */
+
+    @Test
+    public void testRun_allChanged() throws IOException {
+        long since = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(1);
+        integrationTestSupportService.createStandardTestData();
+
+        // ------------------------------------
+        JsonNode rootNode = runAndRead(since);
+        // ------------------------------------
+
+        Assertions.assertThat(rootNode.at("/info/dataModifiedTimestamp").asLong()).isGreaterThan(since);
+
+        List<String> itemNames = new ArrayList<>();
+        rootNode.at("/items").forEach((n) -> itemNames.add(n.get("name").asText()));
+        Assertions.assertThat(itemNames).contains("pkg1", "pkg2");
+
+        JsonNode tombstonesNode = rootNode.at("/tombstones");
+        Assertions.assertThat(tombstonesNode.size()).isEqualTo(1);
+        Assertions.assertThat(tombstonesNode.at("/0/name").asText()).isEqualTo("pkg1");
+        Assertions.assertThat(tombstonesNode.at("/0/architectureCode").asText()).isEqualTo("x86_64");
+        Assertions.assertThat(tombstonesNode.at("/0/major").asText()).isEqualTo("1");
+        Assertions.assertThat(tombstonesNode.at("/0/micro").asText()).isEqualTo("2");
+        Assertions.assertThat(tombstonesNode.at("/0/revision").asLong()).isEqualTo(3L);
+    }
+
+    /**
+     * <p>Nothing has changed after a point in the future so the output should be empty.</p>
+     */
+
+    @Test
+    public void testRun_noneChanged() throws IOException {
+        integrationTestSupportService.createStandardTestData();
+        long since = System.currentTimeMillis() + TimeUnit.HOURS.toMillis(2);
+
+        // ------------------------------------
+        JsonNode rootNode = runAndRead(since);
+        // ------------------------------------
+
+        Assertions.assertThat(rootNode.at("/items").size()).isEqualTo(0);
+        Assertions.assertThat(rootNode.at("/tombstones").size()).isEqualTo(0);
+    }
+
+    /**
+     * <p>Only pkg1, which has a supplement modified after the since timestamp, and pkg3, which has a latest
+     * version modified after the since timestamp, should be present. The other packages were last modified
+     * before the since timestamp.</p>
+     */
+
+    @Test
+    public void testRun_someChanged() throws IOException {
+        integrationTestSupportService.createStandardTestData();
+        long since = deriveSinceTwoHoursAgo();
+        Timestamp before = new Timestamp(since - TimeUnit.HOURS.toMillis(1));
+        Timestamp after = new Timestamp(System.currentTimeMillis());
+        setAllModifyTimestamps(before);
+        executeUpdate(
+                "UPDATE haikudepot.pkg_supplement SET modify_timestamp = ? WHERE base_pkg_name = ?",
+                after, "pkg1");
+        executeUpdate(
+                "UPDATE haikudepot.pkg_version SET modify_timestamp = ? WHERE is_latest AND pkg_id = "
+                        + "(SELECT id FROM haikudepot.pkg WHERE name = ?)",
+                after, "pkg3");
+
+        // ------------------------------------
+        JsonNode rootNode = runAndRead(since);
+        // ------------------------------------
+
+        List<String> itemNames = new ArrayList<>();
+        rootNode.at("/items").forEach((n) -> itemNames.add(n.get("name").asText()));
+        Assertions.assertThat(itemNames).isEqualTo(List.of("pkg1", "pkg3"));
+        Assertions.assertThat(rootNode.at("/tombstones").size()).isEqualTo(0);
+    }
+
+    /**
+     * <p>The whole of pkg2 is deactivated after the since timestamp so its latest version should be
+     * tombstoned and it should not be present in the items.</p>
+     */
+
+    @Test
+    public void testRun_pkgDeactivated() throws IOException {
+        integrationTestSupportService.createStandardTestData();
+        long since = deriveSinceTwoHoursAgo();
+        setAllModifyTimestamps(new Timestamp(since - TimeUnit.HOURS.toMillis(1)));
+        executeUpdate(
+                "UPDATE haikudepot.pkg SET active = false, modify_timestamp = ? WHERE name = ?",
+                new Timestamp(System.currentTimeMillis()), "pkg2");
+
+        // ------------------------------------
+        JsonNode rootNode = runAndRead(since);
+        // ------------------------------------
+
+        Assertions.assertThat(rootNode.at("/items").size()).isEqualTo(0);
+
+        JsonNode tombstonesNode = rootNode.at("/tombstones");
+        Assertions.assertThat(tombstonesNode.size()).isEqualTo(1);
+        Assertions.assertThat(tombstonesNode.at("/0/name").asText()).isEqualTo("pkg2");
+        Assertions.assertThat(tombstonesNode.at("/0/architectureCode").asText()).isEqualTo("x86_64");
+        Assertions.assertThat(tombstonesNode.at("/0/major").asText()).isEqualTo("1");
+        Assertions.assertThat(tombstonesNode.at("/0/minor").asText()).isEqualTo("1");
+        Assertions.assertThat(tombstonesNode.at("/0/micro").asText()).isEqualTo("2");
+        Assertions.assertThat(tombstonesNode.at("/0/revision").asLong()).isEqualTo(3L);
+    }
+
+    @Test
+    public void testSinceTimestampBucketed() {
+        PkgDumpDeltaExportJobSpecification specificationA = createSpecification(
+                TimeUnit.HOURS.toMillis(1000) + 1L);
+        PkgDumpDeltaExportJobSpecification specificationB = createSpecification(
+                TimeUnit.HOURS.toMillis(1001) - 1L);
+        PkgDumpDeltaExportJobSpecification specificationC = createSpecification(
+                TimeUnit.HOURS.toMillis(1001));
+
+        // ------------------------------------
+        Assertions.assertThat(specificationA.isEquivalent(specificationB)).isTrue();
+        Assertions.assertThat(specificationA.isEquivalent(specificationC)).isFalse();
+        // ------------------------------------
+
+        Assertions.assertThat(specificationA.getSinceTimestamp()).isEqualTo(TimeUnit.HOURS.toMillis(1000));
+    }
+
+    /**
+     * <p>The since timestamp is bucketed to the hour so this is on an hour boundary.</p>
+     */
+
+    private long deriveSinceTwoHoursAgo() {
+        return TimeUnit.HOURS.toMillis(TimeUnit.MILLISECONDS.toHours(System.currentTimeMillis()) - 2);
+    }
+
+    private void setAllModifyTimestamps(Timestamp moment) {
+        executeUpdate("UPDATE haikudepot.pkg SET modify_timestamp = ?", moment);
+        executeUpdate("UPDATE haikudepot.pkg_supplement SET modify_timestamp = ?", moment);
+        executeUpdate("UPDATE haikudepot.pkg_version SET modify_timestamp = ?", moment);
+    }
+
+    /**
+     * <p>This has to be done outside of Cayenne because there are automations within Cayenne which will also set
+     * the modify timestamp.</p>
+     */
+
+    private void executeUpdate(String sql, Object... parameters) {
+        try (
+                Connection connection = dataSource.getConnection();
+                PreparedStatement statement = connection.prepareStatement(sql)
+        ) {
+            for (int i = 0; i < parameters.length; i++) {
+                statement.setObject(i + 1, parameters[i]);
+            }
+            Assertions.assertThat(statement.executeUpdate()).isGreaterThan(0);
+        } catch (SQLException se) {
+            throw new RuntimeException("unable to execute update [" + sql + "]", se);
+        }
+    }
+
+    private PkgDumpDeltaExportJobSpecification createSpecification(long since) {
+        PkgDumpDeltaExportJobSpecification specification = new PkgDumpDeltaExportJobSpecification();
+        specification.setRepositorySourceCode("testreposrc_xyz");
+        specification.setNaturalLanguageCode("es");
+        specification.setSinceTimestamp(since);
+        return specification;
+    }
+
+    private JsonNode runAndRead(long since) throws IOException {
+        String guid = jobService.submit(
+                createSpecification(since),
+                JobSnapshot.COALESCE_STATUSES_NONE);
+
+        jobService.awaitJobFinishedUninterruptibly(guid, 10000);
+        Optional<? extends JobSnapshot> snapshotOptional = jobService.tryGetJob(guid);
+        Assertions.assertThat(snapshotOptional.get().getStatus()).isEqualTo(JobSnapshot.Status.FINISHED);
+
+        String dataGuid = snapshotOptional.get().getGeneratedDataGuids().iterator().next();
+        JobDataWithByteSource jobSource = jobService.tryObtainData(dataGuid).get();
+
+        try (
+                final InputStream inputStream = jobSource.getByteSource().openBufferedStream();
+                final GZIPInputStream gzipInputStream = new GZIPInputStream(inputStream)
+        ) {
+            return objectMapper.readTree(gzipInputStream);
+        }
+    }
+
+}
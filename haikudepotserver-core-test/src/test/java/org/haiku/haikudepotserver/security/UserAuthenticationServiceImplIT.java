@@ -0,0 +1,109 @@
+/*
+ * Copyright 2026, Andrew Lindesay
+ * Distributed under the terms of the MIT License.
+ */
+
+package org.haiku.haikudepotserver.security;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.cayenne.ObjectContext;
+import org.apache.cayenne.ObjectId;
+import org.fest.assertions.Assertions;
+import org.haiku.haikudepotserver.AbstractIntegrationTest;
+import org.haiku.haikudepotserver.IntegrationTestSupportService;
+import org.haiku.haikudepotserver.config.TestConfig;
+import org.haiku.haikudepotserver.dataobjects.User;
+import org.haiku.haikudepotserver.metrics.MetricsConstants;
+import org.haiku.haikudepotserver.security.model.UserAuthenticationService;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.context.ContextConfiguration;
+
+import jakarta.annotation.Resource;
+import java.util.Optional;
+
+@ContextConfiguration(classes = TestConfig.class)
+public class UserAuthenticationServiceImplIT extends AbstractIntegrationTest {
+
+    @Resource
+    private IntegrationTestSupportService integrationTestSupportService;
+
+    @Resource
+    private UserAuthenticationService userAuthenticationService;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    /**
+     * <p>The second authentication is served from the cache and should identify the same user as the first
+     * authentication which verified the token.</p>
+     */
+
+    @Test
+    public void testAuthenticateByToken_cached() {
+        String token = createUserAndToken();
+        ObjectId expectedUserObjectId = User.getByNickname(serverRuntime.newContext(), "testuser").getObjectId();
+        Optional<ObjectId> verifiedUserObjectIdOptional = userAuthenticationService.authenticateByToken(token);
+        double hitsBefore = getTokenCacheCount("hit");
+
+        // ------------------------------------
+        Optional<ObjectId> userObjectIdOptional = userAuthenticationService.authenticateByToken(token);
+        // ------------------------------------
+
+        Assertions.assertThat(verifiedUserObjectIdOptional.isPresent()).isTrue();
+        Assertions.assertThat(verifiedUserObjectIdOptional.get()).isEqualTo(expectedUserObjectId);
+        Assertions.assertThat(userObjectIdOptional.isPresent()).isTrue();
+        Assertions.assertThat(userObjectIdOptional.get()).isEqualTo(expectedUserObjectId);
+        Assertions.assertThat(getTokenCacheCount("hit")).isEqualTo(hitsBefore + 1.0);
+    }
+
+    /**
+     * <p>Once the user has been changed, the cached authentication for the token should have been discarded so
+     * that the token is verified again.</p>
+     */
+
+    @Test
+    public void testAuthenticateByToken_invalidatedByUserChange() {
+        String token = createUserAndToken();
+        userAuthenticationService.authenticateByToken(token);
+
+        {
+            ObjectContext context = serverRuntime.newContext();
+            User user = User.getByNickname(context, "testuser");
+            user.setActive(false);
+            context.commitChanges();
+        }
+
+        double missesBefore = getTokenCacheCount("miss");
+
+        // ------------------------------------
+        userAuthenticationService.authenticateByToken(token);
+        // ------------------------------------
+
+        Assertions.assertThat(getTokenCacheCount("miss")).isEqualTo(missesBefore + 1.0);
+    }
+
+    @Test
+    public void testAuthenticateByToken_bad() {
+        createUserAndToken();
+
+        // ------------------------------------
+        Optional<ObjectId> userObjectIdOptional = userAuthenticationService.authenticateByToken("not.a.token");
+        // ------------------------------------
+
+        Assertions.assertThat(userObjectIdOptional.isPresent()).isFalse();
+    }
+
+    private String createUserAndToken() {
+        ObjectContext context = serverRuntime.newContext();
+        User user = integrationTestSupportService.createBasicUser(context, "testuser", "U7vqpsu6BB");
+        return userAuthenticationService.generateToken(user);
+    }
+
+    private double getTokenCacheCount(String result) {
+        return meterRegistry.get(MetricsConstants.COUNTER_NAME_AUTHENTICATION_TOKEN_CACHE)
+                .tag(MetricsConstants.TAG_NAME_RESULT, result)
+                .counter()
+                .count();
+    }
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2019-2023, Andrew Lindesay
+ * Copyright 2019-2026, Andrew Lindesay
  * Distributed under the terms of the MIT License.
  */
 
@@ -10,15 +10,19 @@ import org.fest.assertions.Assertions;
 import org.haiku.haikudepotserver.AbstractIntegrationTest;
 import org.haiku.haikudepotserver.IntegrationTestSupportService;
 import org.haiku.haikudepotserver.config.TestConfig;
+import org.haiku.haikudepotserver.dataobjects.PermissionUserPkg;
 import org.haiku.haikudepotserver.dataobjects.Pkg;
 import org.haiku.haikudepotserver.dataobjects.User;
 import org.haiku.haikudepotserver.dataobjects.UserUsageConditions;
 import org.haiku.haikudepotserver.security.model.Permission;
+import org.haiku.haikudepotserver.security.model.TargetAndPermission;
+import org.haiku.haikudepotserver.security.model.TargetType;
 import org.haiku.haikudepotserver.security.model.UserAuthorizationService;
 import org.junit.jupiter.api.Test;
 import org.springframework.test.context.ContextConfiguration;
 
 import jakarta.annotation.Resource;
+import java.util.List;
 import java.util.stream.Stream;
 
 @ContextConfiguration(classes = TestConfig.class)
@@ -279,4 +283,95 @@ public class UserAuthorizationServiceImplIT extends AbstractIntegrationTest {
         Assertions.assertThat(result).isFalse();
     }
 
+    /**
+     * <p>The user's authorization is held in memory after the first check so this checks that a rule which
+     * is added afterwards is taken into account.</p>
+     */
+
+    @Test
+    public void testPkgEditIconAfterRuleAdded() {
+        integrationTestSupportService.createStandardTestData();
+
+        {
+            ObjectContext context = serverRuntime.newContext();
+            User user = integrationTestSupportService
+                    .createBasicUser(context, "testuser", "guwfwef67");
+            integrationTestSupportService.agreeToUserUsageConditions(context, user);
+        }
+
+        {
+            ObjectContext context = serverRuntime.newContext();
+            Assertions.assertThat(userAuthorizationService.check(
+                    context,
+                    User.getByNickname(context, "testuser"),
+                    Pkg.getByName(context, "pkg1"),
+                    Permission.PKG_EDITICON)).isFalse();
+        }
+
+        {
+            ObjectContext context = serverRuntime.newContext();
+            PermissionUserPkg permissionUserPkg = context.newObject(PermissionUserPkg.class);
+            permissionUserPkg.setPkg(Pkg.getByName(context, "pkg1"));
+            permissionUserPkg.setUser(User.getByNickname(context, "testuser"));
+            permissionUserPkg.setPermission(org.haiku.haikudepotserver.dataobjects.Permission.getByCode(
+                    context, Permission.PKG_EDITICON.name().toLowerCase()));
+            context.commitChanges();
+        }
+
+        boolean result;
+
+        {
+            ObjectContext context = serverRuntime.newContext();
+
+            // ---------------------------------
+            result = userAuthorizationService.check(
+                    context,
+                    User.getByNickname(context, "testuser"),
+                    Pkg.getByName(context, "pkg1"),
+                    Permission.PKG_EDITICON
+            );
+            // ---------------------------------
+        }
+
+        Assertions.assertThat(result).isTrue();
+    }
+
+    /**
+     * <p>Checks a number of permissions together including one with a target that does not exist.</p>
+     */
+
+    @Test
+    public void testCheckBulk() {
+        integrationTestSupportService.createStandardTestData();
+
+        {
+            ObjectContext context = serverRuntime.newContext();
+            User user = integrationTestSupportService
+                    .createBasicUser(context, "testuser", "guwfwef67");
+            integrationTestSupportService.agreeToUserUsageConditions(context, user);
+        }
+
+        List<Boolean> result;
+
+        {
+            ObjectContext context = serverRuntime.newContext();
+
+            // ---------------------------------
+            result = userAuthorizationService.check(
+                    context,
+                    User.getByNickname(context, "testuser"),
+                    List.of(
+                            new TargetAndPermission(TargetType.PKG, "pkg1", Permission.PKG_CREATEUSERRATING),
+                            new TargetAndPermission(TargetType.PKG, "pkg1", Permission.PKG_EDITICON),
+                            new TargetAndPermission(TargetType.PKG, "nopkg", Permission.PKG_CREATEUSERRATING),
+                            new TargetAndPermission(TargetType.USER, "testuser", Permission.USER_VIEW),
+                            new TargetAndPermission(null, null, Permission.REPOSITORY_LIST)
+                    )
+            );
+            // ---------------------------------
+        }
+
+        Assertions.assertThat(result).containsExactly(true, false, false, true, true);
+    }
+
 }
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2026, Andrew Lindesay
+ * Distributed under the terms of the MIT License.
+ */
+package org.haiku.haikudepotserver.storage;
+
+import com.google.common.io.ByteSource;
+import org.assertj.core.api.Assertions;
+import org.haiku.haikudepotserver.storage.model.DataStorageByteSink;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.Set;
+
+public class FileSystemDataStorageServiceImplTest {
+
+    @TempDir
+    private Path root;
+
+    private final Random random = new Random();
+
+    @Test
+    public void testPutAndGet() throws IOException {
+        FileSystemDataStorageServiceImpl storage = new FileSystemDataStorageServiceImpl(root);
+        byte[] data = new byte[1234];
+        random.nextBytes(data);
+
+        // ---------------------------------
+        storage.put("ABC123DEF").write(data);
+        ByteSource byteSource = storage.get("ABC123DEF").orElseThrow();
+        // ---------------------------------
+
+        Assertions.assertThat(byteSource.sizeIfKnown().toJavaUtil()).contains(1234L);
+        Assertions.assertThat(byteSource.read()).isEqualTo(data);
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        Assertions.assertThat(byteSource.copyTo(outputStream)).isEqualTo(1234L);
+        Assertions.assertThat(outputStream.toByteArray()).isEqualTo(data);
+
+        Assertions.assertThat(storage.size()).isEqualTo(1L);
+        Assertions.assertThat(storage.totalBytes()).isEqualTo(1234L);
+    }
+
+    @Test
+    public void testSlice() throws IOException {
+        FileSystemDataStorageServiceImpl storage = new FileSystemDataStorageServiceImpl(root);
+        byte[] data = new byte[1000];
+        random.nextBytes(data);
+        storage.put("ABC123GHI").write(data);
+
+        // ---------------------------------
+        ByteSource byteSource = storage.get("ABC123GHI").orElseThrow().slice(100, 50);
+        ByteSource endByteSource = storage.get("ABC123GHI").orElseThrow().slice(990, 50);
+        // ---------------------------------
+
+        Assertions.assertThat(byteSource.sizeIfKnown().toJavaUtil()).contains(50L);
+        Assertions.assertThat(byteSource.read()).isEqualTo(Arrays.copyOfRange(data, 100, 150));
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        byteSource.copyTo(outputStream);
+        Assertions.assertThat(outputStream.toByteArray()).isEqualTo(Arrays.copyOfRange(data, 100, 150));
+
+        Assertions.assertThat(endByteSource.sizeIfKnown().toJavaUtil()).contains(10L);
+        Assertions.assertThat(endByteSource.read()).isEqualTo(Arrays.copyOfRange(data, 990, 1000));
+    }
+
+    /**
+     * <p>Data should not be visible until the stream that is writing it is closed.</p>
+     */
+    @Test
+    public void testPut_notVisibleUntilClosed() throws IOException {
+        FileSystemDataStorageServiceImpl storage = new FileSystemDataStorageServiceImpl(root);
+        DataStorageByteSink byteSink = storage.put("ABC123JKL");
+
+        try (OutputStream outputStream = byteSink.openStream()) {
+            outputStream.write(new byte[] { 1, 2, 3 });
+            byteSink.commit();
+            Assertions.assertThat(storage.get("ABC123JKL")).isEmpty();
+            Assertions.assertThat(storage.size()).isEqualTo(0L);
+        }
+
+        Assertions.assertThat(storage.get("ABC123JKL").orElseThrow().read()).isEqualTo(new byte[] { 1, 2, 3 });
+
+        try (var paths = Files.list(root)) {
+            Assertions.assertThat(paths.count()).isEqualTo(1L); // no temporary files left behind
+        }
+    }
+
+    /**
+     * <p>If the stream is closed without the data having been committed, as would happen if the writer failed,
+     * then the data should be discarded.</p>
+     */
+    @Test
+    public void testPut_notCommitted() throws IOException {
+        FileSystemDataStorageServiceImpl storage = new FileSystemDataStorageServiceImpl(root);
+        storage.put("ABC123MNO").write(new byte[] { 9 });
+        DataStorageByteSink byteSink = storage.put("ABC123MNO");
+
+        // ---------------------------------
+        try (OutputStream outputStream = byteSink.openStream()) {
+            outputStream.write(new byte[] { 1, 2, 3 });
+        }
+        // ---------------------------------
+
+        Assertions.assertThat(storage.get("ABC123MNO").orElseThrow().read()).isEqualTo(new byte[] { 9 });
+
+        try (var paths = Files.list(root)) {
+            Assertions.assertThat(paths.count()).isEqualTo(1L); // no temporary files left behind
+        }
+    }
+
+    /**
+     * <p>Temporary files that have been abandoned should be removed when the service starts but those that may
+     * still be being written by another instance should be left alone.</p>
+     */
+    @Test
+    public void testCreate_removesAbandonedTemporaryFiles() throws IOException {
+        Path abandonedPath = Files.write(root.resolve(".tmp-abandoned"), new byte[] { 1 });
+        Files.setLastModifiedTime(abandonedPath, FileTime.from(Instant.now().minus(Duration.ofDays(1))));
+        Path recentPath = Files.write(root.resolve(".tmp-recent"), new byte[] { 2 });
+
+        // ---------------------------------
+        FileSystemDataStorageServiceImpl storage = new FileSystemDataStorageServiceImpl(root);
+        // ---------------------------------
+
+        Assertions.assertThat(abandonedPath).doesNotExist();
+        Assertions.assertThat(recentPath).exists();
+        Assertions.assertThat(storage.size()).isEqualTo(0L);
+    }
+
+    @Test
+    public void testRemoveAndKeys() throws IOException {
+        FileSystemDataStorageServiceImpl storage = new FileSystemDataStorageServiceImpl(root);
+        storage.put("ABC").write(new byte[] { 1 });
+        storage.put("DEF").write(new byte[] { 2 });
+
+        Assertions.assertThat(storage.keys(Duration.ofSeconds(-10))).containsOnly("ABC", "DEF");
+        Assertions.assertThat(storage.keys(Duration.ofHours(1))).isEmpty();
+
+        // ---------------------------------
+        long removed = storage.remove(Set.of("ABC", "XYZ"));
+        // ---------------------------------
+
+        Assertions.assertThat(removed).isEqualTo(1L);
+        Assertions.assertThat(storage.get("ABC")).isEmpty();
+        Assertions.assertThat(storage.get("DEF")).isPresent();
+    }
+
+    @Test
+    public void testBadKey() {
+        FileSystemDataStorageServiceImpl storage = new FileSystemDataStorageServiceImpl(root);
+        org.junit.jupiter.api.Assertions.assertThrows(IllegalArgumentException.class, () -> storage.get("../etc"));
+    }
+
+}
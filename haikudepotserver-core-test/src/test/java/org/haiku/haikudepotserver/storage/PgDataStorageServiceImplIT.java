@@ -7,7 +7,6 @@ package org.haiku.haikudepotserver.storage;
 import com.google.common.hash.HashCode;
 import com.google.common.hash.Hasher;
 import com.google.common.hash.Hashing;
-import com.google.common.io.ByteSink;
 import com.google.common.io.ByteSource;
 import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.annotation.PostConstruct;
@@ -15,6 +14,7 @@ import jakarta.annotation.Resource;
 import org.assertj.core.api.Assertions;
 import org.haiku.haikudepotserver.AbstractIntegrationTest;
 import org.haiku.haikudepotserver.config.TestConfig;
+import org.haiku.haikudepotserver.storage.model.DataStorageByteSink;
 import org.haiku.haikudepotserver.support.PgDataStorageTestHelper;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
@@ -43,7 +43,12 @@ public class PgDataStorageServiceImplIT extends AbstractIntegrationTest {
 
     @PostConstruct
     public void init() {
-        this.storageImpl = new PgDataStorageServiceImpl(dataSource, Mockito.mock(MeterRegistry.class), 32);
+        this.storageImpl = new PgDataStorageServiceImpl(
+                dataSource, Mockito.mock(MeterRegistry.class), 32, getBufferType());
+    }
+
+    protected PgDataStorageServiceImpl.BufferType getBufferType() {
+        return PgDataStorageServiceImpl.BufferType.FILE;
     }
 
     /**
@@ -53,11 +58,12 @@ public class PgDataStorageServiceImplIT extends AbstractIntegrationTest {
     public void testDelete() throws IOException, SQLException {
         //GIVEN
         String code = UUID.randomUUID().toString();
-        ByteSink byteSink = storageImpl.put(code);
+        DataStorageByteSink byteSink = storageImpl.put(code);
         byte[] buffer = new byte[172]; // will be many body parts
 
         try (OutputStream outputStream = byteSink.openStream()) {
             outputStream.write(buffer);
+            byteSink.commit();
         }
 
         // WHEN
@@ -69,7 +75,7 @@ public class PgDataStorageServiceImplIT extends AbstractIntegrationTest {
 
     @Test
     public void testStoreData_inFull() throws IOException, SQLException {
-        ByteSink byteSink = storageImpl.put("ABC123DEF");
+        DataStorageByteSink byteSink = storageImpl.put("ABC123DEF");
         byte[] buffer = new byte[172];
 
         random.nextBytes(buffer);
@@ -79,6 +85,7 @@ public class PgDataStorageServiceImplIT extends AbstractIntegrationTest {
 
         try (OutputStream outputStream = byteSink.openStream()) {
             outputStream.write(buffer);
+            byteSink.commit();
         }
 
         // assert that the data structures in the database were written OK.
@@ -98,9 +105,27 @@ public class PgDataStorageServiceImplIT extends AbstractIntegrationTest {
         Assertions.assertThat(hasher.hash()).isEqualTo(expectedHash);
     }
 
+    /**
+     * <p>If the stream is closed without the data having been committed then the data should be discarded.</p>
+     */
+    @Test
+    public void testStoreData_notCommitted() throws IOException, SQLException {
+        DataStorageByteSink byteSink = storageImpl.put("ABC123JKL");
+        byte[] buffer = new byte[172]; // will be many body parts
+
+        // write the data.
+
+        try (OutputStream outputStream = byteSink.openStream()) {
+            outputStream.write(buffer);
+        }
+
+        Assertions.assertThat(hasData("ABC123JKL")).isFalse();
+        Assertions.assertThat(storageImpl.get("ABC123JKL")).isEmpty();
+    }
+
     @Test
     public void testStoreData_inVariousChunks() throws IOException, SQLException {
-        ByteSink byteSink = storageImpl.put("ABC123GHI");
+        DataStorageByteSink byteSink = storageImpl.put("ABC123GHI");
         byte[] buffer = new byte[128];
 
         random.nextBytes(buffer);
@@ -112,6 +137,7 @@ public class PgDataStorageServiceImplIT extends AbstractIntegrationTest {
             outputStream.write(buffer, 0, 16);
             outputStream.write(buffer, 16, 48);
             outputStream.write(buffer, 64, 64);
+            byteSink.commit();
         }
 
         // assert that the data structures in the database were written OK.
@@ -0,0 +1,19 @@
+/*
+ * Copyright 2026, Andrew Lindesay
+ * Distributed under the terms of the MIT License.
+ */
+package org.haiku.haikudepotserver.storage;
+
+/**
+ * <p>Runs the same tests as {@link PgDataStorageServiceImplIT} but with the parts buffered in memory
+ * rather than through files.</p>
+ */
+
+public class PgDataStorageServiceImplMemoryIT extends PgDataStorageServiceImplIT {
+
+    @Override
+    protected PgDataStorageServiceImpl.BufferType getBufferType() {
+        return PgDataStorageServiceImpl.BufferType.MEMORY;
+    }
+
+}
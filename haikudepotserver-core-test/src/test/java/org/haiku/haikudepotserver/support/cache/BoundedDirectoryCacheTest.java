@@ -0,0 +1,140 @@
+/*
+ * Copyright 2026, Andrew Lindesay
+ * Distributed under the terms of the MIT License.
+ */
+package org.haiku.haikudepotserver.support.cache;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class BoundedDirectoryCacheTest {
+
+    @TempDir
+    private Path directory;
+
+    /**
+     * <p>Writing the same key again replaces the data so the size of the old data should no longer be
+     * counted.</p>
+     */
+
+    @Test
+    public void testWrite_replaced() {
+        BoundedDirectoryCache cache = new BoundedDirectoryCache(directory, ".dat", 1024);
+
+        // ---------------------------------
+        cache.write("a", new byte[100]);
+        cache.write("a", new byte[40]);
+        cache.write("b", new byte[10]);
+        // ---------------------------------
+
+        Assertions.assertThat(cache.getTotalBytes()).isEqualTo(50L);
+        Assertions.assertThat(cache.tryRead("a")).hasSize(40);
+        Assertions.assertThat(new BoundedDirectoryCache(directory, ".dat", 1024).getTotalBytes()).isEqualTo(50L);
+    }
+
+    /**
+     * <p>A new instance of the cache simulates a restart of the application server; the data should be read from
+     * the directory rather than being loaded again.</p>
+     */
+
+    @Test
+    public void testGet_afterRestart() throws IOException {
+        new BoundedDirectoryCache(directory, ".dat", 1024).get("a", () -> new byte[] { 1, 2, 3 });
+
+        // ---------------------------------
+        BoundedDirectoryCache.Lookup lookup = new BoundedDirectoryCache(directory, ".dat", 1024)
+                .get("a", () -> {
+                    throw new IOException("the data should not be loaded again");
+                });
+        // ---------------------------------
+
+        Assertions.assertThat(lookup.source()).isEqualTo(BoundedDirectoryCache.Source.DIRECTORY);
+        Assertions.assertThat(lookup.data()).isEqualTo(new byte[] { 1, 2, 3 });
+    }
+
+    /**
+     * <p>Many threads request the same data at once; it should only be loaded once. The load is held until all
+     * of the threads have started so that they overlap with it. A thread either waits on the load that is in
+     * flight or, if it gets to the cache after the load has completed, reads the data from the directory.</p>
+     */
+
+    @Test
+    public void testGet_coalesced() throws Exception {
+        BoundedDirectoryCache cache = new BoundedDirectoryCache(directory, ".dat", 1024);
+        int threads = 8;
+        CountDownLatch startedLatch = new CountDownLatch(threads);
+        AtomicInteger loads = new AtomicInteger();
+        List<Future<BoundedDirectoryCache.Lookup>> futures = new ArrayList<>();
+
+        // ---------------------------------
+        try (ExecutorService executorService = Executors.newFixedThreadPool(threads)) {
+            for (int i = 0; i < threads; i++) {
+                futures.add(executorService.submit(() -> {
+                    startedLatch.countDown();
+                    return cache.get("a", () -> {
+                        loads.incrementAndGet();
+                        awaitQuietly(startedLatch);
+                        return new byte[] { 1, 2, 3 };
+                    });
+                }));
+            }
+        }
+        // ---------------------------------
+
+        List<BoundedDirectoryCache.Lookup> lookups = new ArrayList<>();
+
+        for (Future<BoundedDirectoryCache.Lookup> future : futures) {
+            lookups.add(future.get(10, TimeUnit.SECONDS));
+        }
+
+        Assertions.assertThat(loads.get()).isEqualTo(1);
+        Assertions.assertThat(lookups).allSatisfy(l -> Assertions.assertThat(l.data()).isEqualTo(new byte[] { 1, 2, 3 }));
+        Assertions.assertThat(lookups).filteredOn(l -> BoundedDirectoryCache.Source.LOADED == l.source()).hasSize(1);
+    }
+
+    /**
+     * <p>If the load fails then nothing is stored and the next request loads the data again.</p>
+     */
+
+    @Test
+    public void testGet_failed() throws IOException {
+        BoundedDirectoryCache cache = new BoundedDirectoryCache(directory, ".dat", 1024);
+
+        // ---------------------------------
+        IOException ioe = org.junit.jupiter.api.Assertions.assertThrows(
+                IOException.class,
+                () -> cache.get("a", () -> {
+                    throw new IOException("failed");
+                }));
+        BoundedDirectoryCache.Lookup lookup = cache.get("a", () -> new byte[] { 1, 2, 3 });
+        // ---------------------------------
+
+        Assertions.assertThat(ioe.getMessage()).isEqualTo("failed");
+        Assertions.assertThat(lookup.source()).isEqualTo(BoundedDirectoryCache.Source.LOADED);
+        Assertions.assertThat(cache.getTotalBytes()).isEqualTo(3L);
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) throws IOException {
+        try {
+            if (!latch.await(10, TimeUnit.SECONDS)) {
+                throw new IOException("timed out waiting for the other threads");
+            }
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted waiting for the other threads", ie);
+        }
+    }
+
+}
@@ -0,0 +1,226 @@
+/*
+ * Copyright 2026, Andrew Lindesay
+ * Distributed under the terms of the MIT License.
+ */
+
+package org.haiku.haikudepotserver.userrating;
+
+import jakarta.annotation.Resource;
+import org.apache.cayenne.ObjectContext;
+import org.apache.cayenne.query.ObjectSelect;
+import org.fest.assertions.Assertions;
+import org.haiku.haikudepotserver.AbstractIntegrationTest;
+import org.haiku.haikudepotserver.config.TestConfig;
+import org.haiku.haikudepotserver.dataobjects.Architecture;
+import org.haiku.haikudepotserver.dataobjects.NaturalLanguage;
+import org.haiku.haikudepotserver.dataobjects.Pkg;
+import org.haiku.haikudepotserver.dataobjects.PkgUserRatingAggregate;
+import org.haiku.haikudepotserver.dataobjects.PkgVersion;
+import org.haiku.haikudepotserver.dataobjects.Repository;
+import org.haiku.haikudepotserver.dataobjects.RepositorySource;
+import org.haiku.haikudepotserver.dataobjects.User;
+import org.haiku.haikudepotserver.dataobjects.UserRating;
+import org.haiku.haikudepotserver.naturallanguage.model.NaturalLanguageCoordinates;
+import org.haiku.haikudepotserver.userrating.model.DerivedUserRating;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.test.context.ContextConfiguration;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * <p>Generates a random set of package versions and user ratings and checks that the set-based derivation
+ * produces exactly the same user ratings as deriving each package and repository in turn.</p>
+ */
+
+@ContextConfiguration(classes = TestConfig.class)
+public class UserRatingDerivationHelperIT extends AbstractIntegrationTest {
+
+    private final static String[] PRE_RELEASES = new String[] { null, null, null, "alpha1", "beta2" };
+
+    @Resource
+    private UserRatingServiceImpl userRatingServiceImpl;
+
+    @Value("${hds.user-rating.aggregation.pkg.versions-back:2}")
+    private int versionsBack;
+
+    @Value("${hds.user-rating.aggregation.pkg.min-ratings:3}")
+    private int minRatings;
+
+    @Test
+    public void testDerive_sameAsPerPkgDerivation() throws Exception {
+        integrationTestSupportService.createStandardTestData();
+        createRandomUserRatings(new Random(20260101L));
+
+        // ---------------------------------
+        Map<UserRatingDerivationHelper.PkgRepository, Optional<DerivedUserRating>> derivedUserRatings;
+
+        try (Connection connection = serverRuntime.getDataDomain()
+                .getDataNode("HaikuDepotServer").getDataSource().getConnection()) {
+            derivedUserRatings = UserRatingDerivationHelper.derive(connection, null, versionsBack, minRatings);
+        }
+        // ---------------------------------
+
+        ObjectContext context = serverRuntime.newContext();
+        int presentCount = 0;
+
+        for (Pkg pkg : ObjectSelect.query(Pkg.class).where(Pkg.ACTIVE.isTrue()).select(context)) {
+            for (Repository repository : Repository.getAll(context)) {
+                Optional<DerivedUserRating> expected = userRatingServiceImpl.tryCreateUserRatingDerivation(
+                        context, pkg, repository);
+                Optional<DerivedUserRating> actual = derivedUserRatings.getOrDefault(
+                        new UserRatingDerivationHelper.PkgRepository(
+                                (Long) pkg.getObjectId().getIdSnapshot().get(Pkg.ID_PK_COLUMN),
+                                (Long) repository.getObjectId().getIdSnapshot().get(Repository.ID_PK_COLUMN)),
+                        Optional.empty());
+
+                Assertions.assertThat(actual).as(pkg.getName() + " in " + repository.getCode()).isEqualTo(expected);
+
+                if (expected.isPresent()) {
+                    presentCount++;
+                }
+            }
+        }
+
+        // make sure that the generated data was actually exercising the derivation.
+        Assertions.assertThat(presentCount).isGreaterThan(3);
+    }
+
+    /**
+     * <p>The stored aggregates should match the per package derivation. The standard test data has an aggregate
+     * for "pkg1" which has no user ratings behind it; this should be removed.</p>
+     */
+
+    @Test
+    public void testUpdateUserRatingDerivationsForAllPkgs() {
+        integrationTestSupportService.createStandardTestData();
+        createRandomUserRatings(new Random(20261017L));
+
+        // ---------------------------------
+        userRatingServiceImpl.updateUserRatingDerivationsForAllPkgs();
+        // ---------------------------------
+
+        ObjectContext context = serverRuntime.newContext();
+        Assertions.assertThat(Pkg.getByName(context, "pkg1")
+                .getPkgUserRatingAggregate(Repository.tryGetByCode(context, "testrepo").get())
+                .isPresent()).isFalse();
+
+        for (Pkg pkg : ObjectSelect.query(Pkg.class).where(Pkg.ACTIVE.isTrue()).select(context)) {
+            for (Repository repository : Repository.getAll(context)) {
+                Optional<DerivedUserRating> expected = userRatingServiceImpl.tryCreateUserRatingDerivation(
+                        context, pkg, repository);
+                Optional<PkgUserRatingAggregate> actual = pkg.getPkgUserRatingAggregate(repository);
+                String description = pkg.getName() + " in " + repository.getCode();
+
+                Assertions.assertThat(actual.isPresent()).as(description).isEqualTo(expected.isPresent());
+
+                if (expected.isPresent()) {
+                    Assertions.assertThat(actual.get().getDerivedRating()).as(description)
+                            .isEqualTo(expected.get().rating());
+                    Assertions.assertThat((long) actual.get().getDerivedRatingSampleSize()).as(description)
+                            .isEqualTo(expected.get().sampleSize());
+                }
+            }
+        }
+    }
+
+    /**
+     * <p>Creates a second repository and then a number of packages with versions across both repositories and
+     * a number of users who rate those versions. Some of the versions, users and ratings are inactive and some
+     * of the ratings have no value. Each user's ratings are committed separately so that they have different
+     * create timestamps.</p>
+     */
+
+    private void createRandomUserRatings(Random random) {
+        ObjectContext context = serverRuntime.newContext();
+        Architecture x86_64 = Architecture.getByCode(context, "x86_64");
+        Architecture x86_gcc2 = Architecture.getByCode(context, "x86_gcc2");
+        Architecture any = Architecture.getByCode(context, "any");
+
+        Repository repository2 = context.newObject(Repository.class);
+        repository2.setCode("testrepo2");
+        repository2.setName("Test Repository 2");
+        repository2.setInformationUrl("http://example2.haiku.org/");
+
+        RepositorySource repositorySource2 = context.newObject(RepositorySource.class);
+        repositorySource2.setCode("testreposrc2_xyz");
+        repositorySource2.setRepository(repository2);
+        repositorySource2.setIdentifier("http://www.example.com/test2/identifier/url");
+        repositorySource2.setArchitecture(x86_64);
+
+        // each architecture is only stored in one repository source so that a version and architecture only
+        // appears once in each repository.
+
+        Map<Architecture, RepositorySource> repository1Sources = Map.of(
+                x86_64, RepositorySource.getByCode(context, "testreposrc_xyz"),
+                any, RepositorySource.getByCode(context, "testreposrc_xyz"),
+                x86_gcc2, RepositorySource.getByCode(context, "testreposrc_xyz_x86_gcc2"));
+        List<Architecture> architectures = List.of(x86_64, x86_gcc2, any);
+        List<PkgVersion> pkgVersions = new ArrayList<>();
+
+        for (int p = 0; p < 6; p++) {
+            Pkg pkg = integrationTestSupportService.createPkg(context, "urderivepkg" + p);
+            Set<String> versionKeys = new HashSet<>();
+
+            for (int v = 0; v < 10; v++) {
+                boolean inRepository2 = random.nextInt(4) == 0;
+                Architecture architecture = inRepository2 ? x86_64 : architectures.get(random.nextInt(architectures.size()));
+                RepositorySource repositorySource = inRepository2 ? repositorySource2 : repository1Sources.get(architecture);
+                String major = Integer.toString(random.nextInt(3));
+                String minor = Integer.toString(random.nextInt(3));
+                String micro = random.nextBoolean() ? null : Integer.toString(random.nextInt(2));
+                String preRelease = PRE_RELEASES[random.nextInt(PRE_RELEASES.length)];
+                Integer revision = random.nextBoolean() ? null : random.nextInt(1, 4);
+
+                if (!versionKeys.add(String.join("/",
+                        repositorySource.getCode(), architecture.getCode(),
+                        major, String.valueOf(minor), String.valueOf(micro), String.valueOf(preRelease),
+                        String.valueOf(revision)))) {
+                    continue;
+                }
+
+                PkgVersion pkgVersion = context.newObject(PkgVersion.class);
+                pkgVersion.setActive(random.nextInt(8) != 0);
+                pkgVersion.setIsLatest(false);
+                pkgVersion.setPkg(pkg);
+                pkgVersion.setRepositorySource(repositorySource);
+                pkgVersion.setArchitecture(architecture);
+                pkgVersion.setMajor(major);
+                pkgVersion.setMinor(minor);
+                pkgVersion.setMicro(micro);
+                pkgVersion.setPreRelease(preRelease);
+                pkgVersion.setRevision(revision);
+                pkgVersions.add(pkgVersion);
+            }
+        }
+
+        context.commitChanges();
+
+        for (int u = 0; u < 15; u++) {
+            User user = integrationTestSupportService.createBasicUser(context, "urderiveuser" + u, "password");
+            user.setActive(random.nextInt(6) != 0);
+
+            for (PkgVersion pkgVersion : pkgVersions) {
+                if (random.nextInt(3) == 0) {
+                    UserRating userRating = context.newObject(UserRating.class);
+                    userRating.setUser(user);
+                    userRating.setPkgVersion(pkgVersion);
+                    userRating.setNaturalLanguage(NaturalLanguage.getByCode(
+                            context, NaturalLanguageCoordinates.LANGUAGE_CODE_ENGLISH));
+                    userRating.setActive(random.nextInt(8) != 0);
+                    userRating.setRating(random.nextInt(7) == 0 ? null : (short) random.nextInt(6));
+                }
+            }
+
+            context.commitChanges();
+        }
+    }
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2022, Andrew Lindesay
+ * Copyright 2022-2026, Andrew Lindesay
  * Distributed under the terms of the MIT License.
  */
 package org.haiku.haikudepotserver.api2;
@@ -27,17 +27,20 @@ import org.haiku.haikudepotserver.dataobjects.Pkg;
 import org.haiku.haikudepotserver.dataobjects.User;
 import org.haiku.haikudepotserver.security.model.AuthorizationPkgRuleSearchSpecification;
 import org.haiku.haikudepotserver.security.model.AuthorizationPkgRuleService;
+import org.haiku.haikudepotserver.security.PermissionEvaluator;
 import org.haiku.haikudepotserver.security.model.Permission;
+import org.haiku.haikudepotserver.security.model.TargetAndPermission;
 import org.haiku.haikudepotserver.security.model.TargetType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.security.access.AccessDeniedException;
-import org.springframework.security.access.PermissionEvaluator;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 @Component("authorizationApiServiceV2")
 public class AuthorizationApiService extends AbstractApiService {
@@ -58,31 +61,37 @@ public class AuthorizationApiService extends AbstractApiService {
         this.authorizationPkgRulesService = Preconditions.checkNotNull(authorizationPkgRulesService);
     }
 
+    /**
+     * <p>The web application will check many permissions at once so the checks are made together in order
+     * that the targets are looked up in bulk.</p>
+     */
+
     public CheckAuthorizationResult checkAuthorization(CheckAuthorizationRequestEnvelope request) {
         Preconditions.checkNotNull(request);
+        List<AuthorizationTargetAndPermissionRequest> requestTargetAndPermissions
+                = List.copyOf(CollectionUtils.emptyIfNull(request.getTargetAndPermissions()));
+        List<Boolean> authorizeds = permissionEvaluator.hasPermissions(
+                SecurityContextHolder.getContext().getAuthentication(),
+                requestTargetAndPermissions.stream().map(this::toTargetAndPermission).toList());
+
         return new CheckAuthorizationResult()
                 .targetAndPermissions(
-                        CollectionUtils.emptyIfNull(request.getTargetAndPermissions())
-                                .stream()
-                                .map(tandp -> new AuthorizationTargetAndPermissionResult()
-                                        .permissionCode(tandp.getPermissionCode())
-                                        .targetIdentifier(tandp.getTargetIdentifier())
-                                        .targetType(tandp.getTargetType())
-                                        .authorized(hasPermission(tandp)))
+                        IntStream.range(0, requestTargetAndPermissions.size())
+                                .mapToObj(i -> new AuthorizationTargetAndPermissionResult()
+                                        .permissionCode(requestTargetAndPermissions.get(i).getPermissionCode())
+                                        .targetIdentifier(requestTargetAndPermissions.get(i).getTargetIdentifier())
+                                        .targetType(requestTargetAndPermissions.get(i).getTargetType())
+                                        .authorized(authorizeds.get(i)))
                                 .collect(Collectors.toList()));
     }
 
-    private boolean hasPermission(AuthorizationTargetAndPermissionRequest tandp) {
-        Object permission = Permission.valueOf(tandp.getPermissionCode());
-        String targetType = Optional.ofNullable(tandp.getTargetType())
-                .map(tt -> TargetType.valueOf(tt.name()))
-                .map(Object::toString)
-                .orElse(null);
-        return permissionEvaluator.hasPermission(
-                SecurityContextHolder.getContext().getAuthentication(),
+    private TargetAndPermission toTargetAndPermission(AuthorizationTargetAndPermissionRequest tandp) {
+        return new TargetAndPermission(
+                Optional.ofNullable(tandp.getTargetType())
+                        .map(tt -> TargetType.valueOf(tt.name()))
+                        .orElse(null),
                 tandp.getTargetIdentifier(),
-                targetType,
-                permission);
+                Permission.valueOf(tandp.getPermissionCode()));
     }
 
     public void createAuthorizationPkgRule(CreateAuthorizationPkgRuleRequestEnvelope request) {
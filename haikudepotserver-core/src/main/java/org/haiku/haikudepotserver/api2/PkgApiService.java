@@ -1,5 +1,5 @@
 /*
- * Copyright 2022-2025, Andrew Lindesay
+ * Copyright 2022-2026, Andrew Lindesay
  * Distributed under the terms of the MIT License.
  */
 package org.haiku.haikudepotserver.api2;
@@ -8,6 +8,7 @@ import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
 import com.google.common.collect.ComparisonChain;
 import org.apache.cayenne.ObjectContext;
+import org.apache.cayenne.ObjectId;
 import org.apache.cayenne.configuration.server.ServerRuntime;
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.collections4.IterableUtils;
@@ -22,7 +23,7 @@ import org.haiku.haikudepotserver.dataobjects.Prominence;
 import org.haiku.haikudepotserver.dataobjects.auto._PkgUserRatingAggregate;
 import org.haiku.haikudepotserver.dataobjects.auto._PkgVersion;
 import org.haiku.haikudepotserver.naturallanguage.model.NaturalLanguageCoordinates;
-import org.haiku.haikudepotserver.pkg.FixedPkgLocalizationLookupServiceImpl;
+import org.haiku.haikudepotserver.pkg.PkgSearchHydration;
 import org.haiku.haikudepotserver.pkg.model.*;
 import org.haiku.haikudepotserver.security.model.Permission;
 import org.haiku.haikudepotserver.support.StringHelper;
@@ -60,6 +61,7 @@ public class PkgApiService extends AbstractApiService {
     private final PkgScreenshotService pkgScreenshotService;
     private final PkgService pkgService;
     private final PkgLocalizationService pkgLocalizationService;
+    private final PkgVersionViewCounterService pkgVersionViewCounterService;
 
     public PkgApiService(
             ServerRuntime serverRuntime,
@@ -67,13 +69,15 @@ public class PkgApiService extends AbstractApiService {
             PkgIconService pkgIconService,
             PkgScreenshotService pkgScreenshotService,
             PkgService pkgService,
-            PkgLocalizationService pkgLocalizationService) {
+            PkgLocalizationService pkgLocalizationService,
+            PkgVersionViewCounterService pkgVersionViewCounterService) {
         this.serverRuntime = Preconditions.checkNotNull(serverRuntime);
         this.permissionEvaluator = Preconditions.checkNotNull(permissionEvaluator);
         this.pkgIconService = Preconditions.checkNotNull(pkgIconService);
         this.pkgScreenshotService = Preconditions.checkNotNull(pkgScreenshotService);
         this.pkgService = Preconditions.checkNotNull(pkgService);
         this.pkgLocalizationService = Preconditions.checkNotNull(pkgLocalizationService);
+        this.pkgVersionViewCounterService = Preconditions.checkNotNull(pkgVersionViewCounterService);
     }
 
     public void configurePkgIcon(ConfigurePkgIconRequestEnvelope request) {
@@ -200,6 +204,8 @@ public class PkgApiService extends AbstractApiService {
                 .orElse(null);
         NaturalLanguage naturalLanguage = getNaturalLanguage(context, request.getNaturalLanguageCode());
         List<PkgVersion> pkgVersions = derivePkgVersions(context, request, pkg, architecture, repositorySource);
+        Map<ObjectId, ResolvedPkgVersionLocalization> resolvedPkgVersionLocalizations =
+                pkgLocalizationService.resolveAll(context, pkgVersions, naturalLanguage);
 
         GetPkgResult result = new GetPkgResult()
                 .name(pkg.getName())
@@ -214,7 +220,8 @@ public class PkgApiService extends AbstractApiService {
                         .toList())
                 .versions(pkgVersions
                         .stream()
-                        .map(pv -> mapToResultPkgVersion(context, pv, naturalLanguage))
+                        .map(pv -> mapToResultPkgVersion(
+                                context, pv, resolvedPkgVersionLocalizations.get(pv.getObjectId())))
                         .toList());
 
         if (null != repositorySource) {
@@ -269,12 +276,12 @@ public class PkgApiService extends AbstractApiService {
         }
     }
 
-    private GetPkgPkgVersion mapToResultPkgVersion(ObjectContext context, PkgVersion pkgVersion, NaturalLanguage naturalLanguage) {
+    private GetPkgPkgVersion mapToResultPkgVersion(
+            ObjectContext context,
+            PkgVersion pkgVersion,
+            ResolvedPkgVersionLocalization resolvedPkgVersionLocalization) {
         Preconditions.checkNotNull(pkgVersion);
-        Preconditions.checkNotNull(naturalLanguage);
-
-        ResolvedPkgVersionLocalization resolvedPkgVersionLocalization =
-                pkgLocalizationService.resolvePkgVersionLocalization(context, pkgVersion, null, naturalLanguage);
+        Preconditions.checkNotNull(resolvedPkgVersionLocalization);
 
         return new GetPkgPkgVersion()
                 .active(pkgVersion.getActive())
@@ -668,30 +675,33 @@ public class PkgApiService extends AbstractApiService {
         specification.setLimit(request.getLimit());
         specification.setOffset(request.getOffset());
 
-        int total = (int) pkgService.total(context, specification);
+        if (null != request.getCursor()) {
+            specification.setCursor(PkgSearchCursor.tryFromToken(request.getCursor())
+                    .orElseThrow(() -> new IllegalStateException("the cursor is malformed")));
+        }
+
+        PkgSearchResult searchResult = pkgService.searchWithTotal(context, specification);
         List<SearchPkgsPkg> items = List.of();
 
-        if (total > 0) {
-            List<PkgVersion> searchedPkgVersions = pkgService.search(context, specification);
+        if (!searchResult.pkgVersions().isEmpty()) {
+            List<PkgVersion> searchedPkgVersions = searchResult.pkgVersions();
 
-            // if there is a pattern then it is not possible to use the fixed lookup (which
-            // is faster).
+            // the related data for the whole page is loaded up-front so that the number
+            // of queries does not grow with the size of the page.
 
-            final PkgLocalizationLookupService localPkgLocalizationLookupService =
-                    null != specification.getExpressionAsPattern()
-                            ? pkgLocalizationService
-                            : new FixedPkgLocalizationLookupServiceImpl(context, searchedPkgVersions, naturalLanguage);
+            final PkgSearchHydration hydration = new PkgSearchHydration(
+                    context, searchedPkgVersions, naturalLanguage);
 
             items = searchedPkgVersions.stream()
                     .map(pv -> mapFromPkgVersionToSearchPkgPkg(
-                            context, pv, naturalLanguage, specification,
-                            localPkgLocalizationLookupService))
+                            context, pv, naturalLanguage, specification, hydration))
                     .toList();
         }
 
         return new SearchPkgsResult()
-                .total(total)
-                .items(items);
+                .total((int) searchResult.total())
+                .items(items)
+                .nextCursor(searchResult.tryGetNextCursor().map(PkgSearchCursor::toToken).orElse(null));
     }
 
     private SearchPkgsPkg mapFromPkgVersionToSearchPkgPkg(
@@ -699,15 +709,12 @@ public class PkgApiService extends AbstractApiService {
             PkgVersion pkgVersion,
             NaturalLanguage naturalLanguage,
             PkgSearchSpecification specification,
-            PkgLocalizationLookupService localPkgLocalizationLookupService) {
+            PkgSearchHydration hydration) {
         Optional<PkgUserRatingAggregate> pkgUserRatingAggregateOptional =
-                PkgUserRatingAggregate.getByPkgAndRepository(
-                        context,
-                        pkgVersion.getPkg(),
-                        pkgVersion.getRepositorySource().getRepository());
+                hydration.tryGetPkgUserRatingAggregate(pkgVersion);
 
         ResolvedPkgVersionLocalization resolvedPkgVersionLocalization =
-                localPkgLocalizationLookupService.resolvePkgVersionLocalization(
+                hydration.getPkgLocalizationLookupService().resolvePkgVersionLocalization(
                         context, pkgVersion, specification.getExpressionAsPattern(), naturalLanguage);
 
         return new SearchPkgsPkg()
@@ -719,7 +726,7 @@ public class PkgApiService extends AbstractApiService {
                         .map(_PkgUserRatingAggregate::getDerivedRating)
                         .map(BigDecimal::new)
                         .orElse(null))
-                .hasAnyPkgIcons(CollectionUtils.isNotEmpty(PkgIconImage.findForPkg(context, pkgVersion.getPkg())))
+                .hasAnyPkgIcons(hydration.hasAnyPkgIcons(pkgVersion))
                 .versions(List.of(
                     new SearchPkgsPkgVersion()
                             .major(pkgVersion.getMajor())
@@ -948,11 +955,12 @@ public class PkgApiService extends AbstractApiService {
     }
 
     /**
-     * <p>This method will bump the view counter for the package version.</p>
+     * <p>This method will bump the view counter for the package version. The view is written to the database
+     * later together with other views.</p>
      */
 
     private void incrementCounter(PkgVersion pkgVersion) {
-        pkgService.incrementViewCounter(serverRuntime, pkgVersion.getObjectId());
+        pkgVersionViewCounterService.recordView(pkgVersion.getObjectId());
     }
 
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2018, Andrew Lindesay
+ * Copyright 2018-2026, Andrew Lindesay
  * Distributed under the terms of the MIT License.
  */
 
@@ -11,6 +11,7 @@ import org.haiku.haikudepotserver.captcha.model.Captcha;
 import org.haiku.haikudepotserver.captcha.model.CaptchaAlgorithm;
 import org.haiku.haikudepotserver.captcha.model.CaptchaRepository;
 import org.haiku.haikudepotserver.captcha.model.CaptchaService;
+import org.springframework.scheduling.annotation.Scheduled;
 
 public class CaptchaServiceImpl implements CaptchaService {
 
@@ -24,12 +25,20 @@ public class CaptchaServiceImpl implements CaptchaService {
         this.captchaRepository = Preconditions.checkNotNull(captchaRepository);
     }
 
-    @Override
-    public Captcha generate() {
+    /**
+     * <p>Expired captchas are purged in the background rather than on each generation or verification so that
+     * the use of a captcha does not also involve a sweep over all of the stored captchas.</p>
+     */
 
-        // maybe better done less frequently?
+    @Scheduled(
+            initialDelayString = "${hds.captcha.purge-delay-millis:60000}",
+            fixedDelayString = "${hds.captcha.purge-delay-millis:60000}")
+    public void scheduledPurgeExpired() {
         captchaRepository.purgeExpired();
+    }
 
+    @Override
+    public Captcha generate() {
         Captcha captcha = captchaAlgorithm.generate();
         captchaRepository.store(captcha.getToken(), captcha.getResponse());
         return captcha;
@@ -39,13 +48,11 @@ public class CaptchaServiceImpl implements CaptchaService {
     public boolean verify(String token, String response) {
         Preconditions.checkNotNull(token);
 
-        // maybe better done less frequently?
-        captchaRepository.purgeExpired();
-
         if(Strings.isNullOrEmpty(response)) {
             return false;
         }
 
+        // obtaining the response also removes the captcha so that it is not able to be used again.
         String databaseResponse = captchaRepository.get(token);
 
         if(null!=databaseResponse) {
@@ -55,7 +62,6 @@ public class CaptchaServiceImpl implements CaptchaService {
         response = response.trim();
 
         if(null!=databaseResponse) {
-            captchaRepository.delete(token);
             return response.equalsIgnoreCase(databaseResponse);
         }
 
@@ -1,5 +1,5 @@
 /*
- * Copyright 2018-2025, Andrew Lindesay
+ * Copyright 2018-2026, Andrew Lindesay
  * Distributed under the terms of the MIT License.
  */
 
@@ -78,6 +78,12 @@ public class DatabaseCaptchaRepository implements CaptchaRepository {
         return false;
     }
 
+    /**
+     * <p>The captcha is deleted in the same context that it was read from so that obtaining the response involves
+     * only a single query and a single commit.  Expired captchas are purged periodically rather than on each use so
+     * the expiry is also checked here.</p>
+     */
+
     @Override
     public String get(String token) {
         Preconditions.checkState(!Strings.isNullOrEmpty(token));
@@ -88,9 +94,14 @@ public class DatabaseCaptchaRepository implements CaptchaRepository {
         Optional<Response> responseOptional = Response.getByToken(objectContext, token);
 
         if(responseOptional.isPresent()) {
-            String result = responseOptional.get().getResponse();
-            delete(token);
-            return result;
+            Response response = responseOptional.get();
+            String result = response.getResponse();
+            boolean expired = response.getCreateTimestamp().getTime()
+                    < System.currentTimeMillis() - TimeUnit.SECONDS.toMillis(expirySeconds);
+            objectContext.deleteObjects(response);
+            objectContext.commitChanges();
+            LOGGER.info("did delete captcha response with token; {}", token);
+            return expired ? null : result;
         }
 
         return null;
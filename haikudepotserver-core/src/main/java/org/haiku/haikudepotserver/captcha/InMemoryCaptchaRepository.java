@@ -0,0 +1,99 @@
+/*
+ * Copyright 2026, Andrew Lindesay
+ * Distributed under the terms of the MIT License.
+ */
+
+package org.haiku.haikudepotserver.captcha;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Strings;
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.haiku.haikudepotserver.captcha.model.CaptchaRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Clock;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>This object stores the captchas in memory.  It avoids any database access, but a captcha is only able to
+ * be verified on the same instance that generated it so it is only suitable where there is a single instance or
+ * where requests from a client are routed consistently to the same instance.  Obtaining the response also removes
+ * the captcha atomically so that a captcha is only able to be used once even under concurrent requests.</p>
+ *
+ * <p>The number of captchas held is bounded so that a client requesting a great many captchas is not able to
+ * exhaust the memory of the instance; once the bound is reached, the oldest captchas are discarded.</p>
+ */
+
+public class InMemoryCaptchaRepository implements CaptchaRepository {
+
+    protected final static Logger LOGGER = LoggerFactory.getLogger(InMemoryCaptchaRepository.class);
+
+    private final Clock clock;
+
+    private final long expiryMillis;
+
+    private final Cache<String, StoredResponse> storedResponses;
+
+    public InMemoryCaptchaRepository(Long expirySeconds, Long maxEntries) {
+        this(Clock.systemUTC(), expirySeconds, maxEntries);
+    }
+
+    InMemoryCaptchaRepository(Clock clock, Long expirySeconds, Long maxEntries) {
+        Preconditions.checkArgument(null != maxEntries && maxEntries > 0, "the maximum entries must be greater than zero");
+        this.clock = Preconditions.checkNotNull(clock);
+        this.expiryMillis = TimeUnit.SECONDS.toMillis(Preconditions.checkNotNull(expirySeconds));
+        this.storedResponses = CacheBuilder.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(expiryMillis, TimeUnit.MILLISECONDS)
+                .ticker(new Ticker() {
+                    @Override
+                    public long read() {
+                        return TimeUnit.MILLISECONDS.toNanos(clock.millis());
+                    }
+                })
+                .build();
+    }
+
+    private boolean isExpired(StoredResponse storedResponse, long nowMillis) {
+        return storedResponse.createMillis() < nowMillis - expiryMillis;
+    }
+
+    @Override
+    public void purgeExpired() {
+        long sizeBefore = storedResponses.size();
+        storedResponses.cleanUp();
+        LOGGER.debug("did purge expired captcha responses; {} -> {}", sizeBefore, storedResponses.size());
+    }
+
+    @Override
+    public boolean delete(String token) {
+        Preconditions.checkState(!Strings.isNullOrEmpty(token));
+        return null != storedResponses.asMap().remove(token);
+    }
+
+    @Override
+    public String get(String token) {
+        Preconditions.checkState(!Strings.isNullOrEmpty(token));
+        StoredResponse storedResponse = storedResponses.asMap().remove(token);
+
+        if (null == storedResponse || isExpired(storedResponse, clock.millis())) {
+            return null;
+        }
+
+        return storedResponse.response();
+    }
+
+    @Override
+    public void store(String token, String response) {
+        Preconditions.checkState(!Strings.isNullOrEmpty(token));
+        Preconditions.checkState(!Strings.isNullOrEmpty(response));
+        storedResponses.put(token, new StoredResponse(response, clock.millis()));
+    }
+
+    private record StoredResponse(String response, long createMillis) {
+    }
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2013-2016, Andrew Lindesay
+ * Copyright 2013-2026, Andrew Lindesay
  * Distributed under the terms of the MIT License.
  */
 
@@ -25,7 +25,8 @@ public interface CaptchaRepository {
 
     /**
      * <p>This method will obtain the response for the captcha identified by the UUID.  This method will return
-     * a null value if the token was not able to be looked up against the repository of captchas.
+     * a null value if the token was not able to be looked up against the repository of captchas or if the
+     * captcha has expired.  The captcha is removed so that it is not able to be used again.</p>
      */
 
     String get(String token);
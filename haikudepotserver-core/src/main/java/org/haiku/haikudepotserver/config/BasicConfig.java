@@ -1,5 +1,5 @@
 /*
- * Copyright 2018-2025, Andrew Lindesay
+ * Copyright 2018-2026, Andrew Lindesay
  * Distributed under the terms of the MIT License.
  */
 
@@ -7,9 +7,12 @@ package org.haiku.haikudepotserver.config;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import freemarker.template.Configuration;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.apache.cayenne.configuration.server.ServerRuntime;
+import org.apache.commons.lang3.StringUtils;
 import org.haiku.haikudepotserver.captcha.CaptchaServiceImpl;
 import org.haiku.haikudepotserver.captcha.DatabaseCaptchaRepository;
+import org.haiku.haikudepotserver.captcha.InMemoryCaptchaRepository;
 import org.haiku.haikudepotserver.captcha.SimpleMathProblemCaptchaAlgorithm;
 import org.haiku.haikudepotserver.captcha.model.CaptchaRepository;
 import org.haiku.haikudepotserver.captcha.model.CaptchaService;
@@ -17,8 +20,11 @@ import org.haiku.haikudepotserver.graphics.bitmap.PngOptimizationService;
 import org.haiku.haikudepotserver.graphics.bitmap.PngOptimizationServiceFactory;
 import org.haiku.haikudepotserver.graphics.bitmap.PngThumbnailService;
 import org.haiku.haikudepotserver.graphics.bitmap.PngThumbnailServiceFactory;
+import org.haiku.haikudepotserver.graphics.hvif.CachingHvifRenderingServiceImpl;
 import org.haiku.haikudepotserver.graphics.hvif.HvifRenderingService;
 import org.haiku.haikudepotserver.graphics.hvif.HvifRenderingServiceFactory;
+import org.haiku.haikudepotserver.pkg.PkgScreenshotRenditionRepository;
+import org.haiku.haikudepotserver.pkg.PkgScreenshotRenditionRepositoryImpl;
 import org.haiku.haikudepotserver.security.PasswordEncoder;
 import org.haiku.haikudepotserver.support.RuntimeInformationService;
 import org.haiku.haikudepotserver.support.cayenne.QueryCacheRemoveEventConsumer;
@@ -45,6 +51,7 @@ import org.springframework.stereotype.Controller;
 
 import javax.sql.DataSource;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.function.Consumer;
 
@@ -85,8 +92,36 @@ public class BasicConfig {
 
     @Bean
     public HvifRenderingService hvifRenderingService(
-            @Value("${hds.graphics-server.base-uri:}") String graphicsServerBaseUri) throws Exception {
-        return new HvifRenderingServiceFactory(graphicsServerBaseUri).getObject();
+            @Value("${hds.graphics-server.base-uri:}") String graphicsServerBaseUri,
+            @Value("${hds.graphics-server.hvif-cache.directory:}") String hvifCacheDirectory,
+            @Value("${hds.graphics-server.hvif-cache.max-megabytes:128}") Long hvifCacheMaxMegabytes,
+            MeterRegistry meterRegistry) throws Exception {
+        HvifRenderingService hvifRenderingService = new HvifRenderingServiceFactory(graphicsServerBaseUri).getObject();
+
+        if (StringUtils.isBlank(hvifCacheDirectory)) {
+            return hvifRenderingService;
+        }
+
+        return new CachingHvifRenderingServiceImpl(
+                hvifRenderingService,
+                Path.of(hvifCacheDirectory),
+                hvifCacheMaxMegabytes * 1024 * 1024,
+                meterRegistry);
+    }
+
+    @Bean
+    public PkgScreenshotRenditionRepository pkgScreenshotRenditionRepository(
+            PngThumbnailService pngThumbnailService,
+            @Value("${hds.pkg-screenshot.rendition-cache.memory-max-megabytes:32}") Long memoryMaxMegabytes,
+            @Value("${hds.pkg-screenshot.rendition-cache.directory:}") String directory,
+            @Value("${hds.pkg-screenshot.rendition-cache.max-megabytes:256}") Long directoryMaxMegabytes,
+            MeterRegistry meterRegistry) {
+        return new PkgScreenshotRenditionRepositoryImpl(
+                pngThumbnailService,
+                memoryMaxMegabytes * 1024 * 1024,
+                StringUtils.isBlank(directory) ? null : Path.of(directory),
+                directoryMaxMegabytes * 1024 * 1024,
+                meterRegistry);
     }
 
     @Bean
@@ -103,9 +138,15 @@ public class BasicConfig {
     @Bean
     public CaptchaRepository captchaRepository(
             ServerRuntime serverRuntime,
-            @Value("${hds.captcha.expiry-seconds:120}") Long expirySeconds
+            @Value("${hds.captcha.expiry-seconds:120}") Long expirySeconds,
+            @Value("${hds.captcha.repository:database}") String repository,
+            @Value("${hds.captcha.memory-max-entries:100000}") Long memoryMaxEntries
     ) {
-        return new DatabaseCaptchaRepository(serverRuntime, expirySeconds);
+        return switch (repository) {
+            case "database" -> new DatabaseCaptchaRepository(serverRuntime, expirySeconds);
+            case "memory" -> new InMemoryCaptchaRepository(expirySeconds, memoryMaxEntries);
+            default -> throw new IllegalStateException("unknown captcha repository [" + repository + "]");
+        };
     }
 
     @Bean
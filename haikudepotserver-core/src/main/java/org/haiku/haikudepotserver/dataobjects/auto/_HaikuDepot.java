@@ -22,6 +22,8 @@ public class _HaikuDepot {
 
     public static final String ALL_PKG_SCREENSHOTS_QUERYNAME = "AllPkgScreenshots";
 
+    public static final String PKG_ICON_PRESENCE_QUERYNAME = "PkgIconPresence";
+
     public static final String PKG_NAMES_FOR_REPOSITORY_SOURCE_QUERYNAME = "PkgNamesForRepositorySource";
 
     public static final String SEARCH_PKG_VERSIONS_QUERYNAME = "SearchPkgVersions";
@@ -45,6 +47,11 @@ public class _HaikuDepot {
         return query.execute(context);
     }
 
+    public QueryResult<?> performPkgIconPresence(ObjectContext context, Map<String, ?> parameters) {
+        MappedExec query = MappedExec.query(PKG_ICON_PRESENCE_QUERYNAME).params(parameters);
+        return query.execute(context);
+    }
+
     public QueryResult<?> performPkgNamesForRepositorySource(ObjectContext context, Map<String, ?> parameters) {
         MappedExec query = MappedExec.query(PKG_NAMES_FOR_REPOSITORY_SOURCE_QUERYNAME).params(parameters);
         return query.execute(context);
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2026, Andrew Lindesay
+ * Distributed under the terms of the MIT License.
+ */
+
+package org.haiku.haikudepotserver.feed;
+
+import org.apache.cayenne.configuration.server.ServerRuntime;
+import org.haiku.haikudepotserver.dataobjects.Pkg;
+import org.haiku.haikudepotserver.dataobjects.PkgLocalization;
+import org.haiku.haikudepotserver.dataobjects.PkgVersion;
+import org.haiku.haikudepotserver.dataobjects.PkgVersionLocalization;
+import org.haiku.haikudepotserver.dataobjects.UserRating;
+import org.haiku.haikudepotserver.feed.model.FeedInvalidationEvent;
+import org.haiku.haikudepotserver.support.cayenne.AbstractInvalidationTriggerListener;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * <p>This listener will detect changes in the entities that are shown in feeds and, once the changes have
+ * been committed, will publish a {@link FeedInvalidationEvent} for the packages involved so that rendered
+ * feeds for those packages are discarded.</p>
+ */
+
+@Component
+public class FeedInvalidationTriggerListener extends AbstractInvalidationTriggerListener {
+
+    public FeedInvalidationTriggerListener(
+            ServerRuntime serverRuntime,
+            ApplicationEventPublisher applicationEventPublisher) {
+        super(serverRuntime, applicationEventPublisher, List.of(
+                Pkg.class,
+                PkgVersion.class,
+                PkgLocalization.class,
+                PkgVersionLocalization.class,
+                UserRating.class));
+    }
+
+    /**
+     * <p>A localization that is detached from its package version before it is deleted no longer identifies
+     * its package.</p>
+     */
+
+    @Override
+    protected boolean deriveAll(Object entity) {
+        return entity instanceof PkgVersionLocalization pvl && null == pvl.getPkgVersion();
+    }
+
+    @Override
+    protected Set<String> deriveNames(Object entity) {
+        return switch (entity) {
+            case Pkg pkg -> Set.of(pkg.getName());
+            case PkgVersion pkgVersion -> Set.of(pkgVersion.getPkg().getName());
+            case PkgVersionLocalization pvl -> Set.of(pvl.getPkgVersion().getPkg().getName());
+            case UserRating userRating -> Set.of(userRating.getPkgVersion().getPkg().getName());
+            case PkgLocalization pl -> pl.getPkgSupplement().getPkgs().stream().map(Pkg::getName).collect(Collectors.toSet());
+            default -> Set.of();
+        };
+    }
+
+    @Override
+    protected FeedInvalidationEvent createEvent(Set<String> names) {
+        return new FeedInvalidationEvent(names);
+    }
+
+}
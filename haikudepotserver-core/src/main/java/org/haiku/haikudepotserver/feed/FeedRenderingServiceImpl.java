@@ -0,0 +1,206 @@
+/*
+ * Copyright 2018-2026, Andrew Lindesay
+ * Distributed under the terms of the MIT License.
+ */
+
+package org.haiku.haikudepotserver.feed;
+
+import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.rometools.rome.feed.synd.*;
+import com.rometools.rome.io.FeedException;
+import com.rometools.rome.io.SyndFeedOutput;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.haiku.haikudepotserver.feed.model.FeedInvalidationEvent;
+import org.haiku.haikudepotserver.feed.model.FeedRenderingService;
+import org.haiku.haikudepotserver.feed.model.FeedSpecification;
+import org.haiku.haikudepotserver.feed.model.RenderedFeed;
+import org.haiku.haikudepotserver.feed.model.SyndEntrySupplier;
+import org.haiku.haikudepotserver.metrics.MetricsConstants;
+import org.haiku.haikudepotserver.support.DateTimeHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.MessageSource;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>Feeds are held in their serialized form so that a request for a feed that is in the cache involves no
+ * database access and no XML serialization. Rather than expiring after a period of time, the rendered feeds
+ * are discarded when a {@link FeedInvalidationEvent} arrives; feeds for specific packages are only discarded
+ * if the event concerns one of those packages.</p>
+ *
+ * <p>A feed that was being rendered at the time that an invalidation arrived may have been rendered from
+ * data that was already stale. Such a feed is served to the waiting request, but is not retained.</p>
+ */
+
+@Service
+public class FeedRenderingServiceImpl implements FeedRenderingService {
+
+    protected static Logger LOGGER = LoggerFactory.getLogger(FeedRenderingServiceImpl.class);
+
+    private final static String FEED_TITLE = "Haiku Depot Server Feed";
+    private final static String FEED_ICON_TITLE = "Haiku Depot Server Icon";
+
+    private final List<SyndEntrySupplier> syndEntrySuppliers;
+    private final MessageSource messageSource;
+    private final String baseUrl;
+
+    private final Cache<FeedSpecification, RenderedFeed> feedCache;
+
+    /**
+     * <p>This is incremented each time that an invalidation arrives.</p>
+     */
+
+    private final AtomicLong invalidationGeneration = new AtomicLong();
+
+    private final Counter hitCounter;
+
+    private final Counter renderCounter;
+
+    public FeedRenderingServiceImpl(
+            List<SyndEntrySupplier> syndEntrySuppliers,
+            MessageSource messageSource,
+            @Value("${hds.base-url}") String baseUrl,
+            @Value("${hds.feed.cache.memory-max-megabytes:8}") Long memoryMaxMegabytes,
+            MeterRegistry meterRegistry) {
+        Preconditions.checkNotNull(meterRegistry);
+        Preconditions.checkArgument(memoryMaxMegabytes > 0, "the maximum memory must be greater than zero");
+        this.syndEntrySuppliers = Preconditions.checkNotNull(syndEntrySuppliers);
+        this.messageSource = Preconditions.checkNotNull(messageSource);
+        this.baseUrl = Preconditions.checkNotNull(baseUrl);
+
+        feedCache = CacheBuilder
+                .newBuilder()
+                .maximumWeight(memoryMaxMegabytes * 1024 * 1024)
+                .weigher((FeedSpecification k, RenderedFeed v) -> v.data().length)
+                .expireAfterAccess(12, TimeUnit.HOURS)
+                .build();
+
+        hitCounter = Counter.builder(MetricsConstants.COUNTER_NAME_FEED_CACHE)
+                .tag(MetricsConstants.TAG_NAME_RESULT, "hit")
+                .register(meterRegistry);
+        renderCounter = Counter.builder(MetricsConstants.COUNTER_NAME_FEED_CACHE)
+                .tag(MetricsConstants.TAG_NAME_RESULT, "render")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public RenderedFeed render(FeedSpecification specification) {
+        Preconditions.checkNotNull(specification);
+        long generation = invalidationGeneration.get();
+        AtomicBoolean rendered = new AtomicBoolean(false);
+        RenderedFeed result;
+
+        try {
+            result = feedCache.get(specification, () -> {
+                rendered.set(true);
+                return createRenderedFeed(specification);
+            });
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            throw new IllegalStateException("unable to render the feed", e.getCause());
+        }
+
+        if (rendered.get()) {
+            renderCounter.increment();
+
+            if (generation != invalidationGeneration.get()) {
+                feedCache.asMap().remove(specification, result);
+            }
+        } else {
+            hitCounter.increment();
+        }
+
+        return result;
+    }
+
+    @EventListener
+    public void onFeedInvalidation(FeedInvalidationEvent event) {
+        invalidationGeneration.incrementAndGet();
+
+        if (event.getPkgNames().isEmpty()) {
+            feedCache.invalidateAll();
+            return;
+        }
+
+        feedCache.asMap().keySet().removeIf(specification -> null == specification.getPkgNames()
+                || !Collections.disjoint(specification.getPkgNames(), event.getPkgNames()));
+    }
+
+    private RenderedFeed createRenderedFeed(FeedSpecification specification) throws FeedException {
+        SyndFeed feed = createFeed(specification);
+        byte[] data = new SyndFeedOutput().outputString(feed).getBytes(StandardCharsets.UTF_8);
+        return new RenderedFeed(
+                specification.getFeedType().getContentType(),
+                "\"" + Hashing.sha256().hashBytes(data) + "\"",
+                Objects.requireNonNullElse(feed.getPublishedDate(), new Date(0L)),
+                data);
+    }
+
+    /**
+     * <p>The published date of the feed is taken from the most recent entry rather than the current time so that
+     * rendering the same entries again yields the same data and therefore the same entity tag.</p>
+     */
+
+    private SyndFeed createFeed(FeedSpecification specification) {
+        Locale locale = Locale.ENGLISH;
+
+        if (null != specification.getNaturalLanguageCoordinates()) {
+            locale = specification.getNaturalLanguageCoordinates().toLocale();
+        }
+
+        SyndFeed feed = new SyndFeedImpl();
+        feed.setFeedType(specification.getFeedType().getFeedType());
+        feed.setEncoding(StandardCharsets.UTF_8.name());
+        feed.setTitle(FEED_TITLE);
+        feed.setDescription(messageSource.getMessage("feed.description", new Object[] {}, locale));
+        feed.setLink(baseUrl);
+
+        SyndImage image = new SyndImageImpl();
+        image.setUrl(baseUrl + "/__img/haikudepot32.png");
+        image.setTitle(FEED_ICON_TITLE);
+        feed.setImage(image);
+
+        List<SyndEntry> entries = new ArrayList<>();
+
+        for(SyndEntrySupplier supplier : syndEntrySuppliers) {
+            entries.addAll(supplier.generate(specification));
+        }
+
+        // sort the entries and then take the first number of them up to the limit.
+
+        entries.sort((o1, o2) -> -1 * o1.getPublishedDate().compareTo(o2.getPublishedDate()));
+
+        if(entries.size() > specification.getLimit()) {
+            entries = entries.subList(0,specification.getLimit());
+        }
+
+        feed.setEntries(entries);
+
+        entries.stream()
+                .map(e -> null != e.getUpdatedDate() ? e.getUpdatedDate() : e.getPublishedDate())
+                .max(Date::compareTo)
+                .map(DateTimeHelper::secondAccuracyDate)
+                .ifPresent(feed::setPublishedDate);
+
+        return feed;
+    }
+
+}
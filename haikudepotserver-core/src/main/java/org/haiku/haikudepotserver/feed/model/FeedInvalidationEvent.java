@@ -0,0 +1,32 @@
+/*
+ * Copyright 2026, Andrew Lindesay
+ * Distributed under the terms of the MIT License.
+ */
+package org.haiku.haikudepotserver.feed.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.haiku.haikudepotserver.support.eventing.model.InterProcessApplicationEvent;
+
+import java.util.Set;
+
+/**
+ * <p>This event indicates that data which may appear in feeds has changed for the packages with the
+ * supplied names so that any rendered feeds that may include those packages should be discarded. An
+ * empty set of names indicates that all of the rendered feeds should be discarded.</p>
+ */
+
+public class FeedInvalidationEvent extends InterProcessApplicationEvent {
+
+    private final Set<String> pkgNames;
+
+    @JsonCreator
+    public FeedInvalidationEvent(@JsonProperty("pkgNames") Set<String> pkgNames) {
+        this.pkgNames = null == pkgNames ? Set.of() : Set.copyOf(pkgNames);
+    }
+
+    public Set<String> getPkgNames() {
+        return pkgNames;
+    }
+
+}
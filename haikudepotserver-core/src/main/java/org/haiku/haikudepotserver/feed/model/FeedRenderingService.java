@@ -0,0 +1,18 @@
+/*
+ * Copyright 2026, Andrew Lindesay
+ * Distributed under the terms of the MIT License.
+ */
+
+package org.haiku.haikudepotserver.feed.model;
+
+public interface FeedRenderingService {
+
+    /**
+     * <p>Returns the serialized feed for the specification. The rendered feed may have come from a cache;
+     * rendered feeds are discarded when a {@link FeedInvalidationEvent} arrives which concerns packages that
+     * may appear in the feed.</p>
+     */
+
+    RenderedFeed render(FeedSpecification specification);
+
+}
@@ -0,0 +1,20 @@
+/*
+ * Copyright 2026, Andrew Lindesay
+ * Distributed under the terms of the MIT License.
+ */
+
+package org.haiku.haikudepotserver.feed.model;
+
+import java.util.Date;
+
+/**
+ * <p>A feed that has been serialized ready to be sent to a client. The entity tag is derived from the data so
+ * that it is strong and the last modified timestamp is that of the most recent entry at second accuracy.</p>
+ */
+
+public record RenderedFeed(
+        String contentType,
+        String eTag,
+        Date lastModifyTimestamp,
+        byte[] data) {
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2026, Andrew Lindesay
+ * Distributed under the terms of the MIT License.
+ */
+package org.haiku.haikudepotserver.graphics.hvif;
+
+import com.google.common.base.Preconditions;
+import com.google.common.hash.Hashing;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.haiku.haikudepotserver.metrics.MetricsConstants;
+import org.haiku.haikudepotserver.support.cache.BoundedDirectoryCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * <p>This implementation keeps the rendered PNG images on disk in front of another {@link HvifRenderingService}
+ * that does the actual rendering. The images are keyed by a hash of the HVIF data and the size so that there is
+ * no need to evict images when icons change; the key of a changed icon is simply different. The directory is
+ * bounded in size and the least recently used images are removed when the bound is exceeded. Because the images
+ * are on disk, they survive a restart of the application server.</p>
+ *
+ * <p>Concurrent requests for the same image that is not yet in the cache are coalesced by the
+ * {@link BoundedDirectoryCache} so that the image is only rendered once.</p>
+ */
+
+public class CachingHvifRenderingServiceImpl implements HvifRenderingService {
+
+    protected final static Logger LOGGER = LoggerFactory.getLogger(CachingHvifRenderingServiceImpl.class);
+
+    private final static String SUFFIX = ".png";
+
+    private final HvifRenderingService delegate;
+
+    private final BoundedDirectoryCache directoryCache;
+
+    private final Counter hitCounter;
+
+    private final Counter missCounter;
+
+    private final Counter coalescedCounter;
+
+    private final Timer renderTimer;
+
+    public CachingHvifRenderingServiceImpl(
+            HvifRenderingService delegate,
+            Path directory,
+            long maxBytes,
+            MeterRegistry meterRegistry) {
+        Preconditions.checkNotNull(delegate);
+        Preconditions.checkNotNull(meterRegistry);
+
+        this.delegate = delegate;
+        this.directoryCache = new BoundedDirectoryCache(directory, SUFFIX, maxBytes);
+
+        hitCounter = Counter.builder(MetricsConstants.COUNTER_NAME_HVIF_RENDER_CACHE)
+                .tag(MetricsConstants.TAG_NAME_RESULT, "hit")
+                .register(meterRegistry);
+        missCounter = Counter.builder(MetricsConstants.COUNTER_NAME_HVIF_RENDER_CACHE)
+                .tag(MetricsConstants.TAG_NAME_RESULT, "miss")
+                .register(meterRegistry);
+        coalescedCounter = Counter.builder(MetricsConstants.COUNTER_NAME_HVIF_RENDER_CACHE)
+                .tag(MetricsConstants.TAG_NAME_RESULT, "coalesced")
+                .register(meterRegistry);
+        renderTimer = Timer.builder(MetricsConstants.TIMER_NAME_HVIF_RENDER)
+                .register(meterRegistry);
+        meterRegistry.gauge(MetricsConstants.GUAGE_HVIF_RENDER_CACHE_BYTES, directoryCache, BoundedDirectoryCache::getTotalBytes);
+
+        LOGGER.info("will cache rendered hvif in [{}] up to {} bytes; currently {} bytes",
+                directory, maxBytes, directoryCache.getTotalBytes());
+    }
+
+    @Override
+    public byte[] render(int size, byte[] input) throws IOException {
+        Preconditions.checkNotNull(input);
+        String key = Hashing.sha256().hashBytes(input) + "-" + size;
+        BoundedDirectoryCache.Lookup lookup = directoryCache.get(key, () -> {
+            try {
+                return renderTimer.recordCallable(() -> delegate.render(size, input));
+            } catch (IOException ioe) {
+                throw ioe;
+            } catch (Exception e) {
+                throw new IOException("unable to render the hvif", e);
+            }
+        });
+
+        switch (lookup.source()) {
+            case DIRECTORY -> hitCounter.increment();
+            case LOADED -> missCounter.increment();
+            case COALESCED -> coalescedCounter.increment();
+        }
+
+        return lookup.data();
+    }
+
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2026, Andrew Lindesay
+ * Distributed under the terms of the MIT License.
+ */
+package org.haiku.haikudepotserver.job;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Splitter;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * <p>Configures how the {@link DbDistributedJob2ServiceImpl} runs jobs on this node.</p>
+ *
+ * @param workers the quantity of workers which will run jobs of any type. Jobs which are of a priority type will be
+ *                run by these workers ahead of other jobs.
+ * @param priorityWorkers the quantity of workers which will only run jobs of a priority type. These workers ensure
+ *                        that short-running priority jobs are not held up behind long-running jobs.
+ * @param priorityJobTypeCodes the job type codes which are considered to be priority.
+ * @param jobTypeConcurrencyLimits for a given job type code, the maximum quantity of jobs of that type which are able
+ *                                 to run at the same time on this node.
+ */
+
+public record DbDistributedJob2Configuration(
+        int workers,
+        int priorityWorkers,
+        Set<String> priorityJobTypeCodes,
+        Map<String, Integer> jobTypeConcurrencyLimits) {
+
+    public DbDistributedJob2Configuration {
+        Preconditions.checkArgument(workers > 0, "at least one worker is required");
+        Preconditions.checkArgument(priorityWorkers >= 0, "bad priority workers");
+        Preconditions.checkArgument(null != priorityJobTypeCodes, "the priority job type codes are required");
+        Preconditions.checkArgument(null != jobTypeConcurrencyLimits, "the job type concurrency limits are required");
+        Preconditions.checkArgument(
+                jobTypeConcurrencyLimits.values().stream().allMatch(l -> l > 0),
+                "the job type concurrency limits must be greater than zero");
+        Preconditions.checkArgument(
+                0 == priorityWorkers || !priorityJobTypeCodes.isEmpty(),
+                "priority workers are configured but there are no priority job types");
+        priorityJobTypeCodes = Set.copyOf(priorityJobTypeCodes);
+        jobTypeConcurrencyLimits = Map.copyOf(jobTypeConcurrencyLimits);
+    }
+
+    /**
+     * <p>A single worker with no priority types and no limits; this will run one job at a time in the order
+     * in which the jobs were queued.</p>
+     */
+
+    public static DbDistributedJob2Configuration singleWorker() {
+        return new DbDistributedJob2Configuration(1, 0, Set.of(), Map.of());
+    }
+
+    /**
+     * <p>Parses a string of the form <code>repositoryhpkringress=1,pkgscreenshotimportarchive=1</code> into a map
+     * of job type code to concurrency limit.</p>
+     */
+
+    public static Map<String, Integer> parseJobTypeConcurrencyLimits(String value) {
+        Map<String, Integer> result = new LinkedHashMap<>();
+
+        if (StringUtils.isNotBlank(value)) {
+            for (String pair : Splitter.on(',').trimResults().omitEmptyStrings().split(value)) {
+                List<String> parts = Splitter.on('=').trimResults().splitToList(pair);
+
+                if (2 != parts.size() || StringUtils.isBlank(parts.get(0))) {
+                    throw new IllegalArgumentException("malformed job type concurrency limit [" + pair + "]");
+                }
+
+                try {
+                    result.put(parts.get(0), Integer.parseInt(parts.get(1)));
+                } catch (NumberFormatException nfe) {
+                    throw new IllegalArgumentException("malformed job type concurrency limit [" + pair + "]", nfe);
+                }
+            }
+        }
+
+        return result;
+    }
+
+}
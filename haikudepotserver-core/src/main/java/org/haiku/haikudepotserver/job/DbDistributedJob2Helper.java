@@ -8,7 +8,6 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
 import com.google.common.collect.Streams;
-import com.google.common.util.concurrent.Uninterruptibles;
 import org.apache.cayenne.ObjectContext;
 import org.apache.cayenne.ResultBatchIterator;
 import org.apache.cayenne.configuration.server.ServerRuntime;
@@ -43,34 +42,29 @@ public class DbDistributedJob2Helper {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(DbDistributedJob2Helper.class);
 
-    private final static int GET_NEXT_AVAILABLE_JOB_ATTEMPTS = 3;
-    private final static Duration GET_NEXT_AVAILABLE_JOB_DELAY = Duration.ofMillis(500);
-
     private final static long PG_ADVISORY_LOCK_KEY = 2513234852114898L;
 
     /**
-     * <p>This query will find the next available job but does not lock it.</p>
+     * <p>This query will find the next available job and will lock it in the same statement, skipping any jobs
+     * that are already locked by other threads or JVMs. The placeholders are for additional criteria on the
+     * job type and for an additional leading ordering which are only added as required.</p>
      */
-    private final static String SQL_NEXT_AVAILABLE_JOB_CODE = """
-              SELECT j2.code FROM job2.job j2
+    private final static String SQL_CLAIM_NEXT_AVAILABLE_JOB = """
+              SELECT ja1.code, jt1.code FROM job2.job_assignment ja1
+              JOIN job2.job j1 ON j1.job_assignment_id = ja1.id
+              JOIN job2.job_type jt1 ON jt1.id = j1.job_type_id
               WHERE 1 = 1
-                AND j2.queue_timestamp IS NOT NULL
-                AND j2.start_timestamp IS NULL
-                AND j2.cancel_timestamp IS NULL
-                AND j2.fail_timestamp IS NULL
-                AND j2.finish_timestamp IS NULL
-              ORDER BY j2.queue_timestamp ASC, j2.create_timestamp ASC
+                AND j1.queue_timestamp IS NOT NULL
+                AND j1.start_timestamp IS NULL
+                AND j1.cancel_timestamp IS NULL
+                AND j1.fail_timestamp IS NULL
+                AND j1.finish_timestamp IS NULL
+                %s
+              ORDER BY %s j1.queue_timestamp ASC, j1.create_timestamp ASC
               LIMIT 1
+              FOR UPDATE OF ja1 SKIP LOCKED
               """;
 
-    /**
-     * <p>This query will lock the nominated job.</p>
-     */
-    private final static String SQL_LOCK_JOB_CODE = """
-              SELECT ja1.code FROM job2.job_assignment ja1 WHERE ja1.code = ?
-              FOR UPDATE SKIP LOCKED
-            """;
-
     /**
      * <p>This query will find those Jobs which have been started and have not completed and
      * are not locked. This indicates a job that was started but maybe the thread or JVM
@@ -121,7 +115,19 @@ public class DbDistributedJob2Helper {
      */
 
     public static Optional<String> tryGetNextAvailableJobCode(Connection connection) {
+        return tryClaimNextAvailableJob(connection, JobClaimCriteria.ANY).map(ClaimedJob::code);
+    }
+
+    /**
+     * <p>Finds the next Job to be run that meets the supplied criteria. As with
+     * {@link #tryGetNextAvailableJobCode(Connection)}, the row on the <code>job_assignment</code> table will be
+     * locked in the supplied {@link Connection} transaction. Jobs that are already locked are skipped so that a
+     * number of workers are able to claim jobs at the same time.</p>
+     */
+
+    public static Optional<ClaimedJob> tryClaimNextAvailableJob(Connection connection, JobClaimCriteria criteria) {
         Preconditions.checkNotNull(connection);
+        Preconditions.checkNotNull(criteria);
 
         try {
             if (connection.getAutoCommit()) {
@@ -131,30 +137,44 @@ public class DbDistributedJob2Helper {
             throw new JobServiceException("problems checking the connection is transactional; not auto-commit", se);
         }
 
-        int attempts = GET_NEXT_AVAILABLE_JOB_ATTEMPTS;
+        List<Set<String>> parameters = new ArrayList<>();
+        StringBuilder whereClause = new StringBuilder();
+        String orderByClause = "";
 
-        while (attempts >= 0) {
-            Optional<String> candidateJobCode = tryGetNextAvailableJobCodeWithoutLock(connection);
+        if (null != criteria.includedJobTypeCodes()) {
+            whereClause.append("AND jt1.code = ANY(?)\n");
+            parameters.add(criteria.includedJobTypeCodes());
+        }
 
-            if (candidateJobCode.isEmpty()) {
-                return Optional.empty();
-            }
+        if (!criteria.excludedJobTypeCodes().isEmpty()) {
+            whereClause.append("AND NOT (jt1.code = ANY(?))\n");
+            parameters.add(criteria.excludedJobTypeCodes());
+        }
 
-            String jobCode = candidateJobCode.get();
+        if (!criteria.priorityJobTypeCodes().isEmpty()) {
+            orderByClause = "(jt1.code = ANY(?)) DESC,";
+            parameters.add(criteria.priorityJobTypeCodes());
+        }
 
-            if (tryLockJobCodeForUpdate(connection, jobCode)) {
-                LOGGER.info("did acquire lock on job [{}]", jobCode);
-                return Optional.of(jobCode);
-            }
+        try (PreparedStatement statement = connection.prepareStatement(
+                SQL_CLAIM_NEXT_AVAILABLE_JOB.formatted(whereClause, orderByClause))) {
 
-            LOGGER.info("unable to acquire lock on job [{}]; will try to find next job again", jobCode);
-            Uninterruptibles.sleepUninterruptibly(GET_NEXT_AVAILABLE_JOB_DELAY);
-            attempts --;
-        }
+            for (int i = 0; i < parameters.size(); i++) {
+                statement.setArray(i + 1, connection.createArrayOf("varchar", parameters.get(i).toArray()));
+            }
 
-        LOGGER.info("attempted to find next job {} times; aborting", GET_NEXT_AVAILABLE_JOB_ATTEMPTS);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (resultSet.next()) {
+                    ClaimedJob claimedJob = new ClaimedJob(resultSet.getString(1), resultSet.getString(2));
+                    LOGGER.info("did acquire lock on job [{}]", claimedJob.code());
+                    return Optional.of(claimedJob);
+                }
 
-        return Optional.empty();
+                return Optional.empty();
+            }
+        } catch (SQLException se) {
+            throw new JobServiceException("unable to claim the next available job", se);
+        }
     }
 
     /**
@@ -669,44 +689,39 @@ public class DbDistributedJob2Helper {
         ).toList());
     }
 
-    private static Optional<String> tryGetNextAvailableJobCodeWithoutLock(Connection connection) {
-        try (
-                PreparedStatement statement = connection.prepareStatement(SQL_NEXT_AVAILABLE_JOB_CODE);
-                ResultSet resultSet = statement.executeQuery()
-        ) {
-            if (resultSet.next()) {
+    private static Expression hasCompletedStatusExpression() {
+        return Job.FAIL_TIMESTAMP.isNotNull()
+                .orExp(Job.CANCEL_TIMESTAMP.isNotNull())
+                .orExp(Job.FINISH_TIMESTAMP.isNotNull());
+    }
 
-                String jobCode = resultSet.getString(1);
+    /**
+     * <p>Criteria used to claim the next available job.</p>
+     * @param includedJobTypeCodes if not null then only jobs of these types will be claimed.
+     * @param excludedJobTypeCodes jobs of these types will not be claimed.
+     * @param priorityJobTypeCodes jobs of these types will be claimed ahead of other jobs.
+     */
 
-                if (resultSet.next()) {
-                    throw new IllegalStateException("getting the next available job; found more than one in result set");
-                }
+    public record JobClaimCriteria(
+            Set<String> includedJobTypeCodes,
+            Set<String> excludedJobTypeCodes,
+            Set<String> priorityJobTypeCodes) {
 
-                return Optional.of(jobCode);
-            }
+        public static final JobClaimCriteria ANY = new JobClaimCriteria(null, Set.of(), Set.of());
 
-            return Optional.empty();
-        } catch (SQLException se) {
-            throw new JobServiceException("unable to get the next available job code", se);
+        public JobClaimCriteria {
+            includedJobTypeCodes = null == includedJobTypeCodes ? null : Set.copyOf(includedJobTypeCodes);
+            excludedJobTypeCodes = Set.copyOf(excludedJobTypeCodes);
+            priorityJobTypeCodes = Set.copyOf(priorityJobTypeCodes);
         }
-    }
 
-    private static boolean tryLockJobCodeForUpdate(Connection connection, String jobCode) {
-        try (PreparedStatement statement = connection.prepareStatement(SQL_LOCK_JOB_CODE)) {
-            statement.setString(1, jobCode);
-
-            try (ResultSet resultSet = statement.executeQuery()) {
-                return resultSet.next();
-            }
-        } catch (SQLException se) {
-            throw new JobServiceException(String.format("unable to lock next job code [%s]", jobCode), se);
-        }
     }
 
-    private static Expression hasCompletedStatusExpression() {
-        return Job.FAIL_TIMESTAMP.isNotNull()
-                .orExp(Job.CANCEL_TIMESTAMP.isNotNull())
-                .orExp(Job.FINISH_TIMESTAMP.isNotNull());
+    /**
+     * <p>A job that has been claimed and locked for processing.</p>
+     */
+
+    public record ClaimedJob(String code, String jobTypeCode) {
     }
 
 }
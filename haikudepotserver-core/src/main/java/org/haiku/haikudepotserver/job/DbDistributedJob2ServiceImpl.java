@@ -51,6 +51,9 @@ import java.sql.SQLException;
 import java.time.*;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
@@ -87,6 +90,12 @@ public class DbDistributedJob2ServiceImpl extends AbstractExecutionThreadService
 
     private final static long DELAY_AWAIT_ADVISORY_LOCK_SECONDS = 60;
 
+    /**
+     * <p>Workers are woken by a {@link JobAvailableEvent} when a job is queued on this or any other node; the
+     * event is relayed between nodes with Postgres <code>NOTIFY</code>. Delivery of the notification is not
+     * guaranteed, for example while the listening connection is being re-established, and so the workers
+     * also check for jobs after this delay.</p>
+     */
     private final static long DELAY_CHECK_JOBS_SECONDS = 60 * 5;
 
     private final ObjectMapper objectMapper;
@@ -99,8 +108,29 @@ public class DbDistributedJob2ServiceImpl extends AbstractExecutionThreadService
 
     private final Collection<JobRunner<?>> jobRunners;
 
+    private final DbDistributedJob2Configuration configuration;
+
+    /**
+     * <p>This lock guards the claiming of jobs, the counts of running jobs and the signalling of work to the
+     * workers. It is not held while a job is running.</p>
+     */
+
     private final ReentrantLock workLock = new ReentrantLock();
     private final Condition hasWork = workLock.newCondition();
+
+    /**
+     * <p>Incremented each time that work is signalled so that a worker is able to detect that work was signalled
+     * while it was looking for a job.</p>
+     */
+
+    private long workSignals = 0;
+
+    /**
+     * <p>The quantity of jobs of each type which are presently running on this node.</p>
+     */
+
+    private final Map<String, Integer> runningJobTypeCounts = new HashMap<>();
+
     private final RetryTemplate contentedDataRetryTemplate = createContentedDataRetryTemplate();
 
     private final ServerRuntime serverRuntime;
@@ -114,6 +144,24 @@ public class DbDistributedJob2ServiceImpl extends AbstractExecutionThreadService
             Collection<JobRunner<?>> jobRunners,
             ApplicationEventPublisher applicationEventPublisher
     ) {
+        this(
+                serverRuntime,
+                objectMapper,
+                dataStorageService,
+                jobRunners,
+                applicationEventPublisher,
+                DbDistributedJob2Configuration.singleWorker());
+    }
+
+    public DbDistributedJob2ServiceImpl(
+            ServerRuntime serverRuntime,
+            ObjectMapper objectMapper,
+            DataStorageService dataStorageService,
+            Collection<JobRunner<?>> jobRunners,
+            ApplicationEventPublisher applicationEventPublisher,
+            DbDistributedJob2Configuration configuration
+    ) {
+        this.configuration = Preconditions.checkNotNull(configuration);
         this.serverRuntime = serverRuntime;
         this.clock = Clock.systemUTC();
         this.objectMapper = objectMapper;
@@ -156,20 +204,45 @@ public class DbDistributedJob2ServiceImpl extends AbstractExecutionThreadService
     }
 
     /**
-     * <p>Runs continuously checking for new work. Should a failure occur, it will
-     * retry with a backoff.</p>
+     * <p>Starts the workers on virtual threads and then waits for them to complete. Each worker runs continuously
+     * checking for new work. The workers complete once this service is stopped.</p>
      */
     @Override
     protected void run() throws Exception {
+        LOGGER.info("will start {} workers and {} priority workers [{}]",
+                configuration.workers(), configuration.priorityWorkers(), name);
+
+        ThreadFactory threadFactory = Thread.ofVirtual().name(name + "-worker-", 0).factory();
+
+        try (ExecutorService executorService = Executors.newThreadPerTaskExecutor(threadFactory)) {
+            for (int i = 0; i < configuration.priorityWorkers(); i++) {
+                executorService.submit(() -> runWorker(true));
+            }
+
+            for (int i = 0; i < configuration.workers(); i++) {
+                executorService.submit(() -> runWorker(false));
+            }
+        }
+
+        LOGGER.info("did complete workers [{}]", name);
+    }
+
+    /**
+     * <p>Runs continuously checking for new work. Should a failure occur, it will
+     * retry with a backoff.</p>
+     *
+     * @param priority true if this worker should only run jobs that are of a priority type.
+     */
+    private void runWorker(boolean priority) {
         RetryTemplate retryTemplate = createRunRetryTemplate();
 
         try {
             retryTemplate.execute((RetryCallback<Object, Throwable>) context -> {
-                loopAwaitingAndRunningAvailableJobs();
+                loopAwaitingAndRunningAvailableJobs(priority);
                 return Boolean.TRUE;
             });
         } catch (Throwable e) {
-            LOGGER.error("failure to retry listening for pg events", e);
+            LOGGER.error("failure to retry running available jobs", e);
         }
     }
 
@@ -179,17 +252,17 @@ public class DbDistributedJob2ServiceImpl extends AbstractExecutionThreadService
     }
 
     /**
-     * <p>Trigger a check for work. It will try to get the lock (if not then it's already
-     * processing jobs) and will then trigger processing of jobs.</p>
+     * <p>Trigger a check for work. All of the idle workers will be woken up and will check for
+     * available jobs.</p>
      */
 
     private void signalHasWork() {
-        if (workLock.tryLock()) {
-            try {
-                hasWork.signal();
-            } finally {
-                workLock.unlock();
-            }
+        workLock.lock();
+        try {
+            workSignals++;
+            hasWork.signalAll();
+        } finally {
+            workLock.unlock();
         }
     }
 
@@ -248,7 +321,6 @@ public class DbDistributedJob2ServiceImpl extends AbstractExecutionThreadService
         }
 
         persistNewJob(specification, false); // not started
-        applicationEventPublisher.publishEvent(new JobAvailableEvent());
         return specification.getGuid();
     }
 
@@ -595,36 +667,97 @@ public class DbDistributedJob2ServiceImpl extends AbstractExecutionThreadService
     }
 
     /**
-     * <p>Runs in a loop taking work from the database queue table.</p>
+     * <p>Runs in a loop taking work from the database queue table. If there was no work available then it will
+     * wait to be signalled unless work was signalled while it was looking for a job.</p>
      */
-    private void loopAwaitingAndRunningAvailableJobs() {
+    private void loopAwaitingAndRunningAvailableJobs(boolean priority) {
         while (true) {
-            try {
-                workLock.lock();
+            long observedWorkSignals;
 
+            workLock.lock();
+            try {
                 if (Service.State.RUNNING != state()) {
                     return;
                 }
+                observedWorkSignals = workSignals;
+            } finally {
+                workLock.unlock();
+            }
 
-                if (!runNextAvailableJob()) {
-                    if (!hasWork.await(DELAY_CHECK_JOBS_SECONDS, TimeUnit.SECONDS)) {
+            if (!runNextAvailableJob(priority)) {
+                workLock.lock();
+                try {
+                    if (Service.State.RUNNING != state()) {
+                        return;
+                    }
+                    if (observedWorkSignals == workSignals
+                            && !hasWork.await(DELAY_CHECK_JOBS_SECONDS, TimeUnit.SECONDS)) {
                         LOGGER.debug("no jobs available");
                     }
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw new JobServiceException("interrupted when checking for available jobs", ie);
+                } finally {
+                    workLock.unlock();
                 }
-            } catch (InterruptedException ie) {
-                Thread.currentThread().interrupt();
-                throw new JobServiceException("interrupted when checking for available jobs", ie);
-            } finally {
-                workLock.unlock();
             }
         }
     }
 
+    /**
+     * <p>Creates the criteria for the next job to claim. Job types which have reached their concurrency limit on
+     * this node are excluded. Must be called while holding the {@link #workLock}.</p>
+     */
+    private DbDistributedJob2Helper.JobClaimCriteria createJobClaimCriteria(boolean priority) {
+        Set<String> excludedJobTypeCodes = new HashSet<>();
+
+        for (Map.Entry<String, Integer> entry : configuration.jobTypeConcurrencyLimits().entrySet()) {
+            if (runningJobTypeCounts.getOrDefault(entry.getKey(), 0) >= entry.getValue()) {
+                excludedJobTypeCodes.add(entry.getKey());
+            }
+        }
+
+        return new DbDistributedJob2Helper.JobClaimCriteria(
+                priority ? configuration.priorityJobTypeCodes() : null,
+                excludedJobTypeCodes,
+                configuration.priorityJobTypeCodes());
+    }
+
+    /**
+     * <p>Claims the next available job; the running count for the job's type is incremented so that the
+     * concurrency limits can be observed. The claim is made while holding the {@link #workLock} so that two
+     * workers on this node cannot both claim a job of a type with only one remaining slot.</p>
+     */
+    private Optional<DbDistributedJob2Helper.ClaimedJob> tryClaimNextAvailableJob(Connection connection, boolean priority) {
+        workLock.lock();
+        try {
+            Optional<DbDistributedJob2Helper.ClaimedJob> claimedJobOptional
+                    = DbDistributedJob2Helper.tryClaimNextAvailableJob(connection, createJobClaimCriteria(priority));
+            claimedJobOptional.ifPresent(cj -> runningJobTypeCounts.merge(cj.jobTypeCode(), 1, Integer::sum));
+            return claimedJobOptional;
+        } finally {
+            workLock.unlock();
+        }
+    }
+
+    private void releaseClaimedJob(DbDistributedJob2Helper.ClaimedJob claimedJob) {
+        workLock.lock();
+        try {
+            runningJobTypeCounts.computeIfPresent(claimedJob.jobTypeCode(), (k, v) -> v > 1 ? v - 1 : null);
+        } finally {
+            workLock.unlock();
+        }
+
+        // a slot for the job type may now be free and other workers may be waiting for it.
+        signalHasWork();
+    }
+
     /**
      * <p>Obtains work from the queue and runs it.</p>
+     * @param priority true if only jobs of a priority type should be run.
      * @return true if there was a job processed.
      */
-    private boolean runNextAvailableJob() {
+    private boolean runNextAvailableJob(boolean priority) {
 
         DataNode dataNode = serverRuntime.getDataDomain().getDataNode("HaikuDepotServer");
 
@@ -645,49 +778,57 @@ public class DbDistributedJob2ServiceImpl extends AbstractExecutionThreadService
             }
 
             // query for a job and skip lock any which are already being processed
-            Optional<String> jobCodeOptional = DbDistributedJob2Helper.tryGetNextAvailableJobCode(connection);
+            Optional<DbDistributedJob2Helper.ClaimedJob> claimedJobOptional
+                    = tryClaimNextAvailableJob(connection, priority);
 
-            if (jobCodeOptional.isEmpty()) {
+            if (claimedJobOptional.isEmpty()) {
                 return false;
             }
 
-            String jobCode = jobCodeOptional.get();
-
-            // this `objectContext` is not on the same Connection.
-            ObjectContext objectContext = serverRuntime.newContext();
-            org.haiku.haikudepotserver.dataobjects.Job persistedJob
-                    = org.haiku.haikudepotserver.dataobjects.Job.getByCode(objectContext, jobCode);
-            String jobTypeCode = persistedJob.getJobType().getCode();
-
-            Optional<Class<? extends JobSpecification>> jobSpecificationClassOptional
-                    = tryGetConcreteSpecificationClassForJobTypeCode(persistedJob.getJobType().getCode());
-
-            if (jobSpecificationClassOptional.isEmpty()) {
-                LOGGER.error("unable to find the job specification of type [{}] for job [{}] - will fail", jobTypeCode, jobCode);
-                setJobFailTimestamp(persistedJob.getCode());
-                return true; // effectively the logic did do something.
-            }
-
-            JobSpecification jobSpecification;
-
             try {
-                jobSpecification = objectMapper.readValue(
-                        persistedJob.getSpecification(),
-                        jobSpecificationClassOptional.get()
-                );
-            } catch (JsonProcessingException jpe) {
-                LOGGER.error("unable to parse the job specification of type [{}] for job [{}] - will fail", jobTypeCode, jobCode, jpe);
-                setJobFailTimestamp(jobCode);
-                return true; // effectively the logic did do something.
+                runClaimedJob(claimedJobOptional.get().code());
+            } finally {
+                releaseClaimedJob(claimedJobOptional.get());
             }
 
-            runSpecificationInCurrentThread(jobSpecification);
             return true;
         } catch (SQLException se) {
             throw new JobServiceException("unable to run next available job", se);
         }
     }
 
+    private void runClaimedJob(String jobCode) {
+        // this `objectContext` is not on the same Connection.
+        ObjectContext objectContext = serverRuntime.newContext();
+        org.haiku.haikudepotserver.dataobjects.Job persistedJob
+                = org.haiku.haikudepotserver.dataobjects.Job.getByCode(objectContext, jobCode);
+        String jobTypeCode = persistedJob.getJobType().getCode();
+
+        Optional<Class<? extends JobSpecification>> jobSpecificationClassOptional
+                = tryGetConcreteSpecificationClassForJobTypeCode(persistedJob.getJobType().getCode());
+
+        if (jobSpecificationClassOptional.isEmpty()) {
+            LOGGER.error("unable to find the job specification of type [{}] for job [{}] - will fail", jobTypeCode, jobCode);
+            setJobFailTimestamp(persistedJob.getCode());
+            return;
+        }
+
+        JobSpecification jobSpecification;
+
+        try {
+            jobSpecification = objectMapper.readValue(
+                    persistedJob.getSpecification(),
+                    jobSpecificationClassOptional.get()
+            );
+        } catch (JsonProcessingException jpe) {
+            LOGGER.error("unable to parse the job specification of type [{}] for job [{}] - will fail", jobTypeCode, jobCode, jpe);
+            setJobFailTimestamp(jobCode);
+            return;
+        }
+
+        runSpecificationInCurrentThread(jobSpecification);
+    }
+
     private void updateStateStatus(String code, JobSnapshot.Status updatedStatusEnum) {
         Instant now = clock.instant();
 
@@ -782,6 +923,14 @@ public class DbDistributedJob2ServiceImpl extends AbstractExecutionThreadService
                 specification.getOwnerUserNickname()
         );
 
+        // The event is relayed to the other nodes as well as being delivered locally so that an idle worker on
+        // any node will pick up the job. It is published after the commit so that the job is visible to the
+        // other nodes when they look for it.
+
+        if (!started) {
+            applicationEventPublisher.publishEvent(new JobAvailableEvent());
+        }
+
         return specification.getGuid();
     }
 
@@ -1,24 +1,25 @@
 /*
- * Copyright 2014-2022, Andrew Lindesay
+ * Copyright 2014-2026, Andrew Lindesay
  * Distributed under the terms of the MIT License.
  */
 
 package org.haiku.haikudepotserver.job.model;
 
 import com.google.common.base.Preconditions;
-import com.google.common.io.ByteSink;
+import org.haiku.haikudepotserver.storage.model.DataStorageByteSink;
 
 /**
- * <p>Couples a {@link JobData} with a {@link com.google.common.io.ByteSink}
- * such that data for the job data can be provided by a client.</p>
+ * <p>Couples a {@link JobData} with a {@link DataStorageByteSink}
+ * such that data for the job data can be provided by a client. The client
+ * must commit the data to the sink once it has been written.</p>
  */
 
 public class JobDataWithByteSink {
 
     private final JobData jobData;
-    private final ByteSink byteSink;
+    private final DataStorageByteSink byteSink;
 
-    public JobDataWithByteSink(JobData jobData, ByteSink byteSink) {
+    public JobDataWithByteSink(JobData jobData, DataStorageByteSink byteSink) {
         Preconditions.checkArgument(null!=jobData, "the job data must be supplied");
         Preconditions.checkArgument(null!=byteSink, "the byte sink must be supplied");
         this.jobData = jobData;
@@ -29,7 +30,7 @@ public class JobDataWithByteSink {
         return jobData;
     }
 
-    public ByteSink getByteSink() {
+    public DataStorageByteSink getByteSink() {
         return byteSink;
     }
 }
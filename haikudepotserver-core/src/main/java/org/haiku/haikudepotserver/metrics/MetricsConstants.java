@@ -1,5 +1,5 @@
 /*
- * Copyright 2023-2025, Andrew Lindesay
+ * Copyright 2023-2026, Andrew Lindesay
  * Distributed under the terms of the MIT License.
  */
 package org.haiku.haikudepotserver.metrics;
@@ -10,6 +10,24 @@ public class MetricsConstants {
 
     public static final String GUAGE_PG_DATA_STORAGE_MEGABYTE_PER_SECOND_TRANSFER = "hds.datastore.pg.mbpersectransfer";
 
+    public static final String COUNTER_NAME_HVIF_RENDER_CACHE = "hds.hvif.rendercache";
+
+    public static final String GUAGE_HVIF_RENDER_CACHE_BYTES = "hds.hvif.rendercache.bytes";
+
+    public static final String TIMER_NAME_HVIF_RENDER = "hds.hvif.render";
+
+    public static final String COUNTER_NAME_PKG_SCREENSHOT_RENDITION_CACHE = "hds.pkgscreenshot.renditioncache";
+
+    public static final String COUNTER_NAME_FEED_CACHE = "hds.feed.cache";
+
+    public static final String COUNTER_NAME_AUTHENTICATION_TOKEN_CACHE = "hds.authentication.tokencache";
+
+    public static final String TIMER_NAME_AUTHENTICATION_TOKEN_VERIFY = "hds.authentication.tokenverify";
+
+    public static final String COUNTER_NAME_PKG_LOCALIZATION_CACHE = "hds.pkglocalization.cache";
+
     public static final String TAG_NAME_VERSION = "version";
 
+    public static final String TAG_NAME_RESULT = "result";
+
 }
@@ -63,6 +63,7 @@ public class MetricsGeneralReportJobRunner extends AbstractJobRunner<MetricsGene
                 final Writer outputStreamWriter = new OutputStreamWriter(outputStream, StandardCharsets.UTF_8)
         ) {
             write(outputStreamWriter);
+            jobDataWithByteSink.getByteSink().commit();
         }
     }
 
@@ -1,5 +1,5 @@
 /*
- * Copyright 2018-2025, Andrew Lindesay
+ * Copyright 2018-2026, Andrew Lindesay
  * Distributed under the terms of the MIT License.
  */
 
@@ -21,7 +21,7 @@ import org.haiku.haikudepotserver.dataobjects.Pkg;
 import org.haiku.haikudepotserver.dataobjects.PkgVersion;
 import org.haiku.haikudepotserver.feed.model.FeedSpecification;
 import org.haiku.haikudepotserver.feed.model.SyndEntrySupplier;
-import org.haiku.haikudepotserver.pkg.model.PkgLocalizationService;
+import org.haiku.haikudepotserver.pkg.model.PkgLocalizationLookupService;
 import org.haiku.haikudepotserver.pkg.model.PkgService;
 import org.haiku.haikudepotserver.pkg.model.ResolvedPkgVersionLocalization;
 import org.slf4j.Logger;
@@ -48,17 +48,14 @@ public class CreatedPkgVersionSyndEntrySupplier implements SyndEntrySupplier {
     private final ServerRuntime serverRuntime;
     private final String baseUrl;
     private final MessageSource messageSource;
-    private final PkgLocalizationService pkgLocalizationService;
 
     public CreatedPkgVersionSyndEntrySupplier(
             ServerRuntime serverRuntime,
             @Value("${hds.base-url}") String baseUrl,
-            MessageSource messageSource,
-            PkgLocalizationService pkgLocalizationService) {
+            MessageSource messageSource) {
         this.serverRuntime = Preconditions.checkNotNull(serverRuntime);
         this.baseUrl = Preconditions.checkNotNull(baseUrl);
         this.messageSource = Preconditions.checkNotNull(messageSource);
-        this.pkgLocalizationService = Preconditions.checkNotNull(pkgLocalizationService);
     }
 
     @Override
@@ -81,6 +78,7 @@ public class CreatedPkgVersionSyndEntrySupplier implements SyndEntrySupplier {
                          PkgVersion.PKG.dot(Pkg.NAME).endsWith(PkgService.SUFFIX_PKG_SOURCE)
                     ).notExp())
                     .orderBy(PkgVersion.CREATE_TIMESTAMP.desc())
+                    .prefetch(PkgVersion.PKG.joint())
                     .limit(specification.getLimit());
 
             if(null!=specification.getPkgNames()) {
@@ -91,6 +89,10 @@ public class CreatedPkgVersionSyndEntrySupplier implements SyndEntrySupplier {
             NaturalLanguage naturalLanguage = deriveNaturalLanguage(context, specification);
             List<PkgVersion> pkgVersions = objectSelect.select(context);
 
+            // the localizations for all of the package versions are obtained in one query.
+            PkgLocalizationLookupService pkgLocalizationLookupService =
+                    new FixedPkgLocalizationLookupServiceImpl(context, pkgVersions, naturalLanguage);
+
             return pkgVersions
                     .stream()
                     .map(pv -> {
@@ -113,7 +115,7 @@ public class CreatedPkgVersionSyndEntrySupplier implements SyndEntrySupplier {
                         }
 
                         ResolvedPkgVersionLocalization resolvedPkgVersionLocalization =
-                                pkgLocalizationService.resolvePkgVersionLocalization(context, pv, null, naturalLanguage);
+                                pkgLocalizationLookupService.resolvePkgVersionLocalization(context, pv, null, naturalLanguage);
 
                         entry.setTitle(messageSource.getMessage(
                                 "feed.createdPkgVersion.atom.title",
@@ -1,5 +1,5 @@
 /*
- * Copyright 2018-2024, Andrew Lindesay
+ * Copyright 2018-2026, Andrew Lindesay
  * Distributed under the terms of the MIT License.
  */
 
@@ -11,6 +11,7 @@ import org.apache.cayenne.DataRow;
 import org.apache.cayenne.ObjectContext;
 import org.apache.cayenne.ObjectId;
 import org.apache.cayenne.query.SQLTemplate;
+import org.apache.commons.lang3.StringUtils;
 import org.haiku.haikudepotserver.dataobjects.HaikuDepot;
 import org.haiku.haikudepotserver.dataobjects.NaturalLanguage;
 import org.haiku.haikudepotserver.dataobjects.PkgVersion;
@@ -27,12 +28,26 @@ import java.util.stream.Collectors;
  * set of packages; only localization data for those packages will be found.
  * This allows for a reduced quantity of database communications to occur because
  * the data can be cached in advance.</p>
+ *
+ * <p>The individual layers of localization are also retained so that where a search pattern is supplied, the
+ * localization matching the pattern can be preferred in the same way as in
+ * {@link PkgLocalizationServiceImpl}, but without any further queries.  As in that implementation, there is no
+ * fallback to the package name where a search pattern is supplied.</p>
  */
 
 public class FixedPkgLocalizationLookupServiceImpl implements PkgLocalizationLookupService {
 
+    /**
+     * <p>The layers of localization in order of preference; the natural language on the package version, the
+     * natural language on the package, English on the package version and English on the package.</p>
+     */
+
+    private final static List<String> LAYER_PREFIXES = List.of("pv_l", "p_l", "pv_e", "p_e");
+
     private final Map<ObjectId, ResolvedPkgVersionLocalization> cachedResult;
 
+    private final Map<ObjectId, List<ResolvedPkgVersionLocalization>> cachedLayers;
+
     private final String naturalLanguageCode;
 
     public FixedPkgLocalizationLookupServiceImpl(
@@ -42,35 +57,63 @@ public class FixedPkgLocalizationLookupServiceImpl implements PkgLocalizationLoo
 
         this.naturalLanguageCode = naturalLanguage.getCode();
         this.cachedResult = new HashMap<>();
+        this.cachedLayers = new HashMap<>();
 
         if (!pkgVersions.isEmpty()) {
-            Set<Long> pkgVersionIds = pkgVersions
-                    .stream()
-                    .map((pv) -> (Long) pv.getObjectId().getIdSnapshot().get(PkgVersion.ID_PK_COLUMN))
-                    .collect(Collectors.toSet());
-
-            List<DataRow> dataRows = (List<DataRow>) HaikuDepot.getInstance().performPkgVersionLocalizationResolution(
-                    context,
-                    Map.of(
-                            "naturalLanguageId", naturalLanguage.getObjectId().getIdSnapshot().get(NaturalLanguage.ID_PK_COLUMN),
-                            "englishNaturalLanguageId", NaturalLanguage.getEnglish(context).getObjectId().getIdSnapshot().get(NaturalLanguage.ID_PK_COLUMN),
-                            "pkgVersionIds", pkgVersionIds
-                    )
-            ).firstList();
-
-            dataRows.forEach((dr) -> {
+            performResolution(context, pkgVersions, naturalLanguage).forEach((dr) -> {
                 Long pkgVersionId = (Long) dr.get("pv_id");
                 String title = (String) dr.get("title");
                 String description = (String) dr.get("description");
                 String summary = (String) dr.get("summary");
 
-                cachedResult.put(
-                        ObjectId.of(PkgVersion.class.getSimpleName(), PkgVersion.ID_PK_COLUMN, pkgVersionId),
-                        new ResolvedPkgVersionLocalization(title, summary, description));
+                ObjectId objectId = ObjectId.of(PkgVersion.class.getSimpleName(), PkgVersion.ID_PK_COLUMN, pkgVersionId);
+
+                cachedResult.put(objectId, new ResolvedPkgVersionLocalization(title, summary, description));
+                cachedLayers.put(objectId, toLayers(dr));
             });
         }
     }
 
+    /**
+     * <p>Runs a single query to obtain the localization for all of the supplied package versions.  Each row
+     * carries the package version's identifier as &quot;pv_id&quot; and the name of its package as
+     * &quot;p_name&quot; as well as the layers of localization.</p>
+     */
+
+    @SuppressWarnings("unchecked")
+    static List<DataRow> performResolution(
+            ObjectContext context,
+            Collection<PkgVersion> pkgVersions,
+            NaturalLanguage naturalLanguage) {
+        Set<Long> pkgVersionIds = pkgVersions
+                .stream()
+                .map((pv) -> (Long) pv.getObjectId().getIdSnapshot().get(PkgVersion.ID_PK_COLUMN))
+                .collect(Collectors.toSet());
+
+        return (List<DataRow>) HaikuDepot.getInstance().performPkgVersionLocalizationResolution(
+                context,
+                Map.of(
+                        "naturalLanguageId", naturalLanguage.getObjectId().getIdSnapshot().get(NaturalLanguage.ID_PK_COLUMN),
+                        "englishNaturalLanguageId", NaturalLanguage.getEnglish(context).getObjectId().getIdSnapshot().get(NaturalLanguage.ID_PK_COLUMN),
+                        "pkgVersionIds", pkgVersionIds
+                )
+        ).firstList();
+    }
+
+    /**
+     * <p>Extracts the layers of localization from a row obtained from
+     * {@link #performResolution(ObjectContext, Collection, NaturalLanguage)} in order of preference.</p>
+     */
+
+    static List<ResolvedPkgVersionLocalization> toLayers(DataRow dataRow) {
+        return LAYER_PREFIXES.stream()
+                .map(lp -> new ResolvedPkgVersionLocalization(
+                        (String) dataRow.get(lp + "_title"),
+                        (String) dataRow.get(lp + "_summary"),
+                        (String) dataRow.get(lp + "_description")))
+                .toList();
+    }
+
     @Override
     public ResolvedPkgVersionLocalization resolvePkgVersionLocalization(
             ObjectContext context,
@@ -78,7 +121,6 @@ public class FixedPkgLocalizationLookupServiceImpl implements PkgLocalizationLoo
             Pattern searchPattern,
             NaturalLanguage naturalLanguage) {
         Preconditions.checkNotNull(pkgVersion, "the pkg version must be supplied");
-        Preconditions.checkArgument(null == searchPattern, "a search pattern is not supported");
         Preconditions.checkArgument(null != naturalLanguage, "the natural language must be supplied");
         Preconditions.checkArgument(naturalLanguage.getCode().equals(naturalLanguageCode),
                 "mismatch between requested and originally specified natural language.");
@@ -90,6 +132,36 @@ public class FixedPkgLocalizationLookupServiceImpl implements PkgLocalizationLoo
                     + "] was queried, but was not in the initial set of package versions supplied");
         }
 
-        return result;
+        if (null == searchPattern) {
+            return result;
+        }
+
+        ResolvedPkgVersionLocalization patternResult = new ResolvedPkgVersionLocalization();
+        List<ResolvedPkgVersionLocalization> layers = cachedLayers.get(pkgVersion.getObjectId());
+        layers.forEach(l -> fill(patternResult, searchPattern, l));
+        layers.forEach(l -> fill(patternResult, null, l));
+        return patternResult;
+    }
+
+    static void fill(
+            ResolvedPkgVersionLocalization result,
+            Pattern pattern,
+            ResolvedPkgVersionLocalization layer) {
+        if (StringUtils.isEmpty(result.getTitle()) && isFillable(pattern, layer.getTitle())) {
+            result.setTitle(layer.getTitle());
+        }
+
+        if (StringUtils.isEmpty(result.getSummary()) && isFillable(pattern, layer.getSummary())) {
+            result.setSummary(layer.getSummary());
+        }
+
+        if (StringUtils.isEmpty(result.getDescription()) && isFillable(pattern, layer.getDescription())) {
+            result.setDescription(layer.getDescription());
+        }
     }
+
+    private static boolean isFillable(Pattern pattern, String value) {
+        return !StringUtils.isEmpty(value) && (null == pattern || pattern.matcher(value).matches());
+    }
+
 }
@@ -6,36 +6,40 @@
 package org.haiku.haikudepotserver.pkg;
 
 import com.google.common.base.Preconditions;
+import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.Iterables;
-import com.google.common.io.ByteSource;
+import com.google.common.collect.ListMultimap;
 import org.apache.cayenne.ObjectContext;
 import org.apache.cayenne.ObjectId;
+import org.apache.cayenne.query.ObjectSelect;
+import org.apache.cayenne.query.PrefetchTreeNode;
 import org.apache.commons.lang3.BooleanUtils;
-import org.apache.commons.lang3.RandomStringUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.Strings;
 import org.haiku.haikudepotserver.dataobjects.*;
 import org.haiku.haikudepotserver.pkg.model.*;
 import org.haiku.haikudepotserver.support.*;
-import org.haiku.pkg.AttributeContext;
-import org.haiku.pkg.HpkgFileExtractor;
-import org.haiku.pkg.model.Attribute;
-import org.haiku.pkg.model.AttributeId;
 import org.haiku.pkg.model.PkgUrl;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
-import java.io.File;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.UncheckedIOException;
 import java.net.URI;
 import java.time.Clock;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class PkgImportServiceImpl implements PkgImportService {
@@ -45,19 +49,17 @@ public class PkgImportServiceImpl implements PkgImportService {
     private final PkgServiceImpl pkgServiceImpl;
     private final PkgIconService pkgIconService;
     private final PkgLocalizationService pkgLocalizationService;
-    private final URLHelperService urlHelperService;
-
-    private final RandomStringUtils randomStringUtils = RandomStringUtils.insecure();
+    private final PkgPayloadDataService pkgPayloadDataService;
 
     public PkgImportServiceImpl(
             PkgServiceImpl pkgServiceImpl,
             PkgIconService pkgIconService,
             PkgLocalizationService pkgLocalizationService,
-            URLHelperService urlHelperService) {
+            PkgPayloadDataService pkgPayloadDataService) {
         this.pkgServiceImpl = Preconditions.checkNotNull(pkgServiceImpl);
         this.pkgIconService = Preconditions.checkNotNull(pkgIconService);
         this.pkgLocalizationService = Preconditions.checkNotNull(pkgLocalizationService);
-        this.urlHelperService = Preconditions.checkNotNull(urlHelperService);
+        this.pkgPayloadDataService = Preconditions.checkNotNull(pkgPayloadDataService);
     }
 
     @Override
@@ -66,10 +68,24 @@ public class PkgImportServiceImpl implements PkgImportService {
             ObjectId repositorySourceObjectId,
             org.haiku.pkg.model.Pkg pkg,
             boolean populateFromPayload) {
-
         Preconditions.checkArgument(null != pkg, "the package must be provided");
+        importFrom(objectContext, repositorySourceObjectId, List.of(pkg), populateFromPayload);
+    }
+
+    @Override
+    public void importFrom(
+            ObjectContext objectContext,
+            ObjectId repositorySourceObjectId,
+            List<org.haiku.pkg.model.Pkg> pkgs,
+            boolean populateFromPayload) {
+
+        Preconditions.checkArgument(null != pkgs, "the packages must be provided");
         Preconditions.checkArgument(null != repositorySourceObjectId, "the repository source is must be provided");
 
+        if (pkgs.isEmpty()) {
+            return;
+        }
+
         RepositorySource repositorySource = RepositorySource.get(
                 objectContext,
                 repositorySourceObjectId);
@@ -82,37 +98,158 @@ public class PkgImportServiceImpl implements PkgImportService {
             throw new IllegalStateException("it is not possible to import from a repository that is not active; " + repositorySource.getRepository());
         }
 
-        // first, check to see if the package is there or not.
+        ImportBatch importBatch = createImportBatch(objectContext, repositorySource, pkgs);
+
+        List<ImportedPkgVersion> importedPkgVersions = pkgs.stream()
+                .map(pkg -> importFrom(objectContext, importBatch, pkg))
+                .toList();
+
+        // [apl]
+        // If this fails, we will let it go, and it can be tried again a bit later on.  The system can try to back-fill
+        // those at some later date if any of the latest versions for packages are missing.  This is better than
+        // failing the import at this stage since this is "just" meta-data.  The length of the payload is being used as
+        // a signal that the payload was downloaded and processed at some point.
+
+        if (populateFromPayload) {
+            Set<PkgVersion> payloadChangedPkgVersions = Collections.newSetFromMap(new IdentityHashMap<>());
+            payloadChangedPkgVersions.addAll(populateFromPayload(
+                    objectContext,
+                    importedPkgVersions.stream()
+                            .filter(ipv -> null == ipv.pkgVersion().getPayloadLength() || ipv.hasChanges())
+                            .map(ImportedPkgVersion::pkgVersion)
+                            .toList()));
+
+            importedPkgVersions.stream()
+                    .filter(ipv -> payloadChangedPkgVersions.contains(ipv.pkgVersion()))
+                    .forEach(ImportedPkgVersion::markChanged);
+        }
+
+        // This is a little strange; if there is a change in anything (even an icon) then we attribute it to an import
+        // on this specific version. It has to be this way because the import is coming from a specific version.
+
+        for (ImportedPkgVersion importedPkgVersion : importedPkgVersions) {
+            if (importedPkgVersion.hasChanges()) {
+                importedPkgVersion.pkgVersion().setImportTimestamp(new java.sql.Timestamp(Clock.systemUTC().millis()));
+            }
+        }
+    }
+
+    /**
+     * <p>Loads all of the existing data that is required to import the supplied packages.  This is done with a
+     * small number of queries for the whole batch rather than a number of queries for each package.</p>
+     */
+
+    private ImportBatch createImportBatch(
+            ObjectContext objectContext,
+            RepositorySource repositorySource,
+            List<org.haiku.pkg.model.Pkg> pkgs) {
+
+        Set<String> pkgNames = pkgs.stream()
+                .map(org.haiku.pkg.model.Pkg::getName)
+                .collect(Collectors.toSet());
+
+        ImportBatch importBatch = new ImportBatch(
+                repositorySource,
+                Architecture.getAll(objectContext).stream()
+                        .collect(Collectors.toMap(Architecture::getCode, Function.identity())),
+                PkgUrlType.getByCode(
+                        objectContext,
+                        org.haiku.pkg.model.PkgUrlType.HOMEPAGE.name().toLowerCase()).orElseThrow(IllegalStateException::new),
+                NaturalLanguage.getEnglish(objectContext),
+                Prominence.getByOrdering(objectContext, Prominence.ORDERING_LAST));
+
+        ObjectSelect.query(Pkg.class)
+                .where(Pkg.NAME.in(pkgNames))
+                .prefetch(Pkg.PKG_PROMINENCES.disjoint())
+                .select(objectContext)
+                .forEach(p -> importBatch.pkgsByName.put(p.getName(), p));
+
+        if (!importBatch.pkgsByName.isEmpty()) {
+            ObjectSelect.query(PkgVersion.class)
+                    .where(PkgVersion.PKG.in(importBatch.pkgsByName.values()))
+                    .and(PkgVersion.REPOSITORY_SOURCE.eq(repositorySource))
+                    .prefetch(createPkgVersionPrefetchTree())
+                    .select(objectContext)
+                    .forEach(pv -> importBatch.pkgVersionsByPkgName.put(pv.getPkg().getName(), pv));
+        }
+
+        // the packages that do not yet exist will need to be created and will need to be associated with a
+        // supplement that may already exist.
+
+        Set<String> absentBasePkgNames = pkgNames.stream()
+                .filter(n -> !importBatch.pkgsByName.containsKey(n))
+                .map(this::deriveBasePkgName)
+                .collect(Collectors.toSet());
+
+        if (!absentBasePkgNames.isEmpty()) {
+            ObjectSelect.query(PkgSupplement.class)
+                    .where(PkgSupplement.BASE_PKG_NAME.in(absentBasePkgNames))
+                    .select(objectContext)
+                    .forEach(ps -> importBatch.pkgSupplementsByBasePkgName.put(ps.getBasePkgName(), ps));
+        }
 
-        Optional<Pkg> persistedPkgOptional = Pkg.tryGetByName(objectContext, pkg.getName());
-        Pkg persistedPkg;
-        Optional<PkgVersion> persistedLatestExistingPkgVersion = Optional.empty();
-        Architecture architecture = Architecture.tryGetByCode(objectContext, pkg.getArchitecture().name().toLowerCase())
+        return importBatch;
+    }
+
+    private PrefetchTreeNode createPkgVersionPrefetchTree() {
+        PrefetchTreeNode node = PkgVersion.PKG_VERSION_COPYRIGHTS.disjoint();
+        node.merge(PkgVersion.PKG_VERSION_LICENSES.disjoint());
+        node.merge(PkgVersion.PKG_VERSION_URLS.disjoint());
+        node.merge(PkgVersion.PKG_VERSION_LOCALIZATIONS.disjoint());
+        return node;
+    }
+
+    /**
+     * <p>Reconciles the supplied package with the data in the batch.  The context is shared across the batch so the
+     * changes that have arisen from this package are detected by comparing against the objects that were already
+     * uncommitted before this package was imported.</p>
+     */
+
+    private ImportedPkgVersion importFrom(
+            ObjectContext objectContext,
+            ImportBatch importBatch,
+            org.haiku.pkg.model.Pkg pkg) {
+
+        Preconditions.checkArgument(null != pkg, "the package must be provided");
+
+        Set<Object> priorUncommittedObjects = snapshotUncommittedObjects(objectContext);
+
+        RepositorySource repositorySource = importBatch.repositorySource;
+        Architecture architecture = Optional.ofNullable(
+                importBatch.architecturesByCode.get(pkg.getArchitecture().name().toLowerCase()))
                 .orElseThrow(IllegalStateException::new);
+        VersionCoordinates versionCoordinates = new VersionCoordinates(pkg.getVersion());
+
+        // first, check to see if the package is there or not.
+
+        Pkg persistedPkg = importBatch.pkgsByName.get(pkg.getName());
+        PkgVersion persistedLatestExistingPkgVersion = null;
         PkgVersion persistedPkgVersion = null;
 
-        if (persistedPkgOptional.isEmpty()) {
-            persistedPkg = createPkg(objectContext, pkg.getName());
-            pkgServiceImpl.ensurePkgProminence(objectContext, persistedPkg, repositorySource.getRepository());
+        if (null == persistedPkg) {
+            persistedPkg = createPkg(objectContext, importBatch, pkg.getName());
+            pkgServiceImpl.ensurePkgProminence(
+                    objectContext, persistedPkg, repositorySource.getRepository(), importBatch.prominence);
             LOGGER.info("the package [{}] did not exist; will create", pkg.getName());
         } else {
-            persistedPkg = persistedPkgOptional.get();
-            pkgServiceImpl.ensurePkgProminence(objectContext, persistedPkg, repositorySource.getRepository());
+            pkgServiceImpl.ensurePkgProminence(
+                    objectContext, persistedPkg, repositorySource.getRepository(), importBatch.prominence);
 
             // if we know that the package exists then we should look for the version.
 
-            persistedPkgVersion = PkgVersion.tryGetForPkg(
-                    objectContext,
-                    persistedPkg,
-                    repositorySource,
-                    architecture,
-                    new VersionCoordinates(pkg.getVersion())).orElse(null);
+            List<PkgVersion> persistedArchitecturePkgVersions =
+                    importBatch.getPkgVersions(pkg.getName(), architecture);
 
-            persistedLatestExistingPkgVersion = pkgServiceImpl.getLatestPkgVersionForPkg(
-                    objectContext,
-                    persistedPkg,
-                    repositorySource,
-                    Collections.singletonList(architecture));
+            persistedPkgVersion = persistedArchitecturePkgVersions.stream()
+                    .filter(pv -> pv.toVersionCoordinates().equals(versionCoordinates))
+                    .findFirst()
+                    .orElse(null);
+
+            persistedLatestExistingPkgVersion = persistedArchitecturePkgVersions.stream()
+                    .filter(pv -> BooleanUtils.isTrue(pv.getActive()))
+                    .filter(pv -> BooleanUtils.isTrue(pv.getIsLatest()))
+                    .findFirst()
+                    .orElse(null);
         }
 
         if (null == persistedPkgVersion) {
@@ -126,6 +263,7 @@ public class PkgImportServiceImpl implements PkgImportService {
             persistedPkgVersion.setRepositorySource(repositorySource);
             persistedPkgVersion.setArchitecture(architecture);
             persistedPkgVersion.setPkg(persistedPkg);
+            importBatch.pkgVersionsByPkgName.put(pkg.getName(), persistedPkgVersion);
 
             LOGGER.info(
                     "the version [{}] of package [{}] did not exist; will create",
@@ -145,13 +283,13 @@ public class PkgImportServiceImpl implements PkgImportService {
 
         importCopyrights(objectContext, pkg, persistedPkgVersion);
         importLicenses(objectContext, pkg, persistedPkgVersion);
-        importUrls(objectContext, pkg, persistedPkgVersion);
+        importUrls(objectContext, importBatch.homePagePkgUrlType, pkg, persistedPkgVersion);
 
         if (!StringUtils.isEmpty(pkg.getSummary()) || !StringUtils.isEmpty(pkg.getDescription())) {
             pkgLocalizationService.updatePkgVersionLocalization(
                     objectContext,
                     persistedPkgVersion,
-                    NaturalLanguage.getEnglish(objectContext),
+                    importBatch.naturalLanguageEnglish,
                     null, // not supported quite yet
                     pkg.getSummary(),
                     pkg.getDescription());
@@ -159,47 +297,47 @@ public class PkgImportServiceImpl implements PkgImportService {
 
         // now possibly switch the latest flag over to the new one from the old one.
         possiblyReconfigurePersistedPkgVersionToBeLatest(
-                objectContext,
-                persistedLatestExistingPkgVersion.orElse(null),
+                importBatch.getPkgVersions(pkg.getName(), architecture),
+                persistedLatestExistingPkgVersion,
                 persistedPkgVersion);
 
-        // [apl]
-        // If this fails, we will let it go, and it can be tried again a bit later on.  The system can try to back-fill
-        // those at some later date if any of the latest versions for packages are missing.  This is better than
-        // failing the import at this stage since this is "just" meta-data.  The length of the payload is being used as
-        // a signal that the payload was downloaded and processed at some point.
+        LOGGER.debug("have processed package {}", pkg);
 
-        if (populateFromPayload
-                && (null == persistedPkgVersion.getPayloadLength()
-                || objectContext.hasChanges())
-        ) {
-            populateFromPayload(objectContext, persistedPkgVersion);
-        }
+        return new ImportedPkgVersion(
+                persistedPkgVersion,
+                hasUncommittedObjectsSince(objectContext, priorUncommittedObjects));
+    }
 
-        // This is a little strange; if there is a change in anything (even an icon) then we attribute it to an import
-        // on this specific version. It has to be this way because the import is coming from a specific version.
+    private static Set<Object> snapshotUncommittedObjects(ObjectContext objectContext) {
+        Set<Object> result = Collections.newSetFromMap(new IdentityHashMap<>());
+        result.addAll(objectContext.uncommittedObjects());
+        return result;
+    }
 
-        if (objectContext.hasChanges()) {
-            persistedPkgVersion.setImportTimestamp(new java.sql.Timestamp(Clock.systemUTC().millis()));
-        }
+    private static boolean hasUncommittedObjectsSince(
+            ObjectContext objectContext,
+            Set<Object> priorUncommittedObjects) {
+        return objectContext.uncommittedObjects()
+                .stream()
+                .anyMatch(o -> !priorUncommittedObjects.contains(o));
+    }
 
-        LOGGER.debug("have processed package {}", pkg);
+    private String deriveBasePkgName(String name) {
+        return pkgServiceImpl
+                .tryGetMainPkgNameForSubordinatePkg(name)
+                .orElse(name);
     }
 
-    private Pkg createPkg(ObjectContext objectContext, String name) {
+    private Pkg createPkg(ObjectContext objectContext, ImportBatch importBatch, String name) {
         Preconditions.checkArgument(StringUtils.isNotBlank(name), "the name is required");
 
         Pkg pkg = objectContext.newObject(Pkg.class);
         pkg.setName(name);
         pkg.setActive(Boolean.TRUE);
 
-        String basePkgName = pkgServiceImpl
-                .tryGetMainPkgNameForSubordinatePkg(name)
-                .orElse(name);
-
-        PkgSupplement pkgSupplement = PkgSupplement
-                .tryGetByBasePkgName(objectContext, basePkgName)
-                .orElseGet(() -> {
+        PkgSupplement pkgSupplement = importBatch.pkgSupplementsByBasePkgName.computeIfAbsent(
+                deriveBasePkgName(name),
+                basePkgName -> {
                     PkgSupplement result = objectContext.newObject(PkgSupplement.class);
                     result.setBasePkgName(basePkgName);
                     return result;
@@ -207,15 +345,16 @@ public class PkgImportServiceImpl implements PkgImportService {
 
         pkg.setPkgSupplement(pkgSupplement);
         pkgSupplement.addToPkgs(pkg);
+        importBatch.pkgsByName.put(name, pkg);
 
         return pkg;
     }
 
-    private void importUrls(ObjectContext objectContext, org.haiku.pkg.model.Pkg pkg, PkgVersion persistedPkgVersion) {
-        PkgUrlType pkgUrlType = PkgUrlType.getByCode(
-                objectContext,
-                org.haiku.pkg.model.PkgUrlType.HOMEPAGE.name().toLowerCase()).orElseThrow(IllegalStateException::new);
-
+    private void importUrls(
+            ObjectContext objectContext,
+            PkgUrlType pkgUrlType,
+            org.haiku.pkg.model.Pkg pkg,
+            PkgVersion persistedPkgVersion) {
         String url = Optional.ofNullable(pkg.getHomePageUrl())
                 .map(PkgUrl::getUrl)
                 .map(StringUtils::trimToNull)
@@ -301,13 +440,48 @@ public class PkgImportServiceImpl implements PkgImportService {
 
     @Override
     public void populateFromPayload(ObjectContext objectContext, PkgVersion persistedPkgVersion) {
-        persistedPkgVersion.tryGetHpkgURI(ExposureType.INTERNAL_FACING)
-                .ifPresentOrElse(
-                        u -> populateFromPayload(objectContext, persistedPkgVersion, u),
-                        () -> LOGGER.info(
-                                "no package payload data recorded because there is no "
-                                        + "hpkg url for pkg [{}] version [{}]",
-                                persistedPkgVersion.getPkg(), persistedPkgVersion));
+        Preconditions.checkArgument(null != persistedPkgVersion, "the pkg version must be provided");
+        populateFromPayload(objectContext, List.of(persistedPkgVersion));
+    }
+
+    @Override
+    public List<PkgVersion> populateFromPayload(ObjectContext objectContext, List<PkgVersion> persistedPkgVersions) {
+        Preconditions.checkArgument(null != persistedPkgVersions, "the pkg versions must be provided");
+
+        Map<PkgVersion, URI> uris = new IdentityHashMap<>();
+
+        for (PkgVersion persistedPkgVersion : persistedPkgVersions) {
+            persistedPkgVersion.tryGetHpkgURI(ExposureType.INTERNAL_FACING)
+                    .ifPresentOrElse(
+                            u -> uris.put(persistedPkgVersion, u),
+                            () -> LOGGER.info(
+                                    "no package payload data recorded because there is no "
+                                            + "hpkg url for pkg [{}] version [{}]",
+                                    persistedPkgVersion.getPkg(), persistedPkgVersion));
+        }
+
+        // the payloads are downloaded and parsed concurrently but the data is applied to the context serially
+        // because the context is not thread-safe.
+
+        Map<URI, PkgPayloadData> payloadDatas = pkgPayloadDataService.fetchPayloadData(uris.values());
+        List<PkgVersion> result = new ArrayList<>();
+
+        for (PkgVersion persistedPkgVersion : persistedPkgVersions) {
+            PkgPayloadData payloadData = Optional.ofNullable(uris.get(persistedPkgVersion))
+                    .map(payloadDatas::get)
+                    .orElse(null);
+
+            if (null != payloadData) {
+                Set<Object> priorUncommittedObjects = snapshotUncommittedObjects(objectContext);
+                populateFromPayload(objectContext, persistedPkgVersion, payloadData);
+
+                if (hasUncommittedObjectsSince(objectContext, priorUncommittedObjects)) {
+                    result.add(persistedPkgVersion);
+                }
+            }
+        }
+
+        return result;
     }
 
     /**
@@ -317,66 +491,28 @@ public class PkgImportServiceImpl implements PkgImportService {
     private void populateFromPayload(
             ObjectContext objectContext,
             PkgVersion persistedPkgVersion,
-            URI uri) {
-        File temporaryFile = null;
-
-        try {
-            String prefix = persistedPkgVersion.getPkg().getName() + "_" + randomStringUtils.nextAlphanumeric(3) + "_";
-            // ^ need to ensure minimum length of the prefix
-            temporaryFile = File.createTempFile(prefix, ".hpkg");
-
-            try {
-                urlHelperService.transferPayloadToFile(uri, temporaryFile);
-            } catch (IOException ioe) {
-                // if we can't download then don't stop the entire import process - just log and carry on.
-                LOGGER.warn("unable to download from the url [{}] --> [{}]; will ignore", uri, temporaryFile, ioe);
-                return;
-            }
-
-            // the length of the payload is interesting and trivial to capture from
-            // the data downloaded.
-
-            if (null == persistedPkgVersion.getPayloadLength()
-                    || persistedPkgVersion.getPayloadLength() != temporaryFile.length()) {
-                persistedPkgVersion.setPayloadLength(temporaryFile.length());
-                LOGGER.info("recording new length for [{}] version [{}] of {}bytes",
-                        persistedPkgVersion.getPkg(), persistedPkgVersion, temporaryFile.length());
-            }
+            PkgPayloadData payloadData) {
 
-            // more complex is the capture of the data in the parsed payload data.
+        // the length of the payload is interesting and trivial to capture from
+        // the data downloaded.
 
-            HpkgFileExtractor hpkgFileExtractor;
+        if (null == persistedPkgVersion.getPayloadLength()
+                || persistedPkgVersion.getPayloadLength() != payloadData.length()) {
+            persistedPkgVersion.setPayloadLength(payloadData.length());
+            LOGGER.info("recording new length for [{}] version [{}] of {}bytes",
+                    persistedPkgVersion.getPkg(), persistedPkgVersion, payloadData.length());
+        }
 
-            try {
-                hpkgFileExtractor = new HpkgFileExtractor(temporaryFile);
-            } catch (Throwable th) {
-                // if it is not possible to parse the HPKG then log and carry on.
-                LOGGER.warn("unable to parse the payload from [{}]", uri, th);
-                return;
+        if (payloadData.isParsed()) {
+            if (null != payloadData.iconData()) {
+                populateIconFromPayload(objectContext, persistedPkgVersion, payloadData.iconData());
             }
 
-            populateIconFromPayload(objectContext, persistedPkgVersion, hpkgFileExtractor);
-            populateIsDesktop(persistedPkgVersion, hpkgFileExtractor);
-
-        } catch (IOException ioe) {
-            throw new UncheckedIOException(ioe);
-        } finally {
-            if (null != temporaryFile && temporaryFile.exists()) {
-                if (temporaryFile.delete()) {
-                    LOGGER.debug("did delete the temporary file");
-                } else {
-                    LOGGER.error("unable to delete the temporary file [{}]", temporaryFile);
-                }
-            }
+            populateIsDesktop(persistedPkgVersion, payloadData.isDesktop());
         }
     }
 
-    private void populateIsDesktop(
-            PkgVersion persistedPkgVersion,
-            HpkgFileExtractor hpkgFileExtractor
-    ) {
-        AttributeContext tocContext = hpkgFileExtractor.getTocContext();
-        boolean isDesktop = HpkgHelper.hasDesktopLink(tocContext, hpkgFileExtractor.getToc());
+    private void populateIsDesktop(PkgVersion persistedPkgVersion, boolean isDesktop) {
         boolean currentIsDesktop = BooleanUtils.isTrue(persistedPkgVersion.getPkg().getIsDesktop());
 
         if (currentIsDesktop != isDesktop) {
@@ -388,48 +524,8 @@ public class PkgImportServiceImpl implements PkgImportService {
     private void populateIconFromPayload(
             ObjectContext objectContext,
             PkgVersion persistedPkgVersion,
-            HpkgFileExtractor hpkgFileExtractor) {
-        AttributeContext tocContext = hpkgFileExtractor.getTocContext();
-        List<Attribute> iconAttrs = HpkgHelper.findIconAttributesFromExecutableDirEntries(
-                tocContext, hpkgFileExtractor.getToc());
-        switch (iconAttrs.size()) {
-            case 0 -> LOGGER.info("package [{}] version [{}] has no icons",
-                    persistedPkgVersion.getPkg(), persistedPkgVersion);
-            case 1 -> populateIconFromPayload(
-                    objectContext,
-                    persistedPkgVersion,
-                    tocContext,
-                    Iterables.getFirst(iconAttrs, null)
-            );
-            default -> LOGGER.info("package [{}] version [{}] has {} icons --> ambiguous so will not load any",
-                    persistedPkgVersion.getPkg(), persistedPkgVersion, iconAttrs.size());
-        }
-    }
-
-    private void populateIconFromPayload(
-            ObjectContext objectContext,
-            PkgVersion persistedPkgVersion,
-            AttributeContext context,
-            Attribute attribute) {
-        Attribute dataAttr = attribute.tryGetChildAttribute(AttributeId.DATA).orElse(null);
-
-        if (null == dataAttr) {
-            LOGGER.warn("the icon [{}] found for package [{}] version [{}] does not have a data attribute",
-                    AttributeId.FILE_ATTRIBUTE, persistedPkgVersion.getPkg(), persistedPkgVersion);
-            return;
-        }
-
-        ByteSource byteSource = (ByteSource) dataAttr.getValue(context);
-
-        try {
-            LOGGER.info("did find {} bytes of icon data for package [{}] version [{}]",
-                    byteSource.size(), persistedPkgVersion.getPkg(), persistedPkgVersion);
-        } catch (IOException ignore) {
-            LOGGER.warn("cannot get the size of the icon payload for package [{}] version [{}]",
-                    persistedPkgVersion.getPkg(), persistedPkgVersion);
-        }
-
-        try (InputStream inputStream = byteSource.openStream()) {
+            byte[] iconData) {
+        try (InputStream inputStream = new ByteArrayInputStream(iconData)) {
             pkgIconService.storePkgIconImage(
                     inputStream,
                     MediaType.getByCode(objectContext, MediaType.MEDIATYPE_HAIKUVECTORICONFILE),
@@ -444,8 +540,13 @@ public class PkgImportServiceImpl implements PkgImportService {
         }
     }
 
+    /**
+     * <p>The supplied list of package versions are all of those versions for the same package, repository source
+     * and architecture as the imported package version.</p>
+     */
+
     private void possiblyReconfigurePersistedPkgVersionToBeLatest(
-            ObjectContext objectContext,
+            List<PkgVersion> persistedArchitecturePkgVersions,
             PkgVersion persistedLatestExistingPkgVersion,
             PkgVersion persistedPkgVersion) {
 
@@ -475,13 +576,9 @@ public class PkgImportServiceImpl implements PkgImportService {
                     // then a regression has occurred.  In this case make the imported one be the latest and mark
                     // the later ones as "inactive".
 
-                    List<PkgVersion> pkgVersionsToDeactivate = PkgVersion.findForPkg(
-                                    objectContext,
-                                    persistedPkgVersion.getPkg(),
-                                    persistedPkgVersion.getRepositorySource(),
-                                    false)
+                    List<PkgVersion> pkgVersionsToDeactivate = persistedArchitecturePkgVersions
                             .stream()
-                            .filter((pv) -> pv.getArchitecture().equals(persistedPkgVersion.getArchitecture()))
+                            .filter((pv) -> BooleanUtils.isTrue(pv.getActive()))
                             .filter((pv) -> versionCoordinatesComparator.compare(
                                     persistedPkgVersionCoords,
                                     pv.toVersionCoordinates()) < 0)
@@ -511,5 +608,80 @@ public class PkgImportServiceImpl implements PkgImportService {
 
     }
 
+    /**
+     * <p>A package version that was reconciled as part of a batch together with a flag to indicate if the import
+     * has caused any changes that are attributable to it.</p>
+     */
+
+    private static class ImportedPkgVersion {
+
+        private final PkgVersion pkgVersion;
+
+        private boolean hasChanges;
+
+        ImportedPkgVersion(PkgVersion pkgVersion, boolean hasChanges) {
+            this.pkgVersion = Preconditions.checkNotNull(pkgVersion);
+            this.hasChanges = hasChanges;
+        }
+
+        PkgVersion pkgVersion() {
+            return pkgVersion;
+        }
+
+        boolean hasChanges() {
+            return hasChanges;
+        }
+
+        void markChanged() {
+            hasChanges = true;
+        }
+
+    }
+
+    /**
+     * <p>Holds the data that has been loaded for a batch of packages being imported.  As packages, versions and
+     * supplements are created during the import, they are added here so that later packages in the same batch are
+     * able to find them.</p>
+     */
+
+    private static class ImportBatch {
+
+        private final RepositorySource repositorySource;
+
+        private final Map<String, Architecture> architecturesByCode;
+
+        private final PkgUrlType homePagePkgUrlType;
+
+        private final NaturalLanguage naturalLanguageEnglish;
+
+        private final Prominence prominence;
+
+        private final Map<String, Pkg> pkgsByName = new HashMap<>();
+
+        private final ListMultimap<String, PkgVersion> pkgVersionsByPkgName = ArrayListMultimap.create();
+
+        private final Map<String, PkgSupplement> pkgSupplementsByBasePkgName = new HashMap<>();
+
+        ImportBatch(
+                RepositorySource repositorySource,
+                Map<String, Architecture> architecturesByCode,
+                PkgUrlType homePagePkgUrlType,
+                NaturalLanguage naturalLanguageEnglish,
+                Prominence prominence) {
+            this.repositorySource = Preconditions.checkNotNull(repositorySource);
+            this.architecturesByCode = Preconditions.checkNotNull(architecturesByCode);
+            this.homePagePkgUrlType = Preconditions.checkNotNull(homePagePkgUrlType);
+            this.naturalLanguageEnglish = Preconditions.checkNotNull(naturalLanguageEnglish);
+            this.prominence = Preconditions.checkNotNull(prominence);
+        }
+
+        List<PkgVersion> getPkgVersions(String pkgName, Architecture architecture) {
+            return pkgVersionsByPkgName.get(pkgName)
+                    .stream()
+                    .filter(pv -> pv.getArchitecture().equals(architecture))
+                    .toList();
+        }
+
+    }
 
 }
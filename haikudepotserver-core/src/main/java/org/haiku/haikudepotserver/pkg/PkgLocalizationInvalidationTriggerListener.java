@@ -0,0 +1,62 @@
+/*
+ * Copyright 2026, Andrew Lindesay
+ * Distributed under the terms of the MIT License.
+ */
+
+package org.haiku.haikudepotserver.pkg;
+
+import org.apache.cayenne.configuration.server.ServerRuntime;
+import org.haiku.haikudepotserver.dataobjects.Pkg;
+import org.haiku.haikudepotserver.dataobjects.PkgLocalization;
+import org.haiku.haikudepotserver.dataobjects.PkgVersionLocalization;
+import org.haiku.haikudepotserver.pkg.model.PkgLocalizationInvalidationEvent;
+import org.haiku.haikudepotserver.support.cayenne.AbstractInvalidationTriggerListener;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * <p>This listener will detect changes to the localizations of packages and package versions and, once the
+ * changes have been committed, will publish a {@link PkgLocalizationInvalidationEvent} for the packages
+ * involved so that their resolved localizations are discarded.</p>
+ */
+
+@Component
+public class PkgLocalizationInvalidationTriggerListener extends AbstractInvalidationTriggerListener {
+
+    public PkgLocalizationInvalidationTriggerListener(
+            ServerRuntime serverRuntime,
+            ApplicationEventPublisher applicationEventPublisher) {
+        super(serverRuntime, applicationEventPublisher, List.of(
+                PkgLocalization.class,
+                PkgVersionLocalization.class));
+    }
+
+    /**
+     * <p>A localization that is detached from its package version before it is deleted no longer identifies
+     * its package.</p>
+     */
+
+    @Override
+    protected boolean deriveAll(Object entity) {
+        return entity instanceof PkgVersionLocalization pvl && null == pvl.getPkgVersion();
+    }
+
+    @Override
+    protected Set<String> deriveNames(Object entity) {
+        return switch (entity) {
+            case PkgVersionLocalization pvl -> Set.of(pvl.getPkgVersion().getPkg().getName());
+            case PkgLocalization pl -> pl.getPkgSupplement().getPkgs().stream().map(Pkg::getName).collect(Collectors.toSet());
+            default -> Set.of();
+        };
+    }
+
+    @Override
+    protected PkgLocalizationInvalidationEvent createEvent(Set<String> names) {
+        return new PkgLocalizationInvalidationEvent(names);
+    }
+
+}
@@ -6,32 +6,100 @@
 package org.haiku.haikudepotserver.pkg;
 
 import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.cayenne.DataRow;
 import org.apache.cayenne.ObjectContext;
+import org.apache.cayenne.ObjectId;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.Strings;
 import org.haiku.haikudepotserver.dataobjects.*;
+import org.haiku.haikudepotserver.metrics.MetricsConstants;
 import org.haiku.haikudepotserver.naturallanguage.model.NaturalLanguageCoded;
+import org.haiku.haikudepotserver.pkg.model.PkgLocalizationInvalidationEvent;
 import org.haiku.haikudepotserver.pkg.model.PkgLocalizationService;
 import org.haiku.haikudepotserver.pkg.model.PkgSupplementModificationAgent;
 import org.haiku.haikudepotserver.pkg.model.PkgSupplementModificationService;
 import org.haiku.haikudepotserver.pkg.model.ResolvedPkgVersionLocalization;
 import org.haiku.haikudepotserver.naturallanguage.model.NaturalLanguageCoordinates;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
+/**
+ * <p>Localizations resolved without a search pattern are held in memory against the package version and
+ * the natural language.  They are discarded when a {@link PkgLocalizationInvalidationEvent} arrives for the
+ * package.  A resolution that was being loaded at the time that an invalidation arrived is returned to the
+ * caller, but is not retained.</p>
+ *
+ * <p>Should an invalidation be missed, for example because it could not be relayed from another instance,
+ * the resolutions are also discarded some time after they were loaded.</p>
+ */
+
 @Service
 public class PkgLocalizationServiceImpl implements PkgLocalizationService {
 
     private final PkgSupplementModificationService pkgSupplementModificationService;
 
-    public PkgLocalizationServiceImpl(PkgSupplementModificationService pkgSupplementModificationService) {
+    private final Cache<ResolutionKey, Resolution> resolutionCache;
+
+    /**
+     * <p>Counts the invalidations so that a resolution loaded across one can be identified.</p>
+     */
+
+    private final AtomicLong invalidationGeneration = new AtomicLong();
+
+    private final Counter hitCounter;
+
+    private final Counter missCounter;
+
+    public PkgLocalizationServiceImpl(
+            PkgSupplementModificationService pkgSupplementModificationService,
+            @Value("${hds.pkg-localization.cache.max-entries:10000}") Long cacheMaxEntries,
+            @Value("${hds.pkg-localization.cache.expiry-minutes:60}") Long cacheExpiryMinutes,
+            MeterRegistry meterRegistry) {
+        Preconditions.checkNotNull(meterRegistry);
+        Preconditions.checkArgument(cacheMaxEntries > 0, "the maximum entries must be greater than zero");
+        Preconditions.checkArgument(cacheExpiryMinutes > 0, "the expiry minutes must be greater than zero");
         this.pkgSupplementModificationService = Preconditions.checkNotNull(pkgSupplementModificationService);
+
+        resolutionCache = CacheBuilder
+                .newBuilder()
+                .maximumSize(cacheMaxEntries)
+                .expireAfterWrite(cacheExpiryMinutes, TimeUnit.MINUTES)
+                .build();
+
+        hitCounter = Counter.builder(MetricsConstants.COUNTER_NAME_PKG_LOCALIZATION_CACHE)
+                .tag(MetricsConstants.TAG_NAME_RESULT, "hit")
+                .register(meterRegistry);
+        missCounter = Counter.builder(MetricsConstants.COUNTER_NAME_PKG_LOCALIZATION_CACHE)
+                .tag(MetricsConstants.TAG_NAME_RESULT, "miss")
+                .register(meterRegistry);
+    }
+
+    @EventListener
+    public void onPkgLocalizationInvalidation(PkgLocalizationInvalidationEvent event) {
+        invalidationGeneration.incrementAndGet();
+
+        if (event.getPkgNames().isEmpty()) {
+            resolutionCache.invalidateAll();
+            return;
+        }
+
+        resolutionCache.asMap().values().removeIf(r -> event.getPkgNames().contains(r.pkgName()));
     }
 
     private void fill(ResolvedPkgVersionLocalization result, Pattern pattern, PkgVersionLocalization pvl) {
@@ -120,11 +188,82 @@ public class PkgLocalizationServiceImpl implements PkgLocalizationService {
             PkgVersion pkgVersion,
             Pattern searchPattern,
             NaturalLanguage naturalLanguage) {
+        if (null == searchPattern && isResolvableFromCache(context, pkgVersion)) {
+            return resolveAll(context, Set.of(pkgVersion), naturalLanguage).get(pkgVersion.getObjectId());
+        }
+
         ResolvedPkgVersionLocalization result = new ResolvedPkgVersionLocalization();
         fillResolvedPkgVersionLocalization(result, context, pkgVersion, searchPattern, naturalLanguage);
         return result;
     }
 
+    @Override
+    public Map<ObjectId, ResolvedPkgVersionLocalization> resolveAll(
+            ObjectContext context,
+            Collection<PkgVersion> pkgVersions,
+            NaturalLanguage naturalLanguage) {
+        Preconditions.checkArgument(null != context, "the context must be supplied");
+        Preconditions.checkArgument(null != pkgVersions, "the pkg versions must be supplied");
+        Preconditions.checkArgument(null != naturalLanguage, "the natural language must be supplied");
+
+        Map<ObjectId, ResolvedPkgVersionLocalization> result = new HashMap<>();
+        Map<Long, PkgVersion> missedPkgVersions = new HashMap<>();
+
+        for (PkgVersion pkgVersion : pkgVersions) {
+
+            // uncommitted changes would not be seen by the query so these are resolved from the objects.
+
+            if (!isResolvableFromCache(context, pkgVersion)) {
+                ResolvedPkgVersionLocalization resolved = new ResolvedPkgVersionLocalization();
+                fillResolvedPkgVersionLocalization(resolved, context, pkgVersion, null, naturalLanguage);
+                result.put(pkgVersion.getObjectId(), resolved);
+            }
+            else {
+                Long pkgVersionId = (Long) pkgVersion.getObjectId().getIdSnapshot().get(PkgVersion.ID_PK_COLUMN);
+                Resolution resolution = resolutionCache.getIfPresent(
+                        new ResolutionKey(pkgVersionId, naturalLanguage.getCode()));
+
+                if (null == resolution) {
+                    missedPkgVersions.put(pkgVersionId, pkgVersion);
+                } else {
+                    hitCounter.increment();
+                    result.put(pkgVersion.getObjectId(), resolution.toResolvedPkgVersionLocalization());
+                }
+            }
+        }
+
+        if (!missedPkgVersions.isEmpty()) {
+            missCounter.increment(missedPkgVersions.size());
+            long generation = invalidationGeneration.get();
+            Map<ResolutionKey, Resolution> loaded = new HashMap<>();
+
+            for (DataRow dataRow : FixedPkgLocalizationLookupServiceImpl.performResolution(
+                    context, missedPkgVersions.values(), naturalLanguage)) {
+                Long pkgVersionId = (Long) dataRow.get("pv_id");
+                ResolvedPkgVersionLocalization resolved = new ResolvedPkgVersionLocalization();
+                FixedPkgLocalizationLookupServiceImpl.toLayers(dataRow)
+                        .forEach(l -> FixedPkgLocalizationLookupServiceImpl.fill(resolved, null, l));
+                loaded.put(
+                        new ResolutionKey(pkgVersionId, naturalLanguage.getCode()),
+                        new Resolution((String) dataRow.get("p_name"),
+                                resolved.getTitle(), resolved.getSummary(), resolved.getDescription()));
+                result.put(missedPkgVersions.get(pkgVersionId).getObjectId(), resolved);
+            }
+
+            resolutionCache.putAll(loaded);
+
+            if (generation != invalidationGeneration.get()) {
+                loaded.forEach((k, v) -> resolutionCache.asMap().remove(k, v));
+            }
+        }
+
+        return result;
+    }
+
+    private boolean isResolvableFromCache(ObjectContext context, PkgVersion pkgVersion) {
+        return !pkgVersion.getObjectId().isTemporary() && !context.hasChanges();
+    }
+
     @Override
     public PkgLocalization updatePkgLocalization(
             ObjectContext context,
@@ -274,4 +413,24 @@ public class PkgLocalizationServiceImpl implements PkgLocalizationService {
         return "";
     }
 
+    /**
+     * <p>Identifies a resolution of a package version's localization in a natural language.</p>
+     */
+
+    private record ResolutionKey(Long pkgVersionId, String naturalLanguageCode) {
+    }
+
+    /**
+     * <p>The resolved localization is held immutably and the name of the package is retained so that it
+     * can be discarded when the package's localizations change.</p>
+     */
+
+    private record Resolution(String pkgName, String title, String summary, String description) {
+
+        ResolvedPkgVersionLocalization toResolvedPkgVersionLocalization() {
+            return new ResolvedPkgVersionLocalization(title, summary, description);
+        }
+
+    }
+
 }
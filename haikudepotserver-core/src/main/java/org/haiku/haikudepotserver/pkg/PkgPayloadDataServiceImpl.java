@@ -0,0 +1,198 @@
+/*
+ * Copyright 2026, Andrew Lindesay
+ * Distributed under the terms of the MIT License.
+ */
+
+package org.haiku.haikudepotserver.pkg;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Iterables;
+import com.google.common.io.ByteSource;
+import org.apache.commons.lang3.RandomStringUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.haiku.haikudepotserver.pkg.model.PkgPayloadData;
+import org.haiku.haikudepotserver.pkg.model.PkgPayloadDataService;
+import org.haiku.haikudepotserver.support.HpkgHelper;
+import org.haiku.haikudepotserver.support.URLHelperService;
+import org.haiku.pkg.AttributeContext;
+import org.haiku.pkg.HpkgFileExtractor;
+import org.haiku.pkg.model.Attribute;
+import org.haiku.pkg.model.AttributeId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * <p>Each payload is downloaded and parsed on its own virtual thread.  The number of payloads being processed at
+ * once is limited overall and is also limited for each host that the payloads are downloaded from so that a
+ * single repository server is not overwhelmed.  The limits are shared between all callers.</p>
+ */
+
+@Service
+public class PkgPayloadDataServiceImpl implements PkgPayloadDataService {
+
+    protected final static Logger LOGGER = LoggerFactory.getLogger(PkgPayloadDataServiceImpl.class);
+
+    private final URLHelperService urlHelperService;
+
+    private final Semaphore semaphore;
+
+    private final int perHostParallelism;
+
+    private final ConcurrentMap<String, Semaphore> hostSemaphores = new ConcurrentHashMap<>();
+
+    private final RandomStringUtils randomStringUtils = RandomStringUtils.insecure();
+
+    public PkgPayloadDataServiceImpl(
+            URLHelperService urlHelperService,
+            @Value("${hds.repository.import.payload.parallelism:8}") int parallelism,
+            @Value("${hds.repository.import.payload.per-host-parallelism:4}") int perHostParallelism) {
+        Preconditions.checkArgument(parallelism > 0, "the parallelism must be at least one");
+        Preconditions.checkArgument(perHostParallelism > 0, "the per-host parallelism must be at least one");
+        this.urlHelperService = Preconditions.checkNotNull(urlHelperService);
+        this.semaphore = new Semaphore(parallelism);
+        this.perHostParallelism = perHostParallelism;
+    }
+
+    @Override
+    public Map<URI, PkgPayloadData> fetchPayloadData(Collection<URI> uris) {
+        Preconditions.checkArgument(null != uris, "the uris must be provided");
+
+        Map<URI, PkgPayloadData> result = new ConcurrentHashMap<>();
+
+        if (!uris.isEmpty()) {
+            try (ExecutorService executorService = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (URI uri : new LinkedHashSet<>(uris)) {
+                    executorService.submit(() -> tryFetchPayloadDataWithPermits(uri)
+                            .ifPresent(d -> result.put(uri, d)));
+                }
+            }
+            // ^ closing the executor service will wait for all of the tasks to complete.
+
+            LOGGER.info("did fetch payload data for {} of {} uris", result.size(), uris.size());
+        }
+
+        return result;
+    }
+
+    /**
+     * <p>The permit for the host is obtained first so that tasks waiting on a busy host are not holding permits
+     * that could be used for other hosts.</p>
+     */
+
+    private Optional<PkgPayloadData> tryFetchPayloadDataWithPermits(URI uri) {
+        Semaphore hostSemaphore = hostSemaphores.computeIfAbsent(
+                StringUtils.trimToEmpty(uri.getHost()),
+                h -> new Semaphore(perHostParallelism));
+
+        try {
+            hostSemaphore.acquire();
+
+            try {
+                semaphore.acquire();
+
+                try {
+                    return tryFetchPayloadData(uri);
+                } finally {
+                    semaphore.release();
+                }
+            } finally {
+                hostSemaphore.release();
+            }
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            LOGGER.warn("interrupted when fetching the payload data from [{}]", uri);
+        } catch (Throwable th) {
+            LOGGER.warn("unable to fetch the payload data from [{}]; will ignore", uri, th);
+        }
+
+        return Optional.empty();
+    }
+
+    private Optional<PkgPayloadData> tryFetchPayloadData(URI uri) throws IOException {
+        File temporaryFile = null;
+
+        try {
+            String prefix = StringUtils.substringAfterLast(uri.getPath(), "/") + "_" + randomStringUtils.nextAlphanumeric(3) + "_";
+            // ^ need to ensure minimum length of the prefix
+            temporaryFile = File.createTempFile(prefix, ".hpkg");
+
+            try {
+                urlHelperService.transferPayloadToFile(uri, temporaryFile);
+            } catch (IOException ioe) {
+                // if we can't download then don't stop the entire import process - just log and carry on.
+                LOGGER.warn("unable to download from the url [{}] --> [{}]; will ignore", uri, temporaryFile, ioe);
+                return Optional.empty();
+            }
+
+            // more complex is the capture of the data in the parsed payload data.
+
+            try (HpkgFileExtractor hpkgFileExtractor = new HpkgFileExtractor(temporaryFile)) {
+                AttributeContext tocContext = hpkgFileExtractor.getTocContext();
+                return Optional.of(new PkgPayloadData(
+                        temporaryFile.length(),
+                        HpkgHelper.hasDesktopLink(tocContext, hpkgFileExtractor.getToc()),
+                        tryGetIconData(uri, hpkgFileExtractor).orElse(null)));
+            } catch (Throwable th) {
+                // if it is not possible to parse the HPKG then log and carry on.
+                LOGGER.warn("unable to parse the payload from [{}]", uri, th);
+                return Optional.of(new PkgPayloadData(temporaryFile.length(), null, null));
+            }
+        } finally {
+            if (null != temporaryFile && temporaryFile.exists()) {
+                if (temporaryFile.delete()) {
+                    LOGGER.debug("did delete the temporary file");
+                } else {
+                    LOGGER.error("unable to delete the temporary file [{}]", temporaryFile);
+                }
+            }
+        }
+    }
+
+    private Optional<byte[]> tryGetIconData(URI uri, HpkgFileExtractor hpkgFileExtractor) throws IOException {
+        AttributeContext tocContext = hpkgFileExtractor.getTocContext();
+        List<Attribute> iconAttrs = HpkgHelper.findIconAttributesFromExecutableDirEntries(
+                tocContext, hpkgFileExtractor.getToc());
+
+        switch (iconAttrs.size()) {
+            case 0 -> {
+                LOGGER.info("payload [{}] has no icons", uri);
+                return Optional.empty();
+            }
+            case 1 -> {
+                Attribute dataAttr = Iterables.getOnlyElement(iconAttrs)
+                        .tryGetChildAttribute(AttributeId.DATA).orElse(null);
+
+                if (null == dataAttr) {
+                    LOGGER.warn("the icon [{}] found for payload [{}] does not have a data attribute",
+                            AttributeId.FILE_ATTRIBUTE, uri);
+                    return Optional.empty();
+                }
+
+                byte[] data = ((ByteSource) dataAttr.getValue(tocContext)).read();
+                LOGGER.info("did find {} bytes of icon data for payload [{}]", data.length, uri);
+                return Optional.of(data);
+            }
+            default -> {
+                LOGGER.info("payload [{}] has {} icons --> ambiguous so will not load any", uri, iconAttrs.size());
+                return Optional.empty();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2026, Andrew Lindesay
+ * Distributed under the terms of the MIT License.
+ */
+
+package org.haiku.haikudepotserver.pkg;
+
+import org.apache.cayenne.ObjectContext;
+import org.haiku.haikudepotserver.dataobjects.PkgScreenshot;
+import org.haiku.haikudepotserver.pkg.model.PkgScreenshotRendition;
+import org.haiku.haikudepotserver.pkg.model.PkgScreenshotRenditionMetadata;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+
+/**
+ * <p>This object will maintain a cache of screenshots scaled to various sizes. The requested sizes are
+ * normalised into buckets so that clients asking for slightly different sizes share the same rendition.</p>
+ */
+
+@Repository
+public interface PkgScreenshotRenditionRepository {
+
+    /**
+     * <p>Derives the entity tag for the rendition without the need to render it.</p>
+     */
+
+    String deriveETag(PkgScreenshot screenshot, int targetWidth, int targetHeight);
+
+    /**
+     * <p>Provides the size of the rendition. If the rendition has already been rendered then this does not
+     * require that the image is loaded or rendered.</p>
+     */
+
+    PkgScreenshotRenditionMetadata getMetadata(
+            ObjectContext context,
+            PkgScreenshot screenshot,
+            int targetWidth,
+            int targetHeight) throws IOException;
+
+    /**
+     * <p>Provides the rendition; rendering it if necessary. The rendition will fit into the box of the target
+     * width and height.</p>
+     */
+
+    PkgScreenshotRendition get(
+            ObjectContext context,
+            PkgScreenshot screenshot,
+            int targetWidth,
+            int targetHeight) throws IOException;
+
+}
@@ -0,0 +1,262 @@
+/*
+ * Copyright 2026, Andrew Lindesay
+ * Distributed under the terms of the MIT License.
+ */
+
+package org.haiku.haikudepotserver.pkg;
+
+import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.cayenne.ObjectContext;
+import org.haiku.haikudepotserver.dataobjects.PkgScreenshot;
+import org.haiku.haikudepotserver.dataobjects.PkgScreenshotImage;
+import org.haiku.haikudepotserver.graphics.ImageHelper;
+import org.haiku.haikudepotserver.graphics.bitmap.PngThumbnailService;
+import org.haiku.haikudepotserver.metrics.MetricsConstants;
+import org.haiku.haikudepotserver.pkg.model.PkgScreenshotRendition;
+import org.haiku.haikudepotserver.pkg.model.PkgScreenshotRenditionMetadata;
+import org.haiku.haikudepotserver.support.cache.BoundedDirectoryCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Renditions are held in two tiers; an in-memory tier bounded by the number of bytes of image data and an
+ * optional tier on disk which survives a restart of the application server. The metadata of the renditions is
+ * held separately in memory so that it is still available once the image data has been evicted from the
+ * in-memory tier.</p>
+ *
+ * <p>The renditions are keyed by the screenshot's code, the hash of the screenshot's data and the size bucket.
+ * If the screenshot's data changes, for example because it has been optimized, then the key changes and the
+ * stale renditions simply age out.</p>
+ *
+ * <p>Concurrent requests for the same rendition that is not yet in the cache are coalesced so that the
+ * rendition is only rendered once.</p>
+ */
+
+public class PkgScreenshotRenditionRepositoryImpl implements PkgScreenshotRenditionRepository {
+
+    protected final static Logger LOGGER = LoggerFactory.getLogger(PkgScreenshotRenditionRepositoryImpl.class);
+
+    /**
+     * <p>Requested sides are rounded down to a multiple of this value. Common sizes such as 120, 160, 240, 320,
+     * 480 and 640 are multiples so that they are not altered.</p>
+     */
+
+    private final static int SIZE_BUCKET_STEP = 8;
+
+    private final static String SUFFIX = ".png";
+
+    private final PngThumbnailService pngThumbnailService;
+
+    private final ImageHelper imageHelper = new ImageHelper();
+
+    private final Cache<String, PkgScreenshotRendition> renditionCache;
+
+    private final Cache<String, PkgScreenshotRenditionMetadata> metadataCache;
+
+    /**
+     * <p>This will be null if no directory was configured.</p>
+     */
+
+    private final BoundedDirectoryCache directoryCache;
+
+    private final Counter memoryHitCounter;
+
+    private final Counter directoryHitCounter;
+
+    private final Counter renderCounter;
+
+    /**
+     * @param directory may be null in which case the renditions are only held in memory.
+     */
+
+    public PkgScreenshotRenditionRepositoryImpl(
+            PngThumbnailService pngThumbnailService,
+            long memoryMaxBytes,
+            Path directory,
+            long directoryMaxBytes,
+            MeterRegistry meterRegistry) {
+        Preconditions.checkNotNull(meterRegistry);
+        Preconditions.checkArgument(memoryMaxBytes > 0, "the maximum memory bytes must be greater than zero");
+        this.pngThumbnailService = Preconditions.checkNotNull(pngThumbnailService);
+
+        renditionCache = CacheBuilder
+                .newBuilder()
+                .maximumWeight(memoryMaxBytes)
+                .weigher((String k, PkgScreenshotRendition v) -> v.data().length)
+                .expireAfterAccess(12, TimeUnit.HOURS)
+                .build();
+
+        metadataCache = CacheBuilder
+                .newBuilder()
+                .maximumSize(16384)
+                .expireAfterAccess(12, TimeUnit.HOURS)
+                .build();
+
+        directoryCache = null == directory ? null : new BoundedDirectoryCache(directory, SUFFIX, directoryMaxBytes);
+
+        memoryHitCounter = Counter.builder(MetricsConstants.COUNTER_NAME_PKG_SCREENSHOT_RENDITION_CACHE)
+                .tag(MetricsConstants.TAG_NAME_RESULT, "memory")
+                .register(meterRegistry);
+        directoryHitCounter = Counter.builder(MetricsConstants.COUNTER_NAME_PKG_SCREENSHOT_RENDITION_CACHE)
+                .tag(MetricsConstants.TAG_NAME_RESULT, "directory")
+                .register(meterRegistry);
+        renderCounter = Counter.builder(MetricsConstants.COUNTER_NAME_PKG_SCREENSHOT_RENDITION_CACHE)
+                .tag(MetricsConstants.TAG_NAME_RESULT, "render")
+                .register(meterRegistry);
+
+        if (null != directoryCache) {
+            LOGGER.info("will cache pkg screenshot renditions in [{}] up to {} bytes; currently {} bytes",
+                    directory, directoryMaxBytes, directoryCache.getTotalBytes());
+        }
+    }
+
+    /**
+     * <p>Sides smaller than a single step are left as they are so that the bucket is never zero.</p>
+     */
+
+    static int toSizeBucket(int side) {
+        Preconditions.checkArgument(side > 0, "the side must be greater than zero");
+
+        if (side < SIZE_BUCKET_STEP) {
+            return side;
+        }
+
+        return side - (side % SIZE_BUCKET_STEP);
+    }
+
+    private static String deriveKey(PkgScreenshot screenshot, int targetWidth, int targetHeight) {
+        Preconditions.checkArgument(null != screenshot, "the screenshot must be provided");
+        return String.format("%s-%s-%dx%d",
+                screenshot.getCode(),
+                screenshot.getHashSha256(),
+                toSizeBucket(targetWidth),
+                toSizeBucket(targetHeight));
+    }
+
+    @Override
+    public String deriveETag(PkgScreenshot screenshot, int targetWidth, int targetHeight) {
+        Preconditions.checkArgument(null != screenshot, "the screenshot must be provided");
+        return String.format("\"%s-%dx%d\"",
+                screenshot.getHashSha256(),
+                toSizeBucket(targetWidth),
+                toSizeBucket(targetHeight));
+    }
+
+    @Override
+    public PkgScreenshotRenditionMetadata getMetadata(
+            ObjectContext context,
+            PkgScreenshot screenshot,
+            int targetWidth,
+            int targetHeight) throws IOException {
+        PkgScreenshotRenditionMetadata metadata = metadataCache.getIfPresent(
+                deriveKey(screenshot, targetWidth, targetHeight));
+
+        if (null != metadata) {
+            memoryHitCounter.increment();
+            return metadata;
+        }
+
+        return get(context, screenshot, targetWidth, targetHeight).metadata();
+    }
+
+    @Override
+    public PkgScreenshotRendition get(
+            ObjectContext context,
+            PkgScreenshot screenshot,
+            int targetWidth,
+            int targetHeight) throws IOException {
+        Preconditions.checkArgument(null != context, "the context must be provided");
+        String key = deriveKey(screenshot, targetWidth, targetHeight);
+        PkgScreenshotRendition rendition = renditionCache.getIfPresent(key);
+
+        if (null != rendition) {
+            memoryHitCounter.increment();
+            return rendition;
+        }
+
+        // the cache will block concurrent loads of the same key until the first load has completed.
+
+        try {
+            rendition = renditionCache.get(key, () -> load(key, screenshot, targetWidth, targetHeight));
+        } catch (ExecutionException | UncheckedExecutionException | ExecutionError e) {
+            if (e.getCause() instanceof IOException ioe) {
+                throw ioe;
+            }
+            throw new IOException("unable to render the screenshot [" + screenshot.getCode() + "]", e.getCause());
+        }
+
+        metadataCache.put(key, rendition.metadata());
+        return rendition;
+    }
+
+    private PkgScreenshotRendition load(
+            String key,
+            PkgScreenshot screenshot,
+            int targetWidth,
+            int targetHeight) throws IOException {
+        byte[] data;
+
+        if (null == directoryCache) {
+            renderCounter.increment();
+            data = render(screenshot, toSizeBucket(targetWidth), toSizeBucket(targetHeight));
+        } else {
+            BoundedDirectoryCache.Lookup lookup = directoryCache.get(key, () -> {
+                renderCounter.increment();
+                return render(screenshot, toSizeBucket(targetWidth), toSizeBucket(targetHeight));
+            });
+
+            if (BoundedDirectoryCache.Source.DIRECTORY == lookup.source()) {
+                directoryHitCounter.increment();
+            }
+
+            data = lookup.data();
+        }
+
+        ImageHelper.Size size = imageHelper.derivePngSize(data);
+
+        if (null == size) {
+            throw new IOException("the rendition of the screenshot [" + screenshot.getCode() + "] is not a png");
+        }
+
+        return new PkgScreenshotRendition(
+                new PkgScreenshotRenditionMetadata(
+                        deriveETag(screenshot, targetWidth, targetHeight),
+                        size.width,
+                        size.height,
+                        data.length),
+                data);
+    }
+
+    private byte[] render(PkgScreenshot screenshot, int width, int height) throws IOException {
+        PkgScreenshotImage pkgScreenshotImage = screenshot.tryGetPkgScreenshotImage()
+                .orElseThrow(() -> new IllegalStateException(
+                        "the screenshot " + screenshot.getCode() + " is missing a screenshot image"));
+
+        if (!pkgScreenshotImage.getMediaType().getCode().equals(com.google.common.net.MediaType.PNG.toString())) {
+            throw new IllegalStateException("the screenshot system only supports png images at the present time");
+        }
+
+        try (
+                InputStream inputStream = new ByteArrayInputStream(pkgScreenshotImage.getData());
+                ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
+            pngThumbnailService.thumbnail(inputStream, outputStream, width, height);
+            LOGGER.debug("did render screenshot [{}] at {}x{}", screenshot.getCode(), width, height);
+            return outputStream.toByteArray();
+        }
+    }
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2018-2025, Andrew Lindesay
+ * Copyright 2018-2026, Andrew Lindesay
  * Distributed under the terms of the MIT License.
  */
 
@@ -18,8 +18,9 @@ import org.haiku.haikudepotserver.dataobjects.PkgSupplement;
 import org.haiku.haikudepotserver.dataobjects.auto._PkgScreenshot;
 import org.haiku.haikudepotserver.graphics.ImageHelper;
 import org.haiku.haikudepotserver.graphics.bitmap.PngOptimizationService;
-import org.haiku.haikudepotserver.graphics.bitmap.PngThumbnailService;
 import org.haiku.haikudepotserver.pkg.model.BadPkgScreenshotException;
+import org.haiku.haikudepotserver.pkg.model.PkgScreenshotRendition;
+import org.haiku.haikudepotserver.pkg.model.PkgScreenshotRenditionMetadata;
 import org.haiku.haikudepotserver.pkg.model.PkgScreenshotService;
 import org.haiku.haikudepotserver.pkg.model.PkgSupplementModificationAgent;
 import org.haiku.haikudepotserver.pkg.model.PkgSupplementModificationService;
@@ -40,16 +41,16 @@ public class PkgScreenshotServiceImpl implements PkgScreenshotService {
 
     private final ImageHelper imageHelper;
     private final PngOptimizationService pngOptimizationService;
-    private final PngThumbnailService pngThumbnailService;
+    private final PkgScreenshotRenditionRepository pkgScreenshotRenditionRepository;
 
     private final PkgSupplementModificationService pkgSupplementModificationService;
 
     public PkgScreenshotServiceImpl(
             PngOptimizationService pngOptimizationService,
-            PngThumbnailService pngThumbnailService,
+            PkgScreenshotRenditionRepository pkgScreenshotRenditionRepository,
             PkgSupplementModificationService pkgSupplementModificationService) {
         this.pngOptimizationService = Preconditions.checkNotNull(pngOptimizationService);
-        this.pngThumbnailService = Preconditions.checkNotNull(pngThumbnailService);
+        this.pkgScreenshotRenditionRepository = Preconditions.checkNotNull(pkgScreenshotRenditionRepository);
         this.pkgSupplementModificationService = Preconditions.checkNotNull(pkgSupplementModificationService);
         imageHelper = new ImageHelper();
     }
@@ -108,38 +109,41 @@ public class PkgScreenshotServiceImpl implements PkgScreenshotService {
         return false;
     }
 
-    /**
-     * <p>This method will write the package's screenshot to the output stream.  It will constrain the output to the
-     * size given by scaling the image.  The output is a PNG image.</p>
-     */
+    @Override
+    public String deriveRenditionETag(
+            PkgScreenshot screenshot,
+            int targetWidth,
+            int targetHeight) {
+        Preconditions.checkArgument(null != screenshot, "the screenshot must be provided");
+        Preconditions.checkArgument(targetHeight > 0, "the target height is <= 0");
+        Preconditions.checkArgument(targetWidth > 0, "the target width is <= 0");
+        return pkgScreenshotRenditionRepository.deriveETag(screenshot, targetWidth, targetHeight);
+    }
 
     @Override
-    public void writePkgScreenshotImage(
-            OutputStream output,
+    public PkgScreenshotRenditionMetadata getPkgScreenshotRenditionMetadata(
             ObjectContext context,
             PkgScreenshot screenshot,
             int targetWidth,
             int targetHeight) throws IOException {
-
-        Preconditions.checkArgument(null != output, "the output stream must be provided");
         Preconditions.checkArgument(null != context, "the context must be provided");
         Preconditions.checkArgument(null != screenshot, "the screenshot must be provided");
         Preconditions.checkArgument(targetHeight > 0, "the target height is <= 0");
         Preconditions.checkArgument(targetWidth > 0, "the target width is <= 0");
+        return pkgScreenshotRenditionRepository.getMetadata(context, screenshot, targetWidth, targetHeight);
+    }
 
-        Optional<PkgScreenshotImage> pkgScreenshotImageOptional = screenshot.tryGetPkgScreenshotImage();
-
-        if (pkgScreenshotImageOptional.isEmpty()) {
-            throw new IllegalStateException("the screenshot " + screenshot.getCode() + " is missing a screenshot image");
-        }
-
-        if (!pkgScreenshotImageOptional.get().getMediaType().getCode().equals(com.google.common.net.MediaType.PNG.toString())) {
-            throw new IllegalStateException("the screenshot system only supports png images at the present time");
-        }
-
-        try (InputStream inputStream = new ByteArrayInputStream(pkgScreenshotImageOptional.get().getData())) {
-            pngThumbnailService.thumbnail(inputStream, output, targetWidth, targetHeight);
-        }
+    @Override
+    public PkgScreenshotRendition getPkgScreenshotRendition(
+            ObjectContext context,
+            PkgScreenshot screenshot,
+            int targetWidth,
+            int targetHeight) throws IOException {
+        Preconditions.checkArgument(null != context, "the context must be provided");
+        Preconditions.checkArgument(null != screenshot, "the screenshot must be provided");
+        Preconditions.checkArgument(targetHeight > 0, "the target height is <= 0");
+        Preconditions.checkArgument(targetWidth > 0, "the target width is <= 0");
+        return pkgScreenshotRenditionRepository.get(context, screenshot, targetWidth, targetHeight);
     }
 
     /**
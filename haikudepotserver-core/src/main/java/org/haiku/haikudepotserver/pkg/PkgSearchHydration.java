@@ -0,0 +1,149 @@
+/*
+ * Copyright 2026, Andrew Lindesay
+ * Distributed under the terms of the MIT License.
+ */
+
+package org.haiku.haikudepotserver.pkg;
+
+import com.google.common.base.Preconditions;
+import org.apache.cayenne.DataRow;
+import org.apache.cayenne.ObjectContext;
+import org.apache.cayenne.ObjectId;
+import org.apache.cayenne.Persistent;
+import org.apache.cayenne.exp.ExpressionFactory;
+import org.apache.cayenne.query.ObjectSelect;
+import org.haiku.haikudepotserver.dataobjects.HaikuDepot;
+import org.haiku.haikudepotserver.dataobjects.NaturalLanguage;
+import org.haiku.haikudepotserver.dataobjects.Pkg;
+import org.haiku.haikudepotserver.dataobjects.PkgUserRatingAggregate;
+import org.haiku.haikudepotserver.dataobjects.PkgVersion;
+import org.haiku.haikudepotserver.dataobjects.Repository;
+import org.haiku.haikudepotserver.dataobjects.RepositorySource;
+import org.haiku.haikudepotserver.pkg.model.PkgLocalizationLookupService;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * <p>When a page of package versions is presented as the result of a search, a number of related pieces of
+ * data are required for each package version. Obtaining these one package version at a time would cause a
+ * number of queries proportional to the size of the page. This object loads the related data for a fixed set
+ * of package versions up-front in a constant number of queries.</p>
+ *
+ * <p>The presence of icons is established with an <code>EXISTS</code> projection so that the icon data itself
+ * is not loaded.</p>
+ */
+
+public class PkgSearchHydration {
+
+    private final Map<ObjectId, Map<ObjectId, PkgUserRatingAggregate>> pkgUserRatingAggregates;
+
+    private final Set<ObjectId> pkgsWithAnyPkgIcons;
+
+    private final PkgLocalizationLookupService pkgLocalizationLookupService;
+
+    public PkgSearchHydration(
+            ObjectContext context,
+            Collection<PkgVersion> pkgVersions,
+            NaturalLanguage naturalLanguage) {
+        Preconditions.checkArgument(null != context, "the context must be supplied");
+        Preconditions.checkArgument(null != pkgVersions, "the pkg versions must be supplied");
+        Preconditions.checkArgument(null != naturalLanguage, "the natural language must be supplied");
+
+        prefetchRelationships(context, pkgVersions);
+
+        Set<Pkg> pkgs = pkgVersions.stream().map(PkgVersion::getPkg).collect(Collectors.toSet());
+
+        this.pkgUserRatingAggregates = findPkgUserRatingAggregates(context, pkgVersions, pkgs);
+        this.pkgsWithAnyPkgIcons = findPkgsWithAnyPkgIcons(context, pkgs);
+        this.pkgLocalizationLookupService = new FixedPkgLocalizationLookupServiceImpl(
+                context, pkgVersions, naturalLanguage);
+    }
+
+    public Optional<PkgUserRatingAggregate> tryGetPkgUserRatingAggregate(PkgVersion pkgVersion) {
+        return Optional.ofNullable(pkgUserRatingAggregates.get(pkgVersion.getPkg().getObjectId()))
+                .map(m -> m.get(pkgVersion.getRepositorySource().getRepository().getObjectId()));
+    }
+
+    public boolean hasAnyPkgIcons(PkgVersion pkgVersion) {
+        return pkgsWithAnyPkgIcons.contains(pkgVersion.getPkg().getObjectId());
+    }
+
+    public PkgLocalizationLookupService getPkgLocalizationLookupService() {
+        return pkgLocalizationLookupService;
+    }
+
+    /**
+     * <p>The to-one relationships that are used in presenting the package versions are loaded with a single
+     * joint prefetch so that they do not fault one package version at a time.</p>
+     */
+
+    private static void prefetchRelationships(ObjectContext context, Collection<PkgVersion> pkgVersions) {
+        if (pkgVersions.isEmpty()) {
+            return;
+        }
+
+        ObjectSelect.query(PkgVersion.class)
+                .where(ExpressionFactory.inDbExp(PkgVersion.ID_PK_COLUMN, toIds(pkgVersions)))
+                .prefetch(PkgVersion.PKG.joint())
+                .prefetch(PkgVersion.ARCHITECTURE.joint())
+                .prefetch(PkgVersion.PKG_VERSION_INTERACTION.joint())
+                .prefetch(PkgVersion.REPOSITORY_SOURCE.joint())
+                .prefetch(PkgVersion.REPOSITORY_SOURCE.dot(RepositorySource.REPOSITORY).joint())
+                .select(context);
+    }
+
+    private static Map<ObjectId, Map<ObjectId, PkgUserRatingAggregate>> findPkgUserRatingAggregates(
+            ObjectContext context,
+            Collection<PkgVersion> pkgVersions,
+            Set<Pkg> pkgs) {
+        if (pkgs.isEmpty()) {
+            return Map.of();
+        }
+
+        Set<Repository> repositories = pkgVersions.stream()
+                .map(pv -> pv.getRepositorySource().getRepository())
+                .collect(Collectors.toSet());
+
+        Map<ObjectId, Map<ObjectId, PkgUserRatingAggregate>> result = new HashMap<>();
+
+        ObjectSelect.query(PkgUserRatingAggregate.class)
+                .where(PkgUserRatingAggregate.PKG.in(pkgs))
+                .and(PkgUserRatingAggregate.REPOSITORY.in(repositories))
+                .select(context)
+                .forEach(pura -> result
+                        .computeIfAbsent(pura.getPkg().getObjectId(), k -> new HashMap<>())
+                        .put(pura.getRepository().getObjectId(), pura));
+
+        return result;
+    }
+
+    private static Set<ObjectId> findPkgsWithAnyPkgIcons(ObjectContext context, Set<Pkg> pkgs) {
+        if (pkgs.isEmpty()) {
+            return Set.of();
+        }
+
+        @SuppressWarnings("unchecked")
+        List<DataRow> dataRows = (List<DataRow>) HaikuDepot.getInstance().performPkgIconPresence(
+                context,
+                Map.of("pkgIds", toIds(pkgs))
+        ).firstList();
+
+        return dataRows.stream()
+                .filter(dr -> Boolean.TRUE.equals(dr.get("has_any_pkg_icons")))
+                .map(dr -> ObjectId.of(Pkg.class.getSimpleName(), Pkg.ID_PK_COLUMN, dr.get("pkg_id")))
+                .collect(Collectors.toSet());
+    }
+
+    private static Set<Long> toIds(Collection<? extends Persistent> objects) {
+        return objects.stream()
+                .map(o -> (Long) o.getObjectId().getIdSnapshot().values().iterator().next())
+                .collect(Collectors.toSet());
+    }
+
+}
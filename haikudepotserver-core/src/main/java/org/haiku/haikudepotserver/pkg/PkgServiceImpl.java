@@ -9,20 +9,19 @@ import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
-import com.google.common.util.concurrent.Uninterruptibles;
 import org.apache.cayenne.DataRow;
 import org.apache.cayenne.ObjectContext;
-import org.apache.cayenne.ObjectId;
-import org.apache.cayenne.access.OptimisticLockException;
-import org.apache.cayenne.configuration.server.ServerRuntime;
+import org.apache.cayenne.exp.ExpressionFactory;
 import org.apache.cayenne.query.MappedSelect;
-import org.apache.cayenne.query.ObjectIdQuery;
 import org.apache.cayenne.query.ObjectSelect;
+import org.apache.cayenne.query.PrefetchTreeNode;
 import org.apache.cayenne.query.SQLTemplate;
 import org.apache.commons.lang3.ObjectUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.haiku.haikudepotserver.dataobjects.*;
 import org.haiku.haikudepotserver.dataobjects.auto._HaikuDepot;
+import org.haiku.haikudepotserver.pkg.model.PkgSearchCursor;
+import org.haiku.haikudepotserver.pkg.model.PkgSearchResult;
 import org.haiku.haikudepotserver.pkg.model.PkgSearchSpecification;
 import org.haiku.haikudepotserver.pkg.model.PkgService;
 import org.haiku.haikudepotserver.pkg.model.PkgSupplementModificationAgent;
@@ -37,7 +36,6 @@ import org.springframework.web.util.UriComponentsBuilder;
 
 import java.net.URI;
 import java.util.*;
-import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -259,6 +257,118 @@ public class PkgServiceImpl implements PkgService {
         return newTotal.longValue();
     }
 
+    /**
+     * <p>The rows are fetched as data rows so that the total and the sort keys, which are used to create the
+     * cursor for the next page, can be obtained from the same query as the package versions. The results of a
+     * page after the first do not include the preceding results and so the total is carried forward from the
+     * first page in the cursor.</p>
+     */
+
+    @Override
+    public PkgSearchResult searchWithTotal(
+            ObjectContext context,
+            PkgSearchSpecification search) {
+
+        Preconditions.checkNotNull(context);
+        Preconditions.checkNotNull(search);
+        Preconditions.checkNotNull(search.getNaturalLanguage());
+        Preconditions.checkState(search.getOffset() >= 0);
+        Preconditions.checkState(search.getLimit() > 0);
+
+        PkgSearchCursor cursor = search.getCursor();
+
+        if (null != cursor) {
+            Preconditions.checkState(0 == search.getOffset(), "an offset cannot be used with a cursor");
+            Preconditions.checkState(search.isSortOrderingKeysetCapable(), "a cursor cannot be used with this sort ordering");
+            Preconditions.checkState(
+                    cursor.sortOrdering() == search.getEffectiveSortOrdering(),
+                    "the cursor is for a different sort ordering");
+            Preconditions.checkState(cursor.isForSpecification(search), "the cursor is for a different search");
+        }
+
+        SQLTemplate sqlTemplate = (SQLTemplate) context.getEntityResolver()
+                .getQueryDescriptor(_HaikuDepot.SEARCH_PKG_VERSIONS_QUERYNAME).buildQuery();
+
+        SQLTemplate query = (SQLTemplate) sqlTemplate.createQuery(ImmutableMap.of(
+                "search", search,
+                "isTotal", false,
+                "isNotTotal", true,
+                "isDataRows", true,
+                "isWindowTotal", null == cursor,
+                "englishNaturalLanguage", NaturalLanguage.getEnglish(context)
+        ));
+        query.setFetchingDataRows(true);
+
+        @SuppressWarnings("unchecked")
+        List<DataRow> dataRows = (List<DataRow>) context.performQuery(query);
+
+        long total;
+
+        if (null != cursor) {
+            // the window of a later page does not include the preceding results so it cannot provide the total.
+            total = cursor.total();
+        } else if (!dataRows.isEmpty()) {
+            total = ((Number) dataRows.getFirst().get("window_total")).longValue();
+        } else {
+            // the window is empty if the offset is beyond the end of the results.
+            total = 0 == search.getOffset() ? 0L : total(context, search);
+        }
+
+        List<PkgVersion> pkgVersions = toPkgVersions(context, dataRows);
+        PkgSearchCursor nextCursor = null;
+
+        if (search.isSortOrderingKeysetCapable() && dataRows.size() == search.getLimit()) {
+            nextCursor = createCursor(search, dataRows.getLast(), total);
+        }
+
+        return new PkgSearchResult(pkgVersions, total, nextCursor);
+    }
+
+    private PkgSearchCursor createCursor(PkgSearchSpecification search, DataRow dataRow, long total) {
+        PkgSearchSpecification.SortOrdering sortOrdering = search.getEffectiveSortOrdering();
+        Long sortValue = switch (sortOrdering) {
+            case NAME -> null;
+            case PROMINENCE, VERSIONVIEWCOUNTER -> ((Number) dataRow.get("sort_value")).longValue();
+            case VERSIONCREATETIMESTAMP -> {
+                java.sql.Timestamp createTimestamp = (java.sql.Timestamp) dataRow.get("create_timestamp");
+                yield Math.floorDiv(createTimestamp.getTime(), 1000L) * 1_000_000L + createTimestamp.getNanos() / 1000;
+            }
+            case RELEVANCE -> throw new IllegalStateException("a cursor is not possible with relevance ordering");
+        };
+
+        return new PkgSearchCursor(
+                sortOrdering,
+                sortValue,
+                (String) dataRow.get("sort_title"),
+                ((Number) dataRow.get(PkgVersion.ID_PK_COLUMN)).longValue(),
+                total,
+                PkgSearchCursor.hashSpecification(search, total));
+    }
+
+    /**
+     * <p>Converts the data rows into package versions in the same order with a single query.</p>
+     */
+
+    private List<PkgVersion> toPkgVersions(ObjectContext context, List<DataRow> dataRows) {
+        if (dataRows.isEmpty()) {
+            return List.of();
+        }
+
+        List<Long> pkgVersionIds = dataRows.stream()
+                .map(dr -> ((Number) dr.get(PkgVersion.ID_PK_COLUMN)).longValue())
+                .toList();
+
+        Map<Long, PkgVersion> pkgVersionsById = ObjectSelect.query(PkgVersion.class)
+                .where(ExpressionFactory.inDbExp(PkgVersion.ID_PK_COLUMN, pkgVersionIds))
+                .select(context)
+                .stream()
+                .collect(Collectors.toMap(
+                        pv -> (Long) pv.getObjectId().getIdSnapshot().get(PkgVersion.ID_PK_COLUMN),
+                        pv -> pv));
+
+        return pkgVersionIds.stream().map(pkgVersionsById::get).toList();
+    }
+
     // ------------------------------
     // EACH PACKAGE
 
@@ -272,7 +382,7 @@ public class PkgServiceImpl implements PkgService {
             boolean includeDevelopment) {
         Preconditions.checkArgument(null!=context, "the object context must be provided");
 
-        AllActivePkgNamesSpecification specification = new AllActivePkgNamesSpecification(true, includeDevelopment);
+        AllActivePkgNamesSpecification specification = new AllActivePkgNamesSpecification(true, includeDevelopment, null);
 
         List<DataRow> dataRows = MappedSelect.query(_HaikuDepot.ALL_ACTIVE_PKG_NAMES_QUERYNAME, DataRow.class)
                 .param("specification", specification)
@@ -295,41 +405,69 @@ public class PkgServiceImpl implements PkgService {
             ObjectContext context,
             boolean includeDevelopment,
             StoppableConsumer<Pkg> c) {
+        return eachPkg(context, includeDevelopment, BATCH_SIZE, null, c);
+    }
+
+    /**
+     * <p>The packages are paged through by name; each batch of names is those after the last name of the previous
+     * batch. Unlike paging with an offset, packages that are created or removed while the iteration is underway
+     * do not shift the batches so a package that exists for the whole of the iteration is visited exactly once.
+     * Each batch of packages is loaded in a single query together with the supplied prefetches.</p>
+     */
+
+    @Override
+    public long eachPkg(
+            ObjectContext context,
+            boolean includeDevelopment,
+            int batchSize,
+            PrefetchTreeNode prefetchTree,
+            StoppableConsumer<Pkg> c) {
         Preconditions.checkArgument(null!=c, "the callback should be provided to run for each package");
         Preconditions.checkArgument(null!=context, "the object context must be provided");
+        Preconditions.checkArgument(batchSize > 0, "the batch size must be greater than zero");
 
-        int offset = 0;
-
-        MappedSelect<DataRow> query = MappedSelect.query(_HaikuDepot.ALL_ACTIVE_PKG_NAMES_QUERYNAME, DataRow.class)
-                .param("isTotal", false)
-                .param("includeDevelopment", includeDevelopment)
-                .limit(BATCH_SIZE);
+        long count = 0;
+        String afterName = null;
 
         while (true) {
 
-            var constrainedQuery = query.offset(offset);
-            List<String> pkgNames = constrainedQuery.select(context)
+            AllActivePkgNamesSpecification specification = new AllActivePkgNamesSpecification(
+                    false, includeDevelopment, afterName);
+
+            List<String> pkgNames = MappedSelect.query(_HaikuDepot.ALL_ACTIVE_PKG_NAMES_QUERYNAME, DataRow.class)
+                    .param("specification", specification)
+                    .limit(batchSize)
+                    .select(context)
                     .stream()
                     .map(dr -> (String) dr.get("name"))
                     .toList();
 
             if (pkgNames.isEmpty()) {
-                return offset;
+                return count;
             }
 
-            List<Pkg> pkgs = ObjectSelect.query(Pkg.class)
+            ObjectSelect<Pkg> pkgQuery = ObjectSelect.query(Pkg.class)
                     .where(Pkg.NAME.in(pkgNames))
-                    .orderBy(Pkg.NAME.asc())
-                    .select(context);
+                    .orderBy(Pkg.NAME.asc());
 
-            for (Pkg pkg : pkgs) {
+            if (null != prefetchTree) {
+                pkgQuery.prefetch(prefetchTree);
+            }
+
+            for (Pkg pkg : pkgQuery.select(context)) {
                 if (!c.accept(pkg)) {
-                    return offset;
+                    return count;
                 }
-                offset++;
+                count++;
+            }
+
+            // a short batch means that there are no more packages to be had so there is no need to query again.
+
+            if (pkgNames.size() < batchSize) {
+                return count;
             }
 
-            offset += pkgs.size();
+            afterName = pkgNames.getLast();
         }
     }
 
@@ -592,53 +730,6 @@ public class PkgServiceImpl implements PkgService {
         return false;
     }
 
-    /**
-     * <p>This method will increment the view counter on a package version.  If it encounters an optimistic
-     * locking problem then it will pause and it will try again in a moment.  It will attempt this a few
-     * times and then fail with a runtime exception.</p>
-     */
-
-    @Override
-    public void incrementViewCounter(ServerRuntime serverRuntime, ObjectId pkgVersionOid) {
-
-        Preconditions.checkArgument(null != serverRuntime, "the server runtime must be provided");
-        Preconditions.checkArgument(null != pkgVersionOid, "the pkg version oid must be provided");
-        Preconditions.checkArgument(pkgVersionOid.getEntityName().equals(PkgVersion.class.getSimpleName()), "the oid must reference PkgVersion");
-
-        int attempts = 3;
-
-        while (true) {
-            ObjectContext contextEdit = serverRuntime.newContext();
-            PkgVersion pkgVersionEdit = ((List<PkgVersion>) contextEdit.performQuery(new ObjectIdQuery(pkgVersionOid)))
-                    .stream()
-                    .collect(SingleCollector.single());
-
-            if (null == pkgVersionEdit.getPkgVersionInteraction()) {
-                PkgVersionInteraction pkgVersionInteraction = contextEdit.newObject(PkgVersionInteraction.class);
-                pkgVersionEdit.setPkgVersionInteraction(pkgVersionInteraction);
-            }
-
-            pkgVersionEdit.getPkgVersionInteraction().incrementViewCounter();
-
-            try {
-                contextEdit.commitChanges();
-                LOGGER.info("did increment the view counter for '{}'", pkgVersionEdit.getPkg().toString());
-                return;
-            } catch (OptimisticLockException ole) {
-                contextEdit.invalidateObjects(pkgVersionEdit);
-
-                attempts--;
-
-                if (0 == attempts) {
-                    throw new RuntimeException("unable to increment the view counter for '"+pkgVersionEdit.getPkg().toString()+"' because of an optimistic locking failure; have exhausted attempts", ole);
-                } else {
-                    LOGGER.error("unable to increment the view counter for '{}' because of an optimistic locking failure; will try again...", pkgVersionEdit.getPkg().toString());
-                    Uninterruptibles.sleepUninterruptibly(250 + (System.currentTimeMillis() % 250), TimeUnit.MILLISECONDS);
-                }
-            }
-        }
-    }
-
     @Override
     public Date getLastModifyTimestampSecondAccuracy(ObjectContext context, RepositorySource repositorySource) {
         Preconditions.checkNotNull(context);
@@ -685,6 +776,36 @@ public class PkgServiceImpl implements PkgService {
                         pkgSupplementMax.getTime())));
     }
 
+    @Override
+    public Date getLastChangeTimestampSecondAccuracy(ObjectContext context, RepositorySource repositorySource) {
+        Preconditions.checkNotNull(context);
+
+        Date pkgVersionMax = ObjectUtils.firstNonNull(
+                ObjectSelect
+                        .query(PkgVersion.class)
+                        .where(PkgVersion.REPOSITORY_SOURCE.eq(repositorySource))
+                        .max(PkgVersion.MODIFY_TIMESTAMP)
+                        .sharedCache()
+                        .cacheGroup(HaikuDepot.CacheGroup.PKG.name())
+                        .selectFirst(context),
+                new Date(0L));
+
+        Date pkgMax = ObjectUtils.firstNonNull(
+                ObjectSelect
+                        .query(PkgVersion.class)
+                        .where(PkgVersion.REPOSITORY_SOURCE.eq(repositorySource))
+                        .max(PkgVersion.PKG.dot(Pkg.MODIFY_TIMESTAMP))
+                        .sharedCache()
+                        .cacheGroup(HaikuDepot.CacheGroup.PKG.name())
+                        .selectFirst(context),
+                new Date(0L));
+
+        return DateTimeHelper.secondAccuracyDate(new Date(
+                Math.max(
+                        Math.max(pkgVersionMax.getTime(), pkgMax.getTime()),
+                        getLastModifyTimestampSecondAccuracy(context, repositorySource).getTime())));
+    }
+
     @Override
     public String createVanityLinkUrl(Pkg pkg) {
         return "/" + pkg.getName();
@@ -699,10 +820,12 @@ public class PkgServiceImpl implements PkgService {
 
     /**
      * Data structure to support the inputs to the query `AllActivePkgNames`.
+     * @param afterName if supplied then only packages with a name after this name are returned.
      */
     public record AllActivePkgNamesSpecification(
             boolean isTotal,
-            boolean includeDevelopment
+            boolean includeDevelopment,
+            String afterName
     ) {
         public boolean notIncludeDevelopment() {
             return !includeDevelopment;
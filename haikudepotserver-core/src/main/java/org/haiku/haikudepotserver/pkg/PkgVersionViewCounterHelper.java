@@ -0,0 +1,136 @@
+/*
+ * Copyright 2026, Andrew Lindesay
+ * Distributed under the terms of the MIT License.
+ */
+
+package org.haiku.haikudepotserver.pkg;
+
+import com.google.common.base.Preconditions;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * <p>Low-level operations for writing aggregated view counts to the database. The caller is expected to manage
+ * the transaction on the supplied connection.</p>
+ */
+
+public class PkgVersionViewCounterHelper {
+
+    /**
+     * <p>The package versions are locked in a consistent order so that two nodes flushing views for overlapping
+     * package versions at the same time cannot deadlock and cannot both create an interaction.</p>
+     */
+
+    private final static String SQL_LOCK_PKG_VERSIONS = """
+            SELECT pv.id, pv.pkg_version_interaction_id FROM haikudepot.pkg_version pv
+            WHERE pv.id = ANY(?) ORDER BY pv.id ASC FOR NO KEY UPDATE
+            """;
+
+    private final static String SQL_SELECT_INTERACTION_NEXTVAL =
+            "SELECT NEXTVAL('haikudepot.pkg_version_interaction_seq')";
+
+    private final static String SQL_INSERT_INTERACTION =
+            "INSERT INTO haikudepot.pkg_version_interaction (id, view_counter) VALUES (?, ?)";
+
+    private final static String SQL_UPDATE_PKG_VERSION_INTERACTION =
+            "UPDATE haikudepot.pkg_version SET pkg_version_interaction_id = ? WHERE id = ?";
+
+    private final static String SQL_INCREMENT_INTERACTION_VIEW_COUNTER =
+            "UPDATE haikudepot.pkg_version_interaction SET view_counter = view_counter + ? WHERE id = ?";
+
+    /**
+     * <p>Adds the supplied number of views to each package version. Package versions which no longer exist are
+     * ignored.</p>
+     * @param pkgVersionIdToViews the number of views to add keyed by the package version's id.
+     * @return the id of the interaction updated for each package version keyed by the package version's id.
+     */
+
+    public static Map<Long, Long> addViews(
+            Connection connection,
+            Map<Long, Long> pkgVersionIdToViews) throws SQLException {
+        Preconditions.checkArgument(null != connection, "the connection must be supplied");
+        Preconditions.checkArgument(null != pkgVersionIdToViews, "the views must be supplied");
+
+        Map<Long, Long> result = new HashMap<>();
+
+        if (pkgVersionIdToViews.isEmpty()) {
+            return result;
+        }
+
+        Map<Long, Long> pkgVersionIdToExistingInteractionId = lockPkgVersions(
+                connection, pkgVersionIdToViews.keySet().toArray(new Long[0]));
+
+        try (
+                PreparedStatement incrementStatement = connection.prepareStatement(SQL_INCREMENT_INTERACTION_VIEW_COUNTER);
+                PreparedStatement insertStatement = connection.prepareStatement(SQL_INSERT_INTERACTION);
+                PreparedStatement updatePkgVersionStatement = connection.prepareStatement(SQL_UPDATE_PKG_VERSION_INTERACTION)
+        ) {
+            for (Map.Entry<Long, Long> entry : pkgVersionIdToExistingInteractionId.entrySet()) {
+                Long pkgVersionId = entry.getKey();
+                Long interactionId = entry.getValue();
+                long views = pkgVersionIdToViews.get(pkgVersionId);
+
+                if (null == interactionId) {
+                    interactionId = nextInteractionId(connection);
+                    insertStatement.setLong(1, interactionId);
+                    insertStatement.setLong(2, views);
+                    insertStatement.addBatch();
+                    updatePkgVersionStatement.setLong(1, interactionId);
+                    updatePkgVersionStatement.setLong(2, pkgVersionId);
+                    updatePkgVersionStatement.addBatch();
+                } else {
+                    incrementStatement.setLong(1, views);
+                    incrementStatement.setLong(2, interactionId);
+                    incrementStatement.addBatch();
+                }
+
+                result.put(pkgVersionId, interactionId);
+            }
+
+            insertStatement.executeBatch();
+            updatePkgVersionStatement.executeBatch();
+            incrementStatement.executeBatch();
+        }
+
+        return result;
+    }
+
+    /**
+     * <p>The interaction id is null where the package version has no interaction yet.</p>
+     */
+
+    private static Map<Long, Long> lockPkgVersions(Connection connection, Long[] pkgVersionIds) throws SQLException {
+        Map<Long, Long> result = new HashMap<>();
+
+        try (PreparedStatement statement = connection.prepareStatement(SQL_LOCK_PKG_VERSIONS)) {
+            statement.setArray(1, connection.createArrayOf("bigint", pkgVersionIds));
+
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    long interactionId = resultSet.getLong(2);
+                    result.put(resultSet.getLong(1), resultSet.wasNull() ? null : interactionId);
+                }
+            }
+        }
+
+        return result;
+    }
+
+    private static long nextInteractionId(Connection connection) throws SQLException {
+        try (
+                PreparedStatement statement = connection.prepareStatement(SQL_SELECT_INTERACTION_NEXTVAL);
+                ResultSet resultSet = statement.executeQuery()
+        ) {
+            if (!resultSet.next()) {
+                throw new IllegalStateException("unable to obtain the next pkg version interaction id");
+            }
+            return resultSet.getLong(1);
+        }
+    }
+
+}
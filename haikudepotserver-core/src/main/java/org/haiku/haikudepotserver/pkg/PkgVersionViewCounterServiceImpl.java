@@ -0,0 +1,147 @@
+/*
+ * Copyright 2026, Andrew Lindesay
+ * Distributed under the terms of the MIT License.
+ */
+
+package org.haiku.haikudepotserver.pkg;
+
+import com.google.common.base.Preconditions;
+import jakarta.annotation.PreDestroy;
+import org.apache.cayenne.ObjectId;
+import org.apache.cayenne.access.DataRowStore;
+import org.apache.cayenne.configuration.server.ServerRuntime;
+import org.haiku.haikudepotserver.dataobjects.PkgVersion;
+import org.haiku.haikudepotserver.dataobjects.PkgVersionInteraction;
+import org.haiku.haikudepotserver.pkg.model.PkgVersionViewCounterService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>Views are accumulated in memory against the package version's id. The map's bins are locked independently
+ * so that views of different package versions do not contend. On a schedule, the accumulated views are removed
+ * from the map and are added to the view counters in the database in a single transaction. The database is only
+ * ever asked to add to the existing count so that a number of nodes are able to flush views for the same
+ * package version without losing any views. Should the flush fail, the views are returned to the map to be
+ * written on the next flush.</p>
+ */
+
+@Service
+public class PkgVersionViewCounterServiceImpl implements PkgVersionViewCounterService {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(PkgVersionViewCounterServiceImpl.class);
+
+    private final ServerRuntime serverRuntime;
+
+    private final ConcurrentHashMap<Long, Long> pendingViews = new ConcurrentHashMap<>();
+
+    private final Object flushLock = new Object();
+
+    public PkgVersionViewCounterServiceImpl(ServerRuntime serverRuntime) {
+        this.serverRuntime = Preconditions.checkNotNull(serverRuntime);
+    }
+
+    @Override
+    public void recordView(ObjectId pkgVersionOid) {
+        Preconditions.checkArgument(null != pkgVersionOid, "the pkg version oid must be provided");
+        Preconditions.checkArgument(pkgVersionOid.getEntityName().equals(PkgVersion.class.getSimpleName()), "the oid must reference PkgVersion");
+        Long pkgVersionId = (Long) pkgVersionOid.getIdSnapshot().get(PkgVersion.ID_PK_COLUMN);
+        pendingViews.merge(pkgVersionId, 1L, Long::sum);
+    }
+
+    @Scheduled(
+            initialDelayString = "${hds.view-counter.flush-delay-millis:10000}",
+            fixedDelayString = "${hds.view-counter.flush-delay-millis:10000}")
+    public void scheduledFlush() {
+        flush();
+    }
+
+    /**
+     * <p>Ensures that no views are lost when the application is stopped.</p>
+     */
+
+    @PreDestroy
+    public void tearDown() {
+        int count = flush();
+        LOGGER.info("did flush views for {} pkg versions on shutdown", count);
+    }
+
+    @Override
+    public int flush() {
+        synchronized (flushLock) {
+            Map<Long, Long> views = drainPendingViews();
+
+            if (views.isEmpty()) {
+                return 0;
+            }
+
+            Map<Long, Long> pkgVersionIdToInteractionId;
+
+            try (Connection connection = serverRuntime.getDataDomain()
+                    .getDataNode("HaikuDepotServer").getDataSource().getConnection()) {
+                connection.setAutoCommit(false);
+
+                try {
+                    pkgVersionIdToInteractionId = PkgVersionViewCounterHelper.addViews(connection, views);
+                    connection.commit();
+                } catch (SQLException | RuntimeException e) {
+                    connection.rollback();
+                    throw e;
+                }
+            } catch (SQLException | RuntimeException e) {
+                views.forEach((k, v) -> pendingViews.merge(k, v, Long::sum));
+                LOGGER.error("unable to flush views for {} pkg versions; will try again later", views.size(), e);
+                return 0;
+            }
+
+            forgetSnapshots(pkgVersionIdToInteractionId);
+            LOGGER.debug("did flush views for {} pkg versions", pkgVersionIdToInteractionId.size());
+            return pkgVersionIdToInteractionId.size();
+        }
+    }
+
+    /**
+     * <p>Each entry is removed individually so that a view recorded concurrently is either included in this
+     * flush or remains for the next one.</p>
+     */
+
+    private Map<Long, Long> drainPendingViews() {
+        Map<Long, Long> result = new HashMap<>();
+
+        for (Long pkgVersionId : pendingViews.keySet()) {
+            Long views = pendingViews.remove(pkgVersionId);
+
+            if (null != views) {
+                result.put(pkgVersionId, views);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * <p>The view counters were written outside of Cayenne so any snapshots that Cayenne holds of the affected
+     * objects are now stale.</p>
+     */
+
+    private void forgetSnapshots(Map<Long, Long> pkgVersionIdToInteractionId) {
+        DataRowStore dataRowStore = serverRuntime.getDataDomain().getSharedSnapshotCache();
+
+        if (null != dataRowStore) {
+            pkgVersionIdToInteractionId.forEach((pkgVersionId, interactionId) -> {
+                dataRowStore.forgetSnapshot(ObjectId.of(
+                        PkgVersion.class.getSimpleName(), PkgVersion.ID_PK_COLUMN, pkgVersionId));
+                dataRowStore.forgetSnapshot(ObjectId.of(
+                        PkgVersionInteraction.class.getSimpleName(), PkgVersionInteraction.ID_PK_COLUMN, interactionId));
+            });
+        }
+    }
+
+}
@@ -0,0 +1,214 @@
+/*
+ * Copyright 2018-2026, Andrew Lindesay
+ * Distributed under the terms of the MIT License.
+ */
+
+package org.haiku.haikudepotserver.pkg.job;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Preconditions;
+import org.apache.cayenne.ObjectContext;
+import org.apache.cayenne.configuration.server.ServerRuntime;
+import org.apache.cayenne.query.PrefetchTreeNode;
+import org.apache.commons.lang3.StringUtils;
+import org.haiku.haikudepotserver.dataobjects.*;
+import org.haiku.haikudepotserver.job.AbstractJobRunner;
+import org.haiku.haikudepotserver.job.model.JobSpecification;
+import org.haiku.haikudepotserver.pkg.FixedPkgLocalizationLookupServiceImpl;
+import org.haiku.haikudepotserver.pkg.model.PkgLocalizationLookupService;
+import org.haiku.haikudepotserver.pkg.model.PkgService;
+import org.haiku.haikudepotserver.pkg.model.ResolvedPkgVersionLocalization;
+import org.haiku.haikudepotserver.pkg.model.dumpexport.DumpExportPkg;
+import org.haiku.haikudepotserver.pkg.model.dumpexport.DumpExportPkgCategory;
+import org.haiku.haikudepotserver.pkg.model.dumpexport.DumpExportPkgScreenshot;
+import org.haiku.haikudepotserver.pkg.model.dumpexport.DumpExportPkgVersion;
+import org.haiku.haikudepotserver.support.ArchiveInfo;
+import org.haiku.haikudepotserver.support.DateTimeHelper;
+import org.haiku.haikudepotserver.support.RuntimeInformationService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * <p>Logic shared between the job runners that write out packages into the streaming JSON dump export
+ * format.  Subclasses decide which packages are to be written.</p>
+ */
+
+public abstract class AbstractPkgDumpExportJobRunner<T extends JobSpecification> extends AbstractJobRunner<T> {
+
+    protected static Logger LOGGER = LoggerFactory.getLogger(AbstractPkgDumpExportJobRunner.class);
+
+    protected final static int BATCH_SIZE = 100;
+
+    protected final ServerRuntime serverRuntime;
+    protected final RuntimeInformationService runtimeInformationService;
+    protected final ObjectMapper objectMapper;
+    protected final PkgService pkgService;
+
+    public AbstractPkgDumpExportJobRunner(
+            ServerRuntime serverRuntime,
+            RuntimeInformationService runtimeInformationService,
+            ObjectMapper objectMapper,
+            PkgService pkgService) {
+        this.serverRuntime = Preconditions.checkNotNull(serverRuntime);
+        this.runtimeInformationService = Preconditions.checkNotNull(runtimeInformationService);
+        this.objectMapper = Preconditions.checkNotNull(objectMapper);
+        this.pkgService = Preconditions.checkNotNull(pkgService);
+    }
+
+    protected PrefetchTreeNode createPkgVersionPrefetchTree() {
+        PrefetchTreeNode node = PkgVersion.PKG.disjoint();
+        node.merge(PkgVersion.PKG.dot(Pkg.PKG_PROMINENCES).disjoint());
+        node.merge(PkgVersion.PKG.dot(Pkg.PKG_SUPPLEMENT).disjoint());
+        node.merge(PkgVersion.PKG.dot(Pkg.PKG_SUPPLEMENT).dot(PkgSupplement.PKG_SCREENSHOTS).disjoint());
+        node.merge(PkgVersion.PKG.dot(Pkg.PKG_SUPPLEMENT).dot(PkgSupplement.PKG_PKG_CATEGORIES).disjoint());
+        node.merge(PkgVersion.PKG.dot(Pkg.PKG_SUPPLEMENT).dot(PkgSupplement.PKG_CHANGELOGS).disjoint());
+        node.merge(PkgVersion.PKG.dot(Pkg.PKG_USER_RATING_AGGREGATES).disjoint());
+        return node;
+    }
+
+    protected RepositorySource getRepositorySource(ObjectContext context, String repositorySourceCode) {
+        return RepositorySource.tryGetByCode(context, repositorySourceCode).orElseThrow(
+                () -> new IllegalStateException(
+                        "unable to find the repository source [" + repositorySourceCode + "]"));
+    }
+
+    protected NaturalLanguage deriveNaturalLanguage(ObjectContext context, String naturalLanguageCode) {
+        if (StringUtils.isNotBlank(naturalLanguageCode)) {
+            return NaturalLanguage.tryGetByCode(context, naturalLanguageCode)
+                    .orElseGet(() -> {
+                        LOGGER.warn("unknown language [{}] - will use english", naturalLanguageCode);
+                        return NaturalLanguage.getEnglish(context);
+                    });
+        }
+
+        return NaturalLanguage.getEnglish(context);
+    }
+
+    protected void writePkgVersions(
+            JsonGenerator jsonGenerator,
+            ObjectContext context,
+            List<PkgVersion> pkgVersions,
+            RepositorySource repositorySource,
+            NaturalLanguage naturalLanguage) {
+
+        final PkgLocalizationLookupService pkgLocalizationLookupService =
+                new FixedPkgLocalizationLookupServiceImpl(context, pkgVersions, naturalLanguage);
+
+        Map<String, List<PkgVersion>> pkgVersionsUnderCommonPkg = pkgVersions
+                .stream()
+                .collect(Collectors.groupingBy((pv) -> pv.getPkg().getName()));
+
+        pkgVersionsUnderCommonPkg.values().forEach((pvs) -> {
+            try {
+                objectMapper.writeValue(
+                        jsonGenerator,
+                        createDumpPkg(context, pvs, repositorySource, naturalLanguage, pkgLocalizationLookupService));
+            } catch (IOException ioe) {
+                throw new UncheckedIOException(ioe);
+            }
+        });
+
+    }
+
+    private DumpExportPkg createDumpPkg(
+            ObjectContext context,
+            List<PkgVersion> pkgVersionsUnderCommonPkg,
+            RepositorySource repositorySource,
+            NaturalLanguage naturalLanguage,
+            PkgLocalizationLookupService pkgLocalizationLookupService) {
+        Preconditions.checkArgument(null != pkgVersionsUnderCommonPkg && !pkgVersionsUnderCommonPkg.isEmpty());
+
+        Pkg pkg = pkgVersionsUnderCommonPkg.getFirst().getPkg(); // any will do to get the pkg.
+        PkgUserRatingAggregate userRatingAggregate = pkg.getPkgUserRatingAggregate(repositorySource.getRepository()).orElse(null);
+
+        DumpExportPkg dumpExportPkg = new DumpExportPkg();
+        dumpExportPkg.setCreateTimestamp(pkg.getCreateTimestamp().getTime());
+        dumpExportPkg.setModifyTimestamp(pkg.getModifyTimestamp().getTime());
+        dumpExportPkg.setName(pkg.getName());
+        dumpExportPkg.setIsDesktop(pkg.getIsDesktop());
+        dumpExportPkg.setIsNativeDesktop(pkg.getIsNativeDesktop());
+        dumpExportPkg.setHasChangelog(pkg.getPkgSupplement().getPkgChangelog().isPresent());
+        dumpExportPkg.setProminenceOrdering(pkg.tryGetPkgProminence(repositorySource.getRepository())
+                .map((p) -> p.getProminence().getOrdering()).map(Number::longValue).orElse(null));
+        dumpExportPkg.setDerivedRating(Optional.ofNullable(userRatingAggregate)
+                .map((v) -> v.getDerivedRating().doubleValue())
+                .orElse(null));
+        dumpExportPkg.setDerivedRatingSampleSize(Optional.ofNullable(userRatingAggregate)
+                .map((v) -> v.getDerivedRatingSampleSize().longValue())
+                .orElse(0L));
+        dumpExportPkg.setPkgCategories(
+                pkg.getPkgSupplement().getPkgPkgCategories().stream().map((ppc) -> {
+                    DumpExportPkgCategory dumpExportPkgCategory = new DumpExportPkgCategory();
+                    dumpExportPkgCategory.setCode(ppc.getPkgCategory().getCode());
+                    return dumpExportPkgCategory;
+                }).collect(Collectors.toList()));
+
+        dumpExportPkg.setPkgScreenshots(
+                pkg.getPkgSupplement().getPkgScreenshots().stream().sorted().map((ps) -> {
+                    DumpExportPkgScreenshot dumpExportPkgScreenshot = new DumpExportPkgScreenshot();
+                    dumpExportPkgScreenshot.setCode(ps.getCode());
+                    dumpExportPkgScreenshot.setHeight(ps.getHeight().longValue());
+                    dumpExportPkgScreenshot.setWidth(ps.getWidth().longValue());
+                    dumpExportPkgScreenshot.setLength(ps.getLength().longValue());
+                    dumpExportPkgScreenshot.setOrdering(ps.getOrdering().longValue());
+                    return dumpExportPkgScreenshot;
+                }).collect(Collectors.toList()));
+
+        dumpExportPkg.setPkgVersions(
+                pkgVersionsUnderCommonPkg
+                        .stream()
+                        .sorted()
+                        .map((pv) -> createDumpPkgVersion(context, pv, naturalLanguage, pkgLocalizationLookupService))
+                        .collect(Collectors.toList()));
+
+        return dumpExportPkg;
+    }
+
+    private DumpExportPkgVersion createDumpPkgVersion(
+            ObjectContext context,
+            PkgVersion pkgVersion,
+            NaturalLanguage naturalLanguage,
+            PkgLocalizationLookupService pkgLocalizationLookupService) {
+        DumpExportPkgVersion result = new DumpExportPkgVersion();
+
+        result.setCreateTimestamp(pkgVersion.getCreateTimestamp().getTime());
+        result.setModifyTimestamp(pkgVersion.getModifyTimestamp().getTime());
+        result.setMajor(pkgVersion.getMajor());
+        result.setMinor(pkgVersion.getMinor());
+        result.setMicro(pkgVersion.getMicro());
+        result.setPreRelease(pkgVersion.getPreRelease());
+        result.setRevision(null == pkgVersion.getRevision() ? null : pkgVersion.getRevision().longValue());
+        result.setArchitectureCode(pkgVersion.getArchitecture().getCode());
+        result.setPayloadLength(pkgVersion.getPayloadLength());
+
+        ResolvedPkgVersionLocalization resolvedPkgVersionLocalization =
+                pkgLocalizationLookupService.resolvePkgVersionLocalization(context, pkgVersion, null, naturalLanguage);
+
+        result.setDescription(resolvedPkgVersionLocalization.getDescription());
+        result.setSummary(resolvedPkgVersionLocalization.getSummary());
+        result.setTitle(resolvedPkgVersionLocalization.getTitle());
+
+        return result;
+    }
+
+    protected void writeInfo(
+            JsonGenerator jsonGenerator,
+            Date modifyTimestamp) throws IOException {
+        jsonGenerator.writeFieldName("info");
+        objectMapper.writeValue(
+                jsonGenerator,
+                new ArchiveInfo(
+                        DateTimeHelper.secondAccuracyDatePlusOneSecond(modifyTimestamp),
+                        runtimeInformationService.getProjectVersion()));
+    }
+
+}
@@ -105,6 +105,7 @@ abstract class AbstractPkgResourceExportArchiveJobRunner<T extends JobSpecificat
                 }
 
             } while(countLastQuery > 0);
+            jobDataWithByteSink.getByteSink().commit();
         }
 
         LOGGER.info("did produce report for {} entries in {}ms", offset, stopwatch.elapsed(TimeUnit.MILLISECONDS));
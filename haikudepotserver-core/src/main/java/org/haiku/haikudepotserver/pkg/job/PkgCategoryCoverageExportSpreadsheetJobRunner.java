@@ -1,5 +1,5 @@
 /*
- * Copyright 2018-2025, Andrew Lindesay
+ * Copyright 2018-2026, Andrew Lindesay
  * Distributed under the terms of the MIT License.
  */
 
@@ -10,6 +10,8 @@ import com.google.common.net.MediaType;
 import com.opencsv.CSVWriter;
 import org.apache.cayenne.ObjectContext;
 import org.apache.cayenne.configuration.server.ServerRuntime;
+import org.apache.cayenne.query.PrefetchTreeNode;
+import org.haiku.haikudepotserver.dataobjects.Pkg;
 import org.haiku.haikudepotserver.dataobjects.PkgSupplement;
 import org.haiku.haikudepotserver.dataobjects.PkgVersionLocalization;
 import org.haiku.haikudepotserver.dataobjects.Repository;
@@ -41,6 +43,8 @@ public class PkgCategoryCoverageExportSpreadsheetJobRunner extends AbstractPkgCa
 
     private static final Logger LOGGER = LoggerFactory.getLogger(PkgCategoryCoverageExportSpreadsheetJobRunner.class);
 
+    private static final int BATCH_SIZE = 500;
+
     private final RepositoryService repositoryService;
 
     public PkgCategoryCoverageExportSpreadsheetJobRunner(
@@ -97,6 +101,8 @@ public class PkgCategoryCoverageExportSpreadsheetJobRunner extends AbstractPkgCa
             long count = pkgService.eachPkg(
                     context,
                     false,
+                    BATCH_SIZE,
+                    createPkgPrefetchTree(),
                     pkg -> {
                         PkgSupplement pkgSupplement = pkg.getPkgSupplement();
 
@@ -126,9 +132,16 @@ public class PkgCategoryCoverageExportSpreadsheetJobRunner extends AbstractPkgCa
                     "did produce category coverage spreadsheet report for {} packages in {}ms",
                     count,
                     System.currentTimeMillis() - startMs);
+            jobDataWithByteSink.getByteSink().commit();
 
         }
 
     }
 
+    private static PrefetchTreeNode createPkgPrefetchTree() {
+        PrefetchTreeNode node = Pkg.PKG_SUPPLEMENT.joint();
+        node.merge(Pkg.PKG_SUPPLEMENT.dot(PkgSupplement.PKG_PKG_CATEGORIES).disjoint());
+        return node;
+    }
+
 }
@@ -198,6 +198,7 @@ public class PkgCategoryCoverageImportSpreadsheetJobRunner
 
                 return null;
             });
+            jobDataWithByteSink.getByteSink().commit();
 
         } catch (CsvValidationException e) {
             throw new JobRunnerException("unable to validate the csv data", e);
@@ -0,0 +1,198 @@
+/*
+ * Copyright 2026, Andrew Lindesay
+ * Distributed under the terms of the MIT License.
+ */
+
+package org.haiku.haikudepotserver.pkg.job;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+import com.google.common.net.MediaType;
+import org.apache.cayenne.ObjectContext;
+import org.apache.cayenne.configuration.server.ServerRuntime;
+import org.apache.cayenne.query.ObjectSelect;
+import org.haiku.haikudepotserver.dataobjects.*;
+import org.haiku.haikudepotserver.job.model.JobDataEncoding;
+import org.haiku.haikudepotserver.job.model.JobDataWithByteSink;
+import org.haiku.haikudepotserver.job.model.JobService;
+import org.haiku.haikudepotserver.pkg.model.PkgDumpDeltaExportJobSpecification;
+import org.haiku.haikudepotserver.pkg.model.PkgService;
+import org.haiku.haikudepotserver.pkg.model.dumpexport.DumpExportPkgTombstone;
+import org.haiku.haikudepotserver.support.RuntimeInformationService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * <p>Produces the same streaming JSON as the {@link PkgDumpExportJobRunner}, but only for those packages
+ * which have changed since the supplied timestamp.  Each item fully replaces any data the client holds for
+ * that package.  Package versions that have been deactivated since the timestamp are written into the
+ * &quot;tombstones&quot; array; the client should apply the tombstones before it applies the items.</p>
+ */
+
+@Component
+public class PkgDumpDeltaExportJobRunner extends AbstractPkgDumpExportJobRunner<PkgDumpDeltaExportJobSpecification> {
+
+    protected static Logger LOGGER = LoggerFactory.getLogger(PkgDumpDeltaExportJobRunner.class);
+
+    public PkgDumpDeltaExportJobRunner(
+            ServerRuntime serverRuntime,
+            RuntimeInformationService runtimeInformationService,
+            ObjectMapper objectMapper,
+            PkgService pkgService) {
+        super(serverRuntime, runtimeInformationService, objectMapper, pkgService);
+    }
+
+    @Override
+    public Class<PkgDumpDeltaExportJobSpecification> getSupportedSpecificationClass() {
+        return PkgDumpDeltaExportJobSpecification.class;
+    }
+
+    @Override
+    public void run(JobService jobService, PkgDumpDeltaExportJobSpecification specification)
+            throws IOException {
+        Preconditions.checkArgument(null != specification.getSinceTimestamp(), "the since timestamp is required");
+
+        final ObjectContext context = serverRuntime.newContext();
+        RepositorySource repositorySource = getRepositorySource(context, specification.getRepositorySourceCode());
+        Timestamp since = new Timestamp(specification.getSinceTimestamp());
+
+        // this will register the outbound data against the job.
+        JobDataWithByteSink jobDataWithByteSink = jobService.storeGeneratedData(
+                specification.getGuid(),
+                "download",
+                MediaType.JSON_UTF_8.toString(),
+                JobDataEncoding.GZIP);
+
+        try (
+                final OutputStream outputStream = jobDataWithByteSink.getByteSink().openBufferedStream();
+                final GZIPOutputStream gzipOutputStream = new GZIPOutputStream(outputStream);
+                final JsonGenerator jsonGenerator = objectMapper.getFactory().createGenerator(gzipOutputStream)
+        ) {
+            jsonGenerator.writeStartObject();
+            writeInfo(jsonGenerator, pkgService.getLastChangeTimestampSecondAccuracy(context, repositorySource));
+            writePkgs(jsonGenerator, context, repositorySource, specification, since);
+            writeTombstones(jsonGenerator, context, repositorySource, since);
+            jsonGenerator.writeEndObject();
+            jobDataWithByteSink.getByteSink().commit();
+        }
+    }
+
+    private void writePkgs(
+            JsonGenerator jsonGenerator,
+            ObjectContext context,
+            RepositorySource repositorySource,
+            PkgDumpDeltaExportJobSpecification specification,
+            Timestamp since) throws IOException {
+        jsonGenerator.writeFieldName("items");
+        jsonGenerator.writeStartArray();
+
+        NaturalLanguage naturalLanguage = deriveNaturalLanguage(context, specification.getNaturalLanguageCode());
+        List<String> pkgNames = getChangedPkgNames(context, repositorySource, since);
+
+        LOGGER.info("will dump pkg versions for {} pkgs changed since {}", pkgNames.size(), since);
+
+        Lists.partition(pkgNames, BATCH_SIZE).forEach((subPkgNames) -> {
+            List<PkgVersion> pkgVersions = createPkgVersionSelect(repositorySource, subPkgNames).select(context);
+            writePkgVersions(jsonGenerator, context, pkgVersions, repositorySource, naturalLanguage);
+        });
+
+        jsonGenerator.writeEndArray();
+    }
+
+    /**
+     * <p>A package version is tombstoned if it has itself been deactivated since the timestamp or if it
+     * was the latest version of a package that has been deactivated since the timestamp.</p>
+     */
+
+    private void writeTombstones(
+            JsonGenerator jsonGenerator,
+            ObjectContext context,
+            RepositorySource repositorySource,
+            Timestamp since) throws IOException {
+        jsonGenerator.writeFieldName("tombstones");
+        jsonGenerator.writeStartArray();
+
+        List<PkgVersion> pkgVersions = ObjectSelect
+                .query(PkgVersion.class)
+                .where(PkgVersion.REPOSITORY_SOURCE.eq(repositorySource))
+                .and(PkgVersion.ACTIVE.isFalse().andExp(PkgVersion.MODIFY_TIMESTAMP.gte(since))
+                        .orExp(PkgVersion.IS_LATEST.isTrue()
+                                .andExp(PkgVersion.PKG.dot(Pkg.ACTIVE).isFalse())
+                                .andExp(PkgVersion.PKG.dot(Pkg.MODIFY_TIMESTAMP).gte(since))))
+                .orderBy(PkgVersion.PKG.dot(Pkg.NAME).asc())
+                .prefetch(PkgVersion.PKG.joint())
+                .select(context);
+
+        LOGGER.info("will dump {} pkg version tombstones since {}", pkgVersions.size(), since);
+
+        for (PkgVersion pkgVersion : pkgVersions) {
+            objectMapper.writeValue(jsonGenerator, createDumpPkgTombstone(pkgVersion));
+        }
+
+        jsonGenerator.writeEndArray();
+    }
+
+    private DumpExportPkgTombstone createDumpPkgTombstone(PkgVersion pkgVersion) {
+        DumpExportPkgTombstone result = new DumpExportPkgTombstone();
+        result.setName(pkgVersion.getPkg().getName());
+        result.setModifyTimestamp(Math.max(
+                pkgVersion.getModifyTimestamp().getTime(),
+                pkgVersion.getPkg().getModifyTimestamp().getTime()));
+        result.setArchitectureCode(pkgVersion.getArchitecture().getCode());
+        result.setMajor(pkgVersion.getMajor());
+        result.setMinor(pkgVersion.getMinor());
+        result.setMicro(pkgVersion.getMicro());
+        result.setPreRelease(pkgVersion.getPreRelease());
+        result.setRevision(null == pkgVersion.getRevision() ? null : pkgVersion.getRevision().longValue());
+        return result;
+    }
+
+    /**
+     * <p>A package has changed if any of the package, its supplement or its latest version has been
+     * modified since the timestamp.  Derived data such as the user rating aggregate and the prominence
+     * advance the package's modify timestamp when they change.</p>
+     */
+
+    private List<String> getChangedPkgNames(
+            ObjectContext context,
+            RepositorySource repositorySource,
+            Timestamp since) {
+        return ObjectSelect
+                .columnQuery(PkgVersion.class, PkgVersion.PKG.dot(Pkg.NAME))
+                .where(PkgVersion.ACTIVE.isTrue())
+                .and(PkgVersion.PKG.dot(Pkg.ACTIVE).isTrue())
+                .and(PkgVersion.IS_LATEST.isTrue())
+                .and(PkgVersion.REPOSITORY_SOURCE.eq(repositorySource))
+                .and(PkgVersion.MODIFY_TIMESTAMP.gte(since)
+                        .orExp(PkgVersion.PKG.dot(Pkg.MODIFY_TIMESTAMP).gte(since))
+                        .orExp(PkgVersion.PKG.dot(Pkg.PKG_SUPPLEMENT).dot(PkgSupplement.MODIFY_TIMESTAMP).gte(since)))
+                .distinct()
+                .orderBy(PkgVersion.PKG.dot(Pkg.NAME).asc())
+                .select(context);
+    }
+
+    private ObjectSelect<PkgVersion> createPkgVersionSelect(
+            RepositorySource repositorySource,
+            Collection<String> pkgNames) {
+        return ObjectSelect
+                .query(PkgVersion.class)
+                .where(PkgVersion.ACTIVE.isTrue())
+                .and(PkgVersion.PKG.dot(Pkg.ACTIVE).isTrue())
+                .and(PkgVersion.IS_LATEST.isTrue())
+                .and(PkgVersion.REPOSITORY_SOURCE.eq(repositorySource))
+                .and(PkgVersion.PKG.dot(Pkg.NAME).in(pkgNames))
+                .orderBy(PkgVersion.PKG.dot(Pkg.NAME).asc())
+                .prefetch(createPkgVersionPrefetchTree());
+    }
+
+}
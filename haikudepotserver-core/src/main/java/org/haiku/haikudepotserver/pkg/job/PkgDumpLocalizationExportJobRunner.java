@@ -95,6 +95,7 @@ public class PkgDumpLocalizationExportJobRunner extends AbstractJobRunner<PkgDum
             writeInfo(jsonGenerator);
             writePkgs(jsonGenerator);
             jsonGenerator.writeEndObject();
+            jobDataWithByteSink.getByteSink().commit();
         }
     }
 
@@ -120,6 +120,7 @@ public class PkgDumpLocalizationImportJobRunner extends AbstractAuthenticatedJob
             }
 
             jsonGenerator.writeEndObject();
+            jobDataWithByteSink.getByteSink().commit();
         }
 
     }
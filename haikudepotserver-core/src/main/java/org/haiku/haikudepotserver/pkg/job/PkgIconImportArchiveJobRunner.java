@@ -141,6 +141,7 @@ public class PkgIconImportArchiveJobRunner extends AbstractJobRunner<PkgIconImpo
                     processEntriesFromArchive(specification, tarArchiveInputStream, writer);
                 }
 
+                jobDataWithByteSink.getByteSink().commit();
                 return true;
             } catch (IOException e) {
                 LOGGER.error("unable to complete job; ", e);
@@ -1,5 +1,5 @@
 /*
- * Copyright 2018-2025, Andrew Lindesay
+ * Copyright 2018-2026, Andrew Lindesay
  * Distributed under the terms of the MIT License.
  */
 
@@ -10,6 +10,8 @@ import com.google.common.net.MediaType;
 import com.opencsv.CSVWriter;
 import org.apache.cayenne.ObjectContext;
 import org.apache.cayenne.configuration.server.ServerRuntime;
+import org.apache.cayenne.query.PrefetchTreeNode;
+import org.haiku.haikudepotserver.dataobjects.Pkg;
 import org.haiku.haikudepotserver.dataobjects.PkgSupplement;
 import org.haiku.haikudepotserver.dataobjects.Repository;
 import org.haiku.haikudepotserver.job.AbstractJobRunner;
@@ -43,6 +45,8 @@ public class PkgIconSpreadsheetJobRunner extends AbstractJobRunner<PkgIconSpread
 
     private static final String MARKER = "*";
 
+    private static final int BATCH_SIZE = 500;
+
     private final ServerRuntime serverRuntime;
     private final RepositoryService repositoryService;
     private final PkgService pkgService;
@@ -121,6 +125,8 @@ public class PkgIconSpreadsheetJobRunner extends AbstractJobRunner<PkgIconSpread
             long count = pkgService.eachPkg(
                     context,
                     false,
+                    BATCH_SIZE,
+                    createPkgPrefetchTree(),
                     pkg -> {
                         PkgSupplement pkgSupplement = pkg.getPkgSupplement();
 
@@ -149,8 +155,15 @@ public class PkgIconSpreadsheetJobRunner extends AbstractJobRunner<PkgIconSpread
                     "did produce icon report for {} packages in {}ms",
                     count,
                     System.currentTimeMillis() - startMs);
+            jobDataWithByteSink.getByteSink().commit();
         }
 
     }
 
+    private static PrefetchTreeNode createPkgPrefetchTree() {
+        PrefetchTreeNode node = Pkg.PKG_SUPPLEMENT.joint();
+        node.merge(Pkg.PKG_SUPPLEMENT.dot(PkgSupplement.PKG_ICONS).disjoint());
+        return node;
+    }
+
 }
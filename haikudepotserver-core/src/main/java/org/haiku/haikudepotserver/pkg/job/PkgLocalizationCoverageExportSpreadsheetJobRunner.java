@@ -158,6 +158,7 @@ public class PkgLocalizationCoverageExportSpreadsheetJobRunner
                     "did produce pkg localization coverage spreadsheet report for {} packages in {}ms",
                     count,
                     System.currentTimeMillis() - startMs);
+            jobDataWithByteSink.getByteSink().commit();
 
         }
 
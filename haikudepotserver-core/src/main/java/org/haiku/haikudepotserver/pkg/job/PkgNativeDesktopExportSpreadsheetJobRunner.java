@@ -1,5 +1,5 @@
 /*
- * Copyright 2024-2025, Andrew Lindesay
+ * Copyright 2024-2026, Andrew Lindesay
  * Distributed under the terms of the MIT License.
  */
 
@@ -9,6 +9,9 @@ import com.google.common.net.MediaType;
 import com.opencsv.CSVWriter;
 import org.apache.cayenne.ObjectContext;
 import org.apache.cayenne.configuration.server.ServerRuntime;
+import org.apache.cayenne.query.PrefetchTreeNode;
+import org.haiku.haikudepotserver.dataobjects.Pkg;
+import org.haiku.haikudepotserver.dataobjects.PkgSupplement;
 import org.haiku.haikudepotserver.job.AbstractJobRunner;
 import org.haiku.haikudepotserver.job.model.*;
 import org.haiku.haikudepotserver.pkg.PkgServiceImpl;
@@ -27,6 +30,8 @@ public class PkgNativeDesktopExportSpreadsheetJobRunner
     private static final String COLUMN_IS_NATIVE_DESKTOP = "is_native_desktop";
     private static final String COLUMN_HAS_ICON = "has_icon";
 
+    private static final int BATCH_SIZE = 500;
+
     private final ServerRuntime serverRuntime;
     private final PkgServiceImpl pkgServiceImpl;
 
@@ -65,7 +70,7 @@ public class PkgNativeDesktopExportSpreadsheetJobRunner
 
                 writer.writeNext(new String[] { COLUMN_PKG_NAME, COLUMN_IS_NATIVE_DESKTOP, COLUMN_HAS_ICON });
 
-                pkgServiceImpl.eachPkg(context, false, (pkg) -> {
+                pkgServiceImpl.eachPkg(context, false, BATCH_SIZE, createPkgPrefetchTree(), (pkg) -> {
                     writer.writeNext(new String[] {
                             pkg.getName(),
                             pkg.getIsNativeDesktop() ? AbstractJobRunner.MARKER : "",
@@ -74,6 +79,7 @@ public class PkgNativeDesktopExportSpreadsheetJobRunner
 
                     return true;
                 });
+                jobDataWithByteSink.getByteSink().commit();
 
             }
         }
@@ -83,4 +89,10 @@ public class PkgNativeDesktopExportSpreadsheetJobRunner
 
     }
 
+    private static PrefetchTreeNode createPkgPrefetchTree() {
+        PrefetchTreeNode node = Pkg.PKG_SUPPLEMENT.joint();
+        node.merge(Pkg.PKG_SUPPLEMENT.dot(PkgSupplement.PKG_ICONS).disjoint());
+        return node;
+    }
+
 }
@@ -139,6 +139,7 @@ public class PkgProminenceAndUserRatingSpreadsheetJobRunner
                     "did produce prominence spreadsheet report for {} packages in {}ms",
                     count,
                     System.currentTimeMillis() - startMs);
+            jobDataWithByteSink.getByteSink().commit();
         }
 
     }
@@ -157,6 +157,7 @@ public class PkgScreenshotImportArchiveJobRunner extends AbstractJobRunner<PkgSc
                                 ae.getPkgName(),
                                 ae.getOrder()));
                 LOGGER.info("did load screenshots from archive");
+                jobDataWithByteSink.getByteSink().commit();
                 return true;
             } catch (IOException e) {
                 LOGGER.error("unable to complete the job", e);
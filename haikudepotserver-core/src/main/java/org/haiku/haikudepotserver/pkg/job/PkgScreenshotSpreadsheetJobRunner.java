@@ -117,6 +117,7 @@ public class PkgScreenshotSpreadsheetJobRunner extends AbstractJobRunner<PkgScre
                     "did produce spreadsheet report for {} packages in {}ms",
                     count,
                     System.currentTimeMillis() - startMs);
+            jobDataWithByteSink.getByteSink().commit();
         }
 
     }
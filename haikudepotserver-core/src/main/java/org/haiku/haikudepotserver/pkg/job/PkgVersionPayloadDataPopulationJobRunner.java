@@ -1,5 +1,5 @@
 /*
- * Copyright 2018-2025, Andrew Lindesay
+ * Copyright 2018-2026, Andrew Lindesay
  * Distributed under the terms of the MIT License.
  */
 
@@ -25,6 +25,7 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.regex.Pattern;
@@ -41,6 +42,13 @@ public class PkgVersionPayloadDataPopulationJobRunner
 
     private static final Logger LOGGER = LoggerFactory.getLogger(PkgVersionPayloadDataPopulationJobRunner.class);
 
+    /**
+     * <p>The package versions are fetched in pages of this size and the payloads of each page are then downloaded
+     * and parsed concurrently.</p>
+     */
+
+    private static final int PAGE_SIZE = 50;
+
     private final ServerRuntime serverRuntime;
     private final PkgImportService pkgImportService;
     private final Pattern allowedPkgNamePattern;
@@ -86,24 +94,22 @@ public class PkgVersionPayloadDataPopulationJobRunner
 
         List<PkgVersion> pkgVersions = createPkgVersionObjectSelect()
                 .orderBy(PkgVersion.PKG.dot(Pkg.NAME).asc())
-                .pageSize(50)
+                .pageSize(PAGE_SIZE)
                 .select(context);
 
         LOGGER.info("did find {} package versions to be populate from package data", count);
 
+        List<PkgVersion> pagePkgVersions = new ArrayList<>(PAGE_SIZE);
+
         for (int i = 0; i < pkgVersions.size(); i++) {
-            String pkgName = pkgVersions.get(i).getPkg().getName();
+            PkgVersion pkgVersion = pkgVersions.get(i);
+            String pkgName = pkgVersion.getPkg().getName();
 
             if (null == allowedPkgNamePattern || allowedPkgNamePattern.matcher(pkgName).matches()) {
-                ObjectContext pkgVersionContext = serverRuntime.newContext();
-                PkgVersion pkgVersion = pkgVersionContext.localObject(pkgVersions.get(i));
-
                 if (null == pkgVersion.getPayloadLength()
-                        || !pkgServiceImpl.isDebugOrDevelopmentOrSourcePkgName(pkgVersion.getPkg().getName())) {
+                        || !pkgServiceImpl.isDebugOrDevelopmentOrSourcePkgName(pkgName)) {
                     LOGGER.debug("will process package [{}] from payload", pkgName);
-                    pkgImportService.populateFromPayload(pkgVersionContext, pkgVersion);
-                    pkgVersionContext.commitChanges();
-                    LOGGER.debug("did process package [{}] from payload", pkgName);
+                    pagePkgVersions.add(pkgVersion);
                 } else {
                     LOGGER.info("skip package [{}] as it should not populate from payload", pkgName);
                 }
@@ -115,6 +121,11 @@ public class PkgVersionPayloadDataPopulationJobRunner
                 }
             }
 
+            if (pagePkgVersions.size() >= PAGE_SIZE || i == pkgVersions.size() - 1) {
+                populateFromPayload(pagePkgVersions);
+                pagePkgVersions.clear();
+            }
+
             int updatedPercentage = (int) ((i * 100) / count);
 
             if (updatedPercentage > lastPercentage) {
@@ -129,6 +140,26 @@ public class PkgVersionPayloadDataPopulationJobRunner
 
     }
 
+    /**
+     * <p>The payloads for the supplied package versions are downloaded and parsed concurrently and the outcome is
+     * then stored in a single transaction.</p>
+     */
+
+    private void populateFromPayload(List<PkgVersion> pkgVersions) {
+        if (pkgVersions.isEmpty()) {
+            return;
+        }
+
+        ObjectContext pkgVersionContext = serverRuntime.newContext();
+
+        List<PkgVersion> changedPkgVersions = pkgImportService.populateFromPayload(
+                pkgVersionContext,
+                pkgVersions.stream().map(pkgVersionContext::localObject).toList());
+
+        pkgVersionContext.commitChanges();
+        LOGGER.debug("did process {} packages from payload; {} changed", pkgVersions.size(), changedPkgVersions.size());
+    }
+
     private ObjectSelect<PkgVersion> createPkgVersionObjectSelect() {
         return ObjectSelect.query(PkgVersion.class)
                 .where(PkgVersion.ACTIVE.isTrue())
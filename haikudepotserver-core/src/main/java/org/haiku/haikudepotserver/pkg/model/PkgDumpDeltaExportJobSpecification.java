@@ -0,0 +1,79 @@
+/*
+ * Copyright 2026, Andrew Lindesay
+ * Distributed under the terms of the MIT License.
+ */
+
+package org.haiku.haikudepotserver.pkg.model;
+
+import org.haiku.haikudepotserver.job.model.AbstractJobSpecification;
+import org.haiku.haikudepotserver.job.model.JobSpecification;
+
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Specifies a dump of only those packages that have changed since a point in time together with
+ * tombstones for package versions that have been deactivated since that point in time.  The since
+ * timestamp is rounded down into a bucket so that clients asking for changes since similar points in
+ * time will share the same job and therefore the same stored data.  Rounding down means that the output
+ * may contain some changes that the client already has but will never miss a change.</p>
+ */
+
+public class PkgDumpDeltaExportJobSpecification extends AbstractJobSpecification {
+
+    private final static long TTL_MINUTES = 480;
+
+    public final static long SINCE_BUCKET_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    private String repositorySourceCode;
+
+    private String naturalLanguageCode;
+
+    private Long sinceTimestamp;
+
+    @Override
+    public Optional<Long> tryGetTimeToLiveMillis() {
+        return Optional.of(TimeUnit.MINUTES.toMillis(TTL_MINUTES));
+    }
+
+    public String getRepositorySourceCode() {
+        return repositorySourceCode;
+    }
+
+    public void setRepositorySourceCode(String value) {
+        this.repositorySourceCode = value;
+    }
+
+    public String getNaturalLanguageCode() {
+        return naturalLanguageCode;
+    }
+
+    public void setNaturalLanguageCode(String naturalLanguageCode) {
+        this.naturalLanguageCode = naturalLanguageCode;
+    }
+
+    public Long getSinceTimestamp() {
+        return sinceTimestamp;
+    }
+
+    /**
+     * <p>The value supplied will be rounded down to the start of its bucket.</p>
+     */
+
+    public void setSinceTimestamp(Long value) {
+        this.sinceTimestamp = null == value ? null : value - Math.floorMod(value, SINCE_BUCKET_MILLIS);
+    }
+
+    public boolean isEquivalent(JobSpecification other) {
+        if (!super.isEquivalent(other)) {
+            return false;
+        }
+
+        PkgDumpDeltaExportJobSpecification pkgOther = PkgDumpDeltaExportJobSpecification.class.cast(other);
+        return Objects.equals(pkgOther.getNaturalLanguageCode(), getNaturalLanguageCode())
+                && Objects.equals(pkgOther.getRepositorySourceCode(), getRepositorySourceCode())
+                && Objects.equals(pkgOther.getSinceTimestamp(), getSinceTimestamp());
+    }
+
+}
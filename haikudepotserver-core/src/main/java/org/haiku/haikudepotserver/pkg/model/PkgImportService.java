@@ -1,5 +1,5 @@
 /*
- * Copyright 2021-2025, Andrew Lindesay
+ * Copyright 2021-2026, Andrew Lindesay
  * Distributed under the terms of the MIT License.
  */
 
@@ -9,6 +9,8 @@ import org.apache.cayenne.ObjectContext;
 import org.apache.cayenne.ObjectId;
 import org.haiku.haikudepotserver.dataobjects.PkgVersion;
 
+import java.util.List;
+
 public interface PkgImportService {
 
 
@@ -27,6 +29,22 @@ public interface PkgImportService {
             org.haiku.pkg.model.Pkg pkg,
             boolean populateFromPayload);
 
+    /**
+     * <p>This method will import a batch of packages.  The existing data for all of the packages in the batch is
+     * loaded with a small number of queries up-front and the packages are then reconciled against that data in
+     * memory.  The caller is expected to commit the supplied context once for the whole batch.</p>
+     * @param pkgs imports into the local database from these package models.
+     * @param repositorySourceObjectId the {@link ObjectId} of the source of the package data.
+     * @param populateFromPayload is able to signal to the import process that the length of the package should be
+     *                              populated.
+     */
+
+    void importFrom(
+            ObjectContext objectContext,
+            ObjectId repositorySourceObjectId,
+            List<org.haiku.pkg.model.Pkg> pkgs,
+            boolean populateFromPayload);
+
         /**
          * <p>This will read in the payload into a temporary file.  From there it will parse it
          * and take up any data from it such as the icon and the length of the download in
@@ -35,4 +53,12 @@ public interface PkgImportService {
 
     void populateFromPayload(ObjectContext objectContext, PkgVersion persistedPkgVersion);
 
+    /**
+     * <p>This will read in the payloads of the supplied package versions concurrently and will then take up any
+     * data from them.  The data is applied to the package versions serially in the supplied context.</p>
+     * @return those package versions that were changed as a result of the data from the payload.
+     */
+
+    List<PkgVersion> populateFromPayload(ObjectContext objectContext, List<PkgVersion> persistedPkgVersions);
+
 }
@@ -0,0 +1,32 @@
+/*
+ * Copyright 2026, Andrew Lindesay
+ * Distributed under the terms of the MIT License.
+ */
+package org.haiku.haikudepotserver.pkg.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.haiku.haikudepotserver.support.eventing.model.InterProcessApplicationEvent;
+
+import java.util.Set;
+
+/**
+ * <p>This event indicates that the localizations of the packages with the supplied names have changed so
+ * that any resolved localizations held for versions of those packages should be discarded. An empty set
+ * of names indicates that all of the resolved localizations should be discarded.</p>
+ */
+
+public class PkgLocalizationInvalidationEvent extends InterProcessApplicationEvent {
+
+    private final Set<String> pkgNames;
+
+    @JsonCreator
+    public PkgLocalizationInvalidationEvent(@JsonProperty("pkgNames") Set<String> pkgNames) {
+        this.pkgNames = null == pkgNames ? Set.of() : Set.copyOf(pkgNames);
+    }
+
+    public Set<String> getPkgNames() {
+        return pkgNames;
+    }
+
+}
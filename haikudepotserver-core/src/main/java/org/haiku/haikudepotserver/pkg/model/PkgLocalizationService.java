@@ -1,16 +1,33 @@
 /*
- * Copyright 2016-2024, Andrew Lindesay
+ * Copyright 2016-2026, Andrew Lindesay
  * Distributed under the terms of the MIT License.
  */
 
 package org.haiku.haikudepotserver.pkg.model;
 
 import org.apache.cayenne.ObjectContext;
+import org.apache.cayenne.ObjectId;
 import org.haiku.haikudepotserver.dataobjects.*;
 import org.haiku.haikudepotserver.naturallanguage.model.NaturalLanguageCoded;
 
+import java.util.Collection;
+import java.util.Map;
+import java.util.regex.Pattern;
+
 public interface PkgLocalizationService extends PkgLocalizationLookupService {
 
+    /**
+     * <p>Resolves the localization for each of the supplied package versions in the same way as
+     * {@link #resolvePkgVersionLocalization(ObjectContext, PkgVersion, Pattern, NaturalLanguage)} does
+     * with no search pattern.  Resolved localizations are held in memory and those which are not held are
+     * obtained together with a single query.  The result is keyed by the package version's object id.</p>
+     */
+
+    Map<ObjectId, ResolvedPkgVersionLocalization> resolveAll(
+            ObjectContext context,
+            Collection<PkgVersion> pkgVersions,
+            NaturalLanguage naturalLanguage);
+
     /**
      * <p>This method will update the localization defined in the parameters to this method into the data
      * structure for the package. This will also write a "package supplicant modification" to capture
@@ -0,0 +1,22 @@
+/*
+ * Copyright 2026, Andrew Lindesay
+ * Distributed under the terms of the MIT License.
+ */
+package org.haiku.haikudepotserver.pkg.model;
+
+/**
+ * <p>This is the data that has been obtained from the payload (the HPKG file) of a package version.  If it was not
+ * possible to parse the payload then only the length is available and the other values will be null.  The icon data
+ * will also be null if the payload has either no icon or more than one icon.</p>
+ */
+
+public record PkgPayloadData(
+        long length,
+        Boolean isDesktop,
+        byte[] iconData) {
+
+    public boolean isParsed() {
+        return null != isDesktop;
+    }
+
+}
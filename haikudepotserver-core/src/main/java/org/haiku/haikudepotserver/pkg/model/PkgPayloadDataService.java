@@ -0,0 +1,29 @@
+/*
+ * Copyright 2026, Andrew Lindesay
+ * Distributed under the terms of the MIT License.
+ */
+
+package org.haiku.haikudepotserver.pkg.model;
+
+import java.net.URI;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * <p>This service is able to download the payloads (HPKG files) of package versions and to extract the data from
+ * them that is of interest to the application.  It has no interaction with the database so that it is able to run
+ * outside of the context of an import; the data that it returns can then be applied to the database by the
+ * caller.</p>
+ */
+
+public interface PkgPayloadDataService {
+
+    /**
+     * <p>Downloads and parses the payloads at the supplied URIs concurrently.  This method will block until all of
+     * the payloads have been processed.  Any payload that it was not possible to download will be absent from the
+     * result.</p>
+     */
+
+    Map<URI, PkgPayloadData> fetchPayloadData(Collection<URI> uris);
+
+}
@@ -0,0 +1,15 @@
+/*
+ * Copyright 2026, Andrew Lindesay
+ * Distributed under the terms of the MIT License.
+ */
+
+package org.haiku.haikudepotserver.pkg.model;
+
+/**
+ * <p>A screenshot that has been scaled to fit a size bucket. The data is a PNG image.</p>
+ */
+
+public record PkgScreenshotRendition(
+        PkgScreenshotRenditionMetadata metadata,
+        byte[] data) {
+}
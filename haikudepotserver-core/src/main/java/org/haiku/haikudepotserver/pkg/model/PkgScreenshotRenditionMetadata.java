@@ -0,0 +1,19 @@
+/*
+ * Copyright 2026, Andrew Lindesay
+ * Distributed under the terms of the MIT License.
+ */
+
+package org.haiku.haikudepotserver.pkg.model;
+
+/**
+ * <p>Describes a rendition of a screenshot without carrying the image data so that it is cheap to hold for a
+ * large number of renditions. The width and height are those of the rendered image and the length is the number
+ * of bytes of PNG data.</p>
+ */
+
+public record PkgScreenshotRenditionMetadata(
+        String eTag,
+        int width,
+        int height,
+        int length) {
+}
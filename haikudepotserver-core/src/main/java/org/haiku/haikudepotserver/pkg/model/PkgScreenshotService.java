@@ -1,5 +1,5 @@
 /*
- * Copyright 2018-2019, Andrew Lindesay
+ * Copyright 2018-2026, Andrew Lindesay
  * Distributed under the terms of the MIT License.
  */
 
@@ -11,7 +11,6 @@ import org.haiku.haikudepotserver.dataobjects.PkgSupplement;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
 import java.util.List;
 
 public interface PkgScreenshotService {
@@ -24,16 +23,37 @@ public interface PkgScreenshotService {
             throws IOException, BadPkgScreenshotException;
 
     /**
-     * <p>This method will write the package's screenshot to the output stream.  It will constrain the output to the
-     * size given by scaling the image.  The output is a PNG image.</p>
+     * <p>Derives the entity tag of the screenshot scaled to fit the size given. This does not require that the
+     * image is rendered.</p>
      */
 
-    void writePkgScreenshotImage(
-            OutputStream output,
+    String deriveRenditionETag(
+            PkgScreenshot screenshot,
+            int targetWidth,
+            int targetHeight);
+
+    /**
+     * <p>Provides the length and dimensions of the screenshot scaled to fit the size given. If the scaled
+     * screenshot has been produced before then it will not be produced again.</p>
+     */
+
+    PkgScreenshotRenditionMetadata getPkgScreenshotRenditionMetadata(
             ObjectContext context,
             PkgScreenshot screenshot,
             int targetWidth,
             int targetHeight) throws IOException;
+
+    /**
+     * <p>Provides the package's screenshot scaled to fit the size given. The requested size is normalised so
+     * the image may be slightly smaller than the size given. The image is a PNG image.</p>
+     */
+
+    PkgScreenshotRendition getPkgScreenshotRendition(
+            ObjectContext context,
+            PkgScreenshot screenshot,
+            int targetWidth,
+            int targetHeight) throws IOException;
+
     /**
      * <p>This method will write the PNG data supplied in the input to the package as a screenshot.  Note that the icon
      * must comply with necessary characteristics.  If it is not compliant then an images of
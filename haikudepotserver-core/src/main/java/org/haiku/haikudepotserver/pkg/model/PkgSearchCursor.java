@@ -0,0 +1,132 @@
+/*
+ * Copyright 2026, Andrew Lindesay
+ * Distributed under the terms of the MIT License.
+ */
+
+package org.haiku.haikudepotserver.pkg.model;
+
+import com.google.common.base.Preconditions;
+import com.google.common.hash.Hashing;
+import org.haiku.haikudepotserver.dataobjects.Architecture;
+import org.haiku.haikudepotserver.dataobjects.NaturalLanguage;
+import org.haiku.haikudepotserver.dataobjects.PkgCategory;
+import org.haiku.haikudepotserver.dataobjects.Repository;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * <p>Identifies a position in the ordered results of a package search so that the next page of results can be
+ * obtained by seeking to the position rather than by skipping over the preceding results with an offset. The
+ * position is described by the values of the sort keys of the last result of the previous page. The
+ * <code>sortValue</code> is the primary sort key; the prominence ordering, the view counter or the creation
+ * timestamp in microseconds since the epoch. It is null for {@link PkgSearchSpecification.SortOrdering#NAME}.</p>
+ *
+ * <p>The <code>total</code> is the total of the search as it was counted for the first page. A later page does
+ * not count the total again and so the cursor carries it forward.</p>
+ *
+ * <p>The position only has meaning for the search that produced it and so the cursor carries a hash of that
+ * search's specification together with the total. A cursor should not be used with a specification that has a
+ * different hash.</p>
+ */
+
+public record PkgSearchCursor(
+        PkgSearchSpecification.SortOrdering sortOrdering,
+        Long sortValue,
+        String sortTitle,
+        long pkgVersionId,
+        long total,
+        String specificationHash) {
+
+    private final static String SEPARATOR = "\t";
+
+    public PkgSearchCursor {
+        Preconditions.checkArgument(null != sortOrdering, "the sort ordering is required");
+        Preconditions.checkArgument(null != sortTitle, "the sort title is required");
+        Preconditions.checkArgument(total >= 0, "the total must not be negative");
+        Preconditions.checkArgument(null != specificationHash && !specificationHash.isEmpty(), "the specification hash is required");
+        Preconditions.checkArgument(!specificationHash.contains(SEPARATOR), "the specification hash is malformed");
+        Preconditions.checkArgument(
+                (PkgSearchSpecification.SortOrdering.NAME == sortOrdering) == (null == sortValue),
+                "the sort value must be supplied for all sort orderings except name");
+    }
+
+    /**
+     * <p>Returns a hash of those parts of the specification which determine the results and their order as well
+     * as the total. The offset, the limit and the cursor itself are not included.</p>
+     */
+
+    public static String hashSpecification(PkgSearchSpecification specification, long total) {
+        Preconditions.checkArgument(null != specification, "the specification is required");
+        String value = String.join(SEPARATOR,
+                Long.toString(total),
+                Objects.toString(specification.getExpression(), ""),
+                Objects.toString(specification.getExpressionType(), ""),
+                Optional.ofNullable(specification.getRepositories())
+                        .map(rs -> rs.stream().map(Repository::getCode).sorted().collect(Collectors.joining(",")))
+                        .orElse(""),
+                Optional.ofNullable(specification.getArchitecture()).map(Architecture::getCode).orElse(""),
+                Optional.ofNullable(specification.getPkgCategory()).map(PkgCategory::getCode).orElse(""),
+                Objects.toString(specification.getDaysSinceLatestVersion(), ""),
+                specification.getEffectiveSortOrdering().name(),
+                Optional.ofNullable(specification.getNaturalLanguage()).map(NaturalLanguage::getCode).orElse(""),
+                Boolean.toString(specification.getIncludeInactive()),
+                Objects.toString(specification.getIncludeDevelopment(), ""),
+                Objects.toString(specification.getOnlyDesktop(), ""),
+                Objects.toString(specification.getOnlyNativeDesktop(), ""));
+        return Hashing.sha256().hashString(value, StandardCharsets.UTF_8).toString().substring(0, 16);
+    }
+
+    public boolean isForSpecification(PkgSearchSpecification specification) {
+        return specificationHash.equals(hashSpecification(specification, total));
+    }
+
+    /**
+     * <p>Produces an opaque token that can be handed to a client and later supplied back to
+     * {@link #tryFromToken(String)}.</p>
+     */
+
+    public String toToken() {
+        String value = String.join(SEPARATOR,
+                sortOrdering.name(),
+                null == sortValue ? "" : Long.toString(sortValue),
+                Long.toString(pkgVersionId),
+                Long.toString(total),
+                specificationHash,
+                sortTitle);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * <p>Returns an empty optional if the token is malformed.</p>
+     */
+
+    public static Optional<PkgSearchCursor> tryFromToken(String token) {
+        if (null == token) {
+            return Optional.empty();
+        }
+
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = value.split(SEPARATOR, 6);
+
+            if (6 != parts.length) {
+                return Optional.empty();
+            }
+
+            return Optional.of(new PkgSearchCursor(
+                    PkgSearchSpecification.SortOrdering.valueOf(parts[0]),
+                    parts[1].isEmpty() ? null : Long.parseLong(parts[1]),
+                    parts[5],
+                    Long.parseLong(parts[2]),
+                    Long.parseLong(parts[3]),
+                    parts[4]));
+        } catch (IllegalArgumentException iae) {
+            return Optional.empty();
+        }
+    }
+
+}
@@ -0,0 +1,27 @@
+/*
+ * Copyright 2026, Andrew Lindesay
+ * Distributed under the terms of the MIT License.
+ */
+
+package org.haiku.haikudepotserver.pkg.model;
+
+import org.haiku.haikudepotserver.dataobjects.PkgVersion;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * <p>A page of the results of a package search together with the total number of results. If it is possible to
+ * obtain the next page using a cursor then the <code>nextCursor</code> will be present.</p>
+ */
+
+public record PkgSearchResult(
+        List<PkgVersion> pkgVersions,
+        long total,
+        PkgSearchCursor nextCursor) {
+
+    public Optional<PkgSearchCursor> tryGetNextCursor() {
+        return Optional.ofNullable(nextCursor);
+    }
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2013-2025, Andrew Lindesay
+ * Copyright 2013-2026, Andrew Lindesay
  * Distributed under the terms of the MIT License.
  */
 
@@ -13,10 +13,13 @@ import org.haiku.haikudepotserver.dataobjects.Repository;
 import org.haiku.haikudepotserver.pkg.PkgServiceImpl;
 import org.haiku.haikudepotserver.support.AbstractSearchSpecification;
 
+import java.sql.Timestamp;
 import java.util.Collection;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
-import java.util.Set;
+import java.util.regex.MatchResult;
+import java.util.regex.Pattern;
 
 /**
  * <p>This model object specifies the parameters of a search into the system for packages.  See the
@@ -29,9 +32,29 @@ public class PkgSearchSpecification extends AbstractSearchSpecification {
         NAME,
         PROMINENCE,
         VERSIONCREATETIMESTAMP,
-        VERSIONVIEWCOUNTER
+        VERSIONVIEWCOUNTER,
+
+        /**
+         * <p>Orders the results by how well they match the expression. If there is no expression then
+         * this will behave as {@link #NAME}.</p>
+         */
+        RELEVANCE
     }
 
+    /**
+     * <p>Splits the expression into terms for a text search query.</p>
+     */
+
+    private static final Pattern PATTERN_TS_QUERY_TERM = Pattern.compile("[\\p{L}\\p{N}]+");
+
+    /**
+     * <p>The fields of the searchable text in the search index are joined with this character so that a
+     * search term is not able to match across the boundary between two fields. It is removed from the
+     * expression for the same reason.</p>
+     */
+
+    public static final char SEARCH_INDEX_FIELD_SEPARATOR = '\u001f';
+
     /**
      * @since 2015-05-27
      */
@@ -58,6 +81,15 @@ public class PkgSearchSpecification extends AbstractSearchSpecification {
 
     private Boolean onlyNativeDesktop;
 
+    /**
+     * <p>If supplied then the results will start after the position described by the cursor rather than from
+     * the offset.</p>
+     *
+     * @since 2026-10-17
+     */
+
+    private PkgSearchCursor cursor;
+
     public List<Repository> getRepositories() {
         return repositories;
     }
@@ -130,6 +162,14 @@ public class PkgSearchSpecification extends AbstractSearchSpecification {
         this.onlyDesktop = onlyDesktop;
     }
 
+    public PkgSearchCursor getCursor() {
+        return cursor;
+    }
+
+    public void setCursor(PkgSearchCursor cursor) {
+        this.cursor = cursor;
+    }
+
     // The template for SQL queries are not able to do boolean operators so
     // we provide them here.
 
@@ -137,6 +177,10 @@ public class PkgSearchSpecification extends AbstractSearchSpecification {
         return getSortOrdering() == SortOrdering.NAME;
     }
 
+    public boolean isSortOrderingNameOrDefault() {
+        return getEffectiveSortOrdering() == SortOrdering.NAME;
+    }
+
     public boolean isSortOrderingProminence() {
         return getSortOrdering() == SortOrdering.PROMINENCE;
     }
@@ -149,6 +193,76 @@ public class PkgSearchSpecification extends AbstractSearchSpecification {
         return getSortOrdering() == SortOrdering.VERSIONVIEWCOUNTER;
     }
 
+    public boolean isSortOrderingRelevance() {
+        return getSortOrdering() == SortOrdering.RELEVANCE;
+    }
+
+    /**
+     * <p>Returns true if it is possible to page through the results of the search using a
+     * {@link PkgSearchCursor}. This is not possible when ordering by relevance.</p>
+     */
+
+    public boolean isSortOrderingKeysetCapable() {
+        return !isSortOrderingRelevance();
+    }
+
+    /**
+     * <p>The sort ordering that the results are actually ordered by.</p>
+     */
+
+    public SortOrdering getEffectiveSortOrdering() {
+        return null == getSortOrdering() ? SortOrdering.NAME : getSortOrdering();
+    }
+
+    /**
+     * <p>The cursor carries the creation timestamp as microseconds since the epoch so that no precision
+     * is lost relative to the database.</p>
+     */
+
+    @SuppressWarnings("unused") // used in Cayenne SQL template.
+    public Timestamp getCursorSortValueAsTimestamp() {
+        if (null == getCursor() || null == getCursor().sortValue()) {
+            return null;
+        }
+
+        long micros = getCursor().sortValue();
+        Timestamp result = new Timestamp(Math.floorDiv(micros, 1_000_000L) * 1000L);
+        result.setNanos((int) Math.floorMod(micros, 1_000_000L) * 1000);
+        return result;
+    }
+
+    public boolean hasExpressionRanking() {
+        return isSortOrderingRelevance() && null != getExpressionAsTsQuery();
+    }
+
+    @Override
+    public String getExpressionAsSqlLike() {
+        return Optional.ofNullable(super.getExpressionAsSqlLike())
+                .map(s -> s.replace(String.valueOf(SEARCH_INDEX_FIELD_SEPARATOR), ""))
+                .orElse(null);
+    }
+
+    /**
+     * <p>This converts the expression into a form that can be used with the Postgres <code>TO_TSQUERY</code>
+     * function. Each term in the expression is matched as a prefix and all of the terms must match. If
+     * there are no terms in the expression then this will return null.</p>
+     */
+
+    @SuppressWarnings("unused") // used in Cayenne SQL template.
+    public String getExpressionAsTsQuery() {
+        if (null == getExpression()) {
+            return null;
+        }
+
+        List<String> terms = PATTERN_TS_QUERY_TERM.matcher(getExpression().toLowerCase(Locale.ROOT))
+                .results()
+                .map(MatchResult::group)
+                .map(t -> t + ":*")
+                .toList();
+
+        return terms.isEmpty() ? null : String.join(" & ", terms);
+    }
+
     public List<String> getRepositoryCodes() {
         return getRepositories().stream().map(Repository::getCode).toList();
     }
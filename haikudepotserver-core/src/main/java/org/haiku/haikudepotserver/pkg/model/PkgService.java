@@ -1,13 +1,12 @@
 /*
- * Copyright 2018-2024, Andrew Lindesay
+ * Copyright 2018-2026, Andrew Lindesay
  * Distributed under the terms of the MIT License.
  */
 
 package org.haiku.haikudepotserver.pkg.model;
 
 import org.apache.cayenne.ObjectContext;
-import org.apache.cayenne.ObjectId;
-import org.apache.cayenne.configuration.server.ServerRuntime;
+import org.apache.cayenne.query.PrefetchTreeNode;
 import org.haiku.haikudepotserver.dataobjects.*;
 import org.haiku.haikudepotserver.support.StoppableConsumer;
 
@@ -96,6 +95,17 @@ public interface PkgService {
             ObjectContext context,
             PkgSearchSpecification search);
 
+    /**
+     * <p>This method will search for package versions and will also provide the total of the package versions
+     * from the same query. If the {@link PkgSearchSpecification} has a {@link PkgSearchCursor} then the
+     * results will start after the cursor and the total is taken from the cursor. The cursor must have been produced by a search with the same
+     * specification; otherwise an {@link IllegalStateException} is thrown.</p>
+     */
+
+    PkgSearchResult searchWithTotal(
+            ObjectContext context,
+            PkgSearchSpecification search);
+
     /**
      * <p>This method will provide a total of the packages.</p>
      */
@@ -117,6 +127,20 @@ public interface PkgService {
             boolean allowSourceOnly,
             StoppableConsumer<Pkg> c);
 
+    /**
+     * <p>As for {@link #eachPkg(ObjectContext, boolean, StoppableConsumer)} but the packages are loaded in batches
+     * of the size supplied and each batch is loaded together with the prefetch tree supplied so that the callback
+     * is able to navigate to related objects without further queries.</p>
+     * @param prefetchTree may be null if no related objects should be loaded with the packages.
+     */
+
+    long eachPkg(
+            ObjectContext context,
+            boolean allowSourceOnly,
+            int batchSize,
+            PrefetchTreeNode prefetchTree,
+            StoppableConsumer<Pkg> c);
+
     /**
      * <p>Performs necessary modifications to the package so that the changelog is updated
      * with the new content supplied.</p>
@@ -204,19 +228,19 @@ public interface PkgService {
             List<PkgCategory> pkgCategories);
 
     /**
-     * <p>This method will increment the view counter on a package version.  If it encounters an optimistic
-     * locking problem then it will pause and it will try again in a moment.  It will attempt this a few
-     * times and then fail with a runtime exception.</p>
+     * <p>This method will return the highest modify timestamp on the {@link PkgVersion} in the database.
+     * This also considers the Pkg as well.</p>
      */
 
-    void incrementViewCounter(ServerRuntime serverRuntime, ObjectId pkgVersionOid);
+    Date getLastModifyTimestampSecondAccuracy(ObjectContext context, RepositorySource repositorySource);
 
     /**
-     * <p>This method will return the highest modify timestamp on the {@link PkgVersion} in the database.
-     * This also considers the Pkg as well.</p>
+     * <p>As {@link #getLastModifyTimestampSecondAccuracy(ObjectContext, RepositorySource)} but this also
+     * considers {@link PkgVersion}s and {@link Pkg}s that have been deactivated so that a deactivation will
+     * also cause the timestamp to advance.</p>
      */
 
-    Date getLastModifyTimestampSecondAccuracy(ObjectContext context, RepositorySource repositorySource);
+    Date getLastChangeTimestampSecondAccuracy(ObjectContext context, RepositorySource repositorySource);
 
     /**
      * <p>This is a URL that is nice to look at for the package.</p>
@@ -0,0 +1,32 @@
+/*
+ * Copyright 2026, Andrew Lindesay
+ * Distributed under the terms of the MIT License.
+ */
+
+package org.haiku.haikudepotserver.pkg.model;
+
+import org.apache.cayenne.ObjectId;
+
+/**
+ * <p>Maintains the count of views of each package version. Views are recorded in memory and are written to the
+ * database later in aggregate so that viewing a package does not need to write to the database while the
+ * request is in flight.</p>
+ */
+
+public interface PkgVersionViewCounterService {
+
+    /**
+     * <p>Records a single view of the package version. The view will be reflected in the database once the
+     * buffered views have next been flushed.</p>
+     */
+
+    void recordView(ObjectId pkgVersionOid);
+
+    /**
+     * <p>Writes the views that have been recorded since the last flush to the database.</p>
+     * @return the number of package versions for which views were written.
+     */
+
+    int flush();
+
+}
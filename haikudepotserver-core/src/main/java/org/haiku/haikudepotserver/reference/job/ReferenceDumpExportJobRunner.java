@@ -95,6 +95,7 @@ public class ReferenceDumpExportJobRunner extends AbstractJobRunner<ReferenceDum
             writeInfo(jsonGenerator);
             writeData(jsonGenerator, specification);
             jsonGenerator.writeEndObject();
+            jobDataWithByteSink.getByteSink().commit();
         }
     }
 
@@ -89,6 +89,7 @@ public class RepositoryDumpExportJobRunner extends AbstractJobRunner<RepositoryD
             writeInfo(jsonGenerator, repositories);
             writeRepositories(jsonGenerator, repositories);
             jsonGenerator.writeEndObject();
+            jobDataWithByteSink.getByteSink().commit();
 
         }
     }
@@ -38,6 +38,7 @@ import org.springframework.stereotype.Component;
 import java.io.*;
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
@@ -69,13 +70,16 @@ public class RepositoryHpkrIngressJobRunner extends AbstractJobRunner<Repository
     private final PkgImportService pkgImportService;
     private final boolean shouldPopulateFromPayload;
     private final Pattern allowedPkgNamePattern;
+    private final int batchSize;
 
     public RepositoryHpkrIngressJobRunner(
             ServerRuntime serverRuntime,
             PkgService pkgService,
             PkgImportService pkgImportService,
             @Value("${hds.repository.import.populate-from-payload:false}") boolean shouldPopulateFromPayload,
-            @Value("${hds.repository.import.allowed-pkg-name-pattern:}") String allowedPkgNamePattern) {
+            @Value("${hds.repository.import.allowed-pkg-name-pattern:}") String allowedPkgNamePattern,
+            @Value("${hds.repository.import.batch-size:100}") int batchSize) {
+        Preconditions.checkArgument(batchSize > 0, "the batch size must be at least one");
         this.serverRuntime = Preconditions.checkNotNull(serverRuntime);
         this.pkgService = Preconditions.checkNotNull(pkgService);
         this.pkgImportService = Preconditions.checkNotNull(pkgImportService);
@@ -84,6 +88,7 @@ public class RepositoryHpkrIngressJobRunner extends AbstractJobRunner<Repository
                 .filter(StringUtils::isNotEmpty)
                 .map(Pattern::compile)
                 .orElse(null);
+        this.batchSize = batchSize;
     }
 
     @Override
@@ -284,59 +289,48 @@ public class RepositoryHpkrIngressJobRunner extends AbstractJobRunner<Repository
 
             try (HpkrFileExtractor fileExtractor = new HpkrFileExtractor(temporaryFile)) {
 
-                LOGGER.info("find out how many packages are in the hpkr {}", repositorySource.getCode());
+                // progress is gauged from how far through the package attributes the iterator is so that the
+                // file only needs to be parsed once.
 
-                int total = 0;
-
-                {
-                    PkgIterator pkgIterator = new PkgIterator(fileExtractor.getPackageAttributesIterator());
-
-                    while (pkgIterator.hasNext()) {
-                        pkgIterator.next();
-                        total++;
-                    }
-                }
-
-                LOGGER.info("will process {} packages from for repository [{}] hpkr", total, repositorySource.getCode());
-
-                int upto = 0;
+                long startOffset = fileExtractor.getPackageAttributesOffset();
+                int total = (int) (fileExtractor.getPackageAttributesEndOffset() - startOffset);
                 int lastPercentage = 0;
 
+                LOGGER.info("will process {} bytes of package attributes for repository [{}] hpkr",
+                        total, repositorySource.getCode());
+
                 // import any packages that are in the repository.
 
                 PkgIterator pkgIterator = new PkgIterator(fileExtractor.getPackageAttributesIterator());
+                List<Pkg> pkgBatch = new ArrayList<>(batchSize);
 
                 while (pkgIterator.hasNext()) {
                     Pkg pkg = pkgIterator.next();
-                    upto++;
 
                     repositoryImportPkgNames.add(pkg.getName());
 
                     if (null == allowedPkgNamePattern || allowedPkgNamePattern.matcher(pkg.getName()).matches()) {
-                        ObjectContext pkgImportContext = serverRuntime.newContext();
-
-                        try {
-                            pkgImportService.importFrom(
-                                    pkgImportContext,
-                                    repositorySource.getObjectId(),
-                                    pkg,
-                                    shouldPopulateFromPayload);
-
-                            pkgImportContext.commitChanges();
-                        } catch (Throwable th) {
-                            throw new RepositoryHpkrIngressException("unable to store package [" + pkg + "]", th);
+                        pkgBatch.add(pkg);
+
+                        if (pkgBatch.size() >= batchSize) {
+                            importPkgBatch(repositorySource, pkgBatch);
+                            pkgBatch.clear();
                         }
                     } else {
                         LOGGER.info("skipping pkg [{}] because it is not in the allowed pkg name pattern", pkg.getName());
                     }
 
-                    simpleProgress.setItemsCompleted(upto, total);
+                    simpleProgress.setItemsCompleted(
+                            (int) Math.min(total, pkgIterator.getOffset() - startOffset),
+                            total);
 
                     if (simpleProgress.percentage() > lastPercentage) {
                         jobService.setJobProgressPercent(specification.getGuid(), overallProgress.percentage());
                         lastPercentage = simpleProgress.percentage();
                     }
                 }
+
+                importPkgBatch(repositorySource, pkgBatch);
             }
 
             // [apl 6.aug.2014] #5
@@ -369,8 +363,8 @@ public class RepositoryHpkrIngressJobRunner extends AbstractJobRunner<Repository
                 }
             });
 
-            LOGGER.info("did process data for repository hpkr {} in {}ms", repositorySource,
-                    System.currentTimeMillis() - startTimeMs);
+            LOGGER.info("did process {} packages from repository hpkr {} in {}ms",
+                    repositoryImportPkgNames.size(), repositorySource, System.currentTimeMillis() - startTimeMs);
 
         } catch (Throwable th) {
             throw new RuntimeException("a problem has arisen processing a repository file for repository hpkr "
@@ -386,6 +380,35 @@ public class RepositoryHpkrIngressJobRunner extends AbstractJobRunner<Repository
         }
     }
 
+    /**
+     * <p>Imports the batch of packages into a new context and commits the batch in one transaction.</p>
+     */
+
+    private void importPkgBatch(RepositorySource repositorySource, List<Pkg> pkgBatch)
+            throws RepositoryHpkrIngressException {
+        if (pkgBatch.isEmpty()) {
+            return;
+        }
+
+        ObjectContext pkgImportContext = serverRuntime.newContext();
+
+        try {
+            pkgImportService.importFrom(
+                    pkgImportContext,
+                    repositorySource.getObjectId(),
+                    pkgBatch,
+                    shouldPopulateFromPayload);
+
+            pkgImportContext.commitChanges();
+        } catch (Throwable th) {
+            throw new RepositoryHpkrIngressException(
+                    "unable to store batch of " + pkgBatch.size() + " packages starting with ["
+                            + pkgBatch.getFirst() + "]", th);
+        }
+
+        LOGGER.debug("did import batch of {} packages", pkgBatch.size());
+    }
+
     private record RepositorySourceAndProgresses (
             RepositorySource repositorySource,
             SimpleProgressImpl progressInfo,
@@ -1,5 +1,5 @@
 /*
- * Copyright 2020-2023, Andrew Lindesay
+ * Copyright 2020-2026, Andrew Lindesay
  * Distributed under the terms of the MIT License.
  */
 
@@ -15,6 +15,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.haiku.haikudepotserver.dataobjects.Repository;
 import org.haiku.haikudepotserver.dataobjects.User;
 import org.haiku.haikudepotserver.security.model.Permission;
+import org.haiku.haikudepotserver.security.model.TargetAndPermission;
 import org.haiku.haikudepotserver.security.model.TargetType;
 import org.haiku.haikudepotserver.security.model.UserAuthorizationService;
 import org.slf4j.Logger;
@@ -23,6 +24,8 @@ import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Component;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 
 @Component
@@ -108,6 +111,41 @@ public class PermissionEvaluator implements org.springframework.security.access.
                 .isPresent();
     }
 
+    /**
+     * <p>Checks a number of permissions for the authentication together; the result contains the outcome
+     * of each check in the same order as the supplied target and permissions.</p>
+     */
+
+    public List<Boolean> hasPermissions(
+            Authentication authentication,
+            List<TargetAndPermission> targetAndPermissions) {
+        Preconditions.checkArgument(null != targetAndPermissions, "the target and permissions are not provided");
+        ObjectContext context = serverRuntime.newContext();
+        List<Boolean> result = new ArrayList<>(userAuthorizationService.check(
+                context,
+                Optional.ofNullable(authentication)
+                        .filter(a -> a instanceof UserAuthentication)
+                        .filter(Authentication::isAuthenticated)
+                        .map(a -> (ObjectId) authentication.getPrincipal())
+                        .map(userOid -> User.getByObjectId(context, userOid))
+                        .orElse(null),
+                targetAndPermissions));
+
+        for (int i = 0; i < result.size(); i++) {
+            TargetAndPermission targetAndPermission = targetAndPermissions.get(i);
+
+            if (!result.get(i)
+                    && targetAndPermission.targetType() == TargetType.REPOSITORY
+                    && targetAndPermission.permission() == Permission.REPOSITORY_IMPORT) {
+                result.set(i, Repository.tryGetByCode(context, targetAndPermission.targetIdentifier())
+                        .filter(r -> checkRepositoryImport(authentication, r))
+                        .isPresent());
+            }
+        }
+
+        return result;
+    }
+
     private Permission toPermission(Object permission) {
         Preconditions.checkArgument(null != permission, "permission is required");
         if (permission instanceof Permission) {
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2026, Andrew Lindesay
+ * Distributed under the terms of the MIT License.
+ */
+
+package org.haiku.haikudepotserver.security;
+
+import org.apache.cayenne.configuration.server.ServerRuntime;
+import org.haiku.haikudepotserver.dataobjects.User;
+import org.haiku.haikudepotserver.security.model.UserAuthenticationInvalidationEvent;
+import org.haiku.haikudepotserver.support.cayenne.AbstractInvalidationTriggerListener;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * <p>This listener will detect changes to users and, once the changes have been committed, will publish a
+ * {@link UserAuthenticationInvalidationEvent} so that cached authentications for those users are discarded.
+ * Any new or updated user is considered rather than only deactivation or a change of password; users are
+ * modified infrequently and the cost of an unnecessary invalidation is only a subsequent full
+ * verification.</p>
+ */
+
+@Component
+public class UserAuthenticationInvalidationTriggerListener extends AbstractInvalidationTriggerListener {
+
+    public UserAuthenticationInvalidationTriggerListener(
+            ServerRuntime serverRuntime,
+            ApplicationEventPublisher applicationEventPublisher) {
+        super(serverRuntime, applicationEventPublisher, List.of(User.class));
+    }
+
+    @Override
+    protected Set<String> deriveNames(Object entity) {
+        return entity instanceof User user ? Set.of(user.getNickname()) : Set.of();
+    }
+
+    @Override
+    protected UserAuthenticationInvalidationEvent createEvent(Set<String> names) {
+        return new UserAuthenticationInvalidationEvent(names);
+    }
+
+}
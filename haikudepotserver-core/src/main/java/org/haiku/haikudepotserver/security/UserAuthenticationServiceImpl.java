@@ -8,22 +8,32 @@ package org.haiku.haikudepotserver.security;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Splitter;
 import com.google.common.base.Strings;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
 import com.nimbusds.jose.*;
 import com.nimbusds.jose.crypto.MACSigner;
 import com.nimbusds.jose.crypto.MACVerifier;
 import com.nimbusds.jwt.JWTClaimsSet;
 import com.nimbusds.jwt.SignedJWT;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.annotation.PostConstruct;
 import org.apache.cayenne.ObjectContext;
 import org.apache.cayenne.ObjectId;
 import org.apache.cayenne.configuration.server.ServerRuntime;
 import org.apache.commons.lang3.StringUtils;
 import org.haiku.haikudepotserver.dataobjects.User;
+import org.haiku.haikudepotserver.metrics.MetricsConstants;
+import org.haiku.haikudepotserver.security.model.UserAuthenticationInvalidationEvent;
 import org.haiku.haikudepotserver.security.model.UserAuthenticationService;
 import org.haiku.haikudepotserver.user.model.UserService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
@@ -37,8 +47,15 @@ import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Pattern;
 
+/**
+ * <p>Clients will present the same token many times during its lifetime.  To avoid verifying the token and
+ * looking up the user each time, the outcome of a successful token authentication is cached against the
+ * digest of the token.  A cached outcome is never used beyond the expiry of the token and is discarded
+ * when a {@link UserAuthenticationInvalidationEvent} arrives for the user.</p>
+ */
 
 @Service
 public class UserAuthenticationServiceImpl implements UserAuthenticationService {
@@ -67,13 +84,32 @@ public class UserAuthenticationServiceImpl implements UserAuthenticationService
     private JWSVerifier jsonWebTokenVerifier = null;
     private String jsonWebTokenSharedKey;
 
+    private final Cache<HashCode, TokenAuthentication> tokenAuthenticationCache;
+
+    /**
+     * <p>A token that was verified while this changed is not retained because the user may have changed
+     * during the verification.</p>
+     */
+
+    private final AtomicLong invalidationGeneration = new AtomicLong();
+
+    private final Counter tokenCacheHitCounter;
+
+    private final Counter tokenCacheMissCounter;
+
+    private final Timer tokenVerifyTimer;
+
     public UserAuthenticationServiceImpl(
             ServerRuntime serverRuntime,
             UserService userService,
             PasswordEncoder passwordEncoder,
             @Value("${hds.authentication.jws.shared-key:}") String jsonWebTokenSharedKey,
             @Value("${hds.authentication.jws.expiry-seconds:300}") Integer jsonWebTokenExpirySeconds,
-            @Value("${hds.authentication.jws.issuer}") String jsonWebTokenIssuer) {
+            @Value("${hds.authentication.jws.issuer}") String jsonWebTokenIssuer,
+            @Value("${hds.authentication.token-cache.max-entries:4096}") Long tokenCacheMaxEntries,
+            MeterRegistry meterRegistry) {
+        Preconditions.checkNotNull(meterRegistry);
+        Preconditions.checkArgument(tokenCacheMaxEntries >= 0, "the maximum token cache entries must not be negative");
         this.userService = userService;
         this.passwordEncoder = passwordEncoder;
         this.serverRuntime = Preconditions.checkNotNull(serverRuntime);
@@ -81,6 +117,22 @@ public class UserAuthenticationServiceImpl implements UserAuthenticationService
         this.jsonWebTokenIssuer = Preconditions.checkNotNull(jsonWebTokenIssuer);
         this.jsonWebTokenSharedKey = StringUtils.isNotBlank(jsonWebTokenSharedKey)
             ? jsonWebTokenSharedKey : UUID.randomUUID().toString();
+
+        // an entry cannot be useful for longer than the lifetime of a token.
+        tokenAuthenticationCache = CacheBuilder
+                .newBuilder()
+                .maximumSize(tokenCacheMaxEntries)
+                .expireAfterWrite(jsonWebTokenExpirySeconds, TimeUnit.SECONDS)
+                .build();
+
+        tokenCacheHitCounter = Counter.builder(MetricsConstants.COUNTER_NAME_AUTHENTICATION_TOKEN_CACHE)
+                .tag(MetricsConstants.TAG_NAME_RESULT, "hit")
+                .register(meterRegistry);
+        tokenCacheMissCounter = Counter.builder(MetricsConstants.COUNTER_NAME_AUTHENTICATION_TOKEN_CACHE)
+                .tag(MetricsConstants.TAG_NAME_RESULT, "miss")
+                .register(meterRegistry);
+        tokenVerifyTimer = Timer.builder(MetricsConstants.TIMER_NAME_AUTHENTICATION_TOKEN_VERIFY)
+                .register(meterRegistry);
     }
 
     @PostConstruct
@@ -238,23 +290,64 @@ public class UserAuthenticationServiceImpl implements UserAuthenticationService
     // ---------------------------
     // JSON WEB TOKEN
 
+    /**
+     * <p>The time taken to fully verify a token is recorded so that, together with the count of cache hits,
+     * the time saved by the cache can be estimated.</p>
+     */
+
     @Override
     public Optional<ObjectId> authenticateByToken(String payload) {
-        Optional<SignedJWT> signedJwtOptional = verifyToken(payload);
+        if (Strings.isNullOrEmpty(payload)) {
+            return Optional.empty();
+        }
+
+        HashCode key = Hashing.sha256().hashString(payload, StandardCharsets.UTF_8);
+        TokenAuthentication cached = tokenAuthenticationCache.getIfPresent(key);
+
+        if (null != cached) {
+            if (System.currentTimeMillis() <= cached.expirationTimestamp()) {
+                tokenCacheHitCounter.increment();
+                return Optional.of(cached.userObjectId());
+            }
 
-        if (signedJwtOptional.isPresent()) {
-            return authenticate(signedJwtOptional.get());
+            tokenAuthenticationCache.asMap().remove(key, cached);
         }
 
-        return Optional.empty();
+        tokenCacheMissCounter.increment();
+        long generation = invalidationGeneration.get();
+        Optional<TokenAuthentication> tokenAuthenticationOptional = tokenVerifyTimer.record(
+                () -> verifyToken(payload).flatMap(this::authenticate));
+
+        tokenAuthenticationOptional.ifPresent(ta -> {
+            tokenAuthenticationCache.put(key, ta);
+
+            // the user may have changed while the token was being verified.
+            if (generation != invalidationGeneration.get()) {
+                tokenAuthenticationCache.asMap().remove(key, ta);
+            }
+        });
+
+        return tokenAuthenticationOptional.map(TokenAuthentication::userObjectId);
+    }
+
+    @EventListener
+    public void onUserAuthenticationInvalidation(UserAuthenticationInvalidationEvent event) {
+        invalidationGeneration.incrementAndGet();
+
+        if (event.getNicknames().isEmpty()) {
+            tokenAuthenticationCache.invalidateAll();
+            return;
+        }
+
+        tokenAuthenticationCache.asMap().values().removeIf(ta -> event.getNicknames().contains(ta.nickname()));
     }
 
     /**
      * <p>This method will validate the json web token and assuming that everything is OK, it will return
-     * an ObjectId that refers to the </p>
+     * the details of the user that the token authenticates.</p>
      */
 
-    private Optional<ObjectId> authenticate(SignedJWT signedJwt) {
+    private Optional<TokenAuthentication> authenticate(SignedJWT signedJwt) {
 
         Preconditions.checkArgument(null != signedJwt, "the JWT must be provided");
 
@@ -300,7 +393,10 @@ public class UserAuthenticationServiceImpl implements UserAuthenticationService
                     Optional<User> userOptional = User.tryGetByNickname(context, nickname);
 
                     if (userOptional.isPresent()) {
-                        return Optional.of(userOptional.get().getObjectId());
+                        return Optional.of(new TokenAuthentication(
+                                userOptional.get().getObjectId(),
+                                nickname,
+                                expirationTime.getTime()));
                     }
                 }
             }
@@ -377,4 +473,11 @@ public class UserAuthenticationServiceImpl implements UserAuthenticationService
         return signedJWT.serialize();
     }
 
+    /**
+     * <p>The outcome of successfully authenticating with a token.</p>
+     */
+
+    private record TokenAuthentication(ObjectId userObjectId, String nickname, long expirationTimestamp) {
+    }
+
 }
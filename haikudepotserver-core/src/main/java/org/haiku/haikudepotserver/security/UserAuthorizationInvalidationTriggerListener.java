@@ -0,0 +1,63 @@
+/*
+ * Copyright 2026, Andrew Lindesay
+ * Distributed under the terms of the MIT License.
+ */
+
+package org.haiku.haikudepotserver.security;
+
+import org.apache.cayenne.configuration.server.ServerRuntime;
+import org.haiku.haikudepotserver.dataobjects.PermissionUserPkg;
+import org.haiku.haikudepotserver.dataobjects.User;
+import org.haiku.haikudepotserver.dataobjects.UserUsageConditions;
+import org.haiku.haikudepotserver.dataobjects.UserUsageConditionsAgreement;
+import org.haiku.haikudepotserver.security.model.UserAuthorizationInvalidationEvent;
+import org.haiku.haikudepotserver.support.cayenne.AbstractInvalidationTriggerListener;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * <p>This listener will detect changes to the entities that bear on the authorization of a user and, once the
+ * changes have been committed, will publish a {@link UserAuthorizationInvalidationEvent} for the users
+ * involved.  A change to the user usage conditions themselves may affect any user.</p>
+ */
+
+@Component
+public class UserAuthorizationInvalidationTriggerListener extends AbstractInvalidationTriggerListener {
+
+    public UserAuthorizationInvalidationTriggerListener(
+            ServerRuntime serverRuntime,
+            ApplicationEventPublisher applicationEventPublisher) {
+        super(serverRuntime, applicationEventPublisher, List.of(
+                User.class,
+                PermissionUserPkg.class,
+                UserUsageConditionsAgreement.class,
+                UserUsageConditions.class));
+    }
+
+    @Override
+    protected boolean deriveAll(Object entity) {
+        return entity instanceof UserUsageConditions;
+    }
+
+    @Override
+    protected Set<String> deriveNames(Object entity) {
+        return Optional.ofNullable(switch (entity) {
+                    case User user -> user;
+                    case PermissionUserPkg permissionUserPkg -> permissionUserPkg.getUser();
+                    case UserUsageConditionsAgreement agreement -> agreement.getUser();
+                    default -> null;
+                })
+                .map(user -> Set.of(user.getNickname()))
+                .orElse(Set.of());
+    }
+
+    @Override
+    protected UserAuthorizationInvalidationEvent createEvent(Set<String> names) {
+        return new UserAuthorizationInvalidationEvent(names);
+    }
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2018-2025, Andrew Lindesay
+ * Copyright 2018-2026, Andrew Lindesay
  * Distributed under the terms of the MIT License.
  */
 
@@ -7,28 +7,141 @@ package org.haiku.haikudepotserver.security;
 
 import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSetMultimap;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import org.apache.cayenne.DataObject;
 import org.apache.cayenne.ObjectContext;
+import org.apache.cayenne.query.ObjectSelect;
 import org.haiku.haikudepotserver.dataobjects.*;
 import org.haiku.haikudepotserver.dataobjects.auto._UserUsageConditions;
 import org.haiku.haikudepotserver.dataobjects.auto._UserUsageConditionsAgreement;
-import org.haiku.haikudepotserver.security.model.AuthorizationPkgRule;
-import org.haiku.haikudepotserver.security.model.UserAuthorizationService;
 import org.haiku.haikudepotserver.security.model.Permission;
+import org.haiku.haikudepotserver.security.model.TargetAndPermission;
 import org.haiku.haikudepotserver.security.model.TargetType;
-import org.haiku.haikudepotserver.support.SingleCollector;
+import org.haiku.haikudepotserver.security.model.UserAuthorizationInvalidationEvent;
+import org.haiku.haikudepotserver.security.model.UserAuthorizationService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * <p>The data about a user that bears on their authorization is loaded once into an immutable
+ * {@link UserAuthorizationSnapshot} and is held in memory so that repeated checks for the same user,
+ * such as those made in bulk from the web application, are evaluated without database access.  A
+ * snapshot is discarded when a {@link UserAuthorizationInvalidationEvent} arrives for the user.</p>
+ */
 
 @Service
 public class UserAuthorizationServiceImpl implements UserAuthorizationService {
 
     protected static Logger LOGGER = LoggerFactory.getLogger(UserAuthorizationServiceImpl.class);
 
+    private final Cache<String, UserAuthorizationSnapshot> snapshotCache;
+
+    /**
+     * <p>A snapshot that was being assembled while this changed may describe a user that has since changed
+     * and so is not retained.</p>
+     */
+
+    private final AtomicLong invalidationGeneration = new AtomicLong();
+
+    public UserAuthorizationServiceImpl(
+            @Value("${hds.authorization.snapshot-cache.max-entries:1024}") Long snapshotCacheMaxEntries) {
+        Preconditions.checkArgument(snapshotCacheMaxEntries >= 0, "the maximum snapshot cache entries must not be negative");
+        snapshotCache = CacheBuilder
+                .newBuilder()
+                .maximumSize(snapshotCacheMaxEntries)
+                .expireAfterAccess(1, TimeUnit.HOURS)
+                .build();
+    }
+
+    @EventListener
+    public void onUserAuthorizationInvalidation(UserAuthorizationInvalidationEvent event) {
+        invalidationGeneration.incrementAndGet();
+
+        if (event.getNicknames().isEmpty()) {
+            snapshotCache.invalidateAll();
+        }
+        else {
+            snapshotCache.invalidateAll(event.getNicknames());
+        }
+    }
+
+    private UserAuthorizationSnapshot getSnapshot(ObjectContext context, User user) {
+
+        // uncommitted changes may never be committed and so should not be cached.
+
+        if (null != user.getObjectContext() && user.getObjectContext().hasChanges()) {
+            return createSnapshot(context, user);
+        }
+
+        long generation = invalidationGeneration.get();
+        AtomicBoolean loaded = new AtomicBoolean(false);
+        UserAuthorizationSnapshot result;
+
+        try {
+            result = snapshotCache.get(user.getNickname(), () -> {
+                loaded.set(true);
+                return createSnapshot(context, user);
+            });
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            throw new IllegalStateException("unable to load the authorization snapshot for user [" + user.getNickname() + "]", e.getCause());
+        }
+
+        // the user may have changed while the snapshot was being loaded.
+        if (loaded.get() && generation != invalidationGeneration.get()) {
+            snapshotCache.asMap().remove(user.getNickname(), result);
+        }
+
+        return result;
+    }
+
+    private UserAuthorizationSnapshot createSnapshot(ObjectContext context, User user) {
+        boolean root = user.getIsRoot();
+        boolean agreedToLatestUserUsageConditions = root || user.tryGetUserUsageConditionsAgreement()
+                .map(_UserUsageConditionsAgreement::getUserUsageConditions)
+                .map(_UserUsageConditions::getCode)
+                .filter(c -> c.equals(UserUsageConditions.getLatest(context).getCode()))
+                .isPresent();
+        ImmutableSet.Builder<String> anyPkgPermissionCodes = ImmutableSet.builder();
+        ImmutableSetMultimap.Builder<String, String> pkgPermissionCodes = ImmutableSetMultimap.builder();
+
+        for (PermissionUserPkg rule : user.getPermissionUserPkgs()) {
+            String permissionCode = rule.getPermission().getCode().toUpperCase(Locale.ROOT);
+
+            if (null == rule.getPkg()) {
+                anyPkgPermissionCodes.add(permissionCode);
+            }
+            else {
+                pkgPermissionCodes.put(rule.getPkg().getName(), permissionCode);
+            }
+        }
+
+        return new UserAuthorizationSnapshot(
+                root,
+                agreedToLatestUserUsageConditions,
+                anyPkgPermissionCodes.build(),
+                pkgPermissionCodes.build());
+    }
+
     private TargetType deriveTargetType(DataObject dataObject) {
         if(null==dataObject)
             return null;
@@ -100,6 +213,78 @@ public class UserAuthorizationServiceImpl implements UserAuthorizationService {
         return check(objectContext, authenticatedUser, target, permission);
     }
 
+    @Override
+    public List<Boolean> check(
+            ObjectContext objectContext,
+            User authenticatedUser,
+            List<TargetAndPermission> targetAndPermissions) {
+
+        Preconditions.checkArgument(null != objectContext, "the object context must be provided");
+        Preconditions.checkArgument(null != targetAndPermissions, "the target and permissions must be provided");
+
+        for (TargetAndPermission targetAndPermission : targetAndPermissions) {
+            if ((null == targetAndPermission.targetType()) != Strings.isNullOrEmpty(targetAndPermission.targetIdentifier())) {
+                throw new IllegalStateException("the target type and target identifier must be supplied together");
+            }
+        }
+
+        Map<TargetType, Map<String, ? extends DataObject>> targets = new EnumMap<>(TargetType.class);
+
+        targetAndPermissions.stream()
+                .filter(tp -> null != tp.targetType())
+                .collect(Collectors.groupingBy(
+                        TargetAndPermission::targetType,
+                        Collectors.mapping(TargetAndPermission::targetIdentifier, Collectors.toSet())))
+                .forEach((targetType, identifiers) -> targets.put(targetType, findTargets(objectContext, targetType, identifiers)));
+
+        return targetAndPermissions.stream()
+                .map(tp -> {
+                    if (null == tp.targetType()) {
+                        return check(objectContext, authenticatedUser, (DataObject) null, tp.permission());
+                    }
+
+                    DataObject target = targets.get(tp.targetType()).get(tp.targetIdentifier());
+
+                    // as with a single check, a target that cannot be found means that the permission
+                    // does not apply.
+
+                    return null != target && check(objectContext, authenticatedUser, target, tp.permission());
+                })
+                .toList();
+    }
+
+    /**
+     * <p>Finds the targets of the supplied type keyed by their identifier with a single query.</p>
+     */
+
+    private Map<String, ? extends DataObject> findTargets(
+            ObjectContext context,
+            TargetType targetType,
+            Collection<String> identifiers) {
+        return switch (targetType) {
+            case PKG -> ObjectSelect.query(Pkg.class)
+                    .where(Pkg.NAME.in(identifiers))
+                    .select(context)
+                    .stream()
+                    .collect(Collectors.toMap(Pkg::getName, Function.identity()));
+            case REPOSITORY -> Repository.getAll(context)
+                    .stream()
+                    .filter(r -> identifiers.contains(r.getCode()))
+                    .collect(Collectors.toMap(Repository::getCode, Function.identity()));
+            case USER -> ObjectSelect.query(User.class)
+                    .where(User.NICKNAME.in(identifiers))
+                    .select(context)
+                    .stream()
+                    .collect(Collectors.toMap(User::getNickname, Function.identity()));
+            case USERRATING -> ObjectSelect.query(UserRating.class)
+                    .where(UserRating.CODE.in(identifiers))
+                    .prefetch(UserRating.USER.joint())
+                    .select(context)
+                    .stream()
+                    .collect(Collectors.toMap(UserRating::getCode, Function.identity()));
+        };
+    }
+
     private boolean isAuthenticatedUserTarget(
             User authenticatedUser,
             DataObject target) {
@@ -164,27 +349,21 @@ public class UserAuthorizationServiceImpl implements UserAuthorizationService {
         // if the user has not agreed to the latest UUC and is not root then
         // they should not be able to do anything else...
 
-        boolean authenticatedUserIsRoot = null != authenticatedUser && authenticatedUser.getIsRoot();
+        UserAuthorizationSnapshot snapshot = null == authenticatedUser
+                ? null : getSnapshot(objectContext, authenticatedUser);
+        boolean authenticatedUserIsRoot = null != snapshot && snapshot.root();
 
-        if (null != authenticatedUser && !authenticatedUserIsRoot) {
-            String latestUserUsageConditionsCode = UserUsageConditions.getLatest(objectContext).getCode();
-            String userLatestUserUsageConditionsCode = authenticatedUser.tryGetUserUsageConditionsAgreement()
-                    .map(_UserUsageConditionsAgreement::getUserUsageConditions)
-                    .map(_UserUsageConditions::getCode)
-                    .orElse(null);
-
-            if (!latestUserUsageConditionsCode.equals(userLatestUserUsageConditionsCode)) {
-                LOGGER.trace(
-                        "rejecting authorization for user [{}] owing to stale user usage conditions",
-                        authenticatedUser.getNickname());
-                return false;
-            }
+        if (null != snapshot && !snapshot.agreedToLatestUserUsageConditions()) {
+            LOGGER.trace(
+                    "rejecting authorization for user [{}] owing to stale user usage conditions",
+                    authenticatedUser.getNickname());
+            return false;
         }
 
         // it could be that permission is afforded based on rules stored in the user.  Check for
         // this situation first.
 
-        if (null != authenticatedUser) {
+        if (null != snapshot) {
             switch (permission) {
                 case PKG_EDITICON,
                         PKG_EDITSCREENSHOT,
@@ -193,11 +372,7 @@ public class UserAuthorizationServiceImpl implements UserAuthorizationService {
                         PKG_EDITCHANGELOG,
                         PKG_EDITNATIVEDESKTOP,
                         PKG_EDITLOCALIZATION -> {
-                    List<? extends AuthorizationPkgRule> rules = authenticatedUser.getAuthorizationPkgRules((Pkg) target);
-                    if (rules
-                            .stream()
-                            .filter(r -> r.getPermission().getCode().equalsIgnoreCase(permission.name()))
-                            .collect(SingleCollector.optional()).isPresent()) {
+                    if (snapshot.hasPkgPermission(((Pkg) target).getName(), permission)) {
                         return true;
                     }
                 }
@@ -288,4 +463,22 @@ public class UserAuthorizationServiceImpl implements UserAuthorizationService {
 
     }
 
+    /**
+     * <p>The data about a user that is required to check their authorization.  The package permissions are
+     * held as upper case codes that match the names of the {@link Permission}s.</p>
+     */
+
+    private record UserAuthorizationSnapshot(
+            boolean root,
+            boolean agreedToLatestUserUsageConditions,
+            ImmutableSet<String> anyPkgPermissionCodes,
+            ImmutableSetMultimap<String, String> pkgPermissionCodes) {
+
+        boolean hasPkgPermission(String pkgName, Permission permission) {
+            return anyPkgPermissionCodes.contains(permission.name())
+                    || pkgPermissionCodes.containsEntry(pkgName, permission.name());
+        }
+
+    }
+
 }
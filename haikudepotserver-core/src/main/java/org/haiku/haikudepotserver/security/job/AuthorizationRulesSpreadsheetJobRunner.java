@@ -95,6 +95,7 @@ public class AuthorizationRulesSpreadsheetJobRunner
 
             writer.flush();
             outputStreamWriter.flush();
+            jobDataWithByteSink.getByteSink().commit();
         }
 
     }
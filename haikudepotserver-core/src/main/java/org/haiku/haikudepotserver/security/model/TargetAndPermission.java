@@ -0,0 +1,21 @@
+/*
+ * Copyright 2026, Andrew Lindesay
+ * Distributed under the terms of the MIT License.
+ */
+
+package org.haiku.haikudepotserver.security.model;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * <p>A permission that is to be checked over the target identified by the type and identifier.  Permissions
+ * that have no target have neither a target type nor a target identifier.</p>
+ */
+
+public record TargetAndPermission(TargetType targetType, String targetIdentifier, Permission permission) {
+
+    public TargetAndPermission {
+        Preconditions.checkArgument(null != permission, "the permission must be provided");
+    }
+
+}
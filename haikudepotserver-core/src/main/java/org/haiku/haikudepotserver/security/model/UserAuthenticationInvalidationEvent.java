@@ -0,0 +1,33 @@
+/*
+ * Copyright 2026, Andrew Lindesay
+ * Distributed under the terms of the MIT License.
+ */
+package org.haiku.haikudepotserver.security.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.haiku.haikudepotserver.support.eventing.model.InterProcessApplicationEvent;
+
+import java.util.Set;
+
+/**
+ * <p>This event indicates that the users with the supplied nicknames have been changed; for example they
+ * may have been deactivated or their password may have been changed.  Any cached outcome of authenticating
+ * those users should be discarded.  An empty set of nicknames indicates that all cached outcomes should be
+ * discarded.</p>
+ */
+
+public class UserAuthenticationInvalidationEvent extends InterProcessApplicationEvent {
+
+    private final Set<String> nicknames;
+
+    @JsonCreator
+    public UserAuthenticationInvalidationEvent(@JsonProperty("nicknames") Set<String> nicknames) {
+        this.nicknames = null == nicknames ? Set.of() : Set.copyOf(nicknames);
+    }
+
+    public Set<String> getNicknames() {
+        return nicknames;
+    }
+
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright 2026, Andrew Lindesay
+ * Distributed under the terms of the MIT License.
+ */
+package org.haiku.haikudepotserver.security.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.haiku.haikudepotserver.support.eventing.model.InterProcessApplicationEvent;
+
+import java.util.Set;
+
+/**
+ * <p>This event indicates that data which bears on the authorization of the users with the supplied
+ * nicknames has changed; for example their package authorization rules or their agreement to the user
+ * usage conditions.  If no nicknames are supplied then the change may affect any user; for example new
+ * user usage conditions may have been published.</p>
+ */
+
+public class UserAuthorizationInvalidationEvent extends InterProcessApplicationEvent {
+
+    private final Set<String> nicknames;
+
+    @JsonCreator
+    public UserAuthorizationInvalidationEvent(@JsonProperty("nicknames") Set<String> nicknames) {
+        this.nicknames = null == nicknames ? Set.of() : Set.copyOf(nicknames);
+    }
+
+    public Set<String> getNicknames() {
+        return nicknames;
+    }
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2016-2020, Andrew Lindesay
+ * Copyright 2016-2026, Andrew Lindesay
  * Distributed under the terms of the MIT License.
  */
 
@@ -9,6 +9,8 @@ import org.apache.cayenne.DataObject;
 import org.apache.cayenne.ObjectContext;
 import org.haiku.haikudepotserver.dataobjects.User;
 
+import java.util.List;
+
 public interface UserAuthorizationService {
 
     /**
@@ -32,4 +34,15 @@ public interface UserAuthorizationService {
             DataObject target,
             final Permission permission);
 
+    /**
+     * <p>Returns, in the same order, whether the user has each of the permissions over its target.  The
+     * targets are looked up together so that checking a large number of permissions does not involve a
+     * query for each one.</p>
+     */
+
+    List<Boolean> check(
+            ObjectContext objectContext,
+            User authenticatedUser,
+            List<TargetAndPermission> targetAndPermissions);
+
 }
@@ -0,0 +1,391 @@
+/*
+ * Copyright 2026, Andrew Lindesay
+ * Distributed under the terms of the MIT License.
+ */
+package org.haiku.haikudepotserver.storage;
+
+import com.google.common.base.Preconditions;
+import com.google.common.io.ByteSource;
+import com.google.common.io.ByteStreams;
+import org.haiku.haikudepotserver.storage.model.DataStorageByteSink;
+import org.haiku.haikudepotserver.storage.model.DataStorageException;
+import org.haiku.haikudepotserver.storage.model.DataStorageService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * <p>This is a service for storage of data on a local filesystem. The directory may be on a volume that is shared
+ * between a number of instances of the application server. Each data item is stored as a file named by the key.
+ * Data is first written to a temporary file in the same directory and is then atomically renamed into place so
+ * that a reader will never see a partially written item. The rename only happens if the data was committed to the
+ * sink; otherwise the temporary file is deleted. Temporary files left behind by an instance that stopped while
+ * writing are deleted when the service is created.</p>
+ *
+ * <p>The {@link ByteSource}s returned know their size and are able to be sliced efficiently so that ranges of
+ * the data can be served.</p>
+ */
+
+public class FileSystemDataStorageServiceImpl implements DataStorageService {
+
+    protected static final Logger LOGGER = LoggerFactory.getLogger(FileSystemDataStorageServiceImpl.class);
+
+    /**
+     * <p>Keys are used directly as filenames so they are constrained to avoid any possibility of escaping the
+     * root directory.</p>
+     */
+    private static final Pattern PATTERN_KEY = Pattern.compile("^[A-Za-z0-9][A-Za-z0-9_.-]{0,254}$");
+
+    /**
+     * <p>Temporary files are prefixed with this so that they do not match the {@link #PATTERN_KEY} and will not
+     * be confused with stored data.</p>
+     */
+    private static final String PREFIX_TEMPORARY = ".tmp-";
+
+    /**
+     * <p>The directory may be shared with other instances which may be writing to their own temporary files at
+     * the time that this service is created. Only temporary files that have not been modified for this long are
+     * considered to have been left behind.</p>
+     */
+    private static final Duration DURATION_TEMPORARY_ABANDONED = Duration.ofHours(1);
+
+    private final Path root;
+
+    private final Clock clock;
+
+    public FileSystemDataStorageServiceImpl(Path root) {
+        Preconditions.checkNotNull(root);
+
+        try {
+            Files.createDirectories(root);
+        } catch (IOException ioe) {
+            throw new DataStorageException("unable to create the data storage directory [%s]".formatted(root), ioe);
+        }
+
+        this.root = root;
+        this.clock = Clock.systemUTC();
+
+        removeAbandonedTemporaryFiles();
+    }
+
+    @Override
+    public Set<String> keys(Duration olderThanDuration) {
+        Preconditions.checkNotNull(olderThanDuration);
+        Instant olderThan = clock.instant().minus(olderThanDuration);
+        Set<String> result = new HashSet<>();
+
+        for (Path path : listDataFiles()) {
+            try {
+                if (Files.getLastModifiedTime(path).toInstant().isBefore(olderThan)) {
+                    result.add(path.getFileName().toString());
+                }
+            } catch (NoSuchFileException nsfe) {
+                // removed since the listing; ignore
+            } catch (IOException ioe) {
+                throw new DataStorageException("unable to get the modified time of [%s]".formatted(path), ioe);
+            }
+        }
+
+        return Collections.unmodifiableSet(result);
+    }
+
+    @Override
+    public DataStorageByteSink put(String key) throws IOException {
+        return new FileSystemDataStorageByteSink(resolve(key));
+    }
+
+    @Override
+    public Optional<? extends ByteSource> get(String key) throws IOException {
+        Path path = resolve(key);
+
+        if (!Files.isRegularFile(path)) {
+            return Optional.empty();
+        }
+
+        return Optional.of(new FileSystemDataStorageByteSource(path, 0, Long.MAX_VALUE));
+    }
+
+    @Override
+    public long remove(Set<String> keys) {
+        long result = 0;
+
+        for (String key : keys) {
+            try {
+                if (Files.deleteIfExists(resolve(key))) {
+                    result++;
+                }
+            } catch (IOException ioe) {
+                throw new DataStorageException("unable to remove the data storage key [%s]".formatted(key), ioe);
+            }
+        }
+
+        return result;
+    }
+
+    @Override
+    public long size() {
+        return listDataFiles().size();
+    }
+
+    @Override
+    public long totalBytes() {
+        long result = 0;
+
+        for (Path path : listDataFiles()) {
+            try {
+                result += Files.size(path);
+            } catch (NoSuchFileException nsfe) {
+                // removed since the listing; ignore
+            } catch (IOException ioe) {
+                throw new DataStorageException("unable to get the size of [%s]".formatted(path), ioe);
+            }
+        }
+
+        return result;
+    }
+
+    @Override
+    public void clear() {
+        for (Path path : listDataFiles()) {
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException ioe) {
+                throw new DataStorageException("unable to remove [%s]".formatted(path), ioe);
+            }
+        }
+    }
+
+    private Path resolve(String key) {
+        Preconditions.checkArgument(null != key && PATTERN_KEY.matcher(key).matches(), "bad data storage key");
+        return root.resolve(key);
+    }
+
+    private void removeAbandonedTemporaryFiles() {
+        Instant olderThan = clock.instant().minus(DURATION_TEMPORARY_ABANDONED);
+        List<Path> temporaryPaths;
+
+        try (Stream<Path> paths = Files.list(root)) {
+            temporaryPaths = paths
+                    .filter(p -> p.getFileName().toString().startsWith(PREFIX_TEMPORARY))
+                    .toList();
+        } catch (IOException ioe) {
+            throw new DataStorageException("unable to list the data storage directory [%s]".formatted(root), ioe);
+        }
+
+        long removed = 0;
+
+        for (Path path : temporaryPaths) {
+            try {
+                if (Files.getLastModifiedTime(path).toInstant().isBefore(olderThan) && Files.deleteIfExists(path)) {
+                    removed++;
+                }
+            } catch (NoSuchFileException nsfe) {
+                // removed since the listing; ignore
+            } catch (IOException ioe) {
+                LOGGER.warn("unable to remove the abandoned temporary file [{}]", path, ioe);
+            }
+        }
+
+        if (0 != removed) {
+            LOGGER.info("did remove {} abandoned temporary files from [{}]", removed, root);
+        }
+    }
+
+    private List<Path> listDataFiles() {
+        try (Stream<Path> paths = Files.list(root)) {
+            return paths
+                    .filter(p -> PATTERN_KEY.matcher(p.getFileName().toString()).matches())
+                    .filter(Files::isRegularFile)
+                    .toList();
+        } catch (IOException ioe) {
+            throw new DataStorageException("unable to list the data storage directory [%s]".formatted(root), ioe);
+        }
+    }
+
+    final class FileSystemDataStorageByteSink extends DataStorageByteSink {
+
+        private final Path path;
+
+        FileSystemDataStorageByteSink(Path path) {
+            this.path = path;
+        }
+
+        @Override
+        public OutputStream openStream() throws IOException {
+            return new FileSystemDataStorageOutputStream(this);
+        }
+
+    }
+
+    /**
+     * <p>Writes to a temporary file which is moved into place once the stream is closed if the data was committed
+     * to the sink. If the data was not committed then the temporary file is deleted.</p>
+     */
+
+    final class FileSystemDataStorageOutputStream extends FilterOutputStream {
+
+        private final FileSystemDataStorageByteSink byteSink;
+
+        private final Path temporaryPath;
+
+        private boolean closed = false;
+
+        FileSystemDataStorageOutputStream(FileSystemDataStorageByteSink byteSink) throws IOException {
+            this(byteSink, root.resolve(PREFIX_TEMPORARY + UUID.randomUUID()));
+        }
+
+        private FileSystemDataStorageOutputStream(FileSystemDataStorageByteSink byteSink, Path temporaryPath)
+                throws IOException {
+            super(Files.newOutputStream(temporaryPath, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE));
+            this.byteSink = byteSink;
+            this.temporaryPath = temporaryPath;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+
+            closed = true;
+
+            try {
+                super.close();
+
+                if (byteSink.isCommitted()) {
+                    publish(byteSink.path);
+                } else {
+                    LOGGER.info("data for [{}] was not committed; will discard", byteSink.path);
+                }
+            } finally {
+                Files.deleteIfExists(temporaryPath);
+            }
+        }
+
+        private void publish(Path path) throws IOException {
+            try {
+                Files.move(temporaryPath, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException amnse) {
+                LOGGER.warn("atomic move is not supported for [{}]; will move non-atomically", path);
+                Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+    }
+
+    /**
+     * <p>Provides the data from a file or from a range within the file.</p>
+     */
+
+    static final class FileSystemDataStorageByteSource extends ByteSource {
+
+        private final Path path;
+
+        private final long offset;
+
+        private final long length;
+
+        FileSystemDataStorageByteSource(Path path, long offset, long length) {
+            this.path = path;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        @Override
+        public InputStream openStream() throws IOException {
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+
+            try {
+                channel.position(offset);
+                InputStream inputStream = Channels.newInputStream(channel);
+                return Long.MAX_VALUE == length ? inputStream : ByteStreams.limit(inputStream, length);
+            } catch (IOException | RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+        }
+
+        @Override
+        public com.google.common.base.Optional<Long> sizeIfKnown() {
+            try {
+                return com.google.common.base.Optional.of(size());
+            } catch (IOException ioe) {
+                return com.google.common.base.Optional.absent();
+            }
+        }
+
+        @Override
+        public long size() throws IOException {
+            long fileSize = Files.size(path);
+            return Math.max(0, Math.min(length, fileSize - offset));
+        }
+
+        @Override
+        public ByteSource slice(long sliceOffset, long sliceLength) {
+            Preconditions.checkArgument(sliceOffset >= 0, "offset (%s) may not be negative", sliceOffset);
+            Preconditions.checkArgument(sliceLength >= 0, "length (%s) may not be negative", sliceLength);
+            long maxLength = length - sliceOffset;
+            return new FileSystemDataStorageByteSource(
+                    path,
+                    offset + sliceOffset,
+                    Math.max(0, Math.min(sliceLength, maxLength)));
+        }
+
+        /**
+         * <p>Transfers the data using the file's channel so that the operating system is able to avoid copying
+         * the data through the JVM where the destination supports this.</p>
+         */
+
+        @Override
+        public long copyTo(OutputStream output) throws IOException {
+            Preconditions.checkNotNull(output);
+
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                WritableByteChannel outputChannel = Channels.newChannel(output);
+                long end = offset + Math.max(0, Math.min(length, channel.size() - offset));
+                long position = offset;
+
+                while (position < end) {
+                    long transferred = channel.transferTo(position, end - position, outputChannel);
+
+                    if (transferred <= 0) {
+                        break;
+                    }
+
+                    position += transferred;
+                }
+
+                return position - offset;
+            }
+        }
+    }
+
+}
@@ -158,21 +158,41 @@ public class PgDataStorageHelper {
         Preconditions.checkArgument(file.length() > 0, "the file [%s] is empty".formatted(file.getAbsolutePath()));
 
         try (InputStream inputStream = new FileInputStream(file)) {
-            try (PreparedStatement preparedStatement = connection.prepareStatement(SQL_INSERT_PART)) {
-                preparedStatement.setLong(1, headId);
-                preparedStatement.setBinaryStream(2, inputStream);
-                preparedStatement.setLong(3, file.length());
-
-                if (1 != preparedStatement.executeUpdate()) {
-                    throw new IllegalStateException("unable to insert the object part");
-                }
-            }
+            createPart(connection, clock, headId, inputStream, file.length());
         } catch (IOException e) {
             throw new UncheckedIOException("file buffer related issue updating object part", e);
         }
+    }
+
+    /**
+     * <p>Creates an object part on the object identified by the supplied ID. The content of the part is
+     * supplied by the first <code>length</code> bytes of the provided data.</p>
+     */
+    static void createPart(Connection connection, Clock clock, long headId, byte[] data, int length) throws SQLException {
+        Preconditions.checkArgument(headId >= 0, "the primary key is required");
+        Preconditions.checkArgument(null != data, "the data is required");
+        Preconditions.checkArgument(length > 0 && length <= data.length, "bad length [%d]".formatted(length));
+        createPart(connection, clock, headId, new ByteArrayInputStream(data, 0, length), length);
+    }
+
+    private static void createPart(
+            Connection connection,
+            Clock clock,
+            long headId,
+            InputStream inputStream,
+            long length) throws SQLException {
+        try (PreparedStatement preparedStatement = connection.prepareStatement(SQL_INSERT_PART)) {
+            preparedStatement.setLong(1, headId);
+            preparedStatement.setBinaryStream(2, inputStream);
+            preparedStatement.setLong(3, length);
+
+            if (1 != preparedStatement.executeUpdate()) {
+                throw new IllegalStateException("unable to insert the object part");
+            }
+        }
 
         try (PreparedStatement preparedStatement = connection.prepareStatement(SQL_UPDATE_HEAD_LENGTH)) {
-            preparedStatement.setLong(1, file.length());
+            preparedStatement.setLong(1, length);
             preparedStatement.setTimestamp(2, new java.sql.Timestamp(clock.millis()));
             preparedStatement.setLong(3, headId);
 
@@ -251,8 +271,21 @@ public class PgDataStorageHelper {
     }
 
     static WriteDataPartStats writePartDataToFile(Connection connection, long partId, File file) throws SQLException {
-        Preconditions.checkArgument(null != connection, "the connection is required");
         Preconditions.checkArgument(null != file, "the file is required");
+
+        try (FileOutputStream outputStream = new FileOutputStream(file)) {
+            return writePartData(connection, partId, outputStream);
+        } catch (IOException ioe) {
+            throw new UncheckedIOException("unable to write part [" + partId + "] to file [" + file + "]", ioe);
+        }
+    }
+
+    /**
+     * <p>Streams the data of the part directly from the database into the supplied {@link OutputStream}.</p>
+     */
+    static WriteDataPartStats writePartData(Connection connection, long partId, OutputStream outputStream) throws SQLException {
+        Preconditions.checkArgument(null != connection, "the connection is required");
+        Preconditions.checkArgument(null != outputStream, "the output stream is required");
         double megabytePerSecond;
 
         try (PreparedStatement preparedStatement = connection.prepareStatement(SQL_SELECT_PART_DATA)) {
@@ -266,8 +299,7 @@ public class PgDataStorageHelper {
 
                 try (
                         InputStream inputStream = resultSet.getBinaryStream(1);
-                        CountingInputStream countingInputStream = new CountingInputStream(inputStream);
-                        FileOutputStream outputStream = new FileOutputStream(file)) {
+                        CountingInputStream countingInputStream = new CountingInputStream(inputStream)) {
 
                     StopWatch stopWatch = new StopWatch();
 
@@ -277,7 +309,7 @@ public class PgDataStorageHelper {
 
                     megabytePerSecond = megabytePerSecond(countingInputStream.getCount(), stopWatch.getTotalTimeSeconds());
                 } catch (IOException ioe) {
-                    throw new UncheckedIOException("unable to write part [" + partId + "] to file [" + file + "]", ioe);
+                    throw new UncheckedIOException("unable to write part [" + partId + "]", ioe);
                 }
             }
         }
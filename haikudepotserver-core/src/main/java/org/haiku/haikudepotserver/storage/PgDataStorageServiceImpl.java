@@ -5,13 +5,13 @@
 package org.haiku.haikudepotserver.storage;
 
 import com.google.common.base.Preconditions;
-import com.google.common.io.ByteSink;
 import com.google.common.io.ByteSource;
 import com.google.common.io.CountingInputStream;
 import com.google.common.io.CountingOutputStream;
 import com.google.common.util.concurrent.AtomicDouble;
 import io.micrometer.core.instrument.MeterRegistry;
 import org.haiku.haikudepotserver.metrics.MetricsConstants;
+import org.haiku.haikudepotserver.storage.model.DataStorageByteSink;
 import org.haiku.haikudepotserver.storage.model.DataStorageException;
 import org.haiku.haikudepotserver.storage.model.DataStorageService;
 import org.slf4j.Logger;
@@ -24,37 +24,84 @@ import java.sql.SQLException;
 import java.time.Clock;
 import java.time.Duration;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * <p>This is a service for storage of data in the postgres database. It will store the
  * data items into a structure that consists of a head table and then a series of ordered
  * parts each of which carries a blob.</p>
+ *
+ * <p>If data is not committed to the sink before the stream is closed then the head and any parts that were
+ * written are deleted.</p>
  */
 
 public class PgDataStorageServiceImpl implements DataStorageService {
 
     protected static final Logger LOGGER = LoggerFactory.getLogger(PgDataStorageServiceImpl.class);
 
+    /**
+     * <p>Defines how the parts are buffered as they are transferred between the caller and the database.</p>
+     */
+    public enum BufferType {
+
+        /**
+         * <p>Each part is buffered through a local file and is only transferred to or from the database once it
+         * is complete. This uses very little memory.</p>
+         */
+        FILE,
+
+        /**
+         * <p>Each part is buffered in memory. While the caller is working with one part, the next part is
+         * transferred to or from the database on a background thread. This avoids the disk entirely but uses
+         * memory in the order of twice the part size for each open stream.</p>
+         */
+        MEMORY
+    }
+
     private final DataSource dataSource;
 
     private final Clock clock;
 
     private final long partSize;
 
+    private final BufferType bufferType;
+
+    /**
+     * <p>Used to transfer parts in the background when the {@link BufferType#MEMORY} is in use.</p>
+     */
+    private final ExecutorService transferExecutorService = Executors.newVirtualThreadPerTaskExecutor();
+
     /**
      * <p>This is used for a metric gauge to show the rate of data transfer.</p>
      */
     private final AtomicDouble mbPerSecondTransfer;
 
     public PgDataStorageServiceImpl(DataSource dataSource, MeterRegistry meterRegistry, long partSize) {
+        this(dataSource, meterRegistry, partSize, BufferType.FILE);
+    }
+
+    public PgDataStorageServiceImpl(
+            DataSource dataSource,
+            MeterRegistry meterRegistry,
+            long partSize,
+            BufferType bufferType) {
         Preconditions.checkNotNull(meterRegistry);
         Preconditions.checkNotNull(dataSource);
+        Preconditions.checkNotNull(bufferType);
         Preconditions.checkArgument(partSize > 0);
+        Preconditions.checkArgument(
+                BufferType.FILE == bufferType || partSize <= Integer.MAX_VALUE,
+                "the part size is too large to buffer in memory");
 
         this.dataSource = dataSource;
         this.partSize = partSize;
+        this.bufferType = bufferType;
 
         this.mbPerSecondTransfer = new AtomicDouble();
         meterRegistry.gauge(
@@ -74,9 +121,9 @@ public class PgDataStorageServiceImpl implements DataStorageService {
     }
 
     @Override
-    public ByteSink put(String key) throws IOException {
+    public DataStorageByteSink put(String key) throws IOException {
         try (Connection connection = dataSource.getConnection()) {
-            return new PgDataStorageByteSink(PgDataStorageHelper.createHead(connection, clock, key));
+            return new PgDataStorageByteSink(key, PgDataStorageHelper.createHead(connection, clock, key));
         } catch (SQLException se) {
             throw new DataStorageException("unable to put the data storage key [%s]".formatted(key), se);
         }
@@ -128,19 +175,72 @@ public class PgDataStorageServiceImpl implements DataStorageService {
         }
     }
 
-    final class PgDataStorageByteSink extends ByteSink {
+    final class PgDataStorageByteSink extends DataStorageByteSink {
+
+        private final String key;
 
         private final long headId;
 
-        public PgDataStorageByteSink(long headId) {
+        public PgDataStorageByteSink(String key, long headId) {
+            this.key = key;
             this.headId = headId;
         }
 
         @Override
         public OutputStream openStream() throws IOException {
-            return new PgDataStorageOutputStream(headId);
+            return new PgDataStorageCommitOutputStream(this, switch (bufferType) {
+                case FILE -> new PgDataStorageOutputStream(headId);
+                case MEMORY -> new PgDataStorageMemoryOutputStream(headId);
+            });
+        }
+
+    }
+
+    /**
+     * <p>Once the underlying stream is closed, this will delete the data if it was not committed to the sink or if
+     * the remaining data could not be written.</p>
+     */
+
+    final class PgDataStorageCommitOutputStream extends FilterOutputStream {
+
+        private final PgDataStorageByteSink byteSink;
+
+        private boolean closed = false;
+
+        PgDataStorageCommitOutputStream(PgDataStorageByteSink byteSink, OutputStream out) {
+            super(out);
+            this.byteSink = byteSink;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
         }
 
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+
+            closed = true;
+            boolean written = false;
+
+            try {
+                super.close();
+                written = true;
+            } finally {
+                if (!written || !byteSink.isCommitted()) {
+                    LOGGER.info("data for [{}] was not committed; will discard", byteSink.key);
+
+                    try (Connection connection = dataSource.getConnection()) {
+                        PgDataStorageHelper.deleteHeadAndPartsByCodes(connection, Set.of(byteSink.key));
+                    } catch (SQLException se) {
+                        throw new DataStorageException("unable to discard the data storage key [%s]".formatted(byteSink.key), se);
+                    }
+                }
+            }
+        }
     }
 
     /**
@@ -251,7 +351,10 @@ public class PgDataStorageServiceImpl implements DataStorageService {
 
         @Override
         public InputStream openStream() throws IOException {
-            return new PgDataStorageInputStream(headId);
+            return switch (bufferType) {
+                case FILE -> new PgDataStorageInputStream(headId);
+                case MEMORY -> new PgDataStorageMemoryInputStream(headId);
+            };
         }
 
     }
@@ -386,4 +489,276 @@ public class PgDataStorageServiceImpl implements DataStorageService {
             return countingInputStream;
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * <p>This class streams data to blobs. Each part is accumulated in memory and, once it is full, is written to
+     * the database on a background thread while the next part is accumulated in a second buffer. Only one part is
+     * written at a time so that the parts are stored in order.</p>
+     */
+
+    final class PgDataStorageMemoryOutputStream extends OutputStream {
+
+        private final long headId;
+
+        private byte[] buffer;
+
+        private int bufferLength = 0;
+
+        /**
+         * <p>Writes the previous part to the database; once written it yields the buffer back again so that
+         * it can be re-used.</p>
+         */
+        private Future<byte[]> pendingWrite = null;
+
+        public PgDataStorageMemoryOutputStream(long headId) {
+            this.headId = headId;
+            this.buffer = new byte[(int) partSize];
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            ensureOpen();
+            buffer[bufferLength++] = (byte) b;
+            flushBufferIfFull();
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            Objects.checkFromIndexSize(off, len, b.length);
+            ensureOpen();
+
+            while (len > 0) {
+                int lenToWrite = Math.min(buffer.length - bufferLength, len);
+                System.arraycopy(b, off, buffer, bufferLength, lenToWrite);
+                bufferLength += lenToWrite;
+                off += lenToWrite;
+                len -= lenToWrite;
+                flushBufferIfFull();
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            ensureOpen();
+            flushBuffer();
+            awaitPendingWrite();
+            super.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (null != buffer) {
+                try {
+                    flushBuffer();
+                    awaitPendingWrite();
+                } finally {
+                    buffer = null;
+                }
+            }
+
+            super.close();
+        }
+
+        private void ensureOpen() throws IOException {
+            if (null == buffer) {
+                throw new IOException("possible use of output stream after closure");
+            }
+        }
+
+        private void flushBufferIfFull() throws IOException {
+            if (bufferLength == buffer.length) {
+                flushBuffer();
+            }
+        }
+
+        /**
+         * <p>Hands the accumulated data over to be written in the background once the previous part has been
+         * written.</p>
+         */
+        private void flushBuffer() throws IOException {
+            if (0 == bufferLength) {
+                return;
+            }
+
+            byte[] nextBuffer = awaitPendingWrite();
+            byte[] data = buffer;
+            int length = bufferLength;
+
+            pendingWrite = transferExecutorService.submit(() -> {
+                try (Connection connection = dataSource.getConnection()) {
+                    PgDataStorageHelper.createPart(connection, clock, headId, data, length);
+                }
+                return data;
+            });
+
+            buffer = null != nextBuffer ? nextBuffer : new byte[(int) partSize];
+            bufferLength = 0;
+        }
+
+        private byte[] awaitPendingWrite() throws IOException {
+            if (null == pendingWrite) {
+                return null;
+            }
+
+            try {
+                return pendingWrite.get();
+            } catch (ExecutionException ee) {
+                throw new IOException("unable to write the part for head [%d]".formatted(headId), ee.getCause());
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("interrupted writing the part for head [%d]".formatted(headId));
+            } finally {
+                pendingWrite = null;
+            }
+        }
+
+    }
+
+    /**
+     * <p>This class will stream out from the blobs. Each part is read into memory and, while the caller is
+     * consuming one part, the next part is read from the database on a background thread.</p>
+     */
+
+    final class PgDataStorageMemoryInputStream extends InputStream {
+
+        /**
+         * <p>These are all the parts that need to be read in to fulfill the stream.</p>
+         */
+        private final List<PgDataStorageHelper.Part> parts;
+
+        private int partIndex = -1;
+
+        private byte[] partData = null;
+
+        private int partOffset = 0;
+
+        /**
+         * <p>Reads the part after the current one.</p>
+         */
+        private Future<byte[]> prefetch = null;
+
+        private boolean closed = false;
+
+        public PgDataStorageMemoryInputStream(long headId) throws IOException {
+            try (Connection connection = dataSource.getConnection()) {
+                this.parts = PgDataStorageHelper.findOrderedPartsByHeadId(connection, headId);
+            } catch (SQLException se) {
+                throw new IOException("unable to find the ordered parts by head id [%d]".formatted(headId), se);
+            }
+
+            if (!parts.isEmpty()) {
+                prefetch = fetchPart(parts.getFirst());
+            }
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (!ensurePartData()) {
+                return -1;
+            }
+
+            return partData[partOffset++] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            Objects.checkFromIndexSize(off, len, b.length);
+
+            if (0 == len) {
+                return 0;
+            }
+
+            int total = 0;
+
+            while (total < len && ensurePartData()) {
+                int lenToRead = Math.min(len - total, partData.length - partOffset);
+                System.arraycopy(partData, partOffset, b, off + total, lenToRead);
+                partOffset += lenToRead;
+                total += lenToRead;
+            }
+
+            return 0 == total ? -1 : total;
+        }
+
+        @Override
+        public int available() {
+            return null == partData ? 0 : partData.length - partOffset;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!closed) {
+                closed = true;
+                partData = null;
+
+                if (null != prefetch) {
+                    // allow any read in progress to complete so that the connection is returned cleanly.
+                    prefetch.cancel(false);
+                    prefetch = null;
+                }
+            }
+
+            super.close();
+        }
+
+        /**
+         * <p>Moves onto the next part if the current part has been consumed.</p>
+         * @return false if there is no more data to read.
+         */
+        private boolean ensurePartData() throws IOException {
+            if (closed) {
+                throw new IOException("possible use of input stream after closure");
+            }
+
+            while (null == partData || partOffset >= partData.length) {
+                if (partIndex + 1 >= parts.size()) {
+                    return false;
+                }
+
+                partIndex++;
+                partData = awaitPrefetch(parts.get(partIndex));
+                partOffset = 0;
+
+                if (partIndex + 1 < parts.size()) {
+                    prefetch = fetchPart(parts.get(partIndex + 1));
+                }
+            }
+
+            return true;
+        }
+
+        private Future<byte[]> fetchPart(PgDataStorageHelper.Part part) {
+            return transferExecutorService.submit(() -> {
+                ByteArrayOutputStream outputStream = new ByteArrayOutputStream((int) part.length());
+
+                try (Connection connection = dataSource.getConnection()) {
+                    PgDataStorageHelper.WriteDataPartStats stats = PgDataStorageHelper.writePartData(
+                            connection, part.id(), outputStream);
+                    mbPerSecondTransfer.set(stats.megabytesPerSecond());
+                }
+
+                if (part.length() != outputStream.size()) {
+                    throw new IllegalStateException(String.format(
+                            "the expected part size %d is not equal to the read size %d",
+                            part.length(), outputStream.size()));
+                }
+
+                return outputStream.toByteArray();
+            });
+        }
+
+        private byte[] awaitPrefetch(PgDataStorageHelper.Part part) throws IOException {
+            try {
+                return prefetch.get();
+            } catch (ExecutionException ee) {
+                throw new IOException("unable to read the part [%d]".formatted(part.id()), ee.getCause());
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("interrupted reading the part [%d]".formatted(part.id()));
+            } finally {
+                prefetch = null;
+            }
+        }
+    }
+
+}
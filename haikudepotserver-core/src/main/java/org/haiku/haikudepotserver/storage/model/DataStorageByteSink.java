@@ -0,0 +1,75 @@
+/*
+ * Copyright 2026, Andrew Lindesay
+ * Distributed under the terms of the MIT License.
+ */
+
+package org.haiku.haikudepotserver.storage.model;
+
+import com.google.common.base.Preconditions;
+import com.google.common.io.ByteSink;
+import com.google.common.io.ByteStreams;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * <p>A sink for data that is being stored. Data written to a stream from this sink is only stored when the stream
+ * is closed after {@link #commit()} has been called. If the stream is closed without a commit, for example because
+ * an exception was thrown while the data was being written, then the data is discarded. The commit should be made
+ * once all the data has been written to the stream but before the stream is closed;</p>
+ *
+ * <pre>
+ * try (OutputStream outputStream = byteSink.openBufferedStream()) {
+ *     ...
+ *     byteSink.commit();
+ * }
+ * </pre>
+ */
+
+public abstract class DataStorageByteSink extends ByteSink {
+
+    private volatile boolean committed = false;
+
+    /**
+     * <p>Signals that all the data has been written and that it should be stored when the stream is closed.</p>
+     */
+
+    public void commit() {
+        committed = true;
+    }
+
+    /**
+     * <p>Signals that the data written should be discarded when the stream is closed.</p>
+     */
+
+    public void abort() {
+        committed = false;
+    }
+
+    public boolean isCommitted() {
+        return committed;
+    }
+
+    @Override
+    public void write(byte[] bytes) throws IOException {
+        Preconditions.checkNotNull(bytes);
+
+        try (OutputStream outputStream = openStream()) {
+            outputStream.write(bytes);
+            commit();
+        }
+    }
+
+    @Override
+    public long writeFrom(InputStream input) throws IOException {
+        Preconditions.checkNotNull(input);
+
+        try (OutputStream outputStream = openStream()) {
+            long result = ByteStreams.copy(input, outputStream);
+            commit();
+            return result;
+        }
+    }
+
+}
@@ -1,12 +1,11 @@
 /*
- * Copyright 2016-2025, Andrew Lindesay
+ * Copyright 2016-2026, Andrew Lindesay
  * Distributed under the terms of the MIT License.
  */
 
 package org.haiku.haikudepotserver.storage.model;
 
 import com.google.common.base.Preconditions;
-import com.google.common.io.ByteSink;
 import com.google.common.io.ByteSource;
 import org.apache.commons.lang3.StringUtils;
 import org.haiku.haikudepotserver.job.model.JobService;
@@ -32,10 +31,11 @@ public interface DataStorageService {
     Set<String> keys(Duration olderThanDuration);
 
     /**
-     * <p>Creates a sink to write data to for the supplied key.</p>
+     * <p>Creates a sink to write data to for the supplied key. The data is only stored once it has been committed
+     * to the sink; see {@link DataStorageByteSink}.</p>
      */
 
-    ByteSink put(String key) throws IOException;
+    DataStorageByteSink put(String key) throws IOException;
 
     /**
      * @param key the identifier for the job data to obtain
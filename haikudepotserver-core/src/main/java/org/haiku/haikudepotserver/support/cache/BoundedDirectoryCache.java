@@ -0,0 +1,305 @@
+/*
+ * Copyright 2026, Andrew Lindesay
+ * Distributed under the terms of the MIT License.
+ */
+package org.haiku.haikudepotserver.support.cache;
+
+import com.google.common.base.Preconditions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Clock;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * <p>Stores data in files in a directory keyed by a string. The directory is bounded in size and the least
+ * recently used files are removed when the bound is exceeded. Each file is written to a temporary file first and
+ * is then moved into place so that a partially written file is never read. Because the data is on disk, it
+ * survives a restart of the application server.</p>
+ *
+ * <p>Concurrent requests through {@link #get(String, Loader)} for the same key that is not yet in the cache are
+ * coalesced so that the data is only loaded once.</p>
+ *
+ * <p>Failures to read or write are logged but are otherwise not fatal; the caller is expected to be able to
+ * produce the data again.</p>
+ */
+
+public class BoundedDirectoryCache {
+
+    protected final static Logger LOGGER = LoggerFactory.getLogger(BoundedDirectoryCache.class);
+
+    private final static Pattern PATTERN_KEY = Pattern.compile("^[A-Za-z0-9_.-]+$");
+
+    private final static String PREFIX_TEMPORARY = ".tmp-";
+
+    /**
+     * <p>When the cache is trimmed, it is trimmed to this proportion of the maximum so that trimming does not
+     * happen on every subsequent write.</p>
+     */
+    private final static double TRIM_TARGET_PROPORTION = 0.9;
+
+    private final Path directory;
+
+    private final String suffix;
+
+    private final long maxBytes;
+
+    private final Clock clock;
+
+    private final AtomicLong totalBytes = new AtomicLong();
+
+    private final ReentrantLock trimLock = new ReentrantLock();
+
+    private final Map<String, CompletableFuture<byte[]>> inFlightLoads = new ConcurrentHashMap<>();
+
+    /**
+     * <p>Produces the data for a key that is not in the cache.</p>
+     */
+
+    @FunctionalInterface
+    public interface Loader {
+        byte[] load() throws IOException;
+    }
+
+    /**
+     * <p>Indicates where the data that was obtained with {@link #get(String, Loader)} came from.</p>
+     */
+
+    public enum Source {
+        DIRECTORY,
+        LOADED,
+        COALESCED
+    }
+
+    public record Lookup(byte[] data, Source source) {
+    }
+
+    public BoundedDirectoryCache(Path directory, String suffix, long maxBytes) {
+        Preconditions.checkNotNull(directory);
+        Preconditions.checkArgument(null != suffix && suffix.startsWith("."), "the suffix must start with a period");
+        Preconditions.checkArgument(maxBytes > 0, "the maximum bytes must be greater than zero");
+
+        this.directory = directory;
+        this.suffix = suffix;
+        this.maxBytes = maxBytes;
+        this.clock = Clock.systemUTC();
+
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException ioe) {
+            throw new UncheckedIOException("unable to create the cache directory [" + directory + "]", ioe);
+        }
+
+        totalBytes.set(listCachedFiles().stream().mapToLong(BoundedDirectoryCache::sizeOrZero).sum());
+    }
+
+    public long getTotalBytes() {
+        return totalBytes.get();
+    }
+
+    /**
+     * <p>Reads the data from the cache. The modification time is updated so that it is possible to tell which
+     * files were least recently used.</p>
+     *
+     * @return the data or null if there is no data stored for the key.
+     */
+
+    public byte[] tryRead(String key) {
+        Path path = toPath(key);
+
+        try {
+            byte[] result = Files.readAllBytes(path);
+            Files.setLastModifiedTime(path, FileTime.from(clock.instant()));
+            return result;
+        } catch (NoSuchFileException nsfe) {
+            return null;
+        } catch (IOException ioe) {
+            LOGGER.warn("unable to read cached data [{}]", path, ioe);
+            return null;
+        }
+    }
+
+    /**
+     * <p>Reads the data from the cache or, if it is not present, loads it with the supplied loader and writes
+     * it to the cache. If another thread is already loading the data for the same key then this thread waits
+     * for that load to complete rather than loading the data again.</p>
+     */
+
+    public Lookup get(String key, Loader loader) throws IOException {
+        Preconditions.checkNotNull(loader);
+        byte[] cached = tryRead(key);
+
+        if (null != cached) {
+            return new Lookup(cached, Source.DIRECTORY);
+        }
+
+        CompletableFuture<byte[]> future = new CompletableFuture<>();
+        CompletableFuture<byte[]> existingFuture = inFlightLoads.putIfAbsent(key, future);
+
+        if (null != existingFuture) {
+            return new Lookup(awaitLoad(key, existingFuture), Source.COALESCED);
+        }
+
+        try {
+
+            // another thread may have completed the load between the check above and this thread registering
+            // its load.
+
+            Lookup result;
+            cached = tryRead(key);
+
+            if (null != cached) {
+                result = new Lookup(cached, Source.DIRECTORY);
+            } else {
+                byte[] data = loader.load();
+                Preconditions.checkState(null != data, "the loader returned no data for [%s]", key);
+                write(key, data);
+                result = new Lookup(data, Source.LOADED);
+            }
+
+            future.complete(result.data());
+            return result;
+        } catch (IOException | RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlightLoads.remove(key, future);
+        }
+    }
+
+    private byte[] awaitLoad(String key, CompletableFuture<byte[]> future) throws IOException {
+        try {
+            return future.join();
+        } catch (CompletionException ce) {
+            if (ce.getCause() instanceof IOException ioe) {
+                throw ioe;
+            }
+            throw new IOException("unable to load the data for [" + key + "]", ce.getCause());
+        }
+    }
+
+    public void write(String key, byte[] data) {
+        Preconditions.checkNotNull(data);
+        Path path = toPath(key);
+        Path temporaryPath = directory.resolve(PREFIX_TEMPORARY + UUID.randomUUID());
+
+        try {
+            Files.write(temporaryPath, data);
+
+            // the size of any file that is about to be replaced is no longer counted once the move is done.
+            long replacedBytes = sizeOrZero(path);
+
+            try {
+                Files.move(temporaryPath, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException amnse) {
+                Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            if (totalBytes.addAndGet(data.length - replacedBytes) > maxBytes) {
+                trim();
+            }
+        } catch (IOException ioe) {
+            LOGGER.warn("unable to write cached data [{}]", path, ioe);
+        } finally {
+            try {
+                Files.deleteIfExists(temporaryPath);
+            } catch (IOException ioe) {
+                LOGGER.warn("unable to delete temporary file [{}]", temporaryPath, ioe);
+            }
+        }
+    }
+
+    private Path toPath(String key) {
+        Preconditions.checkArgument(null != key && PATTERN_KEY.matcher(key).matches(), "bad cache key [%s]", key);
+        return directory.resolve(key + suffix);
+    }
+
+    /**
+     * <p>Removes the least recently used files until the cache is within bounds. If another thread is already
+     * trimming then there is no need to also trim in this thread.</p>
+     */
+
+    private void trim() {
+        if (!trimLock.tryLock()) {
+            return;
+        }
+
+        try {
+            record CachedFile(Path path, long size, FileTime lastModified) {}
+
+            List<CachedFile> cachedFiles = listCachedFiles().stream()
+                    .map(p -> {
+                        try {
+                            return new CachedFile(p, Files.size(p), Files.getLastModifiedTime(p));
+                        } catch (IOException ioe) {
+                            return null;
+                        }
+                    })
+                    .filter(cf -> null != cf)
+                    .sorted(Comparator.comparing(CachedFile::lastModified))
+                    .toList();
+
+            long total = cachedFiles.stream().mapToLong(CachedFile::size).sum();
+            long target = (long) (maxBytes * TRIM_TARGET_PROPORTION);
+            int removed = 0;
+
+            for (CachedFile cachedFile : cachedFiles) {
+                if (total <= target) {
+                    break;
+                }
+
+                try {
+                    if (Files.deleteIfExists(cachedFile.path())) {
+                        removed++;
+                    }
+                    total -= cachedFile.size();
+                } catch (IOException ioe) {
+                    LOGGER.warn("unable to remove cached data [{}]", cachedFile.path(), ioe);
+                }
+            }
+
+            totalBytes.set(total);
+            LOGGER.info("did trim {} cached files from [{}]; now {} bytes", removed, directory, total);
+        } finally {
+            trimLock.unlock();
+        }
+    }
+
+    private List<Path> listCachedFiles() {
+        try (Stream<Path> paths = Files.list(directory)) {
+            return paths
+                    .filter(p -> p.getFileName().toString().endsWith(suffix))
+                    .filter(p -> !p.getFileName().toString().startsWith(PREFIX_TEMPORARY))
+                    .toList();
+        } catch (IOException ioe) {
+            throw new UncheckedIOException("unable to list the cache directory [" + directory + "]", ioe);
+        }
+    }
+
+    private static long sizeOrZero(Path path) {
+        try {
+            return Files.size(path);
+        } catch (IOException ioe) {
+            return 0L;
+        }
+    }
+
+}
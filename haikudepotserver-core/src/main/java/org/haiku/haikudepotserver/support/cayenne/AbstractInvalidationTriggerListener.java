@@ -0,0 +1,197 @@
+/*
+ * Copyright 2026, Andrew Lindesay
+ * Distributed under the terms of the MIT License.
+ */
+
+package org.haiku.haikudepotserver.support.cayenne;
+
+import com.google.common.base.Preconditions;
+import org.apache.cayenne.DataChannel;
+import org.apache.cayenne.DataChannelFilter;
+import org.apache.cayenne.DataChannelFilterChain;
+import org.apache.cayenne.LifecycleListener;
+import org.apache.cayenne.ObjectContext;
+import org.apache.cayenne.Persistent;
+import org.apache.cayenne.QueryResponse;
+import org.apache.cayenne.configuration.server.ServerRuntime;
+import org.apache.cayenne.graph.GraphDiff;
+import org.apache.cayenne.query.Query;
+import org.apache.cayenne.reflect.LifecycleCallbackRegistry;
+import org.haiku.haikudepotserver.support.eventing.model.InterProcessApplicationEvent;
+import org.springframework.context.ApplicationEventPublisher;
+
+import jakarta.annotation.PostConstruct;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * <p>This one hooks into the Cayenne "transaction" flow in order to collect, against the context, the names
+ * of the things that are affected by changes to some entities. Once the changes have been committed, an
+ * event carrying those names is published so that anything held about them on this and the other instances
+ * can be discarded. An event with no names indicates that everything should be discarded.</p>
+ *
+ * <p>The event is relayed to the other instances as a Postgres notification and the payload of a
+ * notification is limited in size. If a great many names are involved then an event with no names is
+ * published instead.</p>
+ */
+
+public abstract class AbstractInvalidationTriggerListener implements LifecycleListener, DataChannelFilter {
+
+    /**
+     * <p>Beyond this quantity of names, an event with no names is published.</p>
+     */
+
+    public final static int MAX_NAMES = 50;
+
+    private final static String KEY_PREFIX = "org.haiku.haikudepotserver.";
+
+    private final String keyNames;
+
+    private final String keyAll;
+
+    private final ServerRuntime serverRuntime;
+
+    private final ApplicationEventPublisher applicationEventPublisher;
+
+    private final List<Class<?>> entityClasses;
+
+    protected AbstractInvalidationTriggerListener(
+            ServerRuntime serverRuntime,
+            ApplicationEventPublisher applicationEventPublisher,
+            List<Class<?>> entityClasses) {
+        Preconditions.checkArgument(null != entityClasses && !entityClasses.isEmpty(), "entity classes must be provided");
+        this.serverRuntime = Preconditions.checkNotNull(serverRuntime);
+        this.applicationEventPublisher = Preconditions.checkNotNull(applicationEventPublisher);
+        this.entityClasses = entityClasses;
+        this.keyNames = KEY_PREFIX + getClass().getSimpleName() + "Names";
+        this.keyAll = KEY_PREFIX + getClass().getSimpleName() + "All";
+    }
+
+    @PostConstruct
+    public void init() {
+        LifecycleCallbackRegistry callbackRegistry = serverRuntime.getDataDomain().getEntityResolver().getCallbackRegistry();
+        entityClasses.forEach(c -> callbackRegistry.addListener(c, this));
+        serverRuntime.getDataDomain().addFilter(this);
+    }
+
+    /**
+     * <p>Returns the names of the things that are affected by a change to the supplied entity.</p>
+     */
+
+    protected abstract Set<String> deriveNames(Object entity);
+
+    /**
+     * <p>Returns true if a change to the supplied entity may affect anything at all.</p>
+     */
+
+    protected boolean deriveAll(Object entity) {
+        return false;
+    }
+
+    protected abstract InterProcessApplicationEvent createEvent(Set<String> names);
+
+    private void registerChange(Object entity) {
+        if (entity instanceof Persistent persistent) {
+            ObjectContext context = persistent.getObjectContext();
+
+            if (null == context) {
+                throw new IllegalStateException("an entity was encountered with no context");
+            }
+
+            if (deriveAll(entity)) {
+                context.setUserProperty(keyAll, Boolean.TRUE);
+                return;
+            }
+
+            @SuppressWarnings("unchecked")
+            Set<String> names = (Set<String>) context.getUserProperty(keyNames);
+
+            if (null == names) {
+                names = new HashSet<>();
+                context.setUserProperty(keyNames, names);
+            }
+
+            names.addAll(deriveNames(entity));
+        }
+    }
+
+    // --------------
+    // DataChannelFilter
+
+    @Override
+    public void init(DataChannel channel) {
+    }
+
+    @Override
+    public QueryResponse onQuery(ObjectContext originatingContext, Query query, DataChannelFilterChain filterChain) {
+        return filterChain.onQuery(originatingContext, query);
+    }
+
+    @Override
+    public GraphDiff onSync(ObjectContext originatingContext, GraphDiff changes, int syncType, DataChannelFilterChain filterChain) {
+        try {
+            GraphDiff result = filterChain.onSync(originatingContext, changes, syncType);
+
+            switch (syncType) {
+                case DataChannel.FLUSH_NOCASCADE_SYNC,
+                        DataChannel.FLUSH_CASCADE_SYNC -> {
+                    @SuppressWarnings("unchecked")
+                    Set<String> names = (Set<String>) originatingContext.getUserProperty(keyNames);
+                    if (null != originatingContext.getUserProperty(keyAll)
+                            || (null != names && names.size() > MAX_NAMES)) {
+                        applicationEventPublisher.publishEvent(createEvent(Set.of()));
+                    }
+                    else if (null != names && !names.isEmpty()) {
+                        applicationEventPublisher.publishEvent(createEvent(names));
+                    }
+                }
+            }
+
+            return result;
+        }
+        finally {
+            originatingContext.setUserProperty(keyNames, null);
+            originatingContext.setUserProperty(keyAll, null);
+        }
+    }
+
+    // ---------------------
+    // LIFECYCLE LISTENER
+
+    @Override
+    public void postAdd(Object entity) {
+    }
+
+    @Override
+    public void prePersist(Object entity) {
+        registerChange(entity);
+    }
+
+    @Override
+    public void postPersist(Object entity) {
+    }
+
+    @Override
+    public void preRemove(Object entity) {
+        registerChange(entity);
+    }
+
+    @Override
+    public void postRemove(Object entity) {
+    }
+
+    @Override
+    public void preUpdate(Object entity) {
+        registerChange(entity);
+    }
+
+    @Override
+    public void postUpdate(Object entity) {
+    }
+
+    @Override
+    public void postLoad(Object entity) {
+    }
+
+}
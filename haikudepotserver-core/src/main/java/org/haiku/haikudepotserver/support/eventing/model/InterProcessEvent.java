@@ -1,5 +1,5 @@
 /*
- * Copyright 2025, Andrew Lindesay
+ * Copyright 2025-2026, Andrew Lindesay
  * Distributed under the terms of the MIT License.
  */
 package org.haiku.haikudepotserver.support.eventing.model;
@@ -11,7 +11,11 @@ import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import com.google.common.base.Preconditions;
 import org.apache.commons.lang3.StringUtils;
 import org.haiku.haikudepotserver.deployment.model.ShutdownAllInstancesEvent;
+import org.haiku.haikudepotserver.feed.model.FeedInvalidationEvent;
 import org.haiku.haikudepotserver.job.model.JobAvailableEvent;
+import org.haiku.haikudepotserver.pkg.model.PkgLocalizationInvalidationEvent;
+import org.haiku.haikudepotserver.security.model.UserAuthenticationInvalidationEvent;
+import org.haiku.haikudepotserver.security.model.UserAuthorizationInvalidationEvent;
 import org.haiku.haikudepotserver.support.cayenne.QueryCacheRemoveEvent;
 
 /**
@@ -24,7 +28,11 @@ import org.haiku.haikudepotserver.support.cayenne.QueryCacheRemoveEvent;
 @JsonSubTypes({
         @JsonSubTypes.Type(value = ShutdownAllInstancesEvent.class, name = "ShutdownAllInstancesEvent"),
         @JsonSubTypes.Type(value = JobAvailableEvent.class, name = "JobAvailableEvent"),
-        @JsonSubTypes.Type(value = QueryCacheRemoveEvent.class, name = "QueryCacheDropEvent")
+        @JsonSubTypes.Type(value = QueryCacheRemoveEvent.class, name = "QueryCacheDropEvent"),
+        @JsonSubTypes.Type(value = FeedInvalidationEvent.class, name = "FeedInvalidationEvent"),
+        @JsonSubTypes.Type(value = UserAuthenticationInvalidationEvent.class, name = "UserAuthenticationInvalidationEvent"),
+        @JsonSubTypes.Type(value = UserAuthorizationInvalidationEvent.class, name = "UserAuthorizationInvalidationEvent"),
+        @JsonSubTypes.Type(value = PkgLocalizationInvalidationEvent.class, name = "PkgLocalizationInvalidationEvent")
 })
 public abstract class InterProcessEvent {
 
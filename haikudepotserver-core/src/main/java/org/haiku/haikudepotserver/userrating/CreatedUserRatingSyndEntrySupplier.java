@@ -1,5 +1,5 @@
 /*
- * Copyright 2018-2023, Andrew Lindesay
+ * Copyright 2018-2026, Andrew Lindesay
  * Distributed under the terms of the MIT License.
  */
 
@@ -21,7 +21,8 @@ import org.haiku.haikudepotserver.dataobjects.PkgVersion;
 import org.haiku.haikudepotserver.dataobjects.UserRating;
 import org.haiku.haikudepotserver.feed.model.FeedSpecification;
 import org.haiku.haikudepotserver.feed.model.SyndEntrySupplier;
-import org.haiku.haikudepotserver.pkg.model.PkgLocalizationService;
+import org.haiku.haikudepotserver.pkg.FixedPkgLocalizationLookupServiceImpl;
+import org.haiku.haikudepotserver.pkg.model.PkgLocalizationLookupService;
 import org.haiku.haikudepotserver.pkg.model.ResolvedPkgVersionLocalization;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.MessageSource;
@@ -47,18 +48,15 @@ public class CreatedUserRatingSyndEntrySupplier implements SyndEntrySupplier {
     private final ServerRuntime serverRuntime;
     private final String baseUrl;
     private final MessageSource messageSource;
-    private final PkgLocalizationService pkgLocalizationService;
 
     public CreatedUserRatingSyndEntrySupplier(
             ServerRuntime serverRuntime,
             @Value("${hds.base-url}") String baseUrl,
-            MessageSource messageSource,
-            PkgLocalizationService pkgLocalizationService
+            MessageSource messageSource
     ) {
         this.serverRuntime = Preconditions.checkNotNull(serverRuntime);
         this.baseUrl = Preconditions.checkNotNull(baseUrl);
         this.messageSource = Preconditions.checkNotNull(messageSource);
-        this.pkgLocalizationService = Preconditions.checkNotNull(pkgLocalizationService);
     }
 
     /**
@@ -111,8 +109,11 @@ public class CreatedUserRatingSyndEntrySupplier implements SyndEntrySupplier {
                     .where(UserRating.ACTIVE.isTrue())
                     .and(UserRating.PKG_VERSION.dot(PkgVersion.ACTIVE).isTrue())
                     .and(UserRating.PKG_VERSION.dot(PkgVersion.PKG).dot(Pkg.ACTIVE).isTrue())
-                    .statementFetchSize(specification.getLimit())
-                    .orderBy(UserRating.CREATE_TIMESTAMP.desc());
+                    .prefetch(UserRating.PKG_VERSION.joint())
+                    .prefetch(UserRating.PKG_VERSION.dot(PkgVersion.PKG).joint())
+                    .prefetch(UserRating.USER.joint())
+                    .orderBy(UserRating.CREATE_TIMESTAMP.desc())
+                    .limit(specification.getLimit());
 
             if(null!=specification.getPkgNames()) {
                 objectSelect.and(
@@ -120,9 +121,15 @@ public class CreatedUserRatingSyndEntrySupplier implements SyndEntrySupplier {
             }
 
             ObjectContext context = serverRuntime.newContext();
-            List<UserRating> userRatings = objectSelect.select(serverRuntime.newContext());
+            List<UserRating> userRatings = objectSelect.select(context);
             NaturalLanguage naturalLanguage = deriveNaturalLanguage(context, specification);
 
+            // the localizations for all of the package versions are obtained in one query.
+            PkgLocalizationLookupService pkgLocalizationLookupService = new FixedPkgLocalizationLookupServiceImpl(
+                    context,
+                    userRatings.stream().map(UserRating::getPkgVersion).collect(Collectors.toSet()),
+                    naturalLanguage);
+
             return userRatings
                     .stream()
                     .map(ur -> {
@@ -144,7 +151,7 @@ public class CreatedUserRatingSyndEntrySupplier implements SyndEntrySupplier {
                                 ur.getCode()));
 
                         ResolvedPkgVersionLocalization resolvedPkgVersionLocalization =
-                                pkgLocalizationService.resolvePkgVersionLocalization(context, ur.getPkgVersion(), null, naturalLanguage);
+                                pkgLocalizationLookupService.resolvePkgVersionLocalization(context, ur.getPkgVersion(), null, naturalLanguage);
 
                         entry.setTitle(messageSource.getMessage(
                                 "feed.createdUserRating.atom.title",
@@ -0,0 +1,384 @@
+/*
+ * Copyright 2026, Andrew Lindesay
+ * Distributed under the terms of the MIT License.
+ */
+
+package org.haiku.haikudepotserver.userrating;
+
+import com.google.common.base.Preconditions;
+import org.haiku.haikudepotserver.support.VersionCoordinates;
+import org.haiku.haikudepotserver.support.VersionCoordinatesComparator;
+import org.haiku.haikudepotserver.userrating.model.DerivedUserRating;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+/**
+ * <p>Derives the user ratings of a number of packages at once in a fixed number of statements rather than
+ * querying for each package, repository and user. The caller is expected to manage the transaction on the
+ * supplied connection.</p>
+ *
+ * <p>The comparison of versions mirrors the C++ class <code>BPackageVersion::Compare</code> which is not
+ * practical to express in SQL. The package versions are therefore loaded and the window of versions from which
+ * user ratings are taken is established in Java. Each package version in the window is given a rank in version
+ * order and the database then selects the latest rating from each user and aggregates the ratings in a single
+ * statement.</p>
+ */
+
+public class UserRatingDerivationHelper {
+
+    private final static String SQL_SELECT_PKG_VERSIONS = """
+            SELECT pv.id, pv.pkg_id, rs.repository_id, pv.active AND r.active,
+            pv.major, pv.minor, pv.micro, pv.pre_release, pv.revision
+            FROM haikudepot.pkg_version pv
+            JOIN haikudepot.pkg p ON p.id = pv.pkg_id
+            JOIN haikudepot.repository_source rs ON rs.id = pv.repository_source_id
+            JOIN haikudepot.repository r ON r.id = rs.repository_id
+            """;
+
+    private final static String SQL_WHERE_ACTIVE_PKGS = "WHERE p.active";
+
+    private final static String SQL_WHERE_PKG_NAMES = "WHERE p.name = ANY(?)";
+
+    /**
+     * <p>Only the latest active rating from each active user is considered. The latest is the rating against
+     * the highest version; where the versions are the same then the rating created last and then the rating
+     * for the architecture with the highest code.</p>
+     */
+
+    private final static String SQL_SELECT_RATING_DISTRIBUTIONS = """
+            WITH pkg_version_rank AS (
+              SELECT r.pkg_version_id, r.version_rank
+              FROM UNNEST(?::bigint[], ?::integer[]) AS r(pkg_version_id, version_rank)
+            ), latest_user_rating AS (
+              SELECT DISTINCT ON (pv.pkg_id, rs.repository_id, ur.user_id) pv.pkg_id, rs.repository_id, ur.rating
+              FROM haikudepot.user_rating ur
+              JOIN pkg_version_rank pvr ON pvr.pkg_version_id = ur.pkg_version_id
+              JOIN haikudepot.pkg_version pv ON pv.id = ur.pkg_version_id
+              JOIN haikudepot.repository_source rs ON rs.id = pv.repository_source_id
+              JOIN haikudepot.architecture a ON a.id = pv.architecture_id
+              JOIN haikudepot."user" u ON u.id = ur.user_id
+              WHERE ur.active AND u.active
+              ORDER BY pv.pkg_id, rs.repository_id, ur.user_id,
+                pvr.version_rank DESC, ur.create_timestamp DESC, a.code COLLATE "C" DESC
+            )
+            SELECT lur.pkg_id, lur.repository_id, lur.rating, COUNT(*)
+            FROM latest_user_rating lur
+            WHERE lur.rating IS NOT NULL
+            GROUP BY lur.pkg_id, lur.repository_id, lur.rating
+            """;
+
+    /**
+     * <p>Rows are only updated and returned where the derived rating has actually changed.</p>
+     */
+
+    private final static String SQL_UPSERT_AGGREGATES = """
+            INSERT INTO haikudepot.pkg_user_rating_aggregate AS pura
+              (id, pkg_id, repository_id, derived_rating, derived_rating_sample_size)
+            SELECT NEXTVAL('haikudepot.pkg_user_rating_aggregate_seq'), d.pkg_id, d.repository_id,
+              d.derived_rating, d.derived_rating_sample_size
+            FROM UNNEST(?::bigint[], ?::bigint[], ?::float4[], ?::integer[])
+              AS d(pkg_id, repository_id, derived_rating, derived_rating_sample_size)
+            ON CONFLICT (repository_id, pkg_id) DO UPDATE
+            SET derived_rating = EXCLUDED.derived_rating,
+              derived_rating_sample_size = EXCLUDED.derived_rating_sample_size
+            WHERE (pura.derived_rating, pura.derived_rating_sample_size)
+              IS DISTINCT FROM (EXCLUDED.derived_rating, EXCLUDED.derived_rating_sample_size)
+            RETURNING pura.id, pura.pkg_id
+            """;
+
+    private final static String SQL_DELETE_AGGREGATES = """
+            DELETE FROM haikudepot.pkg_user_rating_aggregate pura
+            USING UNNEST(?::bigint[], ?::bigint[]) AS d(pkg_id, repository_id)
+            WHERE pura.pkg_id = d.pkg_id AND pura.repository_id = d.repository_id
+            RETURNING pura.id, pura.pkg_id
+            """;
+
+    private final static String SQL_UPDATE_PKG_MODIFY_TIMESTAMPS =
+            "UPDATE haikudepot.pkg SET modify_timestamp = ? WHERE id = ANY(?)";
+
+    public record PkgRepository(long pkgId, long repositoryId) {
+    }
+
+    /**
+     * <p>Identifies the rows that were changed when the derived user ratings were stored.</p>
+     */
+
+    public record StoreResult(Set<Long> pkgIds, Set<Long> pkgUserRatingAggregateIds) {
+
+        public boolean isEmpty() {
+            return pkgIds.isEmpty();
+        }
+
+    }
+
+    private record PkgVersionRow(long id, PkgRepository pkgRepository, boolean active, VersionCoordinates coordinates) {
+    }
+
+    /**
+     * <p>Derives the user rating for each combination of package and repository in which the package has a
+     * version.</p>
+     *
+     * @param pkgNames the packages for which to derive the user ratings or null for all active packages.
+     * @return for each combination, the derived user rating or an absent {@link Optional} if it was not possible
+     * to derive a user rating.
+     */
+
+    public static Map<PkgRepository, Optional<DerivedUserRating>> derive(
+            Connection connection,
+            Collection<String> pkgNames,
+            int versionsBack,
+            int minRatings) throws SQLException {
+        Preconditions.checkArgument(null != connection, "the connection must be supplied");
+        Preconditions.checkArgument(versionsBack >= 0, "the versions back must not be negative");
+
+        Map<PkgRepository, List<PkgVersionRow>> pkgVersionRows = findPkgVersionRows(connection, pkgNames);
+        Map<Long, Integer> pkgVersionIdToRank = new HashMap<>();
+
+        pkgVersionRows.values().forEach(rows -> pkgVersionIdToRank.putAll(rankPkgVersionsInWindow(rows, versionsBack)));
+
+        Map<PkgRepository, Map<Short, Long>> ratingDistributions = findRatingDistributions(connection, pkgVersionIdToRank);
+        Map<PkgRepository, Optional<DerivedUserRating>> result = new LinkedHashMap<>();
+
+        for (Map.Entry<PkgRepository, List<PkgVersionRow>> entry : pkgVersionRows.entrySet()) {
+            boolean hasActivePkgVersions = entry.getValue().stream().anyMatch(PkgVersionRow::active);
+            result.put(
+                    entry.getKey(),
+                    hasActivePkgVersions
+                            ? toDerivedUserRating(ratingDistributions.get(entry.getKey()), minRatings)
+                            : Optional.empty());
+        }
+
+        return result;
+    }
+
+    /**
+     * <p>Writes the derived user ratings to the package user rating aggregates; inserting, updating or deleting
+     * them as necessary. The modify timestamp of the packages whose aggregates were changed are updated.</p>
+     */
+
+    public static StoreResult store(
+            Connection connection,
+            Map<PkgRepository, Optional<DerivedUserRating>> derivedUserRatings,
+            Timestamp modifyTimestamp) throws SQLException {
+        Preconditions.checkArgument(null != connection, "the connection must be supplied");
+        Preconditions.checkArgument(null != derivedUserRatings, "the derived user ratings must be supplied");
+        Preconditions.checkArgument(null != modifyTimestamp, "the modify timestamp must be supplied");
+
+        List<Long> upsertPkgIds = new ArrayList<>();
+        List<Long> upsertRepositoryIds = new ArrayList<>();
+        List<Float> upsertRatings = new ArrayList<>();
+        List<Integer> upsertSampleSizes = new ArrayList<>();
+        List<Long> deletePkgIds = new ArrayList<>();
+        List<Long> deleteRepositoryIds = new ArrayList<>();
+
+        derivedUserRatings.forEach((pkgRepository, derivedUserRatingOptional) -> {
+            if (derivedUserRatingOptional.isPresent()) {
+                upsertPkgIds.add(pkgRepository.pkgId());
+                upsertRepositoryIds.add(pkgRepository.repositoryId());
+                upsertRatings.add(derivedUserRatingOptional.get().rating());
+                upsertSampleSizes.add((int) derivedUserRatingOptional.get().sampleSize());
+            } else {
+                deletePkgIds.add(pkgRepository.pkgId());
+                deleteRepositoryIds.add(pkgRepository.repositoryId());
+            }
+        });
+
+        Set<Long> pkgIds = new HashSet<>();
+        Set<Long> pkgUserRatingAggregateIds = new HashSet<>();
+
+        try (PreparedStatement statement = connection.prepareStatement(SQL_UPSERT_AGGREGATES)) {
+            statement.setArray(1, connection.createArrayOf("bigint", upsertPkgIds.toArray(new Long[0])));
+            statement.setArray(2, connection.createArrayOf("bigint", upsertRepositoryIds.toArray(new Long[0])));
+            statement.setArray(3, connection.createArrayOf("float4", upsertRatings.toArray(new Float[0])));
+            statement.setArray(4, connection.createArrayOf("integer", upsertSampleSizes.toArray(new Integer[0])));
+            collectChangedIds(statement, pkgUserRatingAggregateIds, pkgIds);
+        }
+
+        try (PreparedStatement statement = connection.prepareStatement(SQL_DELETE_AGGREGATES)) {
+            statement.setArray(1, connection.createArrayOf("bigint", deletePkgIds.toArray(new Long[0])));
+            statement.setArray(2, connection.createArrayOf("bigint", deleteRepositoryIds.toArray(new Long[0])));
+            collectChangedIds(statement, pkgUserRatingAggregateIds, pkgIds);
+        }
+
+        if (!pkgIds.isEmpty()) {
+            try (PreparedStatement statement = connection.prepareStatement(SQL_UPDATE_PKG_MODIFY_TIMESTAMPS)) {
+                statement.setTimestamp(1, modifyTimestamp);
+                statement.setArray(2, connection.createArrayOf("bigint", pkgIds.toArray(new Long[0])));
+                statement.executeUpdate();
+            }
+        }
+
+        return new StoreResult(pkgIds, pkgUserRatingAggregateIds);
+    }
+
+    private static void collectChangedIds(
+            PreparedStatement statement,
+            Set<Long> pkgUserRatingAggregateIds,
+            Set<Long> pkgIds) throws SQLException {
+        try (ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                pkgUserRatingAggregateIds.add(resultSet.getLong(1));
+                pkgIds.add(resultSet.getLong(2));
+            }
+        }
+    }
+
+    private static Map<PkgRepository, List<PkgVersionRow>> findPkgVersionRows(
+            Connection connection,
+            Collection<String> pkgNames) throws SQLException {
+        Map<PkgRepository, List<PkgVersionRow>> result = new LinkedHashMap<>();
+        String sql = SQL_SELECT_PKG_VERSIONS + (null == pkgNames ? SQL_WHERE_ACTIVE_PKGS : SQL_WHERE_PKG_NAMES);
+
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            if (null != pkgNames) {
+                statement.setArray(1, connection.createArrayOf("varchar", pkgNames.toArray(new String[0])));
+            }
+
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    int revision = resultSet.getInt(9);
+                    PkgVersionRow row = new PkgVersionRow(
+                            resultSet.getLong(1),
+                            new PkgRepository(resultSet.getLong(2), resultSet.getLong(3)),
+                            resultSet.getBoolean(4),
+                            new VersionCoordinates(
+                                    resultSet.getString(5),
+                                    resultSet.getString(6),
+                                    resultSet.getString(7),
+                                    resultSet.getString(8),
+                                    resultSet.wasNull() ? null : revision));
+                    result.computeIfAbsent(row.pkgRepository(), k -> new ArrayList<>()).add(row);
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * <p>Establishes the oldest version from which user ratings are taken by working back from the latest
+     * version ignoring the pre-release and revision. The package versions at or after that version are then
+     * ranked in version order; package versions with the same version share a rank.</p>
+     *
+     * @return the rank keyed by the package version's id.
+     */
+
+    private static Map<Long, Integer> rankPkgVersionsInWindow(List<PkgVersionRow> rows, int versionsBack) {
+        List<PkgVersionRow> activeRows = rows.stream().filter(PkgVersionRow::active).toList();
+
+        if (activeRows.isEmpty()) {
+            return Map.of();
+        }
+
+        VersionCoordinatesComparator versionCoordinatesComparator = new VersionCoordinatesComparator();
+        VersionCoordinatesComparator mainPartsVersionCoordinatesComparator = new VersionCoordinatesComparator(true);
+
+        List<VersionCoordinates> versionCoordinates = activeRows.stream()
+                .map(r -> r.coordinates().toVersionCoordinatesWithoutPreReleaseOrRevision())
+                .distinct()
+                .sorted(versionCoordinatesComparator)
+                .toList();
+
+        VersionCoordinates oldestVersionCoordinates = versionCoordinates.size() < versionsBack + 1
+                ? versionCoordinates.getFirst()
+                : versionCoordinates.get(versionCoordinates.size() - (versionsBack + 1));
+
+        List<PkgVersionRow> windowRows = activeRows.stream()
+                .filter(r -> mainPartsVersionCoordinatesComparator.compare(r.coordinates(), oldestVersionCoordinates) >= 0)
+                .sorted(Comparator.comparing(PkgVersionRow::coordinates, versionCoordinatesComparator))
+                .toList();
+
+        Map<Long, Integer> result = new HashMap<>();
+        int rank = 0;
+
+        for (int i = 0; i < windowRows.size(); i++) {
+            if (i > 0 && 0 != versionCoordinatesComparator.compare(
+                    windowRows.get(i - 1).coordinates(), windowRows.get(i).coordinates())) {
+                rank++;
+            }
+            result.put(windowRows.get(i).id(), rank);
+        }
+
+        return result;
+    }
+
+    private static Map<PkgRepository, Map<Short, Long>> findRatingDistributions(
+            Connection connection,
+            Map<Long, Integer> pkgVersionIdToRank) throws SQLException {
+        Map<PkgRepository, Map<Short, Long>> result = new HashMap<>();
+
+        if (pkgVersionIdToRank.isEmpty()) {
+            return result;
+        }
+
+        List<Long> pkgVersionIds = new ArrayList<>(pkgVersionIdToRank.keySet());
+        List<Integer> ranks = pkgVersionIds.stream().map(pkgVersionIdToRank::get).toList();
+
+        try (PreparedStatement statement = connection.prepareStatement(SQL_SELECT_RATING_DISTRIBUTIONS)) {
+            statement.setArray(1, connection.createArrayOf("bigint", pkgVersionIds.toArray(new Long[0])));
+            statement.setArray(2, connection.createArrayOf("integer", ranks.toArray(new Integer[0])));
+
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    result.computeIfAbsent(
+                                    new PkgRepository(resultSet.getLong(1), resultSet.getLong(2)),
+                                    k -> new HashMap<>())
+                            .put(resultSet.getShort(3), resultSet.getLong(4));
+                }
+            }
+        }
+
+        return result;
+    }
+
+    private static Optional<DerivedUserRating> toDerivedUserRating(Map<Short, Long> ratingCounts, int minRatings) {
+        Map<Short, Long> ratingDistribution = new HashMap<>();
+        IntStream.range(0, 6).forEach(i -> ratingDistribution.put((short) i, 0L));
+
+        if (null != ratingCounts) {
+            ratingDistribution.putAll(ratingCounts);
+        }
+
+        long sampleSize = ratingDistribution.values().stream().mapToLong(Long::longValue).sum();
+
+        if (sampleSize < minRatings) {
+            return Optional.empty();
+        }
+
+        return Optional.of(new DerivedUserRating(
+                averageAsFloat(ratingDistribution, sampleSize),
+                sampleSize,
+                ratingDistribution));
+    }
+
+    /**
+     * <p>The average is truncated to two decimal places in the same way as the ratings were averaged when they
+     * were derived for each package in turn.</p>
+     */
+
+    private static float averageAsFloat(Map<Short, Long> ratingDistribution, long sampleSize) {
+        if (0 == sampleSize) {
+            return 0f;
+        }
+
+        long sum = ratingDistribution.entrySet().stream().mapToLong(e -> e.getKey() * e.getValue()).sum();
+        int average = (int) ((sum * 100) / sampleSize);
+        return ((float) average) / 100f;
+    }
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2018-2024, Andrew Lindesay
+ * Copyright 2018-2026, Andrew Lindesay
  * Distributed under the terms of the MIT License.
  */
 
@@ -9,6 +9,9 @@ import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
 import com.google.common.collect.ComparisonChain;
 import org.apache.cayenne.ObjectContext;
+import org.apache.cayenne.ObjectId;
+import org.apache.cayenne.access.DataRowStore;
+import org.apache.cayenne.cache.QueryCache;
 import org.apache.cayenne.configuration.server.ServerRuntime;
 import org.apache.cayenne.exp.ExpressionFactory;
 import org.apache.cayenne.query.ObjectSelect;
@@ -25,6 +28,8 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.sql.Connection;
+import java.sql.SQLException;
 import java.util.*;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
@@ -228,20 +233,7 @@ public class UserRatingServiceImpl implements UserRatingService {
 
     @Override
     public void updateUserRatingDerivationsForAllPkgs() {
-        ObjectContext context = serverRuntime.newContext();
-        List<String> pkgNames = ObjectSelect.query(Pkg.class)
-                .where(Pkg.ACTIVE.isTrue())
-                .orderBy(Pkg.NAME.desc())
-                .column(Pkg.NAME)
-                .select(context);
-
-        LOGGER.info("will derive and store user ratings for {} packages", pkgNames.size());
-
-        for (String pkgName : pkgNames) {
-            updateUserRatingDerivationsForPkg(pkgName);
-        }
-
-        LOGGER.info("did derive and store user ratings for {} packages", pkgNames.size());
+        updateUserRatingDerivations(null);
     }
 
     /**
@@ -251,20 +243,8 @@ public class UserRatingServiceImpl implements UserRatingService {
 
     @Override
     public void updateUserRatingDerivationsForPkg(String pkgName) {
-         Preconditions.checkArgument(!Strings.isNullOrEmpty(pkgName), "the name of the package is required");
-
-        ObjectContext context = serverRuntime.newContext();
-
-        List<String> repositoryCodes = ObjectSelect.query(PkgVersion.class)
-                .where(PkgVersion.PKG.dot(Pkg.NAME).eq(pkgName))
-                .column(PkgVersion.REPOSITORY_SOURCE.dot(RepositorySource.REPOSITORY).dot(Repository.CODE))
-                .orderBy(PkgVersion.REPOSITORY_SOURCE.dot(RepositorySource.REPOSITORY).dot(Repository.CODE).desc())
-                .distinct()
-                .select(context);
-
-        for(String repositoryCode : repositoryCodes) {
-            updateUserRatingDerivation(pkgName, repositoryCode);
-        }
+        Preconditions.checkArgument(!Strings.isNullOrEmpty(pkgName), "the name of the package is required");
+        updateUserRatingDerivations(List.of(pkgName));
     }
 
     @Override
@@ -275,71 +255,71 @@ public class UserRatingServiceImpl implements UserRatingService {
         List<String> pkgNames = pkgNamesEffectedByUserActiveStateChange(context, user);
         LOGGER.info("will update user rating derivations for user [{}] including {} pkgs",
                 user, pkgNames.size());
-        pkgNames.forEach(this::updateUserRatingDerivationsForPkg);
+
+        if (!pkgNames.isEmpty()) {
+            updateUserRatingDerivations(pkgNames);
+        }
     }
 
     /**
-     * <p>This method will update the stored user rating aggregate (average) for the package for the
-     * specified repository.</p>
+     * <p>This method will derive the user ratings for the packages and will store them in the package user
+     * rating aggregates in a single transaction. The work is done in a fixed number of statements regardless
+     * of the number of packages.</p>
+     *
+     * @param pkgNames the packages to update or null for all active packages.
      */
 
-    private void updateUserRatingDerivation(String pkgName, String repositoryCode) {
-        Preconditions.checkState(!Strings.isNullOrEmpty(pkgName));
-        Preconditions.checkState(!Strings.isNullOrEmpty(repositoryCode));
-
-        ObjectContext context = serverRuntime.newContext();
-        Pkg pkg = Pkg.tryGetByName(context, pkgName)
-                .orElseThrow(() -> new IllegalStateException("user derivation job submitted, but no pkg was found; " + pkgName));
-        Repository repository = Repository.tryGetByCode(context, repositoryCode)
-                .orElseThrow(() -> new IllegalStateException("user derivation job submitted, but no repository was found; " + repositoryCode));
-
+    private void updateUserRatingDerivations(Collection<String> pkgNames) {
         long beforeMillis = System.currentTimeMillis();
-        Optional<DerivedUserRating> rating = tryCreateUserRatingDerivation(context, pkg, repository);
-
-        LOGGER.info("calculated the user rating for {} in {} in {}ms", pkg, repository, System.currentTimeMillis() - beforeMillis);
-
-        if(rating.isEmpty()) {
-            LOGGER.info("unable to establish a user rating for {} in {}", pkg, repository);
-        }
-        else {
-            LOGGER.info(
-                    "user rating established for {} in {}; {} (sample {})",
-                    pkg,
-                    repository,
-                    rating.get().rating(),
-                    rating.get().sampleSize());
+        Map<UserRatingDerivationHelper.PkgRepository, Optional<DerivedUserRating>> derivedUserRatings;
+        UserRatingDerivationHelper.StoreResult storeResult;
+
+        try (Connection connection = serverRuntime.getDataDomain()
+                .getDataNode("HaikuDepotServer").getDataSource().getConnection()) {
+            connection.setAutoCommit(false);
+
+            try {
+                derivedUserRatings = UserRatingDerivationHelper.derive(
+                        connection, pkgNames, userRatingDerivationVersionsBack, userRatingsDerivationMinRatings);
+                storeResult = UserRatingDerivationHelper.store(
+                        connection, derivedUserRatings, new java.sql.Timestamp(System.currentTimeMillis()));
+                connection.commit();
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            }
+        } catch (SQLException se) {
+            throw new IllegalStateException("unable to update the user rating derivations", se);
         }
 
-        Optional<PkgUserRatingAggregate> pkgUserRatingAggregateOptional = pkg.getPkgUserRatingAggregate(repository);
-
-        if(rating.isPresent()) {
+        if (!storeResult.isEmpty()) {
+            forgetSnapshotsAndQueryCaches(storeResult);
+        }
 
-            PkgUserRatingAggregate pkgUserRatingAggregate = pkgUserRatingAggregateOptional.orElseGet(() -> {
-                PkgUserRatingAggregate value = context.newObject(PkgUserRatingAggregate.class);
-                value.setRepository(repository);
-                value.setPkg(pkg);
-                return value;
-            });
+        LOGGER.info("did derive user ratings for {} pkg and repository combinations in {}ms; {} pkgs changed",
+                derivedUserRatings.size(),
+                System.currentTimeMillis() - beforeMillis,
+                storeResult.pkgIds().size());
+    }
 
-            pkgUserRatingAggregate.setDerivedRating(rating.get().rating());
-            pkgUserRatingAggregate.setDerivedRatingSampleSize((int) rating.get().sampleSize());
-            pkg.setModifyTimestamp();
-        }
-        else {
+    /**
+     * <p>The aggregates and packages were written outside of Cayenne so any snapshots that Cayenne holds of the
+     * affected objects and any cached queries involving them are now stale.</p>
+     */
 
-            // if there is no derived user rating then there should also be no database record
-            // for the user rating.
+    private void forgetSnapshotsAndQueryCaches(UserRatingDerivationHelper.StoreResult storeResult) {
+        DataRowStore dataRowStore = serverRuntime.getDataDomain().getSharedSnapshotCache();
 
-            if(pkgUserRatingAggregateOptional.isPresent()) {
-                pkg.removeFromPkgUserRatingAggregates(pkgUserRatingAggregateOptional.get());
-                context.deleteObject(pkgUserRatingAggregateOptional.get());
-                pkg.setModifyTimestamp();
-            }
+        if (null != dataRowStore) {
+            storeResult.pkgIds().forEach(id -> dataRowStore.forgetSnapshot(
+                    ObjectId.of(Pkg.class.getSimpleName(), Pkg.ID_PK_COLUMN, id)));
+            storeResult.pkgUserRatingAggregateIds().forEach(id -> dataRowStore.forgetSnapshot(
+                    ObjectId.of(PkgUserRatingAggregate.class.getSimpleName(), PkgUserRatingAggregate.ID_PK_COLUMN, id)));
         }
 
-        context.commitChanges();
-
-        LOGGER.info("did update user rating for {} in {}", pkg, repository);
+        QueryCache queryCache = serverRuntime.getDataDomain().getQueryCache();
+        queryCache.removeGroup(HaikuDepot.CacheGroup.PKG_USER_RATING_AGGREGATE.name());
+        queryCache.removeGroup(HaikuDepot.CacheGroup.PKG.name());
     }
 
     /**
@@ -154,6 +154,7 @@ public class UserRatingSpreadsheetJobRunner extends AbstractJobRunner<UserRating
                     "did produce user rating spreadsheet report for {} user ratings in {}ms",
                     count,
                     System.currentTimeMillis() - startMs);
+            jobDataWithByteSink.getByteSink().commit();
         }
 
     }
@@ -0,0 +1,157 @@
+-- Maintains a side table that carries the searchable text of the latest package versions so that
+-- searching is able to use indexes rather than scanning across the localization tables. There is one
+-- row for English for each latest package version and then a row for each other natural language for
+-- which there is some localization. The table is maintained by triggers on the tables that carry the
+-- searchable text.
+--
+-- The `simple` text search configuration is used for all natural languages because the searches
+-- are across languages (the user's language and English) and so stemming for one language would
+-- produce surprising results for the other.
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE TABLE haikudepot.pkg_search_index
+(
+    pkg_version_id      BIGINT   NOT NULL,
+    natural_language_id BIGINT   NOT NULL,
+    content             TEXT     NOT NULL,
+    document            TSVECTOR NOT NULL,
+    PRIMARY KEY (pkg_version_id, natural_language_id)
+)
+;
+
+ALTER TABLE ONLY haikudepot.pkg_search_index
+    ADD CONSTRAINT pkg_search_index_pkg_version_id_fkey FOREIGN KEY (pkg_version_id) REFERENCES haikudepot.pkg_version (id) ON DELETE CASCADE;
+
+ALTER TABLE ONLY haikudepot.pkg_search_index
+    ADD CONSTRAINT pkg_search_index_natural_language_id_fkey FOREIGN KEY (natural_language_id) REFERENCES haikudepot.natural_language (id) ON DELETE CASCADE;
+
+CREATE INDEX pkg_search_index_idx01 ON haikudepot.pkg_search_index USING gin (document);
+CREATE INDEX pkg_search_index_idx02 ON haikudepot.pkg_search_index USING gin (content gin_trgm_ops);
+
+-- Re-creates the rows for one package version. Rows are only created if the package version is the
+-- latest.
+
+CREATE FUNCTION haikudepot.pkg_search_index_refresh(p_pkg_version_id BIGINT) RETURNS VOID AS
+$$
+BEGIN
+    DELETE FROM haikudepot.pkg_search_index WHERE pkg_version_id = p_pkg_version_id;
+
+    INSERT INTO haikudepot.pkg_search_index (pkg_version_id, natural_language_id, content, document)
+    SELECT
+        pv.id,
+        nl.id,
+        LOWER(CONCAT_WS(' ', p.name, t.title, t.summary, t.description)),
+        SETWEIGHT(TO_TSVECTOR('simple', CONCAT_WS(' ', p.name, t.title)), 'A')
+            || SETWEIGHT(TO_TSVECTOR('simple', COALESCE(t.summary, '')), 'B')
+            || SETWEIGHT(TO_TSVECTOR('simple', COALESCE(t.description, '')), 'C')
+    FROM haikudepot.pkg_version pv
+    JOIN haikudepot.pkg p ON p.id = pv.pkg_id
+    JOIN haikudepot.natural_language nl ON nl.code = 'en'
+        OR EXISTS (
+            SELECT pl.id FROM haikudepot.pkg_localization pl
+            WHERE pl.pkg_supplement_id = p.pkg_supplement_id AND pl.natural_language_id = nl.id)
+        OR EXISTS (
+            SELECT pvl.id FROM haikudepot.pkg_version_localization pvl
+            WHERE pvl.pkg_version_id = pv.id AND pvl.natural_language_id = nl.id)
+    LEFT JOIN haikudepot.pkg_localization pl ON pl.pkg_supplement_id = p.pkg_supplement_id
+        AND pl.natural_language_id = nl.id
+    LEFT JOIN haikudepot.pkg_version_localization pvl ON pvl.pkg_version_id = pv.id
+        AND pvl.natural_language_id = nl.id
+    LEFT JOIN haikudepot.localization_content pvl_title_lc ON pvl_title_lc.id = pvl.title_localization_content_id
+    LEFT JOIN haikudepot.localization_content pvl_summary_lc ON pvl_summary_lc.id = pvl.summary_localization_content_id
+    LEFT JOIN haikudepot.localization_content pvl_description_lc ON pvl_description_lc.id = pvl.description_localization_content_id
+    CROSS JOIN LATERAL (
+        SELECT
+            COALESCE(pvl_title_lc.content, pl.title) AS title,
+            COALESCE(pvl_summary_lc.content, pl.summary) AS summary,
+            COALESCE(pvl_description_lc.content, pl.description) AS description
+    ) t
+    WHERE pv.id = p_pkg_version_id
+      AND pv.is_latest = true;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Re-creates the rows for the latest package versions of all of the packages associated with the
+-- package supplement.
+
+CREATE FUNCTION haikudepot.pkg_search_index_refresh_for_pkg_supplement(p_pkg_supplement_id BIGINT) RETURNS VOID AS
+$$
+BEGIN
+    PERFORM haikudepot.pkg_search_index_refresh(pv.id)
+    FROM haikudepot.pkg_version pv
+    JOIN haikudepot.pkg p ON p.id = pv.pkg_id
+    WHERE p.pkg_supplement_id = p_pkg_supplement_id
+      AND pv.is_latest = true;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE FUNCTION haikudepot.pkg_search_index_pkg_version_trigger() RETURNS TRIGGER AS
+$$
+BEGIN
+    IF TG_OP = 'INSERT' OR NEW.is_latest IS DISTINCT FROM OLD.is_latest THEN
+        PERFORM haikudepot.pkg_search_index_refresh(NEW.id);
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE FUNCTION haikudepot.pkg_search_index_pkg_version_localization_trigger() RETURNS TRIGGER AS
+$$
+BEGIN
+    IF TG_OP IN ('UPDATE', 'DELETE') AND OLD.pkg_version_id IS NOT NULL THEN
+        PERFORM haikudepot.pkg_search_index_refresh(OLD.pkg_version_id);
+    END IF;
+    IF TG_OP IN ('INSERT', 'UPDATE') AND NEW.pkg_version_id IS NOT NULL
+        AND NEW.pkg_version_id IS DISTINCT FROM OLD.pkg_version_id THEN
+        PERFORM haikudepot.pkg_search_index_refresh(NEW.pkg_version_id);
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE FUNCTION haikudepot.pkg_search_index_pkg_localization_trigger() RETURNS TRIGGER AS
+$$
+BEGIN
+    IF TG_OP IN ('UPDATE', 'DELETE') THEN
+        PERFORM haikudepot.pkg_search_index_refresh_for_pkg_supplement(OLD.pkg_supplement_id);
+    END IF;
+    IF TG_OP IN ('INSERT', 'UPDATE') AND NEW.pkg_supplement_id IS DISTINCT FROM OLD.pkg_supplement_id THEN
+        PERFORM haikudepot.pkg_search_index_refresh_for_pkg_supplement(NEW.pkg_supplement_id);
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE FUNCTION haikudepot.pkg_search_index_pkg_trigger() RETURNS TRIGGER AS
+$$
+BEGIN
+    PERFORM haikudepot.pkg_search_index_refresh(pv.id)
+    FROM haikudepot.pkg_version pv
+    WHERE pv.pkg_id = NEW.id
+      AND pv.is_latest = true;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER pkg_search_index_pkg_version
+    AFTER INSERT OR UPDATE OF is_latest ON haikudepot.pkg_version
+    FOR EACH ROW EXECUTE FUNCTION haikudepot.pkg_search_index_pkg_version_trigger();
+
+CREATE TRIGGER pkg_search_index_pkg_version_localization
+    AFTER INSERT OR UPDATE OR DELETE ON haikudepot.pkg_version_localization
+    FOR EACH ROW EXECUTE FUNCTION haikudepot.pkg_search_index_pkg_version_localization_trigger();
+
+CREATE TRIGGER pkg_search_index_pkg_localization
+    AFTER INSERT OR UPDATE OR DELETE ON haikudepot.pkg_localization
+    FOR EACH ROW EXECUTE FUNCTION haikudepot.pkg_search_index_pkg_localization_trigger();
+
+CREATE TRIGGER pkg_search_index_pkg
+    AFTER UPDATE OF pkg_supplement_id ON haikudepot.pkg
+    FOR EACH ROW EXECUTE FUNCTION haikudepot.pkg_search_index_pkg_trigger();
+
+-- populate the index from the existing data.
+
+SELECT haikudepot.pkg_search_index_refresh(pv.id)
+FROM haikudepot.pkg_version pv
+WHERE pv.is_latest = true;
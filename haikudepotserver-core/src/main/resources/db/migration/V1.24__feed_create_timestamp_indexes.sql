@@ -0,0 +1,8 @@
+-- The feeds order the active package versions and the active user ratings by their create timestamp
+-- and take the first few. These indexes mean that the queries are able to walk the rows in order and
+-- stop once there are enough rather than sorting all of them; the package name suffixes are then only
+-- checked against the rows that are walked.
+
+CREATE INDEX pkg_version_idx05 ON haikudepot.pkg_version USING btree (create_timestamp DESC) WHERE active = true;
+
+CREATE INDEX user_rating_idx03 ON haikudepot.user_rating USING btree (create_timestamp DESC) WHERE active = true;
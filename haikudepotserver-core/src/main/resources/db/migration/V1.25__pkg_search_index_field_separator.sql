@@ -0,0 +1,49 @@
+-- The searchable text of each of the fields was joined with a space so that a search term was able to
+-- match across the end of one field and the start of the next. The fields are now joined with the
+-- "unit separator" control character which is removed from search terms so cannot be matched.
+
+CREATE OR REPLACE FUNCTION haikudepot.pkg_search_index_refresh(p_pkg_version_id BIGINT) RETURNS VOID AS
+$$
+BEGIN
+    DELETE FROM haikudepot.pkg_search_index WHERE pkg_version_id = p_pkg_version_id;
+
+    INSERT INTO haikudepot.pkg_search_index (pkg_version_id, natural_language_id, content, document)
+    SELECT
+        pv.id,
+        nl.id,
+        LOWER(CONCAT_WS(CHR(31), p.name, t.title, t.summary, t.description)),
+        SETWEIGHT(TO_TSVECTOR('simple', CONCAT_WS(' ', p.name, t.title)), 'A')
+            || SETWEIGHT(TO_TSVECTOR('simple', COALESCE(t.summary, '')), 'B')
+            || SETWEIGHT(TO_TSVECTOR('simple', COALESCE(t.description, '')), 'C')
+    FROM haikudepot.pkg_version pv
+    JOIN haikudepot.pkg p ON p.id = pv.pkg_id
+    JOIN haikudepot.natural_language nl ON nl.code = 'en'
+        OR EXISTS (
+            SELECT pl.id FROM haikudepot.pkg_localization pl
+            WHERE pl.pkg_supplement_id = p.pkg_supplement_id AND pl.natural_language_id = nl.id)
+        OR EXISTS (
+            SELECT pvl.id FROM haikudepot.pkg_version_localization pvl
+            WHERE pvl.pkg_version_id = pv.id AND pvl.natural_language_id = nl.id)
+    LEFT JOIN haikudepot.pkg_localization pl ON pl.pkg_supplement_id = p.pkg_supplement_id
+        AND pl.natural_language_id = nl.id
+    LEFT JOIN haikudepot.pkg_version_localization pvl ON pvl.pkg_version_id = pv.id
+        AND pvl.natural_language_id = nl.id
+    LEFT JOIN haikudepot.localization_content pvl_title_lc ON pvl_title_lc.id = pvl.title_localization_content_id
+    LEFT JOIN haikudepot.localization_content pvl_summary_lc ON pvl_summary_lc.id = pvl.summary_localization_content_id
+    LEFT JOIN haikudepot.localization_content pvl_description_lc ON pvl_description_lc.id = pvl.description_localization_content_id
+    CROSS JOIN LATERAL (
+        SELECT
+            COALESCE(pvl_title_lc.content, pl.title) AS title,
+            COALESCE(pvl_summary_lc.content, pl.summary) AS summary,
+            COALESCE(pvl_description_lc.content, pl.description) AS description
+    ) t
+    WHERE pv.id = p_pkg_version_id
+      AND pv.is_latest = true;
+END;
+$$ LANGUAGE plpgsql;
+
+-- re-populate the index so that the existing rows use the new separator.
+
+SELECT haikudepot.pkg_search_index_refresh(pv.id)
+FROM haikudepot.pkg_version pv
+WHERE pv.is_latest = true;
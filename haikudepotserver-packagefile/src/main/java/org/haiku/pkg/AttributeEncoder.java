@@ -0,0 +1,220 @@
+/*
+ * Copyright 2026, Andrew Lindesay
+ * Distributed under the terms of the MIT License.
+ */
+
+package org.haiku.pkg;
+
+import com.google.common.base.Preconditions;
+import org.haiku.pkg.heap.HeapCoordinates;
+import org.haiku.pkg.heap.HpkHeapWriter;
+import org.haiku.pkg.model.Attribute;
+import org.haiku.pkg.model.IntAttribute;
+import org.haiku.pkg.model.RawInlineAttribute;
+import org.haiku.pkg.model.StringInlineAttribute;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * <p>This is the counterpart of {@link AttributeIterator}; it writes a section of attributes into a heap.  The
+ * section starts with a table of the strings that are used more than once in the attributes followed by the
+ * attributes themselves.  The attributes are supplied as instances of {@link StringInlineAttribute},
+ * {@link IntAttribute} and {@link RawInlineAttribute}; the encoder decides if a string should be written into
+ * the table and how wide an integer should be.</p>
+ */
+
+class AttributeEncoder {
+
+    private final static int ATTRIBUTE_TYPE_INT = 1;
+    private final static int ATTRIBUTE_TYPE_STRING = 3;
+    private final static int ATTRIBUTE_TYPE_RAW = 4;
+
+    private final static int ATTRIBUTE_ENCODING_STRING_INLINE = 0;
+    private final static int ATTRIBUTE_ENCODING_STRING_TABLE = 1;
+
+    private final static int ATTRIBUTE_ENCODING_RAW_INLINE = 0;
+    private final static int ATTRIBUTE_ENCODING_RAW_HEAP = 1;
+
+    private final HpkHeapWriter heapWriter;
+
+    /**
+     * <p>Raw attributes that are in this map have had their data written into the heap already and so are
+     * written as references to the heap rather than inline.</p>
+     */
+
+    private final Map<Attribute, HeapCoordinates> heapDataCoordinates;
+
+    AttributeEncoder(HpkHeapWriter heapWriter, Map<Attribute, HeapCoordinates> heapDataCoordinates) {
+        super();
+        Preconditions.checkNotNull(heapWriter);
+        Preconditions.checkNotNull(heapDataCoordinates);
+        this.heapWriter = heapWriter;
+        this.heapDataCoordinates = heapDataCoordinates;
+    }
+
+    /**
+     * <p>Writes the strings table followed by the attributes and the terminating tag into the heap.</p>
+     */
+
+    AttributesSection write(List<Attribute> attributes) {
+        Preconditions.checkNotNull(attributes);
+        long startOffset = heapWriter.getOffset();
+        Map<String, Integer> stringTableIndexes = deriveStringTableIndexes(attributes);
+
+        if (!stringTableIndexes.isEmpty()) {
+            stringTableIndexes.keySet().forEach(heapWriter::writeNullTerminatedString);
+            heapWriter.write(0);
+        }
+
+        long stringsLength = heapWriter.getOffset() - startOffset;
+        writeAttributes(attributes, stringTableIndexes);
+
+        return new AttributesSection(
+                heapWriter.getOffset() - startOffset,
+                stringsLength,
+                stringTableIndexes.size());
+    }
+
+    /**
+     * <p>Strings that are used more than once are put into the table with the most frequently used ones first
+     * so that they have the shortest indexes.  An empty string cannot go into the table because it would be read
+     * as the end of the table.</p>
+     */
+
+    private Map<String, Integer> deriveStringTableIndexes(List<Attribute> attributes) {
+        Map<String, Integer> usages = new LinkedHashMap<>();
+        countStringUsages(attributes, usages);
+        Map<String, Integer> result = new LinkedHashMap<>();
+
+        usages.entrySet().stream()
+                .filter(e -> e.getValue() > 1 && !e.getKey().isEmpty())
+                .sorted(Map.Entry.<String, Integer>comparingByValue(Comparator.reverseOrder()))
+                .forEachOrdered(e -> result.put(e.getKey(), result.size()));
+
+        return result;
+    }
+
+    private void countStringUsages(List<Attribute> attributes, Map<String, Integer> usages) {
+        for (Attribute attribute : attributes) {
+            if (attribute instanceof StringInlineAttribute stringAttribute) {
+                usages.merge(stringAttribute.getValue(null), 1, Integer::sum);
+            }
+
+            countStringUsages(attribute.getChildAttributes(), usages);
+        }
+    }
+
+    private void writeAttributes(List<Attribute> attributes, Map<String, Integer> stringTableIndexes) {
+        for (Attribute attribute : attributes) {
+            writeAttribute(attribute, stringTableIndexes);
+        }
+
+        heapWriter.write(0);
+    }
+
+    private void writeAttribute(Attribute attribute, Map<String, Integer> stringTableIndexes) {
+        Preconditions.checkNotNull(attribute);
+
+        if (null == attribute.getAttributeId()) {
+            throw new HpkException("unable to write an attribute with no attribute id");
+        }
+
+        if (attribute.getAttributeId().getAttributeType() != attribute.getAttributeType()) {
+            throw new HpkException(String.format(
+                    "mismatch in attribute type for id %s; expecting %s, but got %s",
+                    attribute.getAttributeId().getName(),
+                    attribute.getAttributeId().getAttributeType(),
+                    attribute.getAttributeType()));
+        }
+
+        switch (attribute) {
+            case StringInlineAttribute stringAttribute -> {
+                String value = stringAttribute.getValue(null);
+                Integer index = stringTableIndexes.get(value);
+
+                if (null != index) {
+                    writeTag(attribute, ATTRIBUTE_TYPE_STRING, ATTRIBUTE_ENCODING_STRING_TABLE);
+                    heapWriter.writeUnsignedLeb128(index);
+                } else {
+                    writeTag(attribute, ATTRIBUTE_TYPE_STRING, ATTRIBUTE_ENCODING_STRING_INLINE);
+                    heapWriter.writeNullTerminatedString(value);
+                }
+            }
+            case IntAttribute intAttribute -> {
+                int encoding = deriveIntEncoding(intAttribute.getValue(null));
+                writeTag(attribute, ATTRIBUTE_TYPE_INT, encoding);
+                heapWriter.writeBigEndian(intAttribute.getValue(null).longValue(), 1 << encoding);
+            }
+            case RawInlineAttribute rawAttribute -> {
+                Optional<HeapCoordinates> coordinatesOptional = tryGetHeapDataCoordinates(attribute);
+
+                if (coordinatesOptional.isPresent()) {
+                    writeTag(attribute, ATTRIBUTE_TYPE_RAW, ATTRIBUTE_ENCODING_RAW_HEAP);
+                    heapWriter.writeUnsignedLeb128(coordinatesOptional.get().getLength());
+                    heapWriter.writeUnsignedLeb128(coordinatesOptional.get().getOffset());
+                } else {
+                    byte[] data = readRawValue(rawAttribute);
+                    writeTag(attribute, ATTRIBUTE_TYPE_RAW, ATTRIBUTE_ENCODING_RAW_INLINE);
+                    heapWriter.writeUnsignedLeb128(data.length);
+                    heapWriter.write(data);
+                }
+            }
+            default -> throw new HpkException("unable to write the attribute [" + attribute + "]");
+        }
+
+        if (attribute.hasChildAttributes()) {
+            writeAttributes(attribute.getChildAttributes(), stringTableIndexes);
+        }
+    }
+
+    private byte[] readRawValue(RawInlineAttribute attribute) {
+        try {
+            return attribute.getValue(null).read();
+        } catch (IOException ioe) {
+            throw new HpkException("unable to read the data of the attribute [" + attribute + "]", ioe);
+        }
+    }
+
+    private Optional<HeapCoordinates> tryGetHeapDataCoordinates(Attribute attribute) {
+        return Optional.ofNullable(heapDataCoordinates.get(attribute));
+    }
+
+    private void writeTag(Attribute attribute, int type, int encoding) {
+        long tag = attribute.getAttributeId().getCode()
+                | ((long) type << 7)
+                | ((attribute.hasChildAttributes() ? 1L : 0L) << 10)
+                | ((long) encoding << 11);
+        heapWriter.writeUnsignedLeb128(tag + 1L);
+    }
+
+    /**
+     * <p>Chooses the narrowest of the 8, 16, 32 or 64 bit signed encodings that will carry the value.</p>
+     */
+
+    private static int deriveIntEncoding(BigInteger value) {
+        int bitLength = value.bitLength();
+
+        for (int encoding = 0; encoding < 4; encoding++) {
+            if (bitLength < (8 << encoding)) {
+                return encoding;
+            }
+        }
+
+        throw new HpkException("the integer value [" + value + "] is too large to be written");
+    }
+
+    /**
+     * <p>Describes a section of attributes that has been written into the heap.  The length includes the
+     * strings table.</p>
+     */
+
+    record AttributesSection(long length, long stringsLength, long stringsCount) {
+    }
+
+}
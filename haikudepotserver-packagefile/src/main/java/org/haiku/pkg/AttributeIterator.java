@@ -1,5 +1,5 @@
 /*
- * Copyright 2018-2025, Andrew Lindesay
+ * Copyright 2018-2026, Andrew Lindesay
  * Distributed under the terms of the MIT License.
  */
 
@@ -7,15 +7,13 @@ package org.haiku.pkg;
 
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
-import com.google.common.io.ByteArrayDataOutput;
-import com.google.common.io.ByteStreams;
 import org.haiku.pkg.heap.HeapCoordinates;
+import org.haiku.pkg.heap.HeapCursor;
 import org.haiku.pkg.model.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.math.BigInteger;
-import java.nio.charset.StandardCharsets;
 import java.util.Iterator;
 import java.util.List;
 
@@ -53,19 +51,35 @@ public class AttributeIterator {
     private final static int ATTRIBUTE_ENCODING_RAW_INLINE = 0;
     private final static int ATTRIBUTE_ENCODING_RAW_HEAP = 1;
 
-    private long offset;
+    /**
+     * <p>The tag is a positive value so this value indicates that the next tag has not yet been read.</p>
+     */
+
+    private final static long TAG_NONE = -1L;
+
+    private final HeapCursor cursor;
 
     private final AttributeContext context;
 
-    private BigInteger nextTag = null;
+    private long nextTag = TAG_NONE;
 
     AttributeIterator(AttributeContext context, long offset) {
+        this(context, new HeapCursor(Preconditions.checkNotNull(context).getHeapReader(), offset));
+        Preconditions.checkState(offset >= 0 && offset < Integer.MAX_VALUE);
+    }
+
+    /**
+     * <p>Child attributes are read with the same cursor as the parent's so that the chunk being read from is
+     * carried over and the parent continues on from where the children end.</p>
+     */
+
+    private AttributeIterator(AttributeContext context, HeapCursor cursor) {
         super();
 
         Preconditions.checkNotNull(context);
-        Preconditions.checkState(offset >= 0 && offset < Integer.MAX_VALUE);
+        Preconditions.checkNotNull(cursor);
 
-        this.offset = offset;
+        this.cursor = cursor;
         this.context = context;
     }
 
@@ -74,7 +88,7 @@ public class AttributeIterator {
     }
 
     public long getOffset() {
-        return offset;
+        return cursor.getOffset();
     }
 
     /**
@@ -82,7 +96,7 @@ public class AttributeIterator {
      */
 
     public boolean hasNext() {
-        return 0 != getNextTag().signum();
+        return 0L != getNextTag();
     }
 
     /**
@@ -98,11 +112,11 @@ public class AttributeIterator {
         // first, the LEB128 has to be read in which is the 'tag' defining what sort of attribute this is that
         // we are dealing with.
 
-        BigInteger tag = getNextTag();
+        long tag = getNextTag();
 
         // if we encounter 0 tag then we know that we have finished the list.
 
-        if (0 != tag.signum()) {
+        if (0L != tag) {
 
             int encoding = deriveAttributeTagEncoding(tag);
             int id = deriveAttributeTagId(tag);
@@ -122,7 +136,7 @@ public class AttributeIterator {
                 result.setChildAttributes(readChildAttributes());
             }
 
-            nextTag = null;
+            nextTag = TAG_NONE;
         }
 
         return result;
@@ -130,13 +144,12 @@ public class AttributeIterator {
 
     private List<Attribute> readChildAttributes() {
         ImmutableList.Builder<Attribute> childrenBuilder = new ImmutableList.Builder<>();
-        AttributeIterator childAttributeIterator = new AttributeIterator(context, offset);
+        AttributeIterator childAttributeIterator = new AttributeIterator(context, cursor);
 
         while (childAttributeIterator.hasNext()) {
             childrenBuilder.add(childAttributeIterator.next());
         }
 
-        offset = childAttributeIterator.getOffset();
         return childrenBuilder.build();
     }
 
@@ -159,21 +172,32 @@ public class AttributeIterator {
     private Attribute readAttributeByTagType(int tagType, int encoding, AttributeId attributeId) {
         return switch (tagType) {
             case ATTRIBUTE_TYPE_INVALID -> throw new HpkException("an invalid attribute tag type has been encountered");
-            case ATTRIBUTE_TYPE_INT -> new IntAttribute(attributeId, new BigInteger(readBufferForInt(encoding)));
-            case ATTRIBUTE_TYPE_UINT -> new IntAttribute(attributeId, new BigInteger(1, readBufferForInt(encoding)));
+            case ATTRIBUTE_TYPE_INT -> new IntAttribute(attributeId, readInt(encoding));
+            case ATTRIBUTE_TYPE_UINT -> new IntAttribute(attributeId, readUnsignedInt(encoding));
             case ATTRIBUTE_TYPE_STRING -> readString(encoding, attributeId);
             case ATTRIBUTE_TYPE_RAW -> readRaw(encoding, attributeId);
             default -> throw new HpkException("unable to read the tag type [" + tagType + "]");
         };
     }
 
-    private byte[] readBufferForInt(int encoding) {
+    private BigInteger readInt(int encoding) {
+        ensureValidEncodingForInt(encoding);
+        int bitsToShift = 64 - (8 << encoding);
+        // shifting up and back again extends the sign of the value read.
+        return BigInteger.valueOf((cursor.readBigEndian(1 << encoding) << bitsToShift) >> bitsToShift);
+    }
+
+    private BigInteger readUnsignedInt(int encoding) {
         ensureValidEncodingForInt(encoding);
-        int bytesToRead = 1 << encoding;
-        byte[] buffer = new byte[bytesToRead];
-        context.getHeapReader().readHeap(buffer, 0, new HeapCoordinates(offset, bytesToRead));
-        offset += bytesToRead;
-        return buffer;
+        long value = cursor.readBigEndian(1 << encoding);
+
+        // a 64 bit unsigned value with the top bit set cannot be represented in a long.
+
+        if (value < 0L) {
+            return new BigInteger(Long.toUnsignedString(value));
+        }
+
+        return BigInteger.valueOf(value);
     }
 
     private Attribute readString(int encoding, AttributeId attributeId) {
@@ -185,33 +209,17 @@ public class AttributeIterator {
     }
 
     private Attribute readStringTable(AttributeId attributeId) {
-        BigInteger index = readUnsignedLeb128();
+        long index = readUnsignedLeb128();
 
-        if (index.compareTo(BigInteger.valueOf(Integer.MAX_VALUE)) > 0) {
+        if (index > Integer.MAX_VALUE) {
             throw new IllegalStateException("the string table index is preposterously large");
         }
 
-        return new StringTableRefAttribute(attributeId,index.intValue());
+        return new StringTableRefAttribute(attributeId, (int) index);
     }
 
     private Attribute readStringInline(AttributeId attributeId) {
-        ByteArrayDataOutput assembly = ByteStreams.newDataOutput();
-
-        while (true) {
-            int b = context.getHeapReader().readHeap(offset);
-            offset++;
-
-            if (0 != b) {
-                assembly.write(b);
-            }
-            else {
-                return new StringInlineAttribute(
-                        attributeId,
-                        new String(
-                                assembly.toByteArray(),
-                                StandardCharsets.UTF_8));
-            }
-        }
+        return new StringInlineAttribute(attributeId, cursor.readNullTerminatedString());
     }
 
     private Attribute readRaw(int encoding, AttributeId attributeId) {
@@ -223,79 +231,77 @@ public class AttributeIterator {
     }
 
     private Attribute readRawInline(AttributeId attributeId) {
-        BigInteger length = readUnsignedLeb128();
+        long length = readUnsignedLeb128();
 
-        if(length.compareTo(BigInteger.valueOf(Integer.MAX_VALUE)) > 0) {
+        if (length > Integer.MAX_VALUE) {
             throw new HpkException("the length of the inline data is too large");
         }
 
-        byte[] buffer = new byte[length.intValue()];
-        context.getHeapReader().readHeap(buffer, 0, new HeapCoordinates(offset,length.intValue()));
-        offset += length.intValue();
+        byte[] buffer = new byte[(int) length];
+        cursor.readFully(buffer, 0, (int) length);
 
         return new RawInlineAttribute(attributeId, buffer);
     }
 
     private Attribute readRawHeap(AttributeId attributeId) {
-        BigInteger rawLength = readUnsignedLeb128();
-        BigInteger rawOffset = readUnsignedLeb128();
+        long rawLength = readUnsignedLeb128();
+        long rawOffset = readUnsignedLeb128();
 
-        if (rawLength.compareTo(BigInteger.valueOf(Integer.MAX_VALUE)) > 0) {
+        if (rawLength > Integer.MAX_VALUE) {
             throw new HpkException("the length of the heap data is too large");
         }
 
-        if (rawOffset.compareTo(BigInteger.valueOf(Integer.MAX_VALUE)) > 0) {
+        if (rawOffset > Integer.MAX_VALUE) {
             throw new HpkException("the offset of the heap data is too large");
         }
 
         return new RawHeapAttribute(
                 attributeId,
-                new HeapCoordinates(
-                        rawOffset.longValue(),
-                        rawLength.longValue()));
+                new HeapCoordinates(rawOffset, rawLength));
     }
 
-
-    private int deriveAttributeTagType(BigInteger tag) {
-        return tag.subtract(BigInteger.ONE).shiftRight(7).and(BigInteger.valueOf(0x7L)).intValue();
+    private int deriveAttributeTagType(long tag) {
+        return (int) (((tag - 1L) >>> 7) & 0x7L);
     }
 
-    private int deriveAttributeTagId(BigInteger tag) {
-        return tag.subtract(BigInteger.ONE).and(BigInteger.valueOf(0x7FL)).intValue();
+    private int deriveAttributeTagId(long tag) {
+        return (int) ((tag - 1L) & 0x7FL);
     }
 
-    private int deriveAttributeTagEncoding(BigInteger tag) {
-        return tag.subtract(BigInteger.ONE).shiftRight(11).and(BigInteger.valueOf(3L)).intValue();
+    private int deriveAttributeTagEncoding(long tag) {
+        return (int) (((tag - 1L) >>> 11) & 0x3L);
     }
 
-    private boolean deriveAttributeTagHasChildAttributes(BigInteger tag) {
-        return 0 != tag.subtract(BigInteger.valueOf(1L)).shiftRight(10).and(BigInteger.ONE).intValue();
+    private boolean deriveAttributeTagHasChildAttributes(long tag) {
+        return 0L != (((tag - 1L) >>> 10) & 0x1L);
     }
 
-    private BigInteger getNextTag() {
-        if (null == nextTag) {
+    private long getNextTag() {
+        if (TAG_NONE == nextTag) {
             nextTag = readUnsignedLeb128();
         }
 
         return nextTag;
     }
 
-    private BigInteger readUnsignedLeb128() {
-        BigInteger result = BigInteger.valueOf(0L);
-        int shift = 0;
-
-        while (true) {
-            int b = context.getHeapReader().readHeap(offset);
-            offset++;
-
-            result = result.or(BigInteger.valueOf((b & 0x7f)).shiftLeft(shift));
+    /**
+     * <p>Reads an unsigned LEB128 value as a primitive.  Values in the attributes are not expected to be wider
+     * than 63 bits; if one is encountered then it is re-read as a {@link BigInteger} so that it can be
+     * reported before failing.</p>
+     */
 
-            if (0 == (b & 0x80)) {
-                return result;
-            }
+    private long readUnsignedLeb128() {
+        long startOffset = cursor.getOffset();
+        long result = cursor.tryReadUnsignedLeb128();
 
-            shift+=7;
+        if (HeapCursor.LEB128_OVERFLOW == result) {
+            cursor.setOffset(startOffset);
+            throw new HpkException(String.format(
+                    "the LEB128 value [%s] at offset %d is too large",
+                    cursor.readUnsignedLeb128BigInteger(), startOffset));
         }
+
+        return result;
     }
 
     private void ensureValidEncodingForInt(int encoding) {
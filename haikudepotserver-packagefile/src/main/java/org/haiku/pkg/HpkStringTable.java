@@ -1,5 +1,5 @@
 /*
- * Copyright 2018-2025, Andrew Lindesay
+ * Copyright 2018-2026, Andrew Lindesay
  * Distributed under the terms of the MIT License.
  */
 
@@ -7,7 +7,7 @@ package org.haiku.pkg;
 
 import com.google.common.base.Preconditions;
 import org.haiku.pkg.heap.HeapCoordinates;
-import org.haiku.pkg.heap.HpkHeapReader;
+import org.haiku.pkg.heap.HeapReader;
 
 import java.nio.charset.StandardCharsets;
 
@@ -18,7 +18,7 @@ import java.nio.charset.StandardCharsets;
 
 public class HpkStringTable implements StringTable {
 
-    private final HpkHeapReader heapReader;
+    private final HeapReader heapReader;
 
     private final long expectedCount;
 
@@ -29,7 +29,7 @@ public class HpkStringTable implements StringTable {
     private String[] values = null;
 
     HpkStringTable(
-            HpkHeapReader heapReader,
+            HeapReader heapReader,
             long heapOffset,
             long heapLength,
             long expectedCount) {
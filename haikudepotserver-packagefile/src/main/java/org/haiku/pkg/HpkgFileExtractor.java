@@ -1,12 +1,13 @@
 /*
- * Copyright 2021, Andrew Lindesay
+ * Copyright 2021-2026, Andrew Lindesay
  * Distributed under the terms of the MIT License.
  */
 package org.haiku.pkg;
 
 import com.google.common.base.Preconditions;
 import org.haiku.pkg.heap.HeapCompression;
-import org.haiku.pkg.heap.HpkHeapReader;
+import org.haiku.pkg.heap.AbstractHpkHeapReader;
+import org.haiku.pkg.heap.HpkHeapReaderFactory;
 import org.haiku.pkg.model.Attribute;
 import org.haiku.pkg.model.FileType;
 
@@ -30,23 +31,28 @@ public class HpkgFileExtractor implements Closeable {
 
     private final HpkgHeader header;
 
-    private final HpkHeapReader heapReader;
+    private final AbstractHpkHeapReader heapReader;
 
     private final HpkStringTable tocStringTable;
 
     private final HpkStringTable packageAttributesStringTable;
 
     public HpkgFileExtractor(File file) throws IOException {
+        this(file, new HpkHeapReaderFactory());
+    }
+
+    public HpkgFileExtractor(File file, HpkHeapReaderFactory heapReaderFactory) throws IOException {
 
         super();
         Preconditions.checkNotNull(file);
+        Preconditions.checkNotNull(heapReaderFactory);
         Preconditions.checkState(file.isFile() && file.exists(), "the file does not exist or is not a file");
 
         this.file = file;
         this.header = readHeader();
 
         try {
-            heapReader = new HpkHeapReader(
+            heapReader = heapReaderFactory.createHeapReader(
                     file,
                     header.getHeapCompression(),
                     header.getHeaderSize(),
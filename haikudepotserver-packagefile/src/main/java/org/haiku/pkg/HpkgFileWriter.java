@@ -0,0 +1,146 @@
+/*
+ * Copyright 2026, Andrew Lindesay
+ * Distributed under the terms of the MIT License.
+ */
+
+package org.haiku.pkg;
+
+import com.google.common.base.Preconditions;
+import org.haiku.pkg.heap.HeapCompression;
+import org.haiku.pkg.heap.HeapCoordinates;
+import org.haiku.pkg.heap.HpkHeapWriter;
+import org.haiku.pkg.model.Attribute;
+import org.haiku.pkg.model.FileType;
+import org.haiku.pkg.model.RawInlineAttribute;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * <p>This object is able to write an Hpkg (Haiku Pkg) file that can be read by the {@link HpkgFileExtractor}.
+ * The heap contains the data of the files first, then the TOC (table of contents) and then the package
+ * attributes.  Data in the TOC that is too large to be inline is written into the file data at the start of the
+ * heap.  Unlike an HPKR file, the package attributes are supplied flat rather than under a
+ * package attribute; see {@link PkgAttributeFactory}.</p>
+ */
+
+public class HpkgFileWriter {
+
+    private final static int HEADER_SIZE = 80;
+
+    private final static int VERSION = 2;
+
+    private final static int MINOR_VERSION = 1;
+
+    /**
+     * <p>Data that is larger than this is written into the heap rather than inline in the attribute.</p>
+     */
+
+    private final static int MAX_INLINE_DATA_SIZE = 8;
+
+    private final HeapCompression compression;
+
+    private final int chunkSize;
+
+    public HpkgFileWriter(HeapCompression compression) {
+        this(compression, HpkHeapWriter.DEFAULT_CHUNK_SIZE);
+    }
+
+    public HpkgFileWriter(HeapCompression compression, int chunkSize) {
+        super();
+        Preconditions.checkNotNull(compression);
+        this.compression = compression;
+        this.chunkSize = chunkSize;
+    }
+
+    public void write(File file, List<Attribute> toc, List<Attribute> packageAttributes) throws IOException {
+        Preconditions.checkNotNull(file);
+
+        try (OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(file))) {
+            write(outputStream, toc, packageAttributes);
+        }
+    }
+
+    public void write(
+            OutputStream outputStream,
+            List<Attribute> toc,
+            List<Attribute> packageAttributes) throws IOException {
+        Preconditions.checkNotNull(outputStream);
+        Preconditions.checkNotNull(toc);
+        Preconditions.checkNotNull(packageAttributes);
+
+        HpkHeapWriter heapWriter = new HpkHeapWriter(compression, chunkSize);
+        Map<Attribute, HeapCoordinates> heapDataCoordinates = new IdentityHashMap<>();
+        writeFileData(heapWriter, toc, heapDataCoordinates);
+        AttributeEncoder.AttributesSection tocSection = new AttributeEncoder(heapWriter, heapDataCoordinates)
+                .write(toc);
+        AttributeEncoder.AttributesSection packageAttributesSection = new AttributeEncoder(
+                heapWriter, new IdentityHashMap<>())
+                .write(packageAttributes);
+
+        if (packageAttributesSection.length() > 0xffffffffL
+                || packageAttributesSection.stringsLength() > 0xffffffffL) {
+            throw new HpkException("the package attributes are too large to be written");
+        }
+
+        DataOutputStream dataOutputStream = new DataOutputStream(outputStream);
+        dataOutputStream.write(FileType.HPKG.name().toLowerCase(Locale.ROOT).getBytes(StandardCharsets.US_ASCII));
+        dataOutputStream.writeShort(HEADER_SIZE);
+        dataOutputStream.writeShort(VERSION);
+        dataOutputStream.writeLong(HEADER_SIZE + heapWriter.getCompressedSize());
+        dataOutputStream.writeShort(MINOR_VERSION);
+
+        dataOutputStream.writeShort(compression.getNumericValue());
+        dataOutputStream.writeInt(heapWriter.getChunkSize());
+        dataOutputStream.writeLong(heapWriter.getCompressedSize());
+        dataOutputStream.writeLong(heapWriter.getUncompressedSize());
+
+        // package attributes section
+        dataOutputStream.writeInt((int) packageAttributesSection.length());
+        dataOutputStream.writeInt((int) packageAttributesSection.stringsLength());
+        dataOutputStream.writeInt((int) packageAttributesSection.stringsCount());
+        dataOutputStream.writeInt(0); // reserved
+
+        // toc section
+        dataOutputStream.writeLong(tocSection.length());
+        dataOutputStream.writeLong(tocSection.stringsLength());
+        dataOutputStream.writeLong(tocSection.stringsCount());
+
+        Preconditions.checkState(HEADER_SIZE == dataOutputStream.size());
+
+        heapWriter.writeTo(dataOutputStream);
+        dataOutputStream.flush();
+    }
+
+    /**
+     * <p>Writes the data that is too large to be inline into the start of the heap and records where it was
+     * written so that the attributes can refer to it.</p>
+     */
+
+    private void writeFileData(
+            HpkHeapWriter heapWriter,
+            List<Attribute> attributes,
+            Map<Attribute, HeapCoordinates> heapDataCoordinates) throws IOException {
+        for (Attribute attribute : attributes) {
+            if (attribute instanceof RawInlineAttribute rawAttribute) {
+                byte[] data = rawAttribute.getValue(null).read();
+
+                if (data.length > MAX_INLINE_DATA_SIZE) {
+                    heapDataCoordinates.put(attribute, heapWriter.writeData(data));
+                }
+            }
+
+            writeFileData(heapWriter, attribute.getChildAttributes(), heapDataCoordinates);
+        }
+    }
+
+}
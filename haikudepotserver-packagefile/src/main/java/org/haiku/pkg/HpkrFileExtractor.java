@@ -1,5 +1,5 @@
 /*
- * Copyright 2018, Andrew Lindesay
+ * Copyright 2018-2026, Andrew Lindesay
  * Distributed under the terms of the MIT License.
  */
 
@@ -7,7 +7,8 @@ package org.haiku.pkg;
 
 import com.google.common.base.Preconditions;
 import org.haiku.pkg.heap.HeapCompression;
-import org.haiku.pkg.heap.HpkHeapReader;
+import org.haiku.pkg.heap.AbstractHpkHeapReader;
+import org.haiku.pkg.heap.HpkHeapReaderFactory;
 import org.haiku.pkg.model.FileType;
 
 import java.io.Closeable;
@@ -27,21 +28,26 @@ public class HpkrFileExtractor implements Closeable {
 
     private final HpkrHeader header;
 
-    private final HpkHeapReader heapReader;
+    private final AbstractHpkHeapReader heapReader;
 
     private final HpkStringTable attributesStringTable;
 
     public HpkrFileExtractor(File file) throws IOException {
+        this(file, new HpkHeapReaderFactory());
+    }
+
+    public HpkrFileExtractor(File file, HpkHeapReaderFactory heapReaderFactory) throws IOException {
 
         super();
         Preconditions.checkNotNull(file);
+        Preconditions.checkNotNull(heapReaderFactory);
         Preconditions.checkState(file.isFile() && file.exists(), "the file does not exist or is not a file");
 
         this.file = file;
         this.header = readHeader();
 
         try {
-            heapReader = new HpkHeapReader(
+            heapReader = heapReaderFactory.createHeapReader(
                     file,
                     header.getHeapCompression(),
                     header.getHeaderSize(),
@@ -82,8 +88,26 @@ public class HpkrFileExtractor implements Closeable {
     }
 
     public AttributeIterator getPackageAttributesIterator() {
-        long offset = header.getInfoLength() + header.getPackagesStringsLength();
-        return new AttributeIterator(getAttributeContext(), offset);
+        return new AttributeIterator(getAttributeContext(), getPackageAttributesOffset());
+    }
+
+    /**
+     * <p>This is the offset in the heap at which the package attributes start.  Together with
+     * {@link #getPackageAttributesEndOffset()} and the offset of an iterator, this can be used to gauge how far
+     * through the package attributes an iterator is.</p>
+     */
+
+    public long getPackageAttributesOffset() {
+        return header.getInfoLength() + header.getPackagesStringsLength();
+    }
+
+    /**
+     * <p>This is the offset in the heap immediately after the package attributes.  The package attributes
+     * section includes the strings table which precedes the attributes.</p>
+     */
+
+    public long getPackageAttributesEndOffset() {
+        return header.getInfoLength() + header.getPackagesLength();
     }
 
     private HpkrHeader readHeader() throws IOException {
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2026, Andrew Lindesay
+ * Distributed under the terms of the MIT License.
+ */
+
+package org.haiku.pkg;
+
+import com.google.common.base.Preconditions;
+import org.haiku.pkg.heap.HeapCompression;
+import org.haiku.pkg.heap.HpkHeapWriter;
+import org.haiku.pkg.model.Attribute;
+import org.haiku.pkg.model.AttributeId;
+import org.haiku.pkg.model.FileType;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * <p>This object is able to write an Hpkr (Haiku Pkg Repository) file that can be read by the
+ * {@link HpkrFileExtractor}.  The package attributes are supplied as a list of {@link AttributeId#PACKAGE}
+ * attributes; see {@link PkgAttributeFactory}.  The repository info section is written as it is supplied because
+ * this library does not read it.</p>
+ */
+
+public class HpkrFileWriter {
+
+    private final static int HEADER_SIZE = 72;
+
+    private final static int VERSION = 2;
+
+    private final static int MINOR_VERSION = 0;
+
+    private final HeapCompression compression;
+
+    private final int chunkSize;
+
+    private byte[] repositoryInfo = new byte[] {};
+
+    public HpkrFileWriter(HeapCompression compression) {
+        this(compression, HpkHeapWriter.DEFAULT_CHUNK_SIZE);
+    }
+
+    public HpkrFileWriter(HeapCompression compression, int chunkSize) {
+        super();
+        Preconditions.checkNotNull(compression);
+        this.compression = compression;
+        this.chunkSize = chunkSize;
+    }
+
+    public void setRepositoryInfo(byte[] repositoryInfo) {
+        Preconditions.checkNotNull(repositoryInfo);
+        this.repositoryInfo = repositoryInfo;
+    }
+
+    public void write(File file, List<Attribute> packageAttributes) throws IOException {
+        Preconditions.checkNotNull(file);
+
+        try (OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(file))) {
+            write(outputStream, packageAttributes);
+        }
+    }
+
+    public void write(OutputStream outputStream, List<Attribute> packageAttributes) throws IOException {
+        Preconditions.checkNotNull(outputStream);
+        Preconditions.checkNotNull(packageAttributes);
+        Preconditions.checkArgument(
+                packageAttributes.stream().allMatch(a -> AttributeId.PACKAGE == a.getAttributeId()),
+                "the package attributes must all be of type " + AttributeId.PACKAGE.getName());
+
+        HpkHeapWriter heapWriter = new HpkHeapWriter(compression, chunkSize);
+        heapWriter.write(repositoryInfo);
+        AttributeEncoder.AttributesSection packagesSection = new AttributeEncoder(heapWriter, new IdentityHashMap<>())
+                .write(packageAttributes);
+
+        DataOutputStream dataOutputStream = new DataOutputStream(outputStream);
+        dataOutputStream.write(FileType.HPKR.name().toLowerCase(Locale.ROOT).getBytes(StandardCharsets.US_ASCII));
+        dataOutputStream.writeShort(HEADER_SIZE);
+        dataOutputStream.writeShort(VERSION);
+        dataOutputStream.writeLong(HEADER_SIZE + heapWriter.getCompressedSize());
+        dataOutputStream.writeShort(MINOR_VERSION);
+
+        dataOutputStream.writeShort(compression.getNumericValue());
+        dataOutputStream.writeInt(heapWriter.getChunkSize());
+        dataOutputStream.writeLong(heapWriter.getCompressedSize());
+        dataOutputStream.writeLong(heapWriter.getUncompressedSize());
+
+        // repository info
+        dataOutputStream.writeInt(repositoryInfo.length);
+        dataOutputStream.writeInt(0); // reserved
+
+        // package attributes section
+        dataOutputStream.writeLong(packagesSection.length());
+        dataOutputStream.writeLong(packagesSection.stringsLength());
+        dataOutputStream.writeLong(packagesSection.stringsCount());
+
+        Preconditions.checkState(HEADER_SIZE == dataOutputStream.size());
+
+        heapWriter.writeTo(dataOutputStream);
+        dataOutputStream.flush();
+    }
+
+}
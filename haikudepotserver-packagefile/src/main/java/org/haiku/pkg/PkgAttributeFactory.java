@@ -0,0 +1,114 @@
+/*
+ * Copyright 2026, Andrew Lindesay
+ * Distributed under the terms of the MIT License.
+ */
+
+package org.haiku.pkg;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Strings;
+import org.haiku.pkg.model.Attribute;
+import org.haiku.pkg.model.AttributeId;
+import org.haiku.pkg.model.IntAttribute;
+import org.haiku.pkg.model.Pkg;
+import org.haiku.pkg.model.PkgUrl;
+import org.haiku.pkg.model.PkgVersion;
+import org.haiku.pkg.model.StringInlineAttribute;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>This is the reverse of the {@link PkgFactory}; it converts a modelled package into the low-level attributes
+ * so that they can be written into a package file.</p>
+ */
+
+public class PkgAttributeFactory {
+
+    /**
+     * <p>Creates the top level package attribute as is found in an HPKR file.</p>
+     */
+
+    public Attribute createPackageAttribute(Pkg pkg) {
+        Preconditions.checkNotNull(pkg);
+        Attribute result = new StringInlineAttribute(AttributeId.PACKAGE, pkg.getName());
+        result.setChildAttributes(createAttributes(pkg));
+        return result;
+    }
+
+    /**
+     * <p>Creates the package attributes as they are found in an HPKG file.</p>
+     */
+
+    public List<Attribute> createAttributes(Pkg pkg) {
+        Preconditions.checkNotNull(pkg);
+        Preconditions.checkArgument(!Strings.isNullOrEmpty(pkg.getName()), "the package name is required");
+        Preconditions.checkNotNull(pkg.getVersion(), "the package version is required");
+        Preconditions.checkNotNull(pkg.getArchitecture(), "the package architecture is required");
+
+        List<Attribute> result = new ArrayList<>();
+        result.add(new StringInlineAttribute(AttributeId.PACKAGE_NAME, pkg.getName()));
+        result.add(new StringInlineAttribute(AttributeId.PACKAGE_SUMMARY, Strings.nullToEmpty(pkg.getSummary())));
+        result.add(new StringInlineAttribute(AttributeId.PACKAGE_DESCRIPTION, Strings.nullToEmpty(pkg.getDescription())));
+        result.add(new StringInlineAttribute(AttributeId.PACKAGE_VENDOR, Strings.nullToEmpty(pkg.getVendor())));
+        result.add(new IntAttribute(
+                AttributeId.PACKAGE_ARCHITECTURE,
+                BigInteger.valueOf(pkg.getArchitecture().ordinal())));
+        result.add(createVersionAttribute(pkg.getVersion()));
+
+        if (null != pkg.getCopyrights()) {
+            pkg.getCopyrights().forEach(c -> result.add(new StringInlineAttribute(AttributeId.PACKAGE_COPYRIGHT, c)));
+        }
+
+        if (null != pkg.getLicenses()) {
+            pkg.getLicenses().forEach(l -> result.add(new StringInlineAttribute(AttributeId.PACKAGE_LICENSE, l)));
+        }
+
+        if (null != pkg.getHomePageUrl()) {
+            result.add(new StringInlineAttribute(AttributeId.PACKAGE_URL, toString(pkg.getHomePageUrl())));
+        }
+
+        return result;
+    }
+
+    private Attribute createVersionAttribute(PkgVersion version) {
+        Preconditions.checkArgument(!Strings.isNullOrEmpty(version.getMajor()), "the major version is required");
+        Attribute result = new StringInlineAttribute(AttributeId.PACKAGE_VERSION_MAJOR, version.getMajor());
+        List<Attribute> children = new ArrayList<>();
+
+        if (null != version.getMinor()) {
+            children.add(new StringInlineAttribute(AttributeId.PACKAGE_VERSION_MINOR, version.getMinor()));
+        }
+
+        if (null != version.getMicro()) {
+            children.add(new StringInlineAttribute(AttributeId.PACKAGE_VERSION_MICRO, version.getMicro()));
+        }
+
+        if (null != version.getPreRelease()) {
+            children.add(new StringInlineAttribute(AttributeId.PACKAGE_VERSION_PRE_RELEASE, version.getPreRelease()));
+        }
+
+        if (null != version.getRevision()) {
+            children.add(new IntAttribute(
+                    AttributeId.PACKAGE_VERSION_REVISION,
+                    BigInteger.valueOf(version.getRevision())));
+        }
+
+        result.setChildAttributes(children);
+        return result;
+    }
+
+    /**
+     * <p>Produces the form of the URL that the {@link PkgUrl} is able to parse.</p>
+     */
+
+    private static String toString(PkgUrl pkgUrl) {
+        if (null == pkgUrl.getName()) {
+            return pkgUrl.getUrl();
+        }
+
+        return String.format("%s <%s>", pkgUrl.getName(), pkgUrl.getUrl());
+    }
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2018, Andrew Lindesay
+ * Copyright 2018-2026, Andrew Lindesay
  * Distributed under the terms of the MIT License.
  */
 
@@ -38,6 +38,14 @@ public class PkgIterator {
         return attributeIterator.hasNext();
     }
 
+    /**
+     * <p>This is the offset in the heap from which the next package will be read.</p>
+     */
+
+    public long getOffset() {
+        return attributeIterator.getOffset();
+    }
+
     /**
      * <p>This method will return the next package from the attribute iterator supplied.</p>
      * @return The return value is the next package from the list of attributes.
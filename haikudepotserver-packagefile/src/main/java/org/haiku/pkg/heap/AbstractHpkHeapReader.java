@@ -0,0 +1,284 @@
+/*
+ * Copyright 2018-2026, Andrew Lindesay
+ * Distributed under the terms of the MIT License.
+ */
+
+package org.haiku.pkg.heap;
+
+import com.google.common.base.Preconditions;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import org.haiku.pkg.HpkException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * <p>This is the common logic for readers of the heap's chunks that are in HPK format.  The concrete
+ * subclasses differ in the manner in which they obtain the chunks' data from the file.  This class will take
+ * responsibility for caching the chunks so that a subsequent read from the same chunk will not require a re-fault
+ * from disk.</p>
+ */
+
+public abstract class AbstractHpkHeapReader implements Closeable, HeapReader {
+
+    public final static int DEFAULT_CHUNK_CACHE_SIZE = 3;
+
+    protected final HeapCompression compression;
+
+    protected final long heapOffset;
+
+    protected final long chunkSize;
+
+    protected final long compressedSize; // including the shorts for the chunks' compressed sizes
+
+    protected final long uncompressedSize; // excluding the shorts for the chunks' compressed sizes
+
+    private final LoadingCache<Integer, HeapChunk> heapChunkUncompressedCache;
+
+    private final int[] heapChunkCompressedLengths;
+
+    AbstractHpkHeapReader(
+            final HeapCompression compression,
+            final long heapOffset,
+            final long chunkSize,
+            final long compressedSize,
+            final long uncompressedSize,
+            final int chunkCacheSize) {
+
+        super();
+
+        Preconditions.checkNotNull(compression);
+        Preconditions.checkState(heapOffset > 0 && heapOffset < Integer.MAX_VALUE);
+        Preconditions.checkState(chunkSize > 0 && chunkSize < Integer.MAX_VALUE);
+        Preconditions.checkState(compressedSize >= 0 && compressedSize < Integer.MAX_VALUE);
+        Preconditions.checkState(uncompressedSize >= 0 && uncompressedSize < Integer.MAX_VALUE);
+        Preconditions.checkState(chunkCacheSize > 0, "the chunk cache size must be at least one");
+
+        this.compression = compression;
+        this.heapOffset = heapOffset;
+        this.chunkSize = chunkSize;
+        this.compressedSize = compressedSize;
+        this.uncompressedSize = uncompressedSize;
+
+        heapChunkCompressedLengths = new int[getHeapChunkCount()];
+
+        heapChunkUncompressedCache = CacheBuilder
+                .newBuilder()
+                .maximumSize(chunkCacheSize)
+                .build(new CacheLoader<>() {
+                    @Override
+                    public HeapChunk load(@SuppressWarnings("NullableProblems") Integer key) throws Exception {
+                        Preconditions.checkNotNull(key);
+                        byte[] result = new byte[getHeapChunkUncompressedLength(key)];
+                        readHeapChunk(key, result);
+                        return new HeapChunk(key * chunkSize, result, result.length);
+                    }
+                });
+    }
+
+    @Override
+    public abstract void close();
+
+    /**
+     * <p>This will read a chunk of the heap into the supplied buffer.  It is assumed that the buffer will be
+     * of the correct length for the uncompressed heap chunk size.</p>
+     */
+
+    abstract void readHeapChunk(int index, byte[] buffer) throws IOException;
+
+    /**
+     * <p>This gives the quantity of chunks that are in the heap.</p>
+     */
+
+    int getHeapChunkCount() {
+        int count = (int) (uncompressedSize / chunkSize);
+
+        if (0 != uncompressedSize % chunkSize) {
+            count++;
+        }
+
+        return count;
+    }
+
+    int getHeapChunkUncompressedLength(int index) {
+        if (index < getHeapChunkCount() - 1) {
+            return (int) chunkSize;
+        }
+
+        return (int) (uncompressedSize - (chunkSize * (getHeapChunkCount() - 1)));
+    }
+
+    int getHeapChunkCompressedLength(int index) {
+        return heapChunkCompressedLengths[index];
+    }
+
+    boolean isHeapChunkCompressed(int index) {
+        return getHeapChunkCompressedLength(index) < getHeapChunkUncompressedLength(index);
+    }
+
+    /**
+     * <p>After the chunk data is a whole lot of unsigned shorts that define the compressed
+     * size of the chunks in the heap.  This is the absolute offset in the file to the start of those
+     * shorts.</p>
+     */
+
+    long getHeapChunkCompressedLengthsAbsoluteFileOffset() {
+        return heapOffset + compressedSize - (2 * ((long) getHeapChunkCount() - 1));
+    }
+
+    /**
+     * <p>This is the length of the data that carries the compressed size of the chunks.</p>
+     */
+
+    int getHeapChunkCompressedLengthsDataLength() {
+        return 2 * (getHeapChunkCount() - 1);
+    }
+
+    /**
+     * <p>Takes the unsigned shorts that define the compressed size of the chunks in the heap
+     * and loads them in.  The supplied data is expected to be of the length given by
+     * {@link #getHeapChunkCompressedLengthsDataLength()}.</p>
+     */
+
+    void populateChunkCompressedLengths(byte[] lengthsData) {
+        Preconditions.checkNotNull(lengthsData);
+        Preconditions.checkState(lengthsData.length == getHeapChunkCompressedLengthsDataLength());
+
+        int[] lengths = heapChunkCompressedLengths;
+        int count = getHeapChunkCount();
+        long totalCompressedLength = 0;
+
+        for (int i = 0; i < count - 1; i++) {
+
+            // C++ code says that the stored size is length of chunk -1.
+            lengths[i] = (((lengthsData[i * 2] & 0xff) << 8) | (lengthsData[(i * 2) + 1] & 0xff)) + 1;
+
+            if (lengths[i] > uncompressedSize) {
+                throw new HpkException(
+                        String.format("the chunk at %d is of size %d, but the uncompressed length of the chunks is %d",
+                                i,
+                                lengths[i],
+                                uncompressedSize));
+            }
+
+            totalCompressedLength += lengths[i];
+        }
+
+        // the last one will be missing will need to be derived
+        lengths[count - 1] = (int) (compressedSize - ((2 * (count - 1)) + totalCompressedLength));
+
+        if (lengths[count - 1] < 0 || lengths[count - 1] > uncompressedSize) {
+            throw new HpkException(
+                    String.format(
+                            "the derivation of the last chunk size of %d is out of bounds",
+                            lengths[count - 1]));
+        }
+    }
+
+    /**
+     * <p>Inflates a chunk from the supplied inflater into the buffer.  The inflater should already have had its
+     * input set.</p>
+     */
+
+    void inflateHeapChunk(Inflater inflater, int index, byte[] buffer, int chunkUncompressedLength) {
+        try {
+            int read;
+
+            if (chunkUncompressedLength != (read = inflater.inflate(buffer, 0, chunkUncompressedLength))) {
+
+                // the last chunk size uncompressed may be smaller than the chunk size,
+                // so don't throw an exception if this happens.
+
+                if (index < getHeapChunkCount() - 1) {
+                    String message = String.format("a compressed heap chunk inflated to %d bytes; was expecting %d",read,chunkUncompressedLength);
+
+                    if (inflater.needsInput()) {
+                        message += "; needs input";
+                    }
+
+                    if (inflater.needsDictionary()) {
+                        message += "; needs dictionary";
+                    }
+
+                    throw new HpkException(message);
+                }
+            }
+
+            if (!inflater.finished()) {
+                throw new HpkException(String.format("incomplete inflation of input data while reading chunk %d",index));
+            }
+        }
+        catch (DataFormatException dfe) {
+            throw new HpkException("unable to inflate (decompress) heap chunk "+index,dfe);
+        }
+    }
+
+    @Override
+    public int readHeap(long offset) {
+        Preconditions.checkState(offset >= 0);
+        Preconditions.checkState(offset < uncompressedSize);
+
+        int chunkIndex = (int) (offset / chunkSize);
+        int chunkOffset = (int) (offset - (chunkIndex * chunkSize));
+        byte[] chunkData = heapChunkUncompressedCache.getUnchecked(chunkIndex).getData();
+
+        return chunkData[chunkOffset] & 0xff;
+    }
+
+    @Override
+    public HeapChunk getHeapChunk(long offset) {
+        Preconditions.checkState(offset >= 0);
+        Preconditions.checkState(offset < uncompressedSize);
+
+        return heapChunkUncompressedCache.getUnchecked((int) (offset / chunkSize));
+    }
+
+    @Override
+    public void readHeap(byte[] buffer, int bufferOffset, HeapCoordinates coordinates) {
+
+        Preconditions.checkNotNull(buffer);
+        Preconditions.checkState(bufferOffset >= 0);
+        Preconditions.checkState(bufferOffset < buffer.length);
+        Preconditions.checkState(coordinates.getOffset() >= 0);
+        Preconditions.checkState(coordinates.getOffset() < uncompressedSize);
+        Preconditions.checkState(coordinates.getOffset() + coordinates.getLength() < uncompressedSize);
+
+        // first figure out how much to read from this chunk
+
+        int chunkIndex = (int) (coordinates.getOffset() / chunkSize);
+        int chunkOffset = (int) (coordinates.getOffset() - (chunkIndex * chunkSize));
+        int chunkLength;
+        int chunkUncompressedLength = getHeapChunkUncompressedLength(chunkIndex);
+
+        if (chunkOffset + coordinates.getLength() > chunkUncompressedLength) {
+            chunkLength = (chunkUncompressedLength - chunkOffset);
+        }
+        else {
+            chunkLength = (int) coordinates.getLength();
+        }
+
+        // now read it in.
+
+        byte[] chunkData = heapChunkUncompressedCache.getUnchecked(chunkIndex).getData();
+
+        System.arraycopy(chunkData,chunkOffset,buffer,bufferOffset,chunkLength);
+
+        // if we need to get some more data from the next chunk then call again.
+        // TODO - recursive approach may not be too good when more data is involved; probably ok for hpkr though.
+
+        if (chunkLength < coordinates.getLength()) {
+            readHeap(
+                    buffer,
+                    bufferOffset + chunkLength,
+                    new HeapCoordinates(
+                            coordinates.getOffset() + chunkLength,
+                            coordinates.getLength() - chunkLength));
+        }
+
+    }
+
+}
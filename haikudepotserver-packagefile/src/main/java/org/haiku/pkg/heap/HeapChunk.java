@@ -0,0 +1,62 @@
+/*
+ * Copyright 2026, Andrew Lindesay
+ * Distributed under the terms of the MIT License.
+ */
+
+package org.haiku.pkg.heap;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * <p>This object represents the uncompressed data of a single chunk of the heap.  The data is exposed directly
+ * so that a reader is able to work through a run of bytes without having to look up the chunk for each byte.
+ * The data belongs to the {@link HeapReader} and must not be modified.</p>
+ */
+
+public class HeapChunk {
+
+    private final long offset;
+
+    private final byte[] data;
+
+    private final int length;
+
+    public HeapChunk(long offset, byte[] data, int length) {
+        Preconditions.checkArgument(offset >= 0, "bad offset");
+        Preconditions.checkArgument(null != data, "the data must be supplied");
+        Preconditions.checkArgument(length >= 0 && length <= data.length, "bad length");
+        this.offset = offset;
+        this.data = data;
+        this.length = length;
+    }
+
+    /**
+     * <p>This is the offset in the uncompressed heap at which this chunk starts.</p>
+     */
+
+    public long getOffset() {
+        return offset;
+    }
+
+    public byte[] getData() {
+        return data;
+    }
+
+    /**
+     * <p>This is the quantity of bytes in the data that belong to the chunk; the data array may be longer.</p>
+     */
+
+    public int getLength() {
+        return length;
+    }
+
+    public boolean contains(long heapOffset) {
+        return heapOffset >= offset && heapOffset < offset + length;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("{%d,%d}", offset, length);
+    }
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2013-2024, Andrew Lindesay
+ * Copyright 2013-2026, Andrew Lindesay
  * Distributed under the terms of the MIT License.
  */
 
@@ -25,6 +25,10 @@ public enum HeapCompression {
         this.numericValue = numericValue;
     }
 
+    public int getNumericValue() {
+        return numericValue;
+    }
+
     public static HeapCompression getByNumericValue(int value) {
         return tryGetByNumericValue(value)
                 .orElseThrow(() -> new HpkException("unknown compression numeric value [" + value + "]"));
@@ -0,0 +1,191 @@
+/*
+ * Copyright 2026, Andrew Lindesay
+ * Distributed under the terms of the MIT License.
+ */
+
+package org.haiku.pkg.heap;
+
+import com.google.common.base.Preconditions;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * <p>This object reads serially through the heap from an offset.  It holds onto the {@link HeapChunk} that it is
+ * currently reading from so that reading bytes within that chunk is a simple array access; the
+ * {@link HeapReader} is only consulted when the cursor moves into another chunk.  Values are decoded into
+ * primitives so that reading does not allocate objects in the typical case.</p>
+ */
+
+public class HeapCursor {
+
+    /**
+     * <p>This value is returned from {@link #tryReadUnsignedLeb128()} to indicate that the value read was too
+     * large to be represented in a positive <code>long</code>.</p>
+     */
+
+    public final static long LEB128_OVERFLOW = -1L;
+
+    private final HeapReader heapReader;
+
+    private HeapChunk chunk = null;
+
+    private long offset;
+
+    public HeapCursor(HeapReader heapReader, long offset) {
+        Preconditions.checkArgument(null != heapReader, "the heap reader must be supplied");
+        Preconditions.checkArgument(offset >= 0, "bad offset");
+        this.heapReader = heapReader;
+        this.offset = offset;
+    }
+
+    public HeapReader getHeapReader() {
+        return heapReader;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    public void setOffset(long offset) {
+        Preconditions.checkArgument(offset >= 0, "bad offset");
+        this.offset = offset;
+    }
+
+    private HeapChunk ensureChunk() {
+        if (null == chunk || !chunk.contains(offset)) {
+            chunk = heapReader.getHeapChunk(offset);
+        }
+        return chunk;
+    }
+
+    public int readUnsignedByte() {
+        HeapChunk c = ensureChunk();
+        int result = c.getData()[(int) (offset - c.getOffset())] & 0xff;
+        offset++;
+        return result;
+    }
+
+    /**
+     * <p>Reads the bytes into the supplied buffer; possibly across a number of chunks.</p>
+     */
+
+    public void readFully(byte[] buffer, int bufferOffset, int length) {
+        Preconditions.checkArgument(null != buffer, "the buffer must be supplied");
+        Preconditions.checkArgument(bufferOffset >= 0 && length >= 0 && bufferOffset + length <= buffer.length);
+
+        while (length > 0) {
+            HeapChunk c = ensureChunk();
+            int chunkOffset = (int) (offset - c.getOffset());
+            int chunkLength = Math.min(length, c.getLength() - chunkOffset);
+            System.arraycopy(c.getData(), chunkOffset, buffer, bufferOffset, chunkLength);
+            bufferOffset += chunkLength;
+            length -= chunkLength;
+            offset += chunkLength;
+        }
+    }
+
+    /**
+     * <p>Reads a big-endian value of the supplied number of bytes; at most eight bytes can be read.  Where eight
+     * bytes are read, the result may be negative if the value is interpreted as being unsigned.</p>
+     */
+
+    public long readBigEndian(int length) {
+        Preconditions.checkArgument(length > 0 && length <= 8, "bad length for a big-endian value");
+        long result = 0L;
+
+        for (int i = 0; i < length; i++) {
+            result = (result << 8) | readUnsignedByte();
+        }
+
+        return result;
+    }
+
+    /**
+     * <p>Reads an unsigned LEB128 value.  If the value is too large to fit into 63 bits then the value
+     * {@link #LEB128_OVERFLOW} is returned and the offset is left after the encoded value.  In this case the
+     * caller may choose to re-read the value using {@link #readUnsignedLeb128BigInteger()}.</p>
+     */
+
+    public long tryReadUnsignedLeb128() {
+        long result = 0L;
+        int shift = 0;
+        boolean overflow = false;
+
+        while (true) {
+            int b = readUnsignedByte();
+            long bits = b & 0x7f;
+
+            // beyond 56 bits of shift, the next seven bits would not fit into a positive long.
+
+            if (shift > 56) {
+                overflow |= 0 != bits;
+            }
+            else {
+                result |= bits << shift;
+            }
+
+            if (0 == (b & 0x80)) {
+                return overflow ? LEB128_OVERFLOW : result;
+            }
+
+            shift += 7;
+        }
+    }
+
+    /**
+     * <p>Reads an unsigned LEB128 value of any size.  This is the slower fallback for values that are too large
+     * to be read using {@link #tryReadUnsignedLeb128()}.</p>
+     */
+
+    public BigInteger readUnsignedLeb128BigInteger() {
+        BigInteger result = BigInteger.ZERO;
+        int shift = 0;
+
+        while (true) {
+            int b = readUnsignedByte();
+
+            result = result.or(BigInteger.valueOf(b & 0x7f).shiftLeft(shift));
+
+            if (0 == (b & 0x80)) {
+                return result;
+            }
+
+            shift += 7;
+        }
+    }
+
+    /**
+     * <p>Reads a string that is terminated with a zero byte.  The terminating byte is consumed, but does not
+     * form part of the string.  The string is assumed to be UTF-8 encoded.</p>
+     */
+
+    public String readNullTerminatedString() {
+        HeapChunk c = ensureChunk();
+        byte[] data = c.getData();
+        int start = (int) (offset - c.getOffset());
+
+        for (int i = start; i < c.getLength(); i++) {
+            if (0 == data[i]) {
+                offset += (i - start) + 1;
+                return new String(data, start, i - start, StandardCharsets.UTF_8);
+            }
+        }
+
+        // the string spans more than one chunk so it needs to be assembled.
+
+        ByteArrayOutputStream assembly = new ByteArrayOutputStream();
+
+        while (true) {
+            int b = readUnsignedByte();
+
+            if (0 == b) {
+                return assembly.toString(StandardCharsets.UTF_8);
+            }
+
+            assembly.write(b);
+        }
+    }
+
+}
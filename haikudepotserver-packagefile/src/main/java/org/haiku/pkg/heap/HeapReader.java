@@ -1,5 +1,5 @@
 /*
- * Copyright 2018, Andrew Lindesay
+ * Copyright 2018-2026, Andrew Lindesay
  * Distributed under the terms of the MIT License.
  */
 
@@ -27,4 +27,11 @@ public interface HeapReader {
 
     int readHeap(long offset);
 
+    /**
+     * <p>This method provides the chunk of the heap that contains the supplied offset.  This allows a reader, such
+     * as {@link HeapCursor}, to work directly on the chunk's data rather than reading one byte at a time.</p>
+     */
+
+    HeapChunk getHeapChunk(long offset);
+
 }
\ No newline at end of file
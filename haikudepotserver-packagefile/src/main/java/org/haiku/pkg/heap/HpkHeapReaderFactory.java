@@ -0,0 +1,57 @@
+/*
+ * Copyright 2026, Andrew Lindesay
+ * Distributed under the terms of the MIT License.
+ */
+
+package org.haiku.pkg.heap;
+
+import com.google.common.base.Preconditions;
+
+import java.io.File;
+
+/**
+ * <p>This object is able to create a reader for the heap in an HPK file.  It can be configured to create the
+ * different types of reader and to control how many chunks the reader will hold in memory.</p>
+ */
+
+public class HpkHeapReaderFactory {
+
+    private final HpkHeapReaderType type;
+
+    private final int chunkCacheSize;
+
+    public HpkHeapReaderFactory() {
+        this(HpkHeapReaderType.MAPPED, AbstractHpkHeapReader.DEFAULT_CHUNK_CACHE_SIZE);
+    }
+
+    public HpkHeapReaderFactory(HpkHeapReaderType type, int chunkCacheSize) {
+        Preconditions.checkArgument(null != type, "the type must be supplied");
+        Preconditions.checkArgument(chunkCacheSize > 0, "the chunk cache size must be at least one");
+        this.type = type;
+        this.chunkCacheSize = chunkCacheSize;
+    }
+
+    public HpkHeapReaderType getType() {
+        return type;
+    }
+
+    public int getChunkCacheSize() {
+        return chunkCacheSize;
+    }
+
+    public AbstractHpkHeapReader createHeapReader(
+            File file,
+            HeapCompression compression,
+            long heapOffset,
+            long chunkSize,
+            long compressedSize,
+            long uncompressedSize) {
+        return switch (type) {
+            case RANDOM_ACCESS_FILE -> new HpkHeapReader(
+                    file, compression, heapOffset, chunkSize, compressedSize, uncompressedSize, chunkCacheSize);
+            case MAPPED -> new MappedHpkHeapReader(
+                    file, compression, heapOffset, chunkSize, compressedSize, uncompressedSize, chunkCacheSize);
+        };
+    }
+
+}
@@ -0,0 +1,26 @@
+/*
+ * Copyright 2026, Andrew Lindesay
+ * Distributed under the terms of the MIT License.
+ */
+
+package org.haiku.pkg.heap;
+
+/**
+ * <p>The different implementations of {@link AbstractHpkHeapReader} that can be used to read the heap.</p>
+ */
+
+public enum HpkHeapReaderType {
+
+    /**
+     * <p>See {@link HpkHeapReader}.</p>
+     */
+
+    RANDOM_ACCESS_FILE,
+
+    /**
+     * <p>See {@link MappedHpkHeapReader}.</p>
+     */
+
+    MAPPED
+
+}
@@ -0,0 +1,250 @@
+/*
+ * Copyright 2026, Andrew Lindesay
+ * Distributed under the terms of the MIT License.
+ */
+
+package org.haiku.pkg.heap;
+
+import com.google.common.base.Preconditions;
+import io.airlift.compress.v3.Compressor;
+import io.airlift.compress.v3.zstd.ZstdJavaCompressor;
+import org.haiku.pkg.HpkException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+
+/**
+ * <p>This is the counterpart of {@link HpkHeapReader}; it accumulates the uncompressed data of the heap and is
+ * then able to write the heap out as compressed chunks followed by the unsigned shorts that carry the compressed
+ * length of each chunk except the last.  A chunk that does not become smaller when compressed is stored without
+ * compression as the reader expects.</p>
+ */
+
+public class HpkHeapWriter {
+
+    /**
+     * <p>The compressed length of each chunk is stored in an unsigned short so a chunk may not be larger than
+     * this.</p>
+     */
+
+    public final static int MAX_CHUNK_SIZE = 64 * 1024;
+
+    public final static int DEFAULT_CHUNK_SIZE = MAX_CHUNK_SIZE;
+
+    private final HeapCompression compression;
+
+    private final int chunkSize;
+
+    private final ByteArrayOutputStream uncompressedData = new ByteArrayOutputStream();
+
+    private byte[] compressedData = null;
+
+    public HpkHeapWriter(HeapCompression compression) {
+        this(compression, DEFAULT_CHUNK_SIZE);
+    }
+
+    public HpkHeapWriter(HeapCompression compression, int chunkSize) {
+        super();
+        Preconditions.checkNotNull(compression);
+        Preconditions.checkArgument(
+                HeapCompression.NONE != compression,
+                "the heap compression must be specified");
+        Preconditions.checkArgument(
+                chunkSize > 0 && chunkSize <= MAX_CHUNK_SIZE,
+                "the chunk size must be between 1 and " + MAX_CHUNK_SIZE);
+        this.compression = compression;
+        this.chunkSize = chunkSize;
+    }
+
+    public HeapCompression getCompression() {
+        return compression;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * <p>This is the offset in the uncompressed heap at which the next data will be written.</p>
+     */
+
+    public long getOffset() {
+        return uncompressedData.size();
+    }
+
+    public void write(int b) {
+        ensureNotCompressed();
+        uncompressedData.write(b);
+    }
+
+    public void write(byte[] data) {
+        Preconditions.checkNotNull(data);
+        ensureNotCompressed();
+        uncompressedData.write(data, 0, data.length);
+    }
+
+    /**
+     * <p>Writes the data to the heap and returns the coordinates at which it can be read back.</p>
+     */
+
+    public HeapCoordinates writeData(byte[] data) {
+        long offset = getOffset();
+        write(data);
+        return new HeapCoordinates(offset, data.length);
+    }
+
+    public void writeBigEndian(long value, int length) {
+        Preconditions.checkArgument(length > 0 && length <= 8);
+
+        for (int i = length - 1; i >= 0; i--) {
+            write((int) (value >>> (i * 8)) & 0xff);
+        }
+    }
+
+    public void writeUnsignedLeb128(long value) {
+        Preconditions.checkArgument(value >= 0, "the value must be positive");
+
+        do {
+            int b = (int) (value & 0x7f);
+            value >>>= 7;
+            write(0 == value ? b : b | 0x80);
+        } while (0 != value);
+    }
+
+    public void writeNullTerminatedString(String value) {
+        Preconditions.checkNotNull(value);
+        byte[] data = value.getBytes(StandardCharsets.UTF_8);
+
+        for (byte b : data) {
+            if (0 == b) {
+                throw new HpkException("a string written to the heap may not contain a null character");
+            }
+        }
+
+        write(data);
+        write(0);
+    }
+
+    public long getUncompressedSize() {
+        return uncompressedData.size();
+    }
+
+    /**
+     * <p>This is the size of the heap as it appears in the file including the compressed lengths of the
+     * chunks.  Once this has been called, no more data can be written to the heap.</p>
+     */
+
+    public long getCompressedSize() {
+        return getCompressedData().length;
+    }
+
+    public void writeTo(OutputStream outputStream) throws IOException {
+        Preconditions.checkNotNull(outputStream);
+        outputStream.write(getCompressedData());
+    }
+
+    private void ensureNotCompressed() {
+        Preconditions.checkState(null == compressedData, "the heap has already been compressed");
+    }
+
+    private byte[] getCompressedData() {
+        if (null == compressedData) {
+            compressedData = compress(uncompressedData.toByteArray());
+        }
+
+        return compressedData;
+    }
+
+    private byte[] compress(byte[] data) {
+        Preconditions.checkState(data.length > 0, "the heap is empty");
+
+        int chunkCount = (data.length + chunkSize - 1) / chunkSize;
+        int[] chunkCompressedLengths = new int[chunkCount];
+        ByteArrayOutputStream result = new ByteArrayOutputStream(data.length / 2);
+        ChunkCompressor chunkCompressor = createChunkCompressor();
+        byte[] buffer = new byte[chunkCompressor.maxCompressedLength(chunkSize)];
+
+        for (int i = 0; i < chunkCount; i++) {
+            int offset = i * chunkSize;
+            int length = Math.min(chunkSize, data.length - offset);
+            int compressedLength = chunkCompressor.compress(data, offset, length, buffer);
+
+            if (compressedLength > 0 && compressedLength < length) {
+                result.write(buffer, 0, compressedLength);
+                chunkCompressedLengths[i] = compressedLength;
+            } else {
+                result.write(data, offset, length);
+                chunkCompressedLengths[i] = length;
+            }
+        }
+
+        // as with the reader, the stored size is the length of the chunk -1 and the last one is derived.
+
+        for (int i = 0; i < chunkCount - 1; i++) {
+            int storedLength = chunkCompressedLengths[i] - 1;
+            result.write((storedLength >>> 8) & 0xff);
+            result.write(storedLength & 0xff);
+        }
+
+        return result.toByteArray();
+    }
+
+    private ChunkCompressor createChunkCompressor() {
+        return switch (compression) {
+            case ZLIB -> new ZlibChunkCompressor();
+            case ZSTD -> new ZstdChunkCompressor();
+            default -> throw new HpkException("unsupported heap compression [" + compression + "]");
+        };
+    }
+
+    private interface ChunkCompressor {
+
+        int maxCompressedLength(int length);
+
+        /**
+         * <p>Returns the length of the compressed data in the buffer or -1 if the data would not fit.</p>
+         */
+
+        int compress(byte[] data, int offset, int length, byte[] buffer);
+
+    }
+
+    private static class ZlibChunkCompressor implements ChunkCompressor {
+
+        @Override
+        public int maxCompressedLength(int length) {
+            return length;
+        }
+
+        @Override
+        public int compress(byte[] data, int offset, int length, byte[] buffer) {
+            try (Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION)) {
+                deflater.setInput(data, offset, length);
+                deflater.finish();
+                int compressedLength = deflater.deflate(buffer, 0, length);
+                return deflater.finished() ? compressedLength : -1;
+            }
+        }
+
+    }
+
+    private static class ZstdChunkCompressor implements ChunkCompressor {
+
+        private final Compressor compressor = new ZstdJavaCompressor();
+
+        @Override
+        public int maxCompressedLength(int length) {
+            return compressor.maxCompressedLength(length);
+        }
+
+        @Override
+        public int compress(byte[] data, int offset, int length, byte[] buffer) {
+            return compressor.compress(data, offset, length, buffer, 0, buffer.length);
+        }
+
+    }
+
+}
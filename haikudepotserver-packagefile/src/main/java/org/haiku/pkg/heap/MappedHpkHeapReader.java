@@ -0,0 +1,136 @@
+/*
+ * Copyright 2026, Andrew Lindesay
+ * Distributed under the terms of the MIT License.
+ */
+
+package org.haiku.pkg.heap;
+
+import com.google.common.base.Preconditions;
+import io.airlift.compress.v3.Decompressor;
+import io.airlift.compress.v3.zstd.ZstdJavaDecompressor;
+import org.haiku.pkg.HpkException;
+
+import java.io.File;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.Inflater;
+
+/**
+ * <P>An instance of this class is able to read the heap's chunks that are in HPK format.  This implementation
+ * maps the heap of the file into memory and reads the chunks from the mapped memory.  The offset of each chunk in
+ * the heap is computed once when the reader is created so that faulting a chunk does not require working through
+ * all of the chunks before it.  The objects used to decompress the chunks are retained and re-used between
+ * chunks.</P>
+ *
+ * <P>Note that the mapping of the file is only released once the reader is no longer referenced.</P>
+ */
+
+public class MappedHpkHeapReader extends AbstractHpkHeapReader {
+
+    private final MappedByteBuffer heapBuffer;
+
+    /**
+     * <p>The offset of each chunk relative to the start of the heap.</p>
+     */
+
+    private final int[] heapChunkOffsets;
+
+    private final Inflater inflater = new Inflater();
+
+    private final Decompressor zstdDecompressor = new ZstdJavaDecompressor();
+
+    /**
+     * <p>Zstd decompression requires an array as input; this buffer is re-used for each chunk and is sized to
+     * fit the largest chunk.</p>
+     */
+
+    private byte[] compressedBuffer = null;
+
+    private boolean closed = false;
+
+    public MappedHpkHeapReader(
+            final File file,
+            final HeapCompression compression,
+            final long heapOffset,
+            final long chunkSize,
+            final long compressedSize,
+            final long uncompressedSize,
+            final int chunkCacheSize) {
+
+        super(compression, heapOffset, chunkSize, compressedSize, uncompressedSize, chunkCacheSize);
+
+        Preconditions.checkNotNull(file);
+
+        try (FileChannel fileChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            heapBuffer = fileChannel.map(FileChannel.MapMode.READ_ONLY, heapOffset, compressedSize);
+
+            byte[] lengthsData = new byte[getHeapChunkCompressedLengthsDataLength()];
+            heapBuffer.get((int) (getHeapChunkCompressedLengthsAbsoluteFileOffset() - heapOffset), lengthsData);
+            populateChunkCompressedLengths(lengthsData);
+
+            heapChunkOffsets = new int[getHeapChunkCount()];
+
+            for (int i = 1; i < heapChunkOffsets.length; i++) {
+                heapChunkOffsets[i] = heapChunkOffsets[i - 1] + getHeapChunkCompressedLength(i - 1);
+            }
+        }
+        catch (Exception e) {
+            close();
+            throw new HpkException("unable to configure the mapped hpk heap reader",e);
+        }
+        catch (Throwable th) {
+            close();
+            throw new RuntimeException("unable to configure the mapped hpk heap reader",th);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (!closed) {
+            closed = true;
+            inflater.end();
+        }
+    }
+
+    @Override
+    synchronized void readHeapChunk(int index, byte[] buffer) {
+        Preconditions.checkState(!closed, "the heap reader is closed");
+
+        int chunkOffset = heapChunkOffsets[index];
+        int chunkUncompressedLength = getHeapChunkUncompressedLength(index);
+        int chunkCompressedLength = getHeapChunkCompressedLength(index);
+
+        if (isHeapChunkCompressed(index) || HeapCompression.NONE == compression) {
+
+            switch(compression) {
+                case NONE:
+                    throw new IllegalStateException();
+                case ZLIB:
+                    inflater.reset();
+                    inflater.setInput(heapBuffer.slice(chunkOffset, chunkCompressedLength));
+                    inflateHeapChunk(inflater, index, buffer, chunkUncompressedLength);
+                    break;
+                case ZSTD:
+                    heapBuffer.get(chunkOffset, ensureCompressedBuffer(chunkCompressedLength), 0, chunkCompressedLength);
+                    zstdDecompressor.decompress(
+                            compressedBuffer, 0, chunkCompressedLength,
+                            buffer, 0, chunkUncompressedLength);
+                    break;
+                default:
+                    throw new IllegalStateException("unsupported compression; "+compression);
+            }
+        }
+        else {
+            heapBuffer.get(chunkOffset, buffer, 0, chunkUncompressedLength);
+        }
+    }
+
+    private byte[] ensureCompressedBuffer(int length) {
+        if (null == compressedBuffer || compressedBuffer.length < length) {
+            compressedBuffer = new byte[Math.max(length, (int) chunkSize)];
+        }
+        return compressedBuffer;
+    }
+
+}
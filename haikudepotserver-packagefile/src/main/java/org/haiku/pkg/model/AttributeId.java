@@ -1,5 +1,5 @@
 /*
- * Copyright 2018-2025, Andrew Lindesay
+ * Copyright 2018-2026, Andrew Lindesay
  * Distributed under the terms of the MIT License.
  */
 
@@ -97,7 +97,7 @@ public enum AttributeId {
         this.attributeType = attributeType;
     }
 
-    int getCode() {
+    public int getCode() {
         return code;
     }
 
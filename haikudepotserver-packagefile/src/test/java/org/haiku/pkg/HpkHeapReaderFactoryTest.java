@@ -0,0 +1,109 @@
+/*
+ * Copyright 2026, Andrew Lindesay
+ * Distributed under the terms of the MIT License.
+ */
+
+package org.haiku.pkg;
+
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteSource;
+import org.haiku.pkg.heap.HpkHeapReaderFactory;
+import org.haiku.pkg.heap.HpkHeapReaderType;
+import org.haiku.pkg.model.Attribute;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+/**
+ * <p>Checks that the different types of heap reader read the same attributes from the same files.</p>
+ */
+
+public class HpkHeapReaderFactoryTest extends AbstractHpkTest {
+
+    @Test
+    public void testReadHpkr() throws Exception {
+        File hpkrFile = prepareTestFile("repo.hpkr");
+        List<String> randomAccessFileAttributes = readHpkrAttributes(
+                hpkrFile, new HpkHeapReaderFactory(HpkHeapReaderType.RANDOM_ACCESS_FILE, 3));
+
+        // ---------------------------------
+        List<String> mappedAttributes = readHpkrAttributes(
+                hpkrFile, new HpkHeapReaderFactory(HpkHeapReaderType.MAPPED, 1));
+        // ---------------------------------
+
+        assertThat(mappedAttributes.size()).isGreaterThan(1000);
+        assertThat(mappedAttributes).isEqualTo(randomAccessFileAttributes);
+    }
+
+    /**
+     * <p>This file has a heap of a number of chunks.</p>
+     */
+
+    @Test
+    public void testReadHpkg() throws Exception {
+        File hpkgFile = prepareTestFile("tipster-1.1.1-1-x86_64.hpkg");
+        List<String> randomAccessFileAttributes = readHpkgAttributes(
+                hpkgFile, new HpkHeapReaderFactory(HpkHeapReaderType.RANDOM_ACCESS_FILE, 3));
+
+        // ---------------------------------
+        List<String> mappedAttributes = readHpkgAttributes(
+                hpkgFile, new HpkHeapReaderFactory(HpkHeapReaderType.MAPPED, 1));
+        // ---------------------------------
+
+        assertThat(mappedAttributes).isNotEmpty();
+        assertThat(mappedAttributes).isEqualTo(randomAccessFileAttributes);
+    }
+
+    private List<String> readHpkrAttributes(File file, HpkHeapReaderFactory factory) throws Exception {
+        try (HpkrFileExtractor extractor = new HpkrFileExtractor(file, factory)) {
+            List<String> result = new ArrayList<>();
+            AttributeIterator iterator = extractor.getPackageAttributesIterator();
+            while (iterator.hasNext()) {
+                describe(iterator.getContext(), iterator.next(), result);
+            }
+            return result;
+        }
+    }
+
+    private List<String> readHpkgAttributes(File file, HpkHeapReaderFactory factory) throws Exception {
+        try (HpkgFileExtractor extractor = new HpkgFileExtractor(file, factory)) {
+            List<String> result = new ArrayList<>();
+            AttributeIterator iterator = extractor.getPackageAttributesIterator();
+            while (iterator.hasNext()) {
+                describe(iterator.getContext(), iterator.next(), result);
+            }
+            for (Attribute attribute : extractor.getToc()) {
+                describe(extractor.getTocContext(), attribute, result);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * <p>Produces a string for each attribute in the tree.  Raw data in the heap is read so that the data from
+     * all of the chunks is exercised.</p>
+     */
+
+    private void describe(AttributeContext context, Attribute attribute, List<String> assembly) throws Exception {
+        Object value = attribute.getValue(context);
+
+        if (value instanceof ByteSource byteSource) {
+            value = Hashing.sha256().hashBytes(byteSource.read()).toString();
+        }
+
+        if (value instanceof byte[] bytes) {
+            value = Hashing.sha256().hashBytes(bytes).toString();
+        }
+
+        assembly.add(attribute + "=" + value);
+
+        for (Attribute childAttribute : attribute.getChildAttributes()) {
+            describe(context, childAttribute, assembly);
+        }
+    }
+
+}
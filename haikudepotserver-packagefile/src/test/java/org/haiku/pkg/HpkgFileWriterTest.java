@@ -0,0 +1,135 @@
+/*
+ * Copyright 2026, Andrew Lindesay
+ * Distributed under the terms of the MIT License.
+ */
+
+package org.haiku.pkg;
+
+import com.google.common.io.ByteSource;
+import org.fest.assertions.Assertions;
+import org.haiku.pkg.heap.HeapCompression;
+import org.haiku.pkg.model.Attribute;
+import org.haiku.pkg.model.AttributeId;
+import org.haiku.pkg.model.FileAttributesValues;
+import org.haiku.pkg.model.IntAttribute;
+import org.haiku.pkg.model.Pkg;
+import org.haiku.pkg.model.PkgArchitecture;
+import org.haiku.pkg.model.PkgVersion;
+import org.haiku.pkg.model.RawInlineAttribute;
+import org.haiku.pkg.model.StringInlineAttribute;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class HpkgFileWriterTest extends AbstractHpkTest {
+
+    @Test
+    public void testWrite_zlib() throws Exception {
+        assertRoundTrip(HeapCompression.ZLIB, 4096);
+    }
+
+    @Test
+    public void testWrite_zstd() throws Exception {
+        assertRoundTrip(HeapCompression.ZSTD, 64 * 1024);
+    }
+
+    /**
+     * <p>The icon is larger than a chunk and is random so it does not compress; it will be stored in chunks
+     * that are not compressed.  The small attribute is inline.</p>
+     */
+
+    private void assertRoundTrip(HeapCompression compression, int chunkSize) throws Exception {
+        File hpkgFile = new File(temporaryFolder, "test.hpkg");
+        byte[] iconData = new byte[10_000];
+        new Random(20261017L).nextBytes(iconData);
+        byte[] smallData = new byte[] { 1, 2, 3 };
+        Pkg pkg = new Pkg(
+                "testpkg",
+                new PkgVersion("1", "2", null, null, 3),
+                PkgArchitecture.X86_64,
+                "Test Vendor",
+                List.of("Copyright 2026"),
+                List.of("MIT"),
+                "Test summary",
+                "Test description",
+                null);
+
+        // ---------------------------------
+        new HpkgFileWriter(compression, chunkSize).write(
+                hpkgFile,
+                List.of(
+                        createDirectoryEntry("apps", createExecutableEntry("TestApp", iconData, smallData)),
+                        createDirectoryEntry("data", createDirectoryEntry("empty"))),
+                new PkgAttributeFactory().createAttributes(pkg));
+        // ---------------------------------
+
+        try (HpkgFileExtractor hpkgFileExtractor = new HpkgFileExtractor(hpkgFile)) {
+            AttributeContext tocContext = hpkgFileExtractor.getTocContext();
+            List<Attribute> toc = toList(hpkgFileExtractor.getTocIterator());
+            Assertions.assertThat(toc.size()).isEqualTo(2);
+            Assertions.assertThat(toc.get(0).getValue(tocContext)).isEqualTo("apps");
+            Assertions.assertThat(toc.get(1).getValue(tocContext)).isEqualTo("data");
+
+            Attribute appEntry = toc.get(0).getChildAttribute(AttributeId.DIRECTORY_ENTRY);
+            Assertions.assertThat(appEntry.getValue(tocContext)).isEqualTo("TestApp");
+            Assertions.assertThat(((BigInteger) appEntry.getChildAttribute(AttributeId.FILE_PERMISSIONS)
+                    .getValue(tocContext)).intValue()).isEqualTo(0755);
+
+            List<Attribute> fileAttributes = appEntry.getChildAttributes(AttributeId.FILE_ATTRIBUTE);
+            Assertions.assertThat(fileAttributes.get(0).getValue(tocContext))
+                    .isEqualTo(FileAttributesValues.BEOS_ICON.getAttributeValue());
+            Assertions.assertThat(((ByteSource) fileAttributes.get(0).getChildAttribute(AttributeId.DATA)
+                    .getValue(tocContext)).read()).isEqualTo(iconData);
+            Assertions.assertThat(((ByteSource) fileAttributes.get(1).getChildAttribute(AttributeId.DATA)
+                    .getValue(tocContext)).read()).isEqualTo(smallData);
+
+            AttributeContext packageAttributeContext = hpkgFileExtractor.getPackageAttributeContext();
+            List<Attribute> packageAttributes = toList(hpkgFileExtractor.getPackageAttributesIterator());
+            Assertions.assertThat(packageAttributes.get(0).getAttributeId()).isEqualTo(AttributeId.PACKAGE_NAME);
+            Assertions.assertThat(packageAttributes.get(0).getValue(packageAttributeContext)).isEqualTo("testpkg");
+            Assertions.assertThat(packageAttributes.get(1).getAttributeId()).isEqualTo(AttributeId.PACKAGE_SUMMARY);
+            Assertions.assertThat(packageAttributes.get(1).getValue(packageAttributeContext))
+                    .isEqualTo("Test summary");
+        }
+    }
+
+    private Attribute createDirectoryEntry(String name, Attribute... children) {
+        Attribute result = new StringInlineAttribute(AttributeId.DIRECTORY_ENTRY, name);
+        List<Attribute> childAttributes = new ArrayList<>();
+        childAttributes.add(new IntAttribute(AttributeId.FILE_TYPE, BigInteger.ONE));
+        childAttributes.addAll(List.of(children));
+        result.setChildAttributes(childAttributes);
+        return result;
+    }
+
+    private Attribute createExecutableEntry(String name, byte[] iconData, byte[] smallData) {
+        Attribute icon = new StringInlineAttribute(
+                AttributeId.FILE_ATTRIBUTE, FileAttributesValues.BEOS_ICON.getAttributeValue());
+        icon.setChildAttributes(List.of(
+                new IntAttribute(AttributeId.FILE_ATTRIBUTE_TYPE, BigInteger.valueOf(0x7669636e)),
+                new RawInlineAttribute(AttributeId.DATA, iconData)));
+
+        Attribute small = new StringInlineAttribute(AttributeId.FILE_ATTRIBUTE, "SMALL");
+        small.setChildAttributes(List.of(new RawInlineAttribute(AttributeId.DATA, smallData)));
+
+        Attribute result = new StringInlineAttribute(AttributeId.DIRECTORY_ENTRY, name);
+        result.setChildAttributes(List.of(
+                new IntAttribute(AttributeId.FILE_PERMISSIONS, BigInteger.valueOf(0755)),
+                icon,
+                small));
+        return result;
+    }
+
+    private List<Attribute> toList(AttributeIterator attributeIterator) {
+        List<Attribute> assembly = new ArrayList<>();
+        while (attributeIterator.hasNext()) {
+            assembly.add(attributeIterator.next());
+        }
+        return assembly;
+    }
+
+}
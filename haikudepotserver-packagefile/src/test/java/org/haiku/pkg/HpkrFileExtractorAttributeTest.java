@@ -1,5 +1,5 @@
 /*
- * Copyright 2018-2022, Andrew Lindesay
+ * Copyright 2018-2026, Andrew Lindesay
  * Distributed under the terms of the MIT License.
  */
 
@@ -59,6 +59,40 @@ public class HpkrFileExtractorAttributeTest extends AbstractHpkTest {
 
     }
 
+    /**
+     * <p>Checks that iterating through all of the packages finishes at the end of the package attributes so that
+     * the offset can be used to gauge progress.</p>
+     */
+
+    @Test
+    public void testPackageAttributesOffsets() throws Exception {
+
+        File hpkrFile = prepareTestFile(RESOURCE_TEST);
+
+        try (HpkrFileExtractor hpkrFileExtractor = new HpkrFileExtractor(hpkrFile)) {
+            PkgIterator pkgIterator = new PkgIterator(hpkrFileExtractor.getPackageAttributesIterator());
+            long startOffset = hpkrFileExtractor.getPackageAttributesOffset();
+            long endOffset = hpkrFileExtractor.getPackageAttributesEndOffset();
+            long lastOffset = pkgIterator.getOffset();
+            int count = 0;
+
+            assertThat(lastOffset).isEqualTo(startOffset);
+
+            while (pkgIterator.hasNext()) {
+                pkgIterator.next();
+                assertThat(pkgIterator.getOffset()).isGreaterThan(lastOffset);
+                lastOffset = pkgIterator.getOffset();
+                count++;
+            }
+
+            // the terminating tag is read when checking for a next package.
+
+            assertThat(count).isEqualTo(235);
+            assertThat(pkgIterator.getOffset()).isEqualTo(endOffset);
+        }
+
+    }
+
     private Optional<Attribute> tryFindAttributesForPackage(AttributeIterator attributeIterator, String packageName) {
         while (attributeIterator.hasNext()) {
             Attribute attribute = attributeIterator.next();
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2026, Andrew Lindesay
+ * Distributed under the terms of the MIT License.
+ */
+
+package org.haiku.pkg;
+
+import org.fest.assertions.Assertions;
+import org.haiku.pkg.heap.HeapCompression;
+import org.haiku.pkg.model.Attribute;
+import org.haiku.pkg.model.Pkg;
+import org.haiku.pkg.model.PkgArchitecture;
+import org.haiku.pkg.model.PkgUrl;
+import org.haiku.pkg.model.PkgUrlType;
+import org.haiku.pkg.model.PkgVersion;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+public class HpkrFileWriterTest extends AbstractHpkTest {
+
+    private final static int PKG_COUNT = 2000;
+
+    /**
+     * <p>A small chunk size is used so that the packages and the strings table span many chunks.</p>
+     */
+
+    @Test
+    public void testWrite_zlib() throws Exception {
+        assertRoundTrip(HeapCompression.ZLIB, 1024);
+    }
+
+    @Test
+    public void testWrite_zstd() throws Exception {
+        assertRoundTrip(HeapCompression.ZSTD, 4096);
+    }
+
+    @Test
+    public void testWrite_repositoryInfo() throws Exception {
+        File hpkrFile = new File(temporaryFolder, "repoinfo.hpkr");
+        List<Pkg> pkgs = createPkgs(3);
+        HpkrFileWriter writer = new HpkrFileWriter(HeapCompression.ZLIB);
+        writer.setRepositoryInfo(new byte[] { 1, 2, 3, 4, 5 });
+
+        // ---------------------------------
+        writer.write(hpkrFile, createPackageAttributes(pkgs));
+        // ---------------------------------
+
+        Assertions.assertThat(readPkgs(hpkrFile).size()).isEqualTo(3);
+    }
+
+    private void assertRoundTrip(HeapCompression compression, int chunkSize) throws Exception {
+        File hpkrFile = new File(temporaryFolder, "test.hpkr");
+        List<Pkg> pkgs = createPkgs(PKG_COUNT);
+
+        // ---------------------------------
+        new HpkrFileWriter(compression, chunkSize).write(hpkrFile, createPackageAttributes(pkgs));
+        // ---------------------------------
+
+        List<Pkg> readPkgs = readPkgs(hpkrFile);
+        Assertions.assertThat(readPkgs.size()).isEqualTo(pkgs.size());
+
+        for (int i = 0; i < pkgs.size(); i++) {
+            Pkg expected = pkgs.get(i);
+            Pkg actual = readPkgs.get(i);
+            Assertions.assertThat(actual.getName()).isEqualTo(expected.getName());
+            Assertions.assertThat(actual.getVersion().toString()).isEqualTo(expected.getVersion().toString());
+            Assertions.assertThat(actual.getArchitecture()).isEqualTo(expected.getArchitecture());
+            Assertions.assertThat(actual.getVendor()).isEqualTo(expected.getVendor());
+            Assertions.assertThat(actual.getSummary()).isEqualTo(expected.getSummary());
+            Assertions.assertThat(actual.getDescription()).isEqualTo(expected.getDescription());
+            Assertions.assertThat(actual.getCopyrights()).isEqualTo(expected.getCopyrights());
+            Assertions.assertThat(actual.getLicenses()).isEqualTo(expected.getLicenses());
+
+            if (null == expected.getHomePageUrl()) {
+                Assertions.assertThat(actual.getHomePageUrl()).isNull();
+            } else {
+                Assertions.assertThat(actual.getHomePageUrl().getUrl()).isEqualTo(expected.getHomePageUrl().getUrl());
+                Assertions.assertThat(actual.getHomePageUrl().getName()).isEqualTo(expected.getHomePageUrl().getName());
+            }
+        }
+    }
+
+    private List<Pkg> readPkgs(File hpkrFile) throws Exception {
+        List<Pkg> result = new ArrayList<>();
+
+        try (HpkrFileExtractor hpkrFileExtractor = new HpkrFileExtractor(hpkrFile)) {
+            PkgIterator pkgIterator = new PkgIterator(hpkrFileExtractor.getPackageAttributesIterator());
+
+            while (pkgIterator.hasNext()) {
+                result.add(pkgIterator.next());
+            }
+        }
+
+        return result;
+    }
+
+    private List<Attribute> createPackageAttributes(List<Pkg> pkgs) {
+        PkgAttributeFactory pkgAttributeFactory = new PkgAttributeFactory();
+        return pkgs.stream().map(pkgAttributeFactory::createPackageAttribute).toList();
+    }
+
+    /**
+     * <p>The packages have a mixture of optional values, values that are repeated across packages so that
+     * they go into the strings table and values with characters outside of ASCII.</p>
+     */
+
+    private List<Pkg> createPkgs(int count) {
+        List<Pkg> result = new ArrayList<>();
+
+        for (int i = 0; i < count; i++) {
+            result.add(new Pkg(
+                    String.format("pkg%05d", i),
+                    new PkgVersion(
+                            Integer.toString(i % 7),
+                            Integer.toString(i % 3),
+                            0 == i % 2 ? null : Integer.toString(i),
+                            0 == i % 5 ? "beta" + i : null,
+                            0 == i % 4 ? null : 300 + i),
+                    PkgArchitecture.values()[i % PkgArchitecture.values().length],
+                    "Vendor " + (i % 10),
+                    List.of("Copyright " + (1990 + (i % 30)), "Ünïcödé Ltd."),
+                    0 == i % 3 ? List.of() : List.of("MIT"),
+                    "Summary of pkg " + i,
+                    "Description of pkg " + i + " — ".repeat(i % 20) + "終わり",
+                    switch (i % 3) {
+                        case 0 -> null;
+                        case 1 -> new PkgUrl("https://example.com/" + i, PkgUrlType.HOMEPAGE);
+                        default -> new PkgUrl("Example " + i + " <https://example.com/" + i + ">", PkgUrlType.HOMEPAGE);
+                    }));
+        }
+
+        return result;
+    }
+
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2026, Andrew Lindesay
+ * Distributed under the terms of the MIT License.
+ */
+
+package org.haiku.pkg.heap;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+/**
+ * <p>Checks the decoding of values by the {@link HeapCursor} including where values span chunks.</p>
+ */
+
+public class HeapCursorTest {
+
+    /**
+     * <p>This heap is split into very small chunks so that values will span more than one chunk.</p>
+     */
+
+    private static HeapReader createHeapReader(final byte[] data, final int chunkSize) {
+        return new HeapReader() {
+            @Override
+            public void readHeap(byte[] buffer, int bufferOffset, HeapCoordinates coordinates) {
+                System.arraycopy(data, (int) coordinates.getOffset(), buffer, bufferOffset, (int) coordinates.getLength());
+            }
+
+            @Override
+            public int readHeap(long offset) {
+                return data[(int) offset] & 0xff;
+            }
+
+            @Override
+            public HeapChunk getHeapChunk(long offset) {
+                int chunkOffset = (int) (offset - (offset % chunkSize));
+                int length = Math.min(chunkSize, data.length - chunkOffset);
+                byte[] chunkData = new byte[length];
+                System.arraycopy(data, chunkOffset, chunkData, 0, length);
+                return new HeapChunk(chunkOffset, chunkData, length);
+            }
+        };
+    }
+
+    private static byte[] toBytes(int... values) {
+        byte[] result = new byte[values.length];
+        for (int i = 0; i < values.length; i++) {
+            result[i] = (byte) values[i];
+        }
+        return result;
+    }
+
+    @Test
+    public void testTryReadUnsignedLeb128() {
+        // 624485 is the example from the wikipedia page on LEB128
+        HeapCursor cursor = new HeapCursor(createHeapReader(toBytes(0x00, 0xe5, 0x8e, 0x26, 0x7f), 2), 1);
+
+        // ---------------------------------
+        long value = cursor.tryReadUnsignedLeb128();
+        // ---------------------------------
+
+        assertThat(value).isEqualTo(624485L);
+        assertThat(cursor.getOffset()).isEqualTo(4L);
+        assertThat(cursor.tryReadUnsignedLeb128()).isEqualTo(127L);
+    }
+
+    @Test
+    public void testTryReadUnsignedLeb128_maximum() {
+        // this is Long.MAX_VALUE which is 63 bits set.
+        HeapCursor cursor = new HeapCursor(createHeapReader(
+                toBytes(0xff, 0xff, 0xff, 0xff, 0xff, 0xff, 0xff, 0xff, 0x7f), 3), 0);
+
+        // ---------------------------------
+        long value = cursor.tryReadUnsignedLeb128();
+        // ---------------------------------
+
+        assertThat(value).isEqualTo(Long.MAX_VALUE);
+    }
+
+    @Test
+    public void testTryReadUnsignedLeb128_overflow() {
+        // this is 2^63 which will not fit into a positive long.
+        byte[] data = toBytes(0x80, 0x80, 0x80, 0x80, 0x80, 0x80, 0x80, 0x80, 0x80, 0x01);
+        HeapCursor cursor = new HeapCursor(createHeapReader(data, 4), 0);
+
+        // ---------------------------------
+        long value = cursor.tryReadUnsignedLeb128();
+        // ---------------------------------
+
+        assertThat(value).isEqualTo(HeapCursor.LEB128_OVERFLOW);
+        assertThat(cursor.getOffset()).isEqualTo(10L);
+
+        cursor.setOffset(0);
+        assertThat(cursor.readUnsignedLeb128BigInteger()).isEqualTo(BigInteger.ONE.shiftLeft(63));
+    }
+
+    @Test
+    public void testReadBigEndian() {
+        HeapCursor cursor = new HeapCursor(createHeapReader(toBytes(0x12, 0x34, 0x56, 0x78, 0x9a), 2), 1);
+
+        // ---------------------------------
+        long value = cursor.readBigEndian(4);
+        // ---------------------------------
+
+        assertThat(value).isEqualTo(0x3456789aL);
+    }
+
+    @Test
+    public void testReadNullTerminatedString() {
+        byte[] data = toBytes('a', 'b', 0, 'c', 'd', 'e', 'f', 'g', 0, 'h');
+        HeapCursor cursor = new HeapCursor(createHeapReader(data, 4), 0);
+
+        // ---------------------------------
+        String valueInChunk = cursor.readNullTerminatedString();
+        String valueAcrossChunks = cursor.readNullTerminatedString();
+        // ---------------------------------
+
+        assertThat(valueInChunk).isEqualTo("ab");
+        assertThat(valueAcrossChunks).isEqualTo("cdefg");
+        assertThat(cursor.getOffset()).isEqualTo(9L);
+    }
+
+    @Test
+    public void testReadFully() {
+        byte[] data = toBytes(1, 2, 3, 4, 5, 6, 7, 8, 9);
+        HeapCursor cursor = new HeapCursor(createHeapReader(data, 2), 1);
+        byte[] buffer = new byte[7];
+
+        // ---------------------------------
+        cursor.readFully(buffer, 1, 6);
+        // ---------------------------------
+
+        assertThat(buffer).isEqualTo(toBytes(0, 2, 3, 4, 5, 6, 7));
+        assertThat(cursor.getOffset()).isEqualTo(7L);
+    }
+
+}
@@ -0,0 +1,335 @@
+/*
+ * Copyright 2026, Andrew Lindesay
+ * Distributed under the terms of the MIT License.
+ */
+
+package org.haiku.pkg.tool;
+
+import com.google.common.base.Preconditions;
+import org.haiku.pkg.HpkgFileWriter;
+import org.haiku.pkg.HpkrFileWriter;
+import org.haiku.pkg.PkgAttributeFactory;
+import org.haiku.pkg.heap.HeapCompression;
+import org.haiku.pkg.heap.HpkHeapWriter;
+import org.haiku.pkg.model.Attribute;
+import org.haiku.pkg.model.AttributeId;
+import org.haiku.pkg.model.FileAttributesValues;
+import org.haiku.pkg.model.IntAttribute;
+import org.haiku.pkg.model.Pkg;
+import org.haiku.pkg.model.PkgArchitecture;
+import org.haiku.pkg.model.PkgUrl;
+import org.haiku.pkg.model.PkgUrlType;
+import org.haiku.pkg.model.PkgVersion;
+import org.haiku.pkg.model.RawInlineAttribute;
+import org.haiku.pkg.model.StringInlineAttribute;
+import org.kohsuke.args4j.CmdLineException;
+import org.kohsuke.args4j.CmdLineParser;
+import org.kohsuke.args4j.Option;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * <p>This tool will generate a synthetic repository; an HPKR file with a large number of packages and optionally
+ * HPKG files for some of those packages.  The output is intended for load-testing the ingest of repositories and
+ * packages into the application server.  The same seed will produce the same output.</p>
+ */
+
+public class SyntheticRepositoryTool {
+
+    protected final static Logger LOGGER = LoggerFactory.getLogger(SyntheticRepositoryTool.class);
+
+    private final static String[] WORDS_ASCII = new String[] {
+            "fast", "simple", "editor", "viewer", "media", "player", "library", "tool", "network", "game",
+            "image", "audio", "file", "manager", "utility", "server", "client", "graphics", "text", "font" };
+
+    private final static String[] WORDS_LATIN = new String[] {
+            "éditeur", "lecteur", "bibliothèque", "größe", "übersicht", "señal", "açúcar", "ørken", "ƒichier",
+            "über", "naïve", "coöperatie" };
+
+    private final static String[] WORDS_CJK = new String[] {
+            "編集", "画像", "音声", "ファイル", "ネットワーク", "ゲーム", "ライブラリ", "文字", "管理", "播放器" };
+
+    private final static String[] WORDS_OTHER = new String[] {
+            "Привет", "текст", "Γειά", "αρχείο", "שלום", "مرحبا", "नमस्ते", "😀" };
+
+    private final static int[] HVIF_MAGIC = { 0x6e, 0x63, 0x69, 0x66 };
+
+    private final static int PERMISSIONS_EXECUTABLE = 0755;
+
+    private final static int PERMISSIONS_FILE = 0644;
+
+    /**
+     * <p>This describes the characters that are used in the summary and description of the packages.</p>
+     */
+
+    public enum TextShape {
+        ASCII,
+        LATIN,
+        CJK,
+        MIXED
+    }
+
+    /**
+     * <p>This describes the form of the home page URL of the packages.</p>
+     */
+
+    public enum UrlShape {
+        NONE,
+        NAKED,
+        NAMED,
+        MIXED
+    }
+
+    @Option(name = "-o", required = true, usage = "the directory into which the files are written is required")
+    private File outputDirectory;
+
+    @Option(name = "-n", usage = "the quantity of packages in the repository")
+    private int pkgCount = 50_000;
+
+    @Option(name = "-c", usage = "the compression of the heap; ZLIB or ZSTD")
+    private HeapCompression compression = HeapCompression.ZSTD;
+
+    @Option(name = "-k", usage = "the size of the heap chunks in bytes")
+    private int chunkSize = HpkHeapWriter.DEFAULT_CHUNK_SIZE;
+
+    @Option(name = "-s", usage = "the seed for the random number generator")
+    private long seed = 1L;
+
+    @Option(name = "-text", usage = "the characters used in summaries and descriptions; ASCII, LATIN, CJK or MIXED")
+    private TextShape textShape = TextShape.MIXED;
+
+    @Option(name = "-descriptionwords", usage = "the maximum quantity of words in a description")
+    private int descriptionWords = 80;
+
+    @Option(name = "-url", usage = "the form of the home page URLs; NONE, NAKED, NAMED or MIXED")
+    private UrlShape urlShape = UrlShape.MIXED;
+
+    @Option(name = "-hpkgcount", usage = "the quantity of packages for which an HPKG file is also written")
+    private int hpkgCount = 0;
+
+    @Option(name = "-iconsize", usage = "the size in bytes of the icon on each executable in an HPKG file")
+    private int iconSize = 2_048;
+
+    @Option(name = "-executables", usage = "the quantity of executables with icons in each HPKG file")
+    private int executableCount = 1;
+
+    @Option(name = "-desktoplink", usage = "include a deskbar link in each HPKG file")
+    private boolean desktopLink = false;
+
+    static void main(String[] args) {
+        SyntheticRepositoryTool main = new SyntheticRepositoryTool();
+        CmdLineParser parser = new CmdLineParser(main);
+
+        try {
+            parser.parseArgument(args);
+            main.run();
+        }
+        catch(CmdLineException cle) {
+            throw new IllegalStateException("unable to parse arguments",cle);
+        }
+    }
+
+    public void run() {
+        Preconditions.checkState(pkgCount > 0, "the package count must be at least one");
+        Preconditions.checkState(hpkgCount >= 0 && hpkgCount <= pkgCount, "the hpkg count must not exceed the package count");
+        Preconditions.checkState(iconSize >= HVIF_MAGIC.length, "the icon size is too small");
+        Preconditions.checkState(executableCount >= 0, "the executable count may not be negative");
+
+        try {
+            if (!outputDirectory.isDirectory() && !outputDirectory.mkdirs()) {
+                throw new IllegalStateException("unable to create the output directory [" + outputDirectory + "]");
+            }
+
+            Random random = new Random(seed);
+            PkgAttributeFactory pkgAttributeFactory = new PkgAttributeFactory();
+            List<Attribute> packageAttributes = new ArrayList<>(pkgCount);
+            long startMillis = System.currentTimeMillis();
+
+            for (int i = 0; i < pkgCount; i++) {
+                Pkg pkg = createPkg(random, i);
+                packageAttributes.add(pkgAttributeFactory.createPackageAttribute(pkg));
+
+                if (i < hpkgCount) {
+                    new HpkgFileWriter(compression, chunkSize).write(
+                            new File(outputDirectory, String.format("%s-%s-%s.hpkg",
+                                    pkg.getName(), pkg.getVersion(), pkg.getArchitecture().name().toLowerCase(Locale.ROOT))),
+                            createToc(random, pkg),
+                            pkgAttributeFactory.createAttributes(pkg));
+                }
+            }
+
+            File hpkrFile = new File(outputDirectory, "repo.hpkr");
+            new HpkrFileWriter(compression, chunkSize).write(hpkrFile, packageAttributes);
+
+            LOGGER.info("did write {} packages to [{}] and {} hpkg files in {}ms",
+                    pkgCount, hpkrFile, hpkgCount, System.currentTimeMillis() - startMillis);
+        } catch (Throwable th) {
+            LOGGER.error("unable to generate the synthetic repository", th);
+        }
+    }
+
+    private Pkg createPkg(Random random, int index) {
+        String name = String.format("synth_%s_%06d", WORDS_ASCII[index % WORDS_ASCII.length], index);
+        return new Pkg(
+                name,
+                new PkgVersion(
+                        Integer.toString(random.nextInt(20)),
+                        Integer.toString(random.nextInt(50)),
+                        random.nextBoolean() ? Integer.toString(random.nextInt(10)) : null,
+                        0 == random.nextInt(10) ? "beta" + random.nextInt(5) : null,
+                        1 + random.nextInt(5)),
+                randomArchitecture(random),
+                "Vendor " + random.nextInt(200),
+                List.of(String.format("%d-%d Some Author", 2000 + random.nextInt(20), 2020 + random.nextInt(7))),
+                List.of(0 == random.nextInt(3) ? "GNU GPL v2" : "MIT"),
+                createText(random, 3 + random.nextInt(8)),
+                createText(random, 1 + random.nextInt(Math.max(1, descriptionWords))),
+                createHomePageUrl(random, name));
+    }
+
+    /**
+     * <p>Real repositories have mostly packages for one architecture together with packages that are for any
+     * architecture.</p>
+     */
+
+    private PkgArchitecture randomArchitecture(Random random) {
+        return switch (random.nextInt(4)) {
+            case 0 -> PkgArchitecture.ANY;
+            case 1 -> PkgArchitecture.X86_GCC2;
+            default -> PkgArchitecture.X86_64;
+        };
+    }
+
+    private String createText(Random random, int wordCount) {
+        StringBuilder result = new StringBuilder();
+
+        for (int i = 0; i < wordCount; i++) {
+            if (!result.isEmpty()) {
+                result.append(' ');
+            }
+
+            String[] words = switch (textShape) {
+                case ASCII -> WORDS_ASCII;
+                case LATIN -> 0 == random.nextInt(3) ? WORDS_LATIN : WORDS_ASCII;
+                case CJK -> WORDS_CJK;
+                case MIXED -> switch (random.nextInt(6)) {
+                    case 0 -> WORDS_LATIN;
+                    case 1 -> WORDS_CJK;
+                    case 2 -> WORDS_OTHER;
+                    default -> WORDS_ASCII;
+                };
+            };
+
+            result.append(words[random.nextInt(words.length)]);
+        }
+
+        return result.toString();
+    }
+
+    private PkgUrl createHomePageUrl(Random random, String name) {
+        UrlShape shape = urlShape;
+
+        if (UrlShape.MIXED == shape) {
+            shape = UrlShape.values()[random.nextInt(UrlShape.MIXED.ordinal())];
+        }
+
+        String url = String.format("https://example.com/%s/%s", name, random.nextInt(1000));
+
+        return switch (shape) {
+            case NONE -> null;
+            case NAKED -> new PkgUrl(url, PkgUrlType.HOMEPAGE);
+            case NAMED -> new PkgUrl(String.format("%s home page <%s>", name, url), PkgUrlType.HOMEPAGE);
+            default -> throw new IllegalStateException("unknown url shape [" + shape + "]");
+        };
+    }
+
+    /**
+     * <p>Creates a TOC that has the executables in an application directory, each with an icon, as well as
+     * some data files and possibly a deskbar link to the first executable.</p>
+     */
+
+    private List<Attribute> createToc(Random random, Pkg pkg) {
+        List<Attribute> executables = new ArrayList<>();
+
+        for (int i = 0; i < executableCount; i++) {
+            executables.add(createFileEntry(
+                    String.format("%s%s", pkg.getName(), 0 == i ? "" : Integer.toString(i)),
+                    PERMISSIONS_EXECUTABLE,
+                    randomBytes(random, 1_024 + random.nextInt(16 * 1_024)),
+                    createIconAttribute(random)));
+        }
+
+        List<Attribute> data = new ArrayList<>();
+        data.add(createDirectoryEntry(pkg.getName(), List.of(
+                createFileEntry("README", PERMISSIONS_FILE, createText(random, 100).getBytes(StandardCharsets.UTF_8)))));
+
+        if (desktopLink && executableCount > 0) {
+            Attribute link = new StringInlineAttribute(AttributeId.DIRECTORY_ENTRY, pkg.getName());
+            link.setChildAttributes(List.of(
+                    new IntAttribute(AttributeId.FILE_TYPE, BigInteger.valueOf(2)),
+                    new StringInlineAttribute(AttributeId.SYMLINK_PATH, "../../../../apps/" + pkg.getName())));
+            data.add(createDirectoryEntry("deskbar", List.of(
+                    createDirectoryEntry("menu", List.of(
+                            createDirectoryEntry("Applications", List.of(link)))))));
+        }
+
+        return List.of(
+                createDirectoryEntry("apps", executables),
+                createDirectoryEntry("data", data));
+    }
+
+    private Attribute createDirectoryEntry(String name, List<Attribute> children) {
+        Attribute result = new StringInlineAttribute(AttributeId.DIRECTORY_ENTRY, name);
+        List<Attribute> childAttributes = new ArrayList<>();
+        childAttributes.add(new IntAttribute(AttributeId.FILE_TYPE, BigInteger.ONE));
+        childAttributes.addAll(children);
+        result.setChildAttributes(childAttributes);
+        return result;
+    }
+
+    private Attribute createFileEntry(String name, int permissions, byte[] data, Attribute... fileAttributes) {
+        Attribute result = new StringInlineAttribute(AttributeId.DIRECTORY_ENTRY, name);
+        List<Attribute> childAttributes = new ArrayList<>();
+        childAttributes.add(new IntAttribute(AttributeId.FILE_PERMISSIONS, BigInteger.valueOf(permissions)));
+        childAttributes.add(new RawInlineAttribute(AttributeId.DATA, data));
+        childAttributes.addAll(List.of(fileAttributes));
+        result.setChildAttributes(childAttributes);
+        return result;
+    }
+
+    /**
+     * <p>The icon data starts with the HVIF magic so that it looks like an icon, but the rest of the data is
+     * random and so the icon will not render.</p>
+     */
+
+    private Attribute createIconAttribute(Random random) {
+        byte[] data = randomBytes(random, iconSize);
+
+        for (int i = 0; i < HVIF_MAGIC.length; i++) {
+            data[i] = (byte) HVIF_MAGIC[i];
+        }
+
+        Attribute result = new StringInlineAttribute(
+                AttributeId.FILE_ATTRIBUTE,
+                FileAttributesValues.BEOS_ICON.getAttributeValue());
+        result.setChildAttributes(List.of(
+                new IntAttribute(AttributeId.FILE_ATTRIBUTE_TYPE, BigInteger.valueOf(0x7669636eL)), // 'vicn'
+                new RawInlineAttribute(AttributeId.DATA, data)));
+        return result;
+    }
+
+    private byte[] randomBytes(Random random, int length) {
+        byte[] result = new byte[length];
+        random.nextBytes(result);
+        return result;
+    }
+
+}
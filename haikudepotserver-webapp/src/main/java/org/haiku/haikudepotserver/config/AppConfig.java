@@ -9,11 +9,14 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.collect.ImmutableList;
 import io.micrometer.core.instrument.MeterRegistry;
 import org.apache.cayenne.configuration.server.ServerRuntime;
+import org.apache.commons.lang3.StringUtils;
+import org.haiku.haikudepotserver.job.DbDistributedJob2Configuration;
 import org.haiku.haikudepotserver.job.DbDistributedJob2ServiceImpl;
 import org.haiku.haikudepotserver.job.NoopJobServiceImpl;
 import org.haiku.haikudepotserver.job.model.JobRunner;
 import org.haiku.haikudepotserver.job.model.JobService;
 import org.haiku.haikudepotserver.pkg.model.PkgLocalizationLookupService;
+import org.haiku.haikudepotserver.storage.FileSystemDataStorageServiceImpl;
 import org.haiku.haikudepotserver.storage.PgDataStorageServiceImpl;
 import org.haiku.haikudepotserver.storage.model.DataStorageService;
 import org.haiku.haikudepotserver.thymeleaf.Dialect;
@@ -25,8 +28,10 @@ import org.springframework.context.annotation.Import;
 import org.springframework.core.io.Resource;
 
 import javax.sql.DataSource;
+import java.nio.file.Path;
 import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 
 @Import({BasicConfig.class, ScheduleConfig.class})
 @Configuration
@@ -35,6 +40,10 @@ public class AppConfig {
     @Bean
     public JobService jobService(
             @Value("${hds.jobservice.type:db2}") String type,
+            @Value("${hds.jobservice.workers:2}") int workers,
+            @Value("${hds.jobservice.priority-workers:1}") int priorityWorkers,
+            @Value("${hds.jobservice.priority-job-types:userratingderivation,passwordresetmaintenance}") Set<String> priorityJobTypeCodes,
+            @Value("${hds.jobservice.job-type-concurrency:repositoryhpkringress=1,pkgscreenshotimportarchive=1,pkgiconimportarchive=1}") String jobTypeConcurrencyLimits,
             ServerRuntime serverRuntime,
             DataStorageService dataStorageService,
             Collection<JobRunner<?>> jobRunners,
@@ -48,7 +57,12 @@ public class AppConfig {
                     objectMapper,
                     dataStorageService,
                     jobRunners,
-                    applicationEventPublisher);
+                    applicationEventPublisher,
+                    new DbDistributedJob2Configuration(
+                            workers,
+                            priorityWorkers,
+                            priorityJobTypeCodes,
+                            DbDistributedJob2Configuration.parseJobTypeConcurrencyLimits(jobTypeConcurrencyLimits)));
             default -> throw new IllegalStateException("unexpected job service type: " + type);
         };
     }
@@ -57,9 +71,21 @@ public class AppConfig {
     public DataStorageService dataStorageService(
             DataSource dataSource,
             MeterRegistry meterRegistry,
-            @Value("${hds.storage.pg.part-size:262144}") Long partSize
+            @Value("${hds.storage.type:pg}") String type,
+            @Value("${hds.storage.pg.part-size:262144}") Long partSize,
+            @Value("${hds.storage.pg.buffer-type:MEMORY}") PgDataStorageServiceImpl.BufferType bufferType,
+            @Value("${hds.storage.filesystem.root:}") String fileSystemRoot
     ) {
-        return new PgDataStorageServiceImpl(dataSource, meterRegistry, partSize);
+        return switch (type) {
+            case "pg" -> new PgDataStorageServiceImpl(dataSource, meterRegistry, partSize, bufferType);
+            case "filesystem" -> {
+                if (StringUtils.isBlank(fileSystemRoot)) {
+                    throw new IllegalStateException("the filesystem storage requires the root to be configured");
+                }
+                yield new FileSystemDataStorageServiceImpl(Path.of(fileSystemRoot));
+            }
+            default -> throw new IllegalStateException("unexpected storage type: " + type);
+        };
     }
 
     @Bean("messageSourceBaseNames")
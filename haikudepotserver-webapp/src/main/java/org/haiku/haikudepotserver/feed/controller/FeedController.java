@@ -1,5 +1,5 @@
 /*
- * Copyright 2018-2023, Andrew Lindesay
+ * Copyright 2018-2026, Andrew Lindesay
  * Distributed under the terms of the MIT License.
  */
 
@@ -8,41 +8,37 @@ package org.haiku.haikudepotserver.feed.controller;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Splitter;
 import com.google.common.base.Strings;
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableList;
-import com.rometools.rome.feed.synd.*;
-import com.rometools.rome.io.FeedException;
-import com.rometools.rome.io.SyndFeedOutput;
+import com.google.common.net.HttpHeaders;
 import org.haiku.haikudepotserver.feed.FeedServiceImpl;
+import org.haiku.haikudepotserver.feed.model.FeedRenderingService;
 import org.haiku.haikudepotserver.feed.model.FeedService;
 import org.haiku.haikudepotserver.feed.model.FeedSpecification;
-import org.haiku.haikudepotserver.feed.model.SyndEntrySupplier;
+import org.haiku.haikudepotserver.feed.model.RenderedFeed;
 import org.haiku.haikudepotserver.naturallanguage.model.NaturalLanguageCoordinates;
+import org.haiku.haikudepotserver.support.web.AbstractController;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.context.MessageSource;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
 
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.io.Writer;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Locale;
+import java.io.OutputStream;
 import java.util.Optional;
-import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 /**
  * <p>This controller produces an ATOM feed of the latest happenings </p>
+ *
+ * <p>The feeds are served from the {@link FeedRenderingService} with a strong entity tag so that a client
+ * which already has the feed is answered with a 304 response.</p>
  */
 
 @Controller
@@ -50,81 +46,17 @@ import java.util.stream.Stream;
         "/feed", // [apl 3.okt.2018] legacy - to be removed
         FeedService.PATH_ROOT
 })
-public class FeedController {
+public class FeedController extends AbstractController {
 
     protected static Logger LOGGER = LoggerFactory.getLogger(FeedController.class);
 
-    private final static String FEED_TITLE = "Haiku Depot Server Feed";
-    private final static String FEED_ICON_TITLE = "Haiku Depot Server Icon";
-
     private final static int DEFAULT_LIMIT = 50;
     private final static int MAX_LIMIT = 100;
 
-    private final static long EXPIRY_CACHE_SECONDS = 60;
-
-    private final List<SyndEntrySupplier> syndEntrySuppliers;
-    private final MessageSource messageSource;
-    private final String baseUrl;
-
-    private final LoadingCache<FeedSpecification,SyndFeed> feedCache;
-
-    public FeedController(
-            List<SyndEntrySupplier> syndEntrySuppliers,
-            MessageSource messageSource,
-            @Value("${hds.base-url}") String baseUrl) {
-        this.syndEntrySuppliers = Preconditions.checkNotNull(syndEntrySuppliers);
-        this.messageSource = Preconditions.checkNotNull(messageSource);
-        this.baseUrl = Preconditions.checkNotNull(baseUrl);
-
-        feedCache = CacheBuilder
-                .newBuilder()
-                .maximumSize(10)
-                .expireAfterWrite(EXPIRY_CACHE_SECONDS, TimeUnit.SECONDS)
-                .build(new CacheLoader<>() {
-                    @Override
-                    public SyndFeed load(FeedSpecification key) {
-                        return createFeed(key);
-                    }
-                });
-    }
-
-    private SyndFeed createFeed(FeedSpecification specification) {
-        Preconditions.checkNotNull(specification);
-        Locale locale = Locale.ENGLISH;
-
-        if (null != specification.getNaturalLanguageCoordinates()) {
-            locale = specification.getNaturalLanguageCoordinates().toLocale();
-        }
-
-        SyndFeed feed = new SyndFeedImpl();
-        feed.setFeedType(specification.getFeedType().getFeedType());
-        feed.setTitle(FEED_TITLE);
-        feed.setDescription(messageSource.getMessage("feed.description", new Object[] {}, locale));
-        feed.setLink(baseUrl);
-        feed.setPublishedDate(new java.util.Date());
-
-        SyndImage image = new SyndImageImpl();
-        image.setUrl(baseUrl + "/__img/haikudepot32.png");
-        image.setTitle(FEED_ICON_TITLE);
-        feed.setImage(image);
-
-        List<SyndEntry> entries = new ArrayList<>();
+    private final FeedRenderingService feedRenderingService;
 
-        for(SyndEntrySupplier supplier : syndEntrySuppliers) {
-            entries.addAll(supplier.generate(specification));
-        }
-
-        // sort the entries and then take the first number of them up to the limit.
-
-        entries.sort((o1, o2) -> -1 * o1.getPublishedDate().compareTo(o2.getPublishedDate()));
-
-        if(entries.size() > specification.getLimit()) {
-            entries = entries.subList(0,specification.getLimit());
-        }
-
-        feed.setEntries(entries);
-
-        return feed;
+    public FeedController(FeedRenderingService feedRenderingService) {
+        this.feedRenderingService = Preconditions.checkNotNull(feedRenderingService);
     }
 
     @RequestMapping(
@@ -136,7 +68,8 @@ public class FeedController {
             @RequestParam(value = FeedServiceImpl.KEY_NATURALLANGUAGECODE, required = false) String naturalLanguageCode,
             @RequestParam(value = FeedServiceImpl.KEY_PKGNAMES, required = false) String pkgNames,
             @RequestParam(value = FeedServiceImpl.KEY_LIMIT, required = false) Integer limit,
-            @RequestParam(value = FeedServiceImpl.KEY_TYPES, required = false) String types) throws IOException, FeedException {
+            @RequestParam(value = FeedServiceImpl.KEY_TYPES, required = false) String types,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatchHeader) throws IOException {
 
         Preconditions.checkNotNull(response);
 
@@ -175,15 +108,21 @@ public class FeedController {
             specification.setPkgNames(Splitter.on('-').trimResults().omitEmptyStrings().splitToList(pkgNames));
         }
 
-        SyndFeed feed = feedCache.getUnchecked(specification);
+        RenderedFeed renderedFeed = feedRenderingService.render(specification);
 
-        response.setContentType(feedType.getContentType());
+        response.setContentType(renderedFeed.contentType());
+        response.setHeader(HttpHeaders.ETAG, renderedFeed.eTag());
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, renderedFeed.lastModifyTimestamp().getTime());
 
-        Writer writer = response.getWriter();
-        SyndFeedOutput syndFeedOutput = new SyndFeedOutput();
-        syndFeedOutput.output(feed, writer);
+        if (isETagMatch(ifNoneMatchHeader, renderedFeed.eTag())) {
+            response.setStatus(HttpStatus.NOT_MODIFIED.value());
+            return;
+        }
 
-        writer.close();
+        response.setContentLength(renderedFeed.data().length);
+        OutputStream outputStream = response.getOutputStream();
+        outputStream.write(renderedFeed.data());
+        outputStream.flush();
     }
 
     private Optional<FeedSpecification.FeedType> tryDeriveFeedTypeByExtension(String extension) {
@@ -23,6 +23,7 @@ import org.haiku.haikudepotserver.support.web.AbstractController;
 import org.haiku.haikudepotserver.support.web.WebConstants;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpRange;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.access.PermissionEvaluator;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -40,6 +41,8 @@ import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.Date;
+import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 import java.util.regex.Pattern;
 
@@ -224,7 +227,10 @@ public class JobController extends AbstractController {
     public void downloadGeneratedData(
             HttpServletRequest request,
             HttpServletResponse response,
-            @PathVariable(value = KEY_GUID) String guid)
+            @PathVariable(value = KEY_GUID) String guid,
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String rangeHeader,
+            @RequestHeader(value = HttpHeaders.IF_RANGE, required = false) String ifRangeHeader,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatchHeader)
     throws IOException {
 
         Preconditions.checkArgument(PATTERN_GUID.matcher(guid).matches(), "the supplied guid does not match the required pattern");
@@ -285,12 +291,82 @@ public class JobController extends AbstractController {
         response.setDateHeader(HttpHeaders.EXPIRES, 0);
         response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
 
+        // The stored data does not change once it has been written and so the GUID of the data is able to be
+        // used as the entity tag. This allows clients to revalidate and to resume downloads.
+
+        String eTag = "\"" + guid + "\"";
+        response.setHeader(HttpHeaders.ETAG, eTag);
+
+        if (isETagMatch(ifNoneMatchHeader, eTag)) {
+            response.setStatus(HttpStatus.NOT_MODIFIED.value());
+            return;
+        }
+
+        ByteSource byteSource = jobDataWithByteSink.getByteSource();
+        Optional<Long> sizeOptional = byteSource.sizeIfKnown().toJavaUtil();
+
+        // ranges are only supported where the storage is able to efficiently provide the size of the data.
+
+        if (sizeOptional.isPresent()) {
+            long size = sizeOptional.get();
+            response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+            Optional<HttpRange> rangeOptional = tryGetSingleRange(rangeHeader, ifRangeHeader, eTag);
+
+            if (rangeOptional.isPresent()) {
+                long start = rangeOptional.get().getRangeStart(size);
+                long end = rangeOptional.get().getRangeEnd(size);
+
+                // the range is not checked against the size when it is parsed.
+
+                if (start >= size || end < start) {
+                    response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+                    return;
+                }
+
+                response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes %d-%d/%d".formatted(start, end, size));
+                response.setContentLengthLong(end - start + 1);
+                byteSource.slice(start, end - start + 1).copyTo(response.getOutputStream());
+                LOGGER.info("did stream range {}-{} of job data; {}", start, end, guid);
+                return;
+            }
+
+            response.setContentLengthLong(size);
+        }
+
         OutputStream outputStream = response.getOutputStream();
-        jobDataWithByteSink.getByteSource().copyTo(outputStream);
+        byteSource.copyTo(outputStream);
 
         LOGGER.info("did start async stream job data; {}", guid);
     }
 
+    /**
+     * <p>Only a single range is supported; if more than one range is requested or the range is malformed then
+     * the whole of the data is supplied. If the <code>If-Range</code> header does not match then the data may
+     * have changed and so the whole of the data is supplied.</p>
+     */
+
+    private static Optional<HttpRange> tryGetSingleRange(String rangeHeader, String ifRangeHeader, String eTag) {
+        if (StringUtils.isBlank(rangeHeader)) {
+            return Optional.empty();
+        }
+
+        if (StringUtils.isNotBlank(ifRangeHeader) && !ifRangeHeader.trim().equals(eTag)) {
+            return Optional.empty();
+        }
+
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(rangeHeader);
+            return 1 == ranges.size() ? Optional.of(ranges.getFirst()) : Optional.empty();
+        } catch (IllegalArgumentException iae) {
+            LOGGER.warn("bad [{}] header on request; [{}] -- will ignore",
+                    HttpHeaders.RANGE, StringUtils.abbreviate(rangeHeader, 128));
+            return Optional.empty();
+        }
+    }
+
     @ResponseStatus(value= HttpStatus.UNAUTHORIZED, reason="access to job data denied")
     private static class JobDataAuthorizationFailure extends RuntimeException {}
 
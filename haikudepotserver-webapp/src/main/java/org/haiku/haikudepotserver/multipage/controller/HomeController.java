@@ -1,5 +1,5 @@
 /*
- * Copyright 2018-2024, Andrew Lindesay
+ * Copyright 2018-2026, Andrew Lindesay
  * Distributed under the terms of the MIT License.
  */
 
@@ -17,6 +17,7 @@ import org.haiku.haikudepotserver.multipage.MultipageConstants;
 import org.haiku.haikudepotserver.multipage.model.Pagination;
 import org.haiku.haikudepotserver.naturallanguage.model.NaturalLanguageCoordinates;
 import org.haiku.haikudepotserver.pkg.FixedPkgLocalizationLookupServiceImpl;
+import org.haiku.haikudepotserver.pkg.model.PkgSearchResult;
 import org.haiku.haikudepotserver.pkg.model.PkgSearchSpecification;
 import org.haiku.haikudepotserver.pkg.model.PkgService;
 import org.haiku.haikudepotserver.support.AbstractSearchSpecification;
@@ -146,13 +147,9 @@ public class HomeController {
             default -> throw new IllegalStateException("unhandled view criteria type");
         }
 
-        Long totalPkgVersions = pkgService.total(context, searchSpecification);
-
-        if(searchSpecification.getOffset() > totalPkgVersions) {
-            searchSpecification.setOffset(totalPkgVersions.intValue());
-        }
-
-        List<PkgVersion> pkgVersions = pkgService.search(context, searchSpecification);
+        PkgSearchResult searchResult = pkgService.searchWithTotal(context, searchSpecification);
+        long totalPkgVersions = searchResult.total();
+        List<PkgVersion> pkgVersions = searchResult.pkgVersions();
 
         // ------------------------------
         // GENERATE OUTPUT
@@ -185,7 +182,7 @@ public class HomeController {
         data.setSearchExpression(searchExpression);
         data.setPkgVersions(pkgVersions);
 
-        int total = totalPkgVersions.intValue();
+        int total = (int) totalPkgVersions;
 
         if (0 != total) {
             data.setPagination(new Pagination(
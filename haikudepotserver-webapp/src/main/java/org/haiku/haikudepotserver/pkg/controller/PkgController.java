@@ -1,5 +1,5 @@
 /*
- * Copyright 2018-2023, Andrew Lindesay
+ * Copyright 2018-2026, Andrew Lindesay
  * Distributed under the terms of the MIT License.
  */
 
@@ -12,6 +12,7 @@ import org.apache.cayenne.configuration.server.ServerRuntime;
 import org.haiku.haikudepotserver.dataobjects.RepositorySource;
 import org.haiku.haikudepotserver.job.controller.JobController;
 import org.haiku.haikudepotserver.job.model.JobService;
+import org.haiku.haikudepotserver.pkg.model.PkgDumpDeltaExportJobSpecification;
 import org.haiku.haikudepotserver.pkg.model.PkgDumpExportJobSpecification;
 import org.haiku.haikudepotserver.pkg.model.PkgService;
 import org.slf4j.Logger;
@@ -22,6 +23,7 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
 
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
@@ -36,6 +38,7 @@ public class PkgController {
 
     private final static String KEY_REPOSITORYSOURCECODE = "repositorySourceCode";
     private final static String KEY_NATURALLANGUAGECODE = "naturalLanguageCode";
+    private final static String KEY_SINCE = "since";
 
     private final ServerRuntime serverRuntime;
     private final JobService jobService;
@@ -93,4 +96,51 @@ public class PkgController {
         }
     }
 
+    /**
+     * <p>As {@link #getAllAsJson} but only includes those packages that have changed since the
+     * supplied timestamp (milliseconds since the epoch) together with &quot;tombstones&quot; for
+     * package versions that have since been deactivated.  A client would supply the
+     * <code>dataModifiedTimestamp</code> from the last data it obtained.  The since timestamp is
+     * rounded down into a bucket so that the generated data can be shared between clients.</p>
+     */
+
+    @RequestMapping(value = "/changes-{repositorySourceCode}-{naturalLanguageCode}.json.gz", method = RequestMethod.GET)
+    public void getChangesAsJson(
+            HttpServletResponse response,
+            @PathVariable(value = KEY_NATURALLANGUAGECODE) String naturalLanguageCode,
+            @PathVariable(value = KEY_REPOSITORYSOURCECODE) String repositorySourceCode,
+            @RequestParam(value = KEY_SINCE) long since,
+            @RequestHeader(value = HttpHeaders.IF_MODIFIED_SINCE, required = false) String ifModifiedSinceHeader)
+            throws IOException {
+
+        if (since < 0) {
+            response.setStatus(HttpStatus.BAD_REQUEST.value());
+            return;
+        }
+
+        ObjectContext objectContext = serverRuntime.newContext();
+
+        Optional<RepositorySource> repositorySourceOptional =
+                RepositorySource.tryGetByCode(objectContext, repositorySourceCode);
+
+        if (repositorySourceOptional.isEmpty()) {
+            LOGGER.info("repository source [" + repositorySourceCode + "] not found");
+            response.setStatus(HttpStatus.NOT_FOUND.value());
+        } else {
+            Date lastModifiedTimestamp = pkgService.getLastChangeTimestampSecondAccuracy(
+                    objectContext, repositorySourceOptional.get());
+            PkgDumpDeltaExportJobSpecification specification = new PkgDumpDeltaExportJobSpecification();
+            specification.setNaturalLanguageCode(naturalLanguageCode);
+            specification.setRepositorySourceCode(repositorySourceCode);
+            specification.setSinceTimestamp(since);
+
+            JobController.handleRedirectToJobData(
+                    response,
+                    jobService,
+                    ifModifiedSinceHeader,
+                    lastModifiedTimestamp,
+                    specification);
+        }
+    }
+
 }
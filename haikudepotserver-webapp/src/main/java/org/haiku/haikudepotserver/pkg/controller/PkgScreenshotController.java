@@ -1,5 +1,5 @@
 /*
- * Copyright 2018-2023, Andrew Lindesay
+ * Copyright 2018-2026, Andrew Lindesay
  * Distributed under the terms of the MIT License.
  */
 
@@ -7,7 +7,6 @@ package org.haiku.haikudepotserver.pkg.controller;
 
 import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
-import com.google.common.io.ByteStreams;
 import com.google.common.net.HttpHeaders;
 import com.google.common.net.MediaType;
 import jakarta.mail.internet.MimeUtility;
@@ -22,7 +21,6 @@ import org.haiku.haikudepotserver.job.model.JobService;
 import org.haiku.haikudepotserver.job.model.JobSnapshot;
 import org.haiku.haikudepotserver.pkg.model.*;
 import org.haiku.haikudepotserver.security.model.Permission;
-import org.haiku.haikudepotserver.support.ByteCounterOutputStream;
 import org.haiku.haikudepotserver.support.web.AbstractController;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -31,6 +29,7 @@ import org.springframework.security.access.PermissionEvaluator;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
@@ -77,9 +76,16 @@ public class PkgScreenshotController extends AbstractController {
         this.permissionEvaluator = Preconditions.checkNotNull(permissionEvaluator);
     }
 
+    /**
+     * <p>The entity tag is derived from the stored screenshot and so a conditional request is able to be
+     * answered without rendering the screenshot. A <code>HEAD</code> request only needs the length of the
+     * rendition which is retained once the rendition has been rendered.</p>
+     */
+
     private void handleHeadOrGet(
             RequestMethod requestMethod,
             HttpServletResponse response,
+            String ifNoneMatchHeader,
             Integer targetWidth,
             Integer targetHeight,
             String format,
@@ -104,23 +110,33 @@ public class PkgScreenshotController extends AbstractController {
 
         ObjectContext context = serverRuntime.newContext();
         PkgScreenshot screenshot = PkgScreenshot.tryGetByCode(context, screenshotCode).orElseThrow(ScreenshotNotFound::new);
+        String eTag = pkgScreenshotService.deriveRenditionETag(screenshot, targetWidth, targetHeight);
 
         response.setContentType(MediaType.PNG.toString());
         response.setHeader(HttpHeaders.CACHE_CONTROL, "max-age=3600");
+        response.setHeader(HttpHeaders.ETAG, eTag);
 
         response.setDateHeader(
                 HttpHeaders.LAST_MODIFIED,
                 screenshot.getPkgSupplement().getLatestPkgModifyTimestampSecondAccuracy().getTime());
 
+        if (isETagMatch(ifNoneMatchHeader, eTag)) {
+            response.setStatus(HttpStatus.NOT_MODIFIED.value());
+            return;
+        }
+
         switch (requestMethod) {
             case HEAD -> {
-                ByteCounterOutputStream byteCounter = new ByteCounterOutputStream(ByteStreams.nullOutputStream());
-                pkgScreenshotService.writePkgScreenshotImage(byteCounter, context, screenshot, targetWidth, targetHeight);
-                response.setContentLength((int) byteCounter.getCounter());
+                PkgScreenshotRenditionMetadata metadata = pkgScreenshotService.getPkgScreenshotRenditionMetadata(
+                        context, screenshot, targetWidth, targetHeight);
+                response.setContentLength(metadata.length());
             }
             case GET -> {
+                PkgScreenshotRendition rendition = pkgScreenshotService.getPkgScreenshotRendition(
+                        context, screenshot, targetWidth, targetHeight);
+                response.setContentLength(rendition.metadata().length());
                 OutputStream outputStream = response.getOutputStream();
-                pkgScreenshotService.writePkgScreenshotImage(outputStream, context, screenshot, targetWidth, targetHeight);
+                outputStream.write(rendition.data());
                 outputStream.flush();
             }
             default -> throw new IllegalStateException("unhandled request method; " + requestMethod);
@@ -131,6 +147,7 @@ public class PkgScreenshotController extends AbstractController {
     @RequestMapping(value = "/{"+KEY_SCREENSHOTCODE+"}.{"+KEY_FORMAT+"}", method = RequestMethod.HEAD)
     public void handleHead(
             HttpServletResponse response,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatchHeader,
             @RequestParam(value = KEY_TARGETWIDTH) Integer targetWidth,
             @RequestParam(value = KEY_TARGETHEIGHT) Integer targetHeight,
             @PathVariable(value = KEY_FORMAT) String format,
@@ -140,6 +157,7 @@ public class PkgScreenshotController extends AbstractController {
         handleHeadOrGet(
                 RequestMethod.HEAD,
                 response,
+                ifNoneMatchHeader,
                 targetWidth,
                 targetHeight,
                 format,
@@ -150,6 +168,7 @@ public class PkgScreenshotController extends AbstractController {
     @RequestMapping(value = "/{"+KEY_SCREENSHOTCODE+"}.{"+KEY_FORMAT+"}", method = RequestMethod.GET)
     public void handleGet(
             HttpServletResponse response,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatchHeader,
             @RequestParam(value = KEY_TARGETWIDTH) int targetWidth,
             @RequestParam(value = KEY_TARGETHEIGHT) int targetHeight,
             @PathVariable(value = KEY_FORMAT) String format,
@@ -159,6 +178,7 @@ public class PkgScreenshotController extends AbstractController {
         handleHeadOrGet(
                 RequestMethod.GET,
                 response,
+                ifNoneMatchHeader,
                 targetWidth,
                 targetHeight,
                 format,
@@ -1,11 +1,31 @@
 /*
- * Copyright 2013-2016, Andrew Lindesay
+ * Copyright 2013-2026, Andrew Lindesay
  * Distributed under the terms of the MIT License.
  */
 
 package org.haiku.haikudepotserver.support.web;
 
+import org.apache.commons.lang3.StringUtils;
 import org.haiku.haikudepotserver.security.AbstractUserAuthenticationAware;
 
+import java.util.Arrays;
+
 public class AbstractController extends AbstractUserAuthenticationAware {
+
+    /**
+     * <p>Returns true if the <code>If-None-Match</code> header supplied by the client matches the entity tag
+     * of the resource; in which case the client already has the resource.</p>
+     */
+
+    protected static boolean isETagMatch(String ifNoneMatchHeader, String eTag) {
+        if (StringUtils.isBlank(ifNoneMatchHeader)) {
+            return false;
+        }
+
+        return Arrays.stream(StringUtils.split(ifNoneMatchHeader, ','))
+                .map(StringUtils::trim)
+                .map(t -> StringUtils.removeStart(t, "W/"))
+                .anyMatch(t -> t.equals("*") || t.equals(eTag));
+    }
+
 }
@@ -0,0 +1,194 @@
+/*
+ * Copyright 2026, Andrew Lindesay
+ * Distributed under the terms of the MIT License.
+ */
+
+package org.haiku.haikudepotserver.job.controller;
+
+import com.google.common.io.ByteSource;
+import com.google.common.net.HttpHeaders;
+import org.apache.cayenne.ObjectContext;
+import org.apache.cayenne.configuration.server.ServerRuntime;
+import org.fest.assertions.Assertions;
+import org.haiku.haikudepotserver.job.model.JobData;
+import org.haiku.haikudepotserver.job.model.JobDataEncoding;
+import org.haiku.haikudepotserver.job.model.JobDataType;
+import org.haiku.haikudepotserver.job.model.JobDataWithByteSource;
+import org.haiku.haikudepotserver.job.model.JobService;
+import org.haiku.haikudepotserver.job.model.JobSnapshot;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.access.PermissionEvaluator;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+/**
+ * <p>Checks the handling of the conditional and range headers when job data is downloaded. The job has no owner
+ * so that access to the data is not checked.</p>
+ */
+
+public class JobControllerTest {
+
+    private final static String GUID = "6c7f1f0e-1c53-4b2e-9a65-0b1d2c3e4f50";
+
+    private final static String ETAG = "\"" + GUID + "\"";
+
+    private final static byte[] DATA = "0123456789".getBytes(StandardCharsets.UTF_8);
+
+    private JobController jobController;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        ServerRuntime serverRuntime = Mockito.mock(ServerRuntime.class);
+        Mockito.when(serverRuntime.newContext()).thenReturn(Mockito.mock(ObjectContext.class));
+
+        JobSnapshot jobSnapshot = Mockito.mock(JobSnapshot.class);
+        Mockito.when(jobSnapshot.getOwnerUserNickname()).thenReturn(null);
+
+        JobService jobService = Mockito.mock(JobService.class);
+        Mockito.doReturn(Optional.of(jobSnapshot)).when(jobService).tryGetJobForData(GUID);
+        Mockito.when(jobService.tryObtainData(GUID)).thenReturn(Optional.of(new JobDataWithByteSource(
+                new JobData(GUID, JobDataType.GENERATED, "download", "text/plain", JobDataEncoding.NONE),
+                ByteSource.wrap(DATA))));
+        Mockito.when(jobService.deriveDataFilename(GUID)).thenReturn("data.txt");
+
+        jobController = new JobController(serverRuntime, jobService, Mockito.mock(PermissionEvaluator.class));
+    }
+
+    @Test
+    public void testDownloadGeneratedData_whole() throws IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // ------------------------------------
+        jobController.downloadGeneratedData(new MockHttpServletRequest(), response, GUID, null, null, null);
+        // ------------------------------------
+
+        Assertions.assertThat(response.getStatus()).isEqualTo(HttpStatus.OK.value());
+        Assertions.assertThat(response.getHeader(HttpHeaders.ETAG)).isEqualTo(ETAG);
+        Assertions.assertThat(response.getHeader(HttpHeaders.ACCEPT_RANGES)).isEqualTo("bytes");
+        Assertions.assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isNull();
+        Assertions.assertThat(response.getContentLengthLong()).isEqualTo(DATA.length);
+        Assertions.assertThat(response.getContentAsByteArray()).isEqualTo(DATA);
+    }
+
+    @Test
+    public void testDownloadGeneratedData_ifNoneMatch() throws IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // ------------------------------------
+        jobController.downloadGeneratedData(
+                new MockHttpServletRequest(), response, GUID, null, null, "\"other\", " + ETAG);
+        // ------------------------------------
+
+        Assertions.assertThat(response.getStatus()).isEqualTo(HttpStatus.NOT_MODIFIED.value());
+        Assertions.assertThat(response.getHeader(HttpHeaders.ETAG)).isEqualTo(ETAG);
+        Assertions.assertThat(response.getContentAsByteArray()).isEmpty();
+    }
+
+    @Test
+    public void testDownloadGeneratedData_ifNoneMatchMismatch() throws IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // ------------------------------------
+        jobController.downloadGeneratedData(
+                new MockHttpServletRequest(), response, GUID, null, null, "\"other\"");
+        // ------------------------------------
+
+        Assertions.assertThat(response.getStatus()).isEqualTo(HttpStatus.OK.value());
+        Assertions.assertThat(response.getContentAsByteArray()).isEqualTo(DATA);
+    }
+
+    @Test
+    public void testDownloadGeneratedData_range() throws IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // ------------------------------------
+        jobController.downloadGeneratedData(new MockHttpServletRequest(), response, GUID, "bytes=2-5", null, null);
+        // ------------------------------------
+
+        Assertions.assertThat(response.getStatus()).isEqualTo(HttpStatus.PARTIAL_CONTENT.value());
+        Assertions.assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 2-5/10");
+        Assertions.assertThat(response.getContentLengthLong()).isEqualTo(4L);
+        Assertions.assertThat(response.getContentAsString()).isEqualTo("2345");
+    }
+
+    @Test
+    public void testDownloadGeneratedData_rangeSuffix() throws IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // ------------------------------------
+        jobController.downloadGeneratedData(new MockHttpServletRequest(), response, GUID, "bytes=-3", null, null);
+        // ------------------------------------
+
+        Assertions.assertThat(response.getStatus()).isEqualTo(HttpStatus.PARTIAL_CONTENT.value());
+        Assertions.assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 7-9/10");
+        Assertions.assertThat(response.getContentAsString()).isEqualTo("789");
+    }
+
+    @Test
+    public void testDownloadGeneratedData_rangeNotSatisfiable() throws IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // ------------------------------------
+        jobController.downloadGeneratedData(new MockHttpServletRequest(), response, GUID, "bytes=20-30", null, null);
+        // ------------------------------------
+
+        Assertions.assertThat(response.getStatus()).isEqualTo(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+        Assertions.assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes */10");
+        Assertions.assertThat(response.getContentAsByteArray()).isEmpty();
+    }
+
+    /**
+     * <p>More than one range is not supported and so the whole of the data should be supplied.</p>
+     */
+
+    @Test
+    public void testDownloadGeneratedData_multipleRanges() throws IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // ------------------------------------
+        jobController.downloadGeneratedData(new MockHttpServletRequest(), response, GUID, "bytes=0-1,4-5", null, null);
+        // ------------------------------------
+
+        Assertions.assertThat(response.getStatus()).isEqualTo(HttpStatus.OK.value());
+        Assertions.assertThat(response.getContentAsByteArray()).isEqualTo(DATA);
+    }
+
+    @Test
+    public void testDownloadGeneratedData_rangeWithIfRange() throws IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // ------------------------------------
+        jobController.downloadGeneratedData(new MockHttpServletRequest(), response, GUID, "bytes=2-5", ETAG, null);
+        // ------------------------------------
+
+        Assertions.assertThat(response.getStatus()).isEqualTo(HttpStatus.PARTIAL_CONTENT.value());
+        Assertions.assertThat(response.getContentAsString()).isEqualTo("2345");
+    }
+
+    /**
+     * <p>If the <code>If-Range</code> does not match then the data may have changed and so the whole of the data
+     * should be supplied rather than the range.</p>
+     */
+
+    @Test
+    public void testDownloadGeneratedData_rangeWithIfRangeMismatch() throws IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // ------------------------------------
+        jobController.downloadGeneratedData(
+                new MockHttpServletRequest(), response, GUID, "bytes=2-5", "\"other\"", null);
+        // ------------------------------------
+
+        Assertions.assertThat(response.getStatus()).isEqualTo(HttpStatus.OK.value());
+        Assertions.assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isNull();
+        Assertions.assertThat(response.getContentAsByteArray()).isEqualTo(DATA);
+    }
+
+}
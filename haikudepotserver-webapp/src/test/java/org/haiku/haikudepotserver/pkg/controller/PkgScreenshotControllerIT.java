@@ -1,5 +1,5 @@
 /*
- * Copyright 2018-2025, Andrew Lindesay
+ * Copyright 2018-2026, Andrew Lindesay
  * Distributed under the terms of the MIT License.
  */
 
@@ -7,7 +7,9 @@ package org.haiku.haikudepotserver.pkg.controller;
 
 import com.google.common.hash.HashCode;
 import com.google.common.hash.Hashing;
+import com.google.common.net.HttpHeaders;
 import com.google.common.net.MediaType;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.annotation.Resource;
 import org.apache.cayenne.ObjectContext;
 import org.fest.assertions.Assertions;
@@ -19,8 +21,10 @@ import org.haiku.haikudepotserver.dataobjects.Pkg;
 import org.haiku.haikudepotserver.dataobjects.PkgScreenshot;
 import org.haiku.haikudepotserver.dataobjects.PkgSupplementModification;
 import org.haiku.haikudepotserver.graphics.ImageHelper;
+import org.haiku.haikudepotserver.metrics.MetricsConstants;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
 import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.test.context.ContextConfiguration;
@@ -40,6 +44,9 @@ public class PkgScreenshotControllerIT extends AbstractIntegrationTest {
     @Resource
     private IntegrationTestSupportService integrationTestSupportService;
 
+    @Resource
+    private MeterRegistry meterRegistry;
+
     /**
      * <p>This will return an image that can be used as a sample screenshot.</p>
      */
@@ -105,6 +112,7 @@ public class PkgScreenshotControllerIT extends AbstractIntegrationTest {
         // ------------------------------------
         pkgScreenshotController.handleGet(
                 response,
+                null,
                 640, 480,
                 "png",
                 data.pkg1.getPkgSupplement().getSortedPkgScreenshots().get(0).getCode());
@@ -126,6 +134,7 @@ public class PkgScreenshotControllerIT extends AbstractIntegrationTest {
         // ------------------------------------
         pkgScreenshotController.handleGet(
                 response,
+                null,
                 160, 120,
                 "png",
                 data.pkg1.getPkgSupplement().getSortedPkgScreenshots().get(0).getCode());
@@ -140,4 +149,65 @@ public class PkgScreenshotControllerIT extends AbstractIntegrationTest {
 
     }
 
+    /**
+     * <p>If the entity tag of the rendition is supplied then the rendition need not be supplied again.</p>
+     */
+
+    @Test
+    public void testGet_ifNoneMatch() throws Exception {
+
+        IntegrationTestSupportService.StandardTestData data = integrationTestSupportService.createStandardTestData();
+        String code = data.pkg1.getPkgSupplement().getSortedPkgScreenshots().get(0).getCode();
+        MockHttpServletResponse firstResponse = new MockHttpServletResponse();
+        pkgScreenshotController.handleGet(firstResponse, null, 160, 120, "png", code);
+        String eTag = firstResponse.getHeader(HttpHeaders.ETAG);
+        Assertions.assertThat(eTag).isNotEmpty();
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // ------------------------------------
+        pkgScreenshotController.handleGet(response, eTag, 160, 120, "png", code);
+        // -----------------------------------
+
+        Assertions.assertThat(response.getStatus()).isEqualTo(HttpStatus.NOT_MODIFIED.value());
+        Assertions.assertThat(response.getHeader(HttpHeaders.ETAG)).isEqualTo(eTag);
+        Assertions.assertThat(response.getContentAsByteArray()).isEmpty();
+
+    }
+
+    /**
+     * <p>Once the rendition has been rendered, a HEAD request is answered from the retained metadata of the
+     * rendition and so it is not rendered again.</p>
+     */
+
+    @Test
+    public void testHead_afterGet() throws Exception {
+
+        IntegrationTestSupportService.StandardTestData data = integrationTestSupportService.createStandardTestData();
+        String code = data.pkg1.getPkgSupplement().getSortedPkgScreenshots().get(0).getCode();
+        MockHttpServletResponse getResponse = new MockHttpServletResponse();
+        pkgScreenshotController.handleGet(getResponse, null, 160, 120, "png", code);
+        double rendersBefore = countRenders();
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // ------------------------------------
+        pkgScreenshotController.handleHead(response, null, 160, 120, "png", code);
+        // -----------------------------------
+
+        Assertions.assertThat(response.getStatus()).isEqualTo(HttpStatus.OK.value());
+        Assertions.assertThat(response.getHeader(HttpHeaders.ETAG)).isEqualTo(getResponse.getHeader(HttpHeaders.ETAG));
+        Assertions.assertThat(response.getContentLength()).isEqualTo(getResponse.getContentAsByteArray().length);
+        Assertions.assertThat(response.getContentAsByteArray()).isEmpty();
+        Assertions.assertThat(countRenders()).isEqualTo(rendersBefore);
+
+    }
+
+    private double countRenders() {
+        return meterRegistry.get(MetricsConstants.COUNTER_NAME_PKG_SCREENSHOT_RENDITION_CACHE)
+                .tag(MetricsConstants.TAG_NAME_RESULT, "render")
+                .counter()
+                .count();
+    }
+
 }